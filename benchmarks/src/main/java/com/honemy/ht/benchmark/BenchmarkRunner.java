@@ -0,0 +1,61 @@
+package com.honemy.ht.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Entry point of the benchmark jar.
+ * Accepts the regular JMH command line options, but writes JSON results to jmh-result.json
+ * and enables the gc profiler unless told otherwise, so results can be compared between builds.
+ */
+public final class BenchmarkRunner {
+
+	/**
+	 * The default file to write the results to.
+	 */
+	private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(final String[] args) throws Exception {
+		final CommandLineOptions commandLine = new CommandLineOptions(args);
+
+		if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+
+		final ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+
+		if (!commandLine.getResultFormat().hasValue())
+			options.resultFormat(ResultFormatType.JSON);
+
+		if (!commandLine.getResult().hasValue())
+			options.result(DEFAULT_RESULT_FILE);
+
+		if (!hasGcProfiler(commandLine))
+			options.addProfiler(GCProfiler.class);
+
+		new Runner(options.build()).run();
+	}
+
+	/**
+	 * Checks if the gc profiler was already requested on the command line.
+	 *
+	 * @param commandLine the parsed command line
+	 * @return true if the gc profiler is enabled, false otherwise
+	 */
+	private static boolean hasGcProfiler(final CommandLineOptions commandLine) {
+		for (final ProfilerConfig profiler : commandLine.getProfilers())
+			if ("gc".equals(profiler.getKlass()) || GCProfiler.class.getName().equals(profiler.getKlass()))
+				return true;
+
+		return false;
+	}
+}
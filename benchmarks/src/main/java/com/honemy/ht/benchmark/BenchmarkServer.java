@@ -0,0 +1,196 @@
+package com.honemy.ht.benchmark;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Lightweight stand-in for a Bukkit server, installed once before the benchmarks run.
+ * Every interface is backed by a dynamic proxy that answers the few calls HTools makes
+ * and returns default values for everything else, so no server jar is needed.
+ */
+public final class BenchmarkServer {
+
+	/**
+	 * The Bukkit version reported by the stand-in server.
+	 */
+	private static final String BUKKIT_VERSION = "1.20.6-R0.1-SNAPSHOT";
+
+	/**
+	 * The logger of the stand-in server, which discards all records.
+	 */
+	private static final Logger LOGGER = createLogger();
+
+	/**
+	 * The last message sent to any stand-in command sender, kept so the JIT cannot drop the work.
+	 */
+	private static volatile Object lastMessage;
+
+	/**
+	 * Whether the stand-in server has been installed.
+	 */
+	private static boolean installed;
+
+	private BenchmarkServer() {
+	}
+
+	/**
+	 * Installs the stand-in server into {@link Bukkit}, if not already done.
+	 */
+	public static synchronized void install() {
+		if (installed)
+			return;
+
+		final ConsoleCommandSender console = createSender(ConsoleCommandSender.class);
+		final PluginManager pluginManager = proxy(PluginManager.class, (proxy, method, args) -> {
+			if ("getPlugins".equals(method.getName()))
+				return new Plugin[0];
+
+			return defaultValue(method.getReturnType());
+		});
+
+		final Server server = proxy(Server.class, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "getName":
+					return "BenchmarkServer";
+				case "getVersion":
+				case "getBukkitVersion":
+					return BUKKIT_VERSION;
+				case "getLogger":
+					return LOGGER;
+				case "getPluginManager":
+					return pluginManager;
+				case "getConsoleSender":
+					return console;
+				case "isPrimaryThread":
+					return true;
+				default:
+					return defaultValue(method.getReturnType());
+			}
+		});
+
+		Bukkit.setServer(server);
+		installed = true;
+	}
+
+	/**
+	 * Creates a command sender that records the messages it receives.
+	 *
+	 * @param type the sender interface to implement
+	 * @param <T>  the sender type
+	 * @return the command sender
+	 */
+	public static <T extends CommandSender> T createSender(final Class<T> type) {
+		return proxy(type, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "sendMessage":
+					lastMessage = args[args.length - 1];
+					return null;
+				case "getName":
+					return "BenchmarkSender";
+				case "hasPermission":
+				case "isOp":
+					return true;
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "equals":
+					return proxy == args[0];
+				case "toString":
+					return type.getSimpleName();
+				default:
+					return defaultValue(method.getReturnType());
+			}
+		});
+	}
+
+	/**
+	 * Returns the last message sent to any stand-in command sender.
+	 *
+	 * @return the last message
+	 */
+	public static Object getLastMessage() {
+		return lastMessage;
+	}
+
+	/**
+	 * Creates a dynamic proxy for the given interface.
+	 *
+	 * @param type    the interface to implement
+	 * @param handler the invocation handler
+	 * @param <T>     the interface type
+	 * @return the proxy
+	 */
+	private static <T> T proxy(final Class<T> type, final InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(BenchmarkServer.class.getClassLoader(), new Class<?>[]{type}, handler));
+	}
+
+	/**
+	 * Returns the default value for the given return type.
+	 *
+	 * @param type the return type
+	 * @return null, false or zero depending on the type
+	 */
+	private static Object defaultValue(final Class<?> type) {
+		if (!type.isPrimitive() || type == void.class)
+			return null;
+
+		if (type == boolean.class)
+			return false;
+
+		if (type == char.class)
+			return '\0';
+
+		if (type == long.class)
+			return 0L;
+
+		if (type == float.class)
+			return 0F;
+
+		if (type == double.class)
+			return 0D;
+
+		if (type == byte.class)
+			return (byte) 0;
+
+		if (type == short.class)
+			return (short) 0;
+
+		return 0;
+	}
+
+	/**
+	 * Creates a logger that accepts every record and discards it, so logging cost is measured without console I/O.
+	 *
+	 * @return the logger
+	 */
+	private static Logger createLogger() {
+		final Logger logger = Logger.getAnonymousLogger();
+
+		logger.setUseParentHandlers(false);
+		logger.addHandler(new Handler() {
+			@Override
+			public void publish(final LogRecord record) {
+				lastMessage = record.getMessage();
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		});
+
+		return logger;
+	}
+}
@@ -0,0 +1,57 @@
+package com.honemy.ht.benchmark;
+
+import com.honemy.ht.Common;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link Common#colorize(String)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommonBenchmark {
+
+	/**
+	 * A short message with a few color codes.
+	 */
+	private String shortMessage;
+
+	/**
+	 * A chat line sized message with many color codes.
+	 */
+	private String longMessage;
+
+	/**
+	 * A message without any color codes.
+	 */
+	private String plainMessage;
+
+	@Setup
+	public void setup() {
+		BenchmarkServer.install();
+
+		this.shortMessage = "&8&l[&9&li&8&l]&7 Hello!";
+		this.longMessage = "&8&l[&5&l!&l&8]&d &7Player &bNotch &7has won the &6&lEvent&7 with &a1500 &7points, congratulations &c<3";
+		this.plainMessage = "Welcome to the server, have a nice stay and read the rules before playing.";
+	}
+
+	@Benchmark
+	public String colorizeShort() {
+		return Common.colorize(this.shortMessage);
+	}
+
+	@Benchmark
+	public String colorizeLong() {
+		return Common.colorize(this.longMessage);
+	}
+
+	@Benchmark
+	public String colorizePlain() {
+		return Common.colorize(this.plainMessage);
+	}
+}
@@ -0,0 +1,62 @@
+package com.honemy.ht.benchmark;
+
+import com.honemy.ht.Messenger;
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for sending prefixed messages through {@link Messenger}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessengerBenchmark {
+
+	/**
+	 * The stand-in sender receiving the messages.
+	 */
+	private CommandSender sender;
+
+	/**
+	 * A single line message.
+	 */
+	private String message;
+
+	/**
+	 * A multi line message.
+	 */
+	private String[] messages;
+
+	@Setup
+	public void setup() {
+		BenchmarkServer.install();
+
+		this.sender = BenchmarkServer.createSender(CommandSender.class);
+		this.message = "You have &a3 &7new mails, use &b/mail read &7to read them.";
+		this.messages = new String[]{
+				"&7Usage: &b/warp <name>",
+				"&7Teleports you to the given warp.",
+				"none",
+				"&7Use &b/warps &7to list all warps."
+		};
+	}
+
+	@Benchmark
+	public Object info() {
+		Messenger.info(this.sender, this.message);
+
+		return BenchmarkServer.getLastMessage();
+	}
+
+	@Benchmark
+	public Object infoMultiple() {
+		Messenger.info(this.sender, this.messages);
+
+		return BenchmarkServer.getLastMessage();
+	}
+}
@@ -0,0 +1,52 @@
+package com.honemy.ht.benchmark;
+
+import com.honemy.ht.logger.ModernLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Benchmarks for {@link ModernLogger}, logging into a handler that discards all records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModernLoggerBenchmark {
+
+	/**
+	 * The message to log.
+	 */
+	private String message;
+
+	@Setup
+	public void setup() {
+		BenchmarkServer.install();
+
+		this.message = "Saved 128 player profiles in 12 ms";
+	}
+
+	@Benchmark
+	public Object log() {
+		ModernLogger.log(Level.INFO, this.message);
+
+		return BenchmarkServer.getLastMessage();
+	}
+
+	@Benchmark
+	public Object logNoPrefix() {
+		ModernLogger.logNoPrefix(Level.INFO, this.message);
+
+		return BenchmarkServer.getLastMessage();
+	}
+
+	@Benchmark
+	public Object logFiltered() {
+		ModernLogger.log(Level.FINEST, this.message);
+
+		return BenchmarkServer.getLastMessage();
+	}
+}
@@ -0,0 +1,64 @@
+package com.honemy.ht.benchmark;
+
+import com.honemy.ht.RandomUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for picking random items with {@link RandomUtil}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomUtilBenchmark {
+
+	/**
+	 * The amount of items to pick from.
+	 */
+	@Param({"8", "256"})
+	public int size;
+
+	/**
+	 * The items as an array.
+	 */
+	private Integer[] array;
+
+	/**
+	 * The items as a list.
+	 */
+	private List<Integer> list;
+
+	@Setup
+	public void setup() {
+		BenchmarkServer.install();
+
+		this.array = new Integer[this.size];
+		this.list = new ArrayList<>(this.size);
+
+		for (int i = 0; i < this.size; i++) {
+			this.array[i] = i;
+			this.list.add(i);
+		}
+	}
+
+	@Benchmark
+	public Integer nextItemArray() {
+		return RandomUtil.nextItem(this.array);
+	}
+
+	@Benchmark
+	public Integer nextItemIterable() {
+		return RandomUtil.nextItem(this.list);
+	}
+
+	@Benchmark
+	public Integer nextItemFiltered() {
+		return RandomUtil.nextItem(this.list, item -> (item & 1) == 0);
+	}
+}
@@ -0,0 +1,48 @@
+package com.honemy.ht.benchmark;
+
+import com.honemy.ht.ReflectionUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link ReflectionUtil#getPrivateField(Object, String)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReflectionUtilBenchmark {
+
+	/**
+	 * The object holding the private field, shaped like a command map.
+	 */
+	private CommandMapHolder holder;
+
+	@Setup
+	public void setup() {
+		BenchmarkServer.install();
+
+		this.holder = new CommandMapHolder();
+	}
+
+	@Benchmark
+	public Object getPrivateField() throws ReflectiveOperationException {
+		return ReflectionUtil.getPrivateField(this.holder, "knownCommands");
+	}
+
+	/**
+	 * Stand-in for the server command map, holding its commands in a private field.
+	 */
+	public static class CommandMapHolder {
+
+		/**
+		 * The registered commands.
+		 */
+		private final Map<String, Object> knownCommands = new HashMap<>();
+	}
+}
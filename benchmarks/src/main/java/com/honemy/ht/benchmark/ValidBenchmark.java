@@ -0,0 +1,76 @@
+package com.honemy.ht.benchmark;
+
+import com.honemy.ht.CompiledStringMatcher;
+import com.honemy.ht.NumberParser;
+import com.honemy.ht.Valid;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the number and list checks in {@link Valid}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidBenchmark {
+
+	/**
+	 * The input to check, covering valid and invalid numbers.
+	 */
+	@Param({"12345", "-42", "3.14159", "1.5e10", "0x1F", "notanumber"})
+	public String input;
+
+	/**
+	 * A typical command blacklist.
+	 */
+	private List<String> blacklist;
+
+	/**
+	 * The same blacklist, compiled.
+	 */
+	private CompiledStringMatcher compiledBlacklist;
+
+	@Setup
+	public void setup() {
+		BenchmarkServer.install();
+
+		this.blacklist = Arrays.asList("/op", "/deop", "/stop", "/reload", "/pl", "/plugins", "/ver", "/version", "/about", "/?", "/help", "/me", "/tell", "/msg", "/w");
+		this.compiledBlacklist = CompiledStringMatcher.compile(this.blacklist);
+	}
+
+	@Benchmark
+	public boolean isNumber() {
+		return Valid.isNumber(this.input);
+	}
+
+	@Benchmark
+	public boolean isInteger() {
+		return Valid.isInteger(this.input);
+	}
+
+	@Benchmark
+	public boolean isDecimal() {
+		return Valid.isDecimal(this.input);
+	}
+
+	@Benchmark
+	public int parseIntFallback() {
+		return NumberParser.parseInt(this.input, -1);
+	}
+
+	@Benchmark
+	public boolean isInList() {
+		return Valid.isInList(this.input, this.blacklist);
+	}
+
+	@Benchmark
+	public boolean isInListCompiled() {
+		return Valid.isInList(this.input, this.compiledBlacklist);
+	}
+}
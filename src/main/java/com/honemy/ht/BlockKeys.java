@@ -0,0 +1,171 @@
+package com.honemy.ht;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+
+/**
+ * Utility class packing chunk and block coordinates into single longs, to key primitive collections
+ * such as {@link com.honemy.ht.collection.Long2ObjectMap} without allocating a key per lookup.
+ * <p>
+ * Keys do not include the world, use one collection per world.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class BlockKeys {
+
+	/**
+	 * The amount of bits of the block x and z coordinates, covering the whole world border.
+	 */
+	private static final int XZ_BITS = 26;
+
+	/**
+	 * The amount of bits of the block y coordinate, covering -2048 to 2047.
+	 */
+	private static final int Y_BITS = 12;
+
+	/**
+	 * The mask of the block x and z coordinates.
+	 */
+	private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+
+	/**
+	 * The mask of the block y coordinate.
+	 */
+	private static final long Y_MASK = (1L << Y_BITS) - 1;
+
+	/**
+	 * The shift of the block x coordinate.
+	 */
+	private static final int X_SHIFT = XZ_BITS + Y_BITS;
+
+	/**
+	 * The shift of the block z coordinate.
+	 */
+	private static final int Z_SHIFT = Y_BITS;
+
+	/**
+	 * Packs chunk coordinates, x in the low and z in the high 32 bits.
+	 *
+	 * @param x the chunk x.
+	 * @param z the chunk z.
+	 * @return the chunk key.
+	 */
+	public static long chunkKey(int x, int z) {
+		return (x & 0xFFFFFFFFL) | ((long) z << 32);
+	}
+
+	/**
+	 * Packs the coordinates of a chunk.
+	 *
+	 * @param chunk the chunk.
+	 * @return the chunk key.
+	 */
+	public static long chunkKey(@NonNull Chunk chunk) {
+		return chunkKey(chunk.getX(), chunk.getZ());
+	}
+
+	/**
+	 * Packs the coordinates of the chunk of a location, without loading it.
+	 *
+	 * @param location the location.
+	 * @return the chunk key.
+	 */
+	public static long chunkKey(@NonNull Location location) {
+		return chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+	}
+
+	/**
+	 * Returns the chunk x of a chunk key.
+	 *
+	 * @param chunkKey the chunk key.
+	 * @return the chunk x.
+	 */
+	public static int chunkX(long chunkKey) {
+		return (int) chunkKey;
+	}
+
+	/**
+	 * Returns the chunk z of a chunk key.
+	 *
+	 * @param chunkKey the chunk key.
+	 * @return the chunk z.
+	 */
+	public static int chunkZ(long chunkKey) {
+		return (int) (chunkKey >> 32);
+	}
+
+	/**
+	 * Packs block coordinates, x and z on 26 bits and y on 12 bits like Minecraft does.
+	 *
+	 * @param x the block x.
+	 * @param y the block y, between -2048 and 2047.
+	 * @param z the block z.
+	 * @return the block key.
+	 */
+	public static long blockKey(int x, int y, int z) {
+		return ((x & XZ_MASK) << X_SHIFT) | ((z & XZ_MASK) << Z_SHIFT) | (y & Y_MASK);
+	}
+
+	/**
+	 * Packs the coordinates of the block at a location.
+	 *
+	 * @param location the location.
+	 * @return the block key.
+	 */
+	public static long blockKey(@NonNull Location location) {
+		return blockKey(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+	}
+
+	/**
+	 * Packs the coordinates of a block.
+	 *
+	 * @param block the block.
+	 * @return the block key.
+	 */
+	public static long blockKey(@NonNull Block block) {
+		return blockKey(block.getX(), block.getY(), block.getZ());
+	}
+
+	/**
+	 * Returns the block x of a block key.
+	 *
+	 * @param blockKey the block key.
+	 * @return the block x.
+	 */
+	public static int blockX(long blockKey) {
+		return (int) (blockKey >> X_SHIFT);
+	}
+
+	/**
+	 * Returns the block y of a block key.
+	 *
+	 * @param blockKey the block key.
+	 * @return the block y.
+	 */
+	public static int blockY(long blockKey) {
+		return (int) (blockKey << (64 - Y_BITS) >> (64 - Y_BITS));
+	}
+
+	/**
+	 * Returns the block z of a block key.
+	 *
+	 * @param blockKey the block key.
+	 * @return the block z.
+	 */
+	public static int blockZ(long blockKey) {
+		return (int) (blockKey << (64 - X_SHIFT) >> (64 - XZ_BITS));
+	}
+
+	/**
+	 * Returns the key of the chunk holding the block of a block key.
+	 *
+	 * @param blockKey the block key.
+	 * @return the chunk key.
+	 */
+	public static long blockToChunkKey(long blockKey) {
+		return chunkKey(blockX(blockKey) >> 4, blockZ(blockKey) >> 4);
+	}
+}
@@ -30,7 +30,8 @@ public final class Common {
 
 	/**
 	 * Logs an error message and stack trace for the given throwable.
-	 * If the throwable is not an instance of HtException, it also saves the error.
+	 * If the throwable is not an instance of HtException, or is one that was not saved
+	 * when constructed (such as a {@link com.honemy.ht.exception.ValidationException}), it also saves the error.
 	 *
 	 * @param thrown  The throwable to log and possibly save.
 	 * @param message The error message to log.
@@ -38,7 +39,7 @@ public final class Common {
 	public static void error(@NonNull Throwable thrown, String... message) {
 		Objects.requireNonNull(thrown, "The throwable cannot be null");
 
-		if (!(thrown instanceof HtException)) {
+		if (!(thrown instanceof HtException) || ((HtException) thrown).isReportPending()) {
 			ModernDebug.saveError(thrown, message);
 		}
 
@@ -0,0 +1,327 @@
+package com.honemy.ht;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Immutable, precompiled view of a string list used for case-insensitive matching.
+ * Leading slashes are ignored on both the entries and the checked element, same as
+ * {@link Valid#isInList(String, Iterable)} and {@link Valid#isInListStartsWith(String, Iterable)}.
+ * <p>
+ * Exact lookups go through an open-addressing hash set and prefix lookups walk a trie,
+ * so both run in O(length of the element) and do not allocate.
+ * <p>
+ * Instances can be passed directly to the {@link Valid} list methods, which will use
+ * the compiled structures instead of scanning the list.
+ */
+public final class CompiledStringMatcher implements Iterable<String> {
+
+	/**
+	 * The original entries, as given when compiling.
+	 */
+	private final List<String> entries;
+
+	/**
+	 * Open-addressing table of normalized entries, its length is always a power of two.
+	 */
+	private final String[] table;
+
+	/**
+	 * The label character of each trie node, index 0 is the root.
+	 */
+	private char[] labels;
+
+	/**
+	 * The index of the first child of each trie node, or -1.
+	 */
+	private int[] firstChild;
+
+	/**
+	 * The index of the next sibling of each trie node, or -1.
+	 */
+	private int[] nextSibling;
+
+	/**
+	 * Whether an entry ends at each trie node.
+	 */
+	private boolean[] terminal;
+
+	/**
+	 * The number of used trie nodes.
+	 */
+	private int nodeCount;
+
+	/**
+	 * Creates a new matcher from the given list.
+	 *
+	 * @param list the list to compile
+	 */
+	private CompiledStringMatcher(final Iterable<String> list) {
+		final List<String> copy = new ArrayList<>();
+
+		// Iterate as objects, YAML may give us booleans or numbers instead of strings
+		for (final Object entry : list)
+			if (entry instanceof String)
+				copy.add((String) entry);
+
+		this.entries = Collections.unmodifiableList(copy);
+		this.table = new String[tableSize(copy.size())];
+
+		this.labels = new char[16];
+		this.firstChild = new int[16];
+		this.nextSibling = new int[16];
+		this.terminal = new boolean[16];
+		this.nodeCount = 1;
+		this.firstChild[0] = -1;
+		this.nextSibling[0] = -1;
+
+		for (final String entry : copy) {
+			final String normalized = normalize(entry);
+
+			insertExact(normalized);
+			insertPrefix(normalized);
+		}
+	}
+
+	/**
+	 * Compiles the given list into a new matcher.
+	 * If the list already is a compiled matcher, it is returned as is.
+	 *
+	 * @param list the list to compile
+	 * @return the compiled matcher
+	 */
+	public static CompiledStringMatcher compile(@NonNull final Iterable<String> list) {
+		return list instanceof CompiledStringMatcher ? (CompiledStringMatcher) list : new CompiledStringMatcher(list);
+	}
+
+	/**
+	 * Checks if the element equals any entry, ignoring case and leading slashes.
+	 *
+	 * @param element the element to check
+	 * @return true if the element is in the list, false otherwise
+	 */
+	public boolean contains(@NonNull final String element) {
+		final int offset = slashOffset(element);
+		final int length = element.length() - offset;
+		final int mask = this.table.length - 1;
+
+		int index = hash(element, offset) & mask;
+		String candidate;
+
+		while ((candidate = this.table[index]) != null) {
+			if (candidate.length() == length && candidate.regionMatches(true, 0, element, offset, length))
+				return true;
+
+			index = (index + 1) & mask;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Checks if the element starts with any entry, ignoring case and leading slashes.
+	 *
+	 * @param element the element to check
+	 * @return true if any entry is a prefix of the element, false otherwise
+	 */
+	public boolean containsPrefixOf(@NonNull final String element) {
+		int node = 0;
+
+		if (this.terminal[node])
+			return true;
+
+		for (int i = slashOffset(element); i < element.length(); i++) {
+			node = findChild(node, fold(element.charAt(i)));
+
+			if (node == -1)
+				return false;
+
+			if (this.terminal[node])
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns the number of entries in this matcher.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Returns an iterator over the original entries.
+	 *
+	 * @return an unmodifiable iterator
+	 */
+	@Override
+	public Iterator<String> iterator() {
+		return this.entries.iterator();
+	}
+
+	@Override
+	public String toString() {
+		return this.entries.toString();
+	}
+
+	/**
+	 * Adds a normalized entry to the hash table, skipping duplicates.
+	 *
+	 * @param normalized the normalized entry
+	 */
+	private void insertExact(final String normalized) {
+		final int mask = this.table.length - 1;
+		int index = hash(normalized, 0) & mask;
+
+		while (this.table[index] != null) {
+			if (this.table[index].equals(normalized))
+				return;
+
+			index = (index + 1) & mask;
+		}
+
+		this.table[index] = normalized;
+	}
+
+	/**
+	 * Adds a normalized entry to the prefix trie.
+	 *
+	 * @param normalized the normalized entry
+	 */
+	private void insertPrefix(final String normalized) {
+		int node = 0;
+
+		for (int i = 0; i < normalized.length(); i++) {
+			final char letter = normalized.charAt(i);
+			int child = findChild(node, letter);
+
+			if (child == -1) {
+				child = newNode(letter);
+
+				this.nextSibling[child] = this.firstChild[node];
+				this.firstChild[node] = child;
+			}
+
+			node = child;
+		}
+
+		this.terminal[node] = true;
+	}
+
+	/**
+	 * Finds the child of a trie node with the given label.
+	 *
+	 * @param node   the parent node
+	 * @param letter the folded label to look for
+	 * @return the child index, or -1 if there is none
+	 */
+	private int findChild(final int node, final char letter) {
+		int child = this.firstChild[node];
+
+		while (child != -1 && this.labels[child] != letter)
+			child = this.nextSibling[child];
+
+		return child;
+	}
+
+	/**
+	 * Allocates a new trie node, growing the node arrays if needed.
+	 *
+	 * @param letter the label of the node
+	 * @return the index of the new node
+	 */
+	private int newNode(final char letter) {
+		if (this.nodeCount == this.labels.length) {
+			final int capacity = this.labels.length << 1;
+
+			this.labels = Arrays.copyOf(this.labels, capacity);
+			this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+			this.nextSibling = Arrays.copyOf(this.nextSibling, capacity);
+			this.terminal = Arrays.copyOf(this.terminal, capacity);
+		}
+
+		final int node = this.nodeCount++;
+
+		this.labels[node] = letter;
+		this.firstChild[node] = -1;
+		this.nextSibling[node] = -1;
+
+		return node;
+	}
+
+	/**
+	 * Computes a case-insensitive hash of the string from the given offset.
+	 *
+	 * @param value  the string to hash
+	 * @param offset the offset to start at
+	 * @return the hash
+	 */
+	private static int hash(final String value, final int offset) {
+		int hash = 0;
+
+		for (int i = offset; i < value.length(); i++)
+			hash = 31 * hash + fold(value.charAt(i));
+
+		// Spread the bits so the low ones used by the mask are well mixed
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns the table size for the given amount of entries, keeping the load factor at or below 0.5.
+	 *
+	 * @param entries the amount of entries
+	 * @return a power of two table size
+	 */
+	private static int tableSize(final int entries) {
+		int size = 4;
+
+		while (size < entries * 2)
+			size <<= 1;
+
+		return size;
+	}
+
+	/**
+	 * Removes the leading slash and folds the case of the entry.
+	 *
+	 * @param entry the entry
+	 * @return the normalized entry
+	 */
+	private static String normalize(final String entry) {
+		final int offset = slashOffset(entry);
+		final char[] letters = new char[entry.length() - offset];
+
+		for (int i = 0; i < letters.length; i++)
+			letters[i] = fold(entry.charAt(offset + i));
+
+		return new String(letters);
+	}
+
+	/**
+	 * Returns 1 if the string starts with a slash, 0 otherwise.
+	 *
+	 * @param value the string
+	 * @return the offset of the first character after the slash
+	 */
+	private static int slashOffset(final String value) {
+		return !value.isEmpty() && value.charAt(0) == '/' ? 1 : 0;
+	}
+
+	/**
+	 * Folds the case of the character the same way {@link String#equalsIgnoreCase(String)} does.
+	 *
+	 * @param letter the character
+	 * @return the folded character
+	 */
+	private static char fold(final char letter) {
+		return Character.toLowerCase(Character.toUpperCase(letter));
+	}
+}
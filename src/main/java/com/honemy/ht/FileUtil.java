@@ -4,21 +4,62 @@ import com.honemy.ht.logger.ModernLogger;
 import com.honemy.ht.plugin.ModernPlugin;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import lombok.NonNull;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 /**
  * Utility class for file operations.
+ * <p>
+ * Large files are read with {@link #map(String)}, which maps them in memory and streams their lines
+ * without loading them in the heap.
+ * <p>
+ * Files saved with {@link #saveAsync(File, byte[])} are written off the main thread to a temporary file,
+ * flushed to disk and renamed over the target, so a crash leaves either the old or the new contents,
+ * never a truncated file. Saves of a file queued while another is waiting are merged, only the latest
+ * contents are written.
  */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class FileUtil {
 
+	/**
+	 * The amount of threads writing saved files.
+	 */
+	private static final int WRITE_THREADS = 2;
+
+	/**
+	 * The writers of the files being saved, by absolute path.
+	 */
+	private static final Map<Path, FileSaver> writers = new ConcurrentHashMap<>();
+
+	/**
+	 * The pool writing saved files, created on the first save and after each {@link #flushSaves(long, TimeUnit)}.
+	 */
+	private static ThreadPoolExecutor writePool;
+
 	/**
 	 * Returns an existing file or creates a new one if it does not exist.
 	 *
@@ -57,6 +98,246 @@ public final class FileUtil {
 		}
 	}
 
+	/**
+	 * Maps a file of the data folder in memory, to read it without loading it in the heap.
+	 *
+	 * @param path The path of the file, relative to the data folder.
+	 * @return The read-only view of the file.
+	 * @throws IOException If the file cannot be read.
+	 * @see MappedFile
+	 */
+	public static MappedFile map(@NonNull String path) throws IOException {
+		return map(getFile(path));
+	}
+
+	/**
+	 * Maps a file in memory, to read it without loading it in the heap.
+	 *
+	 * @param file The file.
+	 * @return The read-only view of the file.
+	 * @throws IOException If the file cannot be read.
+	 * @see MappedFile
+	 */
+	public static MappedFile map(@NonNull File file) throws IOException {
+		return new MappedFile(file);
+	}
+
+	/**
+	 * Saves the contents to a file in the data folder without blocking, replacing it atomically.
+	 *
+	 * @param path     The path of the file, relative to the data folder.
+	 * @param contents The contents to save.
+	 * @return A future completed once the contents, or newer contents saved later, are on disk.
+	 * @see #saveAsync(File, byte[])
+	 */
+	public static CompletableFuture<Void> saveAsync(@NonNull String path, @NonNull byte[] contents) {
+		return saveAsync(getFile(path), contents);
+	}
+
+	/**
+	 * Saves the text to a file without blocking, encoded in UTF-8 and replacing the file atomically.
+	 *
+	 * @param file     The file to save to.
+	 * @param contents The text to save.
+	 * @return A future completed once the contents, or newer contents saved later, are on disk.
+	 * @see #saveAsync(File, byte[])
+	 */
+	public static CompletableFuture<Void> saveAsync(@NonNull File file, @NonNull String contents) {
+		return saveAsync(file, contents.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Saves the contents to a file without blocking, replacing it atomically.
+	 * Missing parent directories are created.
+	 * <p>
+	 * If contents of the same file are already waiting to be written, they are replaced by these ones
+	 * and both saves share the returned future. The array must not be modified after this call.
+	 * Failures are logged and complete the future exceptionally.
+	 *
+	 * @param file     The file to save to.
+	 * @param contents The contents to save.
+	 * @return A future completed once the contents, or newer contents saved later, are on disk.
+	 */
+	public static CompletableFuture<Void> saveAsync(@NonNull File file, @NonNull byte[] contents) {
+		final Path path = file.toPath().toAbsolutePath();
+
+		while (true) {
+			final FileSaver writer = writers.computeIfAbsent(path, FileSaver::new);
+			final CompletableFuture<Void> future = writer.queue(contents);
+
+			// The writer finished and was removed meanwhile, queue to the next one
+			if (future != null)
+				return future;
+		}
+	}
+
+	/**
+	 * Writes the contents to a file, replacing it atomically, on the calling thread.
+	 * The contents are written to a temporary file next to it, flushed to disk, then renamed over the file.
+	 * Missing parent directories are created.
+	 *
+	 * @param file     The file to write to.
+	 * @param contents The contents to write.
+	 * @throws IOException If the file could not be written.
+	 */
+	public static void writeAtomically(@NonNull File file, @NonNull byte[] contents) throws IOException {
+		final Path target = file.toPath().toAbsolutePath();
+		final Path directory = target.getParent();
+
+		Files.createDirectories(directory);
+
+		final Path temporary = createTemporary(target);
+
+		try {
+			copyPermissions(target, temporary);
+
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+				final ByteBuffer buffer = ByteBuffer.wrap(contents);
+
+				while (buffer.hasRemaining())
+					channel.write(buffer);
+
+				channel.force(true);
+			}
+
+			try {
+				Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+
+		syncDirectory(directory);
+	}
+
+	/**
+	 * Creates an empty temporary file next to a file, with the default permissions of new files.
+	 * Unlike {@link Files#createTempFile(Path, String, String, java.nio.file.attribute.FileAttribute[])},
+	 * which makes the file readable by its owner only.
+	 *
+	 * @param target The file the temporary file will replace.
+	 * @return The temporary file.
+	 * @throws IOException If the file could not be created.
+	 */
+	private static Path createTemporary(Path target) throws IOException {
+		while (true) {
+			final Path temporary = target.resolveSibling(target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE) + ".tmp");
+
+			try {
+				return Files.createFile(temporary);
+			} catch (FileAlreadyExistsException e) {
+				// Taken by another save, pick another name
+			}
+		}
+	}
+
+	/**
+	 * Gives a new file the permissions and group of the file it replaces, if any, so saving keeps them.
+	 * Does nothing on file systems without POSIX permissions. A group the process cannot set is left as is.
+	 *
+	 * @param target    The replaced file.
+	 * @param temporary The new file.
+	 * @throws IOException If the permissions could not be read or set.
+	 */
+	private static void copyPermissions(Path target, Path temporary) throws IOException {
+		final PosixFileAttributeView targetView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+
+		if (targetView == null || !Files.exists(target))
+			return;
+
+		final PosixFileAttributes attributes = targetView.readAttributes();
+		final PosixFileAttributeView temporaryView = Files.getFileAttributeView(temporary, PosixFileAttributeView.class);
+
+		try {
+			temporaryView.setGroup(attributes.group());
+		} catch (IOException | SecurityException e) {
+			// Setting the group needs the process to belong to it, the file then keeps the default group
+		}
+
+		temporaryView.setPermissions(attributes.permissions());
+	}
+
+	/**
+	 * Waits for all queued saves to be written, then stops the write threads.
+	 * Called when the plugin is disabled, saves queued afterwards start new threads.
+	 *
+	 * @param timeout How long to wait at most.
+	 * @param unit    The unit of the timeout.
+	 * @return True if all saves were written, false if some were still waiting after the timeout.
+	 */
+	public static boolean flushSaves(long timeout, @NonNull TimeUnit unit) {
+		final ThreadPoolExecutor pool;
+
+		synchronized (FileUtil.class) {
+			pool = writePool;
+			writePool = null;
+		}
+
+		if (pool == null)
+			return true;
+
+		pool.shutdown();
+
+		try {
+			if (pool.awaitTermination(timeout, unit))
+				return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		final List<Runnable> dropped = pool.shutdownNow();
+		final IOException reason = new IOException("Saving files took longer than " + unit.toMillis(timeout) + " ms");
+
+		// Fail the saves that never started, so their callers stop waiting and later saves to the same files start anew
+		for (Runnable task : dropped)
+			if (task instanceof FileSaver)
+				((FileSaver) task).abandon(reason);
+
+		ModernLogger.log(Level.WARNING, reason.getMessage() + ", " + dropped.size() + " files were not saved.");
+
+		return false;
+	}
+
+	/**
+	 * Returns the pool writing saved files, creating it if needed.
+	 *
+	 * @return The write pool.
+	 */
+	private static synchronized ThreadPoolExecutor getWritePool() {
+		if (writePool == null) {
+			final AtomicInteger counter = new AtomicInteger();
+			final String prefix = (ModernPlugin.getNamed() != null ? ModernPlugin.getNamed() : "HTools") + "-write-";
+			final ThreadPoolExecutor pool = new ThreadPoolExecutor(WRITE_THREADS, WRITE_THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+				final Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+
+				thread.setDaemon(true);
+
+				return thread;
+			});
+
+			pool.allowCoreThreadTimeOut(true);
+			writePool = pool;
+		}
+
+		return writePool;
+	}
+
+	/**
+	 * Flushes a directory to disk, so a file renamed into it survives a crash.
+	 * Not supported on every platform, failures are ignored.
+	 *
+	 * @param directory The directory to flush.
+	 */
+	private static void syncDirectory(Path directory) {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException ignored) {
+			// Directories cannot be opened on Windows, the rename is still atomic there
+		}
+	}
+
 	/**
 	 * Returns a Path object representing the specified path.
 	 *
@@ -94,4 +375,125 @@ public final class FileUtil {
 			}
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Writes the saves of a single file one after another, keeping only the latest waiting contents.
+	 */
+	private static final class FileSaver implements Runnable {
+
+		/**
+		 * The file written.
+		 */
+		private final Path path;
+
+		/**
+		 * The contents waiting to be written, or null.
+		 */
+		private byte[] queued;
+
+		/**
+		 * The future of the waiting contents, shared by all merged saves, or null.
+		 */
+		private CompletableFuture<Void> queuedFuture;
+
+		/**
+		 * Whether a write task is scheduled or running.
+		 */
+		private boolean running;
+
+		/**
+		 * Whether the writer has nothing left to write and was removed.
+		 */
+		private boolean closed;
+
+		private FileSaver(Path path) {
+			this.path = path;
+		}
+
+		/**
+		 * Queues contents to write, replacing the waiting ones.
+		 *
+		 * @param contents The contents.
+		 * @return The future of the write, or null if the writer was closed.
+		 */
+		private synchronized CompletableFuture<Void> queue(byte[] contents) {
+			if (this.closed)
+				return null;
+
+			if (this.queuedFuture == null)
+				this.queuedFuture = new CompletableFuture<>();
+
+			final CompletableFuture<Void> future = this.queuedFuture;
+
+			this.queued = contents;
+
+			if (!this.running) {
+				this.running = true;
+
+				try {
+					getWritePool().execute(this);
+				} catch (Throwable t) {
+					this.running = false;
+					this.queued = null;
+					this.queuedFuture = null;
+
+					future.completeExceptionally(t);
+				}
+			}
+
+			return future;
+		}
+
+		/**
+		 * Fails the waiting contents and removes the writer, when its write task was dropped before running.
+		 *
+		 * @param reason The error completing the future of the waiting contents.
+		 */
+		private synchronized void abandon(Throwable reason) {
+			if (this.queuedFuture != null)
+				this.queuedFuture.completeExceptionally(reason);
+
+			this.queued = null;
+			this.queuedFuture = null;
+			this.running = false;
+			this.closed = true;
+
+			writers.remove(this.path, this);
+		}
+
+		/**
+		 * Writes waiting contents until there are none left, then removes the writer.
+		 */
+		@Override
+		public void run() {
+			while (true) {
+				final byte[] contents;
+				final CompletableFuture<Void> future;
+
+				synchronized (this) {
+					contents = this.queued;
+					future = this.queuedFuture;
+
+					if (contents == null) {
+						this.running = false;
+						this.closed = true;
+
+						writers.remove(this.path, this);
+						return;
+					}
+
+					this.queued = null;
+					this.queuedFuture = null;
+				}
+
+				try {
+					writeAtomically(this.path.toFile(), contents);
+					future.complete(null);
+				} catch (Throwable t) {
+					ModernLogger.log(Level.WARNING, t, "Failed to save file " + this.path);
+					future.completeExceptionally(t);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,349 @@
+package com.honemy.ht;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Read-only view of a file mapped in memory, created with {@link FileUtil#map(String)}.
+ * <p>
+ * The file is not loaded in the heap, the operating system pages it in as it is read. Records are
+ * slices of the mapping, their text is only decoded when asked for. {@link #lines()} streams the lines
+ * of the file, and once made parallel, splits the file in chunks on line boundaries processed by the
+ * fork-join pool:
+ * <pre>{@code
+ * final byte[] error = "[ERROR]".getBytes(StandardCharsets.UTF_8);
+ * final long errors = FileUtil.map("logs/history.log").lines()
+ *         .parallel()
+ *         .filter(line -> line.startsWith(error))
+ *         .count();
+ * }</pre>
+ * The mapping is released once the view is garbage collected. Files larger than 2 GB cannot be mapped.
+ */
+public final class MappedFile {
+
+	/**
+	 * The smallest chunk a parallel stream splits off, in bytes, so small files are not split in tiny tasks.
+	 */
+	private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+	/**
+	 * The UTF-8 byte order mark, skipped at the start of the file.
+	 */
+	private static final byte[] BYTE_ORDER_MARK = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+	/**
+	 * The mapped file.
+	 */
+	@Getter
+	private final File file;
+
+	/**
+	 * The mapping, never read through its position so it can be shared by threads.
+	 */
+	private final MappedByteBuffer buffer;
+
+	/**
+	 * Maps the whole file in memory, read-only.
+	 *
+	 * @param file the file.
+	 * @throws IOException if the file cannot be read.
+	 */
+	MappedFile(File file) throws IOException {
+		this.file = file;
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			final long size = channel.size();
+
+			Valid.checkBoolean(size <= Integer.MAX_VALUE, "Cannot map %s, it is larger than 2 GB", file);
+
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+	}
+
+	/**
+	 * Returns the size of the file when it was mapped.
+	 *
+	 * @return the size, in bytes.
+	 */
+	public int size() {
+		return this.buffer.capacity();
+	}
+
+	/**
+	 * Returns the byte at the given offset.
+	 *
+	 * @param offset the offset.
+	 * @return the byte.
+	 */
+	public byte get(int offset) {
+		return this.buffer.get(offset);
+	}
+
+	/**
+	 * Returns a read-only view of the whole file, with its own position.
+	 *
+	 * @return the buffer.
+	 */
+	public ByteBuffer getBuffer() {
+		return this.buffer.asReadOnlyBuffer();
+	}
+
+	/**
+	 * Returns the lines of the file, ended by {@code \n} or {@code \r\n}, without their terminator.
+	 * A leading UTF-8 byte order mark is skipped. The stream is sequential, and splits on line boundaries once parallel.
+	 *
+	 * @return the lines.
+	 */
+	public Stream<Record> lines() {
+		return this.stream((byte) '\n', true);
+	}
+
+	/**
+	 * Returns the records of the file, separated by the given byte, without the separator.
+	 * The stream is sequential, and splits on record boundaries once parallel.
+	 *
+	 * @param separator the byte ending each record.
+	 * @return the records.
+	 */
+	public Stream<Record> records(byte separator) {
+		return this.stream(separator, false);
+	}
+
+	/**
+	 * Streams the records of the file.
+	 *
+	 * @param separator the byte ending each record.
+	 * @param lines     whether records are lines, skipping the byte order mark and a {@code \r} before the separator.
+	 * @return the records.
+	 */
+	private Stream<Record> stream(byte separator, boolean lines) {
+		final int start = lines && this.startsWith(BYTE_ORDER_MARK) ? BYTE_ORDER_MARK.length : 0;
+
+		return StreamSupport.stream(new RecordSpliterator(start, this.size(), separator, lines), false);
+	}
+
+	/**
+	 * Checks if the file starts with the given bytes.
+	 *
+	 * @param prefix the bytes.
+	 * @return true if the file starts with them.
+	 */
+	private boolean startsWith(byte[] prefix) {
+		if (this.size() < prefix.length)
+			return false;
+
+		for (int i = 0; i < prefix.length; i++)
+			if (this.buffer.get(i) != prefix[i])
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Finds the next occurrence of a byte.
+	 *
+	 * @param value the byte.
+	 * @param from  the first offset searched.
+	 * @param to    the offset the search stops before.
+	 * @return the offset of the byte, or -1 if not found.
+	 */
+	private int indexOf(byte value, int from, int to) {
+		for (int i = from; i < to; i++)
+			if (this.buffer.get(i) == value)
+				return i;
+
+		return -1;
+	}
+
+	@Override
+	public String toString() {
+		return "MappedFile{" + this.file + ", " + this.size() + " bytes}";
+	}
+
+	/**
+	 * A record of a mapped file, such as a line. Its bytes are not copied and its text is decoded on first use.
+	 */
+	public final class Record {
+
+		/**
+		 * The offset of the record in the file.
+		 */
+		@Getter
+		private final int offset;
+
+		/**
+		 * The length of the record, in bytes.
+		 */
+		@Getter
+		private final int length;
+
+		/**
+		 * The decoded text, or null before the first call to {@link #toString()}.
+		 */
+		private String text;
+
+		private Record(int offset, int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+
+		/**
+		 * Returns the byte at the given index of the record.
+		 *
+		 * @param index the index.
+		 * @return the byte.
+		 */
+		public byte byteAt(int index) {
+			Valid.checkBooleanInt(index >= 0 && index < this.length, "Index %s is out of the record of length %s", index, this.length);
+
+			return MappedFile.this.buffer.get(this.offset + index);
+		}
+
+		/**
+		 * Checks if the record is empty.
+		 *
+		 * @return true if the record has no bytes.
+		 */
+		public boolean isEmpty() {
+			return this.length == 0;
+		}
+
+		/**
+		 * Checks if the record starts with the given bytes, without decoding it.
+		 *
+		 * @param prefix the bytes, for example a UTF-8 encoded keyword.
+		 * @return true if the record starts with them.
+		 */
+		public boolean startsWith(@NonNull byte[] prefix) {
+			if (prefix.length > this.length)
+				return false;
+
+			for (int i = 0; i < prefix.length; i++)
+				if (MappedFile.this.buffer.get(this.offset + i) != prefix[i])
+					return false;
+
+			return true;
+		}
+
+		/**
+		 * Returns a read-only view of the bytes of the record, sharing the mapping.
+		 *
+		 * @return the bytes.
+		 */
+		public ByteBuffer getBytes() {
+			final ByteBuffer view = MappedFile.this.buffer.asReadOnlyBuffer();
+
+			view.position(this.offset);
+			view.limit(this.offset + this.length);
+
+			return view.slice();
+		}
+
+		/**
+		 * Returns the text of the record, decoded from UTF-8 on the first call.
+		 *
+		 * @return the text.
+		 */
+		@Override
+		public String toString() {
+			if (this.text == null)
+				this.text = StandardCharsets.UTF_8.decode(this.getBytes()).toString();
+
+			return this.text;
+		}
+	}
+
+	/**
+	 * Splits a range of the file in records, and in halves on record boundaries for parallel streams.
+	 */
+	private final class RecordSpliterator implements Spliterator<Record> {
+
+		/**
+		 * The offset of the next record.
+		 */
+		private int position;
+
+		/**
+		 * The offset the range ends before.
+		 */
+		private final int end;
+
+		/**
+		 * The byte ending each record.
+		 */
+		private final byte separator;
+
+		/**
+		 * Whether a {@code \r} before the separator is removed from records.
+		 */
+		private final boolean lines;
+
+		private RecordSpliterator(int position, int end, byte separator, boolean lines) {
+			this.position = position;
+			this.end = end;
+			this.separator = separator;
+			this.lines = lines;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Record> action) {
+			if (this.position >= this.end)
+				return false;
+
+			final int start = this.position;
+			final int found = indexOf(this.separator, start, this.end);
+			int recordEnd = found == -1 ? this.end : found;
+
+			this.position = found == -1 ? this.end : found + 1;
+
+			if (this.lines && recordEnd > start && MappedFile.this.buffer.get(recordEnd - 1) == '\r')
+				recordEnd--;
+
+			action.accept(new Record(start, recordEnd - start));
+
+			return true;
+		}
+
+		@Override
+		public Spliterator<Record> trySplit() {
+			final int remaining = this.end - this.position;
+
+			if (remaining < MIN_CHUNK_SIZE * 2)
+				return null;
+
+			// Split after the first separator past the middle, so no record is cut
+			final int found = indexOf(this.separator, this.position + remaining / 2, this.end);
+
+			if (found == -1 || found + 1 >= this.end)
+				return null;
+
+			final RecordSpliterator prefix = new RecordSpliterator(this.position, found + 1, this.separator, this.lines);
+
+			this.position = found + 1;
+
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return this.end - this.position;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | NONNULL | IMMUTABLE;
+		}
+	}
+}
@@ -1,10 +1,20 @@
 package com.honemy.ht;
 
+import com.honemy.ht.plugin.ModernPlugin;
+import com.honemy.ht.plugin.TickScheduler;
+import lombok.NonNull;
 import lombok.experimental.UtilityClass;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Utility class for sending messages with different types and prefixes.
@@ -27,6 +37,9 @@ public final class Messenger {
 	// Map to store prefixes for different message types
 	private static final Map<MessageType, String> prefixes = new EnumMap<>(MessageType.class);
 
+	// Amount of recipients sent to per slice when a broadcast is spread over ticks
+	private static final int SPREAD_BATCH_SIZE = 50;
+
 	static {
 		// Initialize prefixes for each message type
 		prefixes.put(MessageType.INFO, "&8&l[&9&li&8&l]&7 ");
@@ -57,6 +70,28 @@ public final class Messenger {
 		return prefixes.get(type);
 	}
 
+	/**
+	 * Render messages of a specific type, adding the prefix and colorizing them.
+	 * Empty messages and "none" are skipped.
+	 *
+	 * @param type     The type of the messages.
+	 * @param messages The messages to render.
+	 * @return The rendered lines, ready to be sent to any number of recipients.
+	 */
+	public String[] render(MessageType type, String... messages) {
+		String prefix = getPrefix(type);
+		String[] lines = new String[messages.length];
+		int count = 0;
+
+		for (String message : messages) {
+			if (message.isEmpty() || "none".equals(message))
+				continue;
+			lines[count++] = Common.colorize(prefix + message);
+		}
+
+		return count == lines.length ? lines : Arrays.copyOf(lines, count);
+	}
+
 	/**
 	 * Send a message of a specific type to a command sender.
 	 *
@@ -65,12 +100,170 @@ public final class Messenger {
 	 * @param messages The messages to send.
 	 */
 	private void sendMessage(CommandSender sender, MessageType type, String... messages) {
-		String prefix = getPrefix(type);
-		for (String message : messages) {
-			if (message.isEmpty() || "none".equals(message))
-				continue;
-			sender.sendMessage(Common.colorize(prefix + message));
+		sendLines(sender, render(type, messages));
+	}
+
+	/**
+	 * Send already rendered lines to a command sender.
+	 *
+	 * @param sender The command sender to send the lines to.
+	 * @param lines  The rendered lines.
+	 */
+	private void sendLines(CommandSender sender, String[] lines) {
+		if (lines.length == 1)
+			sender.sendMessage(lines[0]);
+		else if (lines.length > 1)
+			sender.sendMessage(lines);
+	}
+
+	/**
+	 * Broadcast a message of a specific type to all online players.
+	 * The message is rendered once, whatever the amount of players.
+	 *
+	 * @param type     The type of the message.
+	 * @param messages The messages to send.
+	 * @return The amount of players the message was sent to.
+	 */
+	public int broadcast(MessageType type, String... messages) {
+		return broadcast(type, Bukkit.getOnlinePlayers(), messages);
+	}
+
+	/**
+	 * Broadcast a message of a specific type to the given recipients.
+	 * The message is rendered once, whatever the amount of recipients.
+	 *
+	 * @param type       The type of the message.
+	 * @param recipients The command senders to send the message to.
+	 * @param messages   The messages to send.
+	 * @return The amount of recipients the message was sent to.
+	 */
+	public int broadcast(MessageType type, @NonNull Iterable<? extends CommandSender> recipients, String... messages) {
+		String[] lines = render(type, messages);
+		int count = 0;
+
+		if (lines.length == 0)
+			return 0;
+
+		for (CommandSender recipient : recipients) {
+			sendLines(recipient, lines);
+			count++;
 		}
+
+		return count;
+	}
+
+	/**
+	 * Broadcast a message of a specific type to the online players having a permission.
+	 *
+	 * @param type       The type of the message.
+	 * @param permission The permission the players must have.
+	 * @param messages   The messages to send.
+	 * @return The amount of players the message was sent to.
+	 */
+	public int broadcastPermission(MessageType type, @NonNull String permission, String... messages) {
+		String[] lines = render(type, messages);
+		int count = 0;
+
+		if (lines.length == 0)
+			return 0;
+
+		for (Player player : Bukkit.getOnlinePlayers())
+			if (player.hasPermission(permission)) {
+				sendLines(player, lines);
+				count++;
+			}
+
+		return count;
+	}
+
+	/**
+	 * Broadcast a message of a specific type to the players in a world.
+	 *
+	 * @param type     The type of the message.
+	 * @param world    The world of the players.
+	 * @param messages The messages to send.
+	 * @return The amount of players the message was sent to.
+	 */
+	public int broadcastWorld(MessageType type, @NonNull World world, String... messages) {
+		return broadcast(type, world.getPlayers(), messages);
+	}
+
+	/**
+	 * Broadcast a message of a specific type to the players within a distance of a location, in its world.
+	 *
+	 * @param type     The type of the message.
+	 * @param center   The location to measure the distance from.
+	 * @param radius   The distance in blocks.
+	 * @param messages The messages to send.
+	 * @return The amount of players the message was sent to.
+	 */
+	public int broadcastNear(MessageType type, @NonNull Location center, double radius, String... messages) {
+		Valid.checkBooleanDouble(radius >= 0, "Radius cannot be negative, got: %s", radius);
+
+		String[] lines = render(type, messages);
+		World world = center.getWorld();
+		int count = 0;
+
+		if (lines.length == 0 || world == null)
+			return 0;
+
+		double radiusSquared = radius * radius;
+		Location location = new Location(world, 0, 0, 0);
+
+		for (Player player : world.getPlayers())
+			if (player.getLocation(location).distanceSquared(center) <= radiusSquared) {
+				sendLines(player, lines);
+				count++;
+			}
+
+		return count;
+	}
+
+	/**
+	 * Broadcast a message of a specific type to all online players, spread over ticks.
+	 *
+	 * @param type     The type of the message.
+	 * @param messages The messages to send.
+	 * @return A future completed once the message was sent to every player.
+	 * @see #broadcastSpread(MessageType, Collection, String...)
+	 */
+	public CompletableFuture<Void> broadcastSpread(MessageType type, String... messages) {
+		return broadcastSpread(type, Bukkit.getOnlinePlayers(), messages);
+	}
+
+	/**
+	 * Broadcast a message of a specific type to the given recipients, spread over ticks with the
+	 * plugin's {@link TickScheduler} so that very large audiences do not cost a single tick.
+	 * The message is rendered once and recipients who went offline in the meantime are skipped.
+	 *
+	 * @param type       The type of the message.
+	 * @param recipients The command senders to send the message to, copied when called.
+	 * @param messages   The messages to send.
+	 * @return A future completed once the message was sent to every recipient.
+	 */
+	public CompletableFuture<Void> broadcastSpread(MessageType type, @NonNull Collection<? extends CommandSender> recipients, String... messages) {
+		String[] lines = render(type, messages);
+		CommandSender[] targets = recipients.toArray(new CommandSender[0]);
+
+		if (lines.length == 0 || targets.length == 0)
+			return CompletableFuture.completedFuture(null);
+
+		int[] next = { 0 };
+
+		return ModernPlugin.getInstance().getTickScheduler().submitJob(TickScheduler.Priority.LOW, () -> {
+			int end = Math.min(next[0] + SPREAD_BATCH_SIZE, targets.length);
+
+			for (int i = next[0]; i < end; i++) {
+				CommandSender target = targets[i];
+
+				if (!(target instanceof Player) || ((Player) target).isOnline())
+					sendLines(target, lines);
+			}
+
+			next[0] = end;
+
+			return end == targets.length;
+		});
 	}
 
 	/**
@@ -1,7 +1,9 @@
 package com.honemy.ht;
 
 import com.honemy.ht.logger.ModernLogger;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import org.bukkit.Bukkit;
 
 import java.util.HashMap;
@@ -170,11 +172,38 @@ public final class MinecraftVersion {
 		final String versionString = bukkitVersion.split("-")[0]; // 1.20.6
 		final String[] versions = versionString.split("\\.");
 
-		Valid.checkBoolean(!(versions.length == 2 || versions.length == 3), "HTools cannot read Bukkit version: " + versionString + ", expected 2 or 3 parts separated by dots, got " + versions.length + " parts");
+		Valid.checkBooleanLazy(versions.length == 2 || versions.length == 3, () -> "HTools cannot read Bukkit version: " + versionString + ", expected 2 or 3 parts separated by dots, got " + versions.length + " parts");
 
 		final int version = Integer.parseInt(versions[1]);
 
 		current = version < 3 ? V.v1_3_AND_BELOW : V.parse(version).orElseThrow(() -> new RuntimeException("Invalid version number: " + version));
 		subversion = versions.length == 3 ? Integer.parseInt(versions[2]) : 0;
 	}
+
+	/**
+	 * Holder of the threading model of the server, kept apart from the version so that reading one
+	 * never fails because the other could not be detected.
+	 */
+	@NoArgsConstructor(access = AccessLevel.PRIVATE)
+	public static final class Threading {
+
+		/**
+		 * Whether the server runs regionized multithreading (Folia), where there is no single main thread.
+		 */
+		@Getter
+		private static final boolean regionized;
+
+		static {
+			boolean foundRegionizedServer;
+
+			try {
+				Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+				foundRegionizedServer = true;
+			} catch (ClassNotFoundException e) {
+				foundRegionizedServer = false;
+			}
+
+			regionized = foundRegionizedServer;
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,606 @@
+package com.honemy.ht;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+
+/**
+ * Utility class for validating and parsing numbers in a single pass.
+ * All methods work directly on a {@link CharSequence} without copying it or using regular expressions.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class NumberParser {
+
+	/**
+	 * Powers of ten that are exactly representable as doubles.
+	 */
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+			1e21, 1e22
+	};
+
+	/**
+	 * The largest mantissa that is exactly representable as a double.
+	 */
+	private static final long MAX_EXACT_MANTISSA = (1L << 53) - 1;
+
+	/**
+	 * Marker returned by the internal parsers when the input is invalid or out of range.
+	 */
+	private static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+	/**
+	 * Checks if the input is an optional minus sign followed by one or more digits.
+	 * The value is not range checked, use {@link #parseInt(CharSequence, int)} for that.
+	 *
+	 * @param input the input to check
+	 * @return true if the input is an integer, false otherwise
+	 */
+	public static boolean isInteger(@NonNull final CharSequence input) {
+		final int start = !isEmpty(input) && input.charAt(0) == '-' ? 1 : 0;
+
+		return input.length() > start && isDigits(input, start, input.length());
+	}
+
+	/**
+	 * Checks if the input is an unsigned decimal such as "12", "12.", "12.5" or ".5".
+	 *
+	 * @param input the input to check
+	 * @return true if the input is a decimal, false otherwise
+	 */
+	public static boolean isDecimal(@NonNull final CharSequence input) {
+		final int length = input.length();
+		int dot = -1;
+
+		for (int i = 0; i < length; i++) {
+			final char letter = input.charAt(i);
+
+			if (letter == '.') {
+				if (dot != -1)
+					return false;
+
+				dot = i;
+			} else if (!isDigit(letter))
+				return false;
+		}
+
+		// A lone dot has no digits, and ".5" needs at least one digit after the dot
+		return length > 0 && !(dot == 0 && length == 1);
+	}
+
+	/**
+	 * Parses the input as a decimal int.
+	 *
+	 * @param input    the input to parse
+	 * @param fallback the value to return if the input is not a valid int
+	 * @return the parsed value, or the fallback
+	 */
+	public static int parseInt(@NonNull final CharSequence input, final int fallback) {
+		final long value = parseSigned(input, 0, input.length(), 10, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+		return value == NOT_A_NUMBER ? fallback : (int) value;
+	}
+
+	/**
+	 * Parses the input as a decimal int.
+	 *
+	 * @param input the input to parse
+	 * @return the parsed value, or empty if the input is not a valid int
+	 */
+	public static OptionalInt parseInt(@NonNull final CharSequence input) {
+		final long value = parseSigned(input, 0, input.length(), 10, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+		return value == NOT_A_NUMBER ? OptionalInt.empty() : OptionalInt.of((int) value);
+	}
+
+	/**
+	 * Parses the input as a decimal long.
+	 *
+	 * @param input    the input to parse
+	 * @param fallback the value to return if the input is not a valid long
+	 * @return the parsed value, or the fallback
+	 */
+	public static long parseLong(@NonNull final CharSequence input, final long fallback) {
+		final long value = parseLongValue(input, 10);
+
+		return value != NOT_A_NUMBER || isLongMinimum(input, 10) ? value : fallback;
+	}
+
+	/**
+	 * Parses the input as a decimal long.
+	 *
+	 * @param input the input to parse
+	 * @return the parsed value, or empty if the input is not a valid long
+	 */
+	public static OptionalLong parseLong(@NonNull final CharSequence input) {
+		final long value = parseLongValue(input, 10);
+
+		return value != NOT_A_NUMBER || isLongMinimum(input, 10) ? OptionalLong.of(value) : OptionalLong.empty();
+	}
+
+	/**
+	 * Parses the input as a hexadecimal long, with an optional sign and "0x" or "#" prefix.
+	 *
+	 * @param input    the input to parse
+	 * @param fallback the value to return if the input is not a valid hexadecimal long
+	 * @return the parsed value, or the fallback
+	 */
+	public static long parseHex(@NonNull final CharSequence input, final long fallback) {
+		final long value = parseLongValue(input, 16);
+
+		return value != NOT_A_NUMBER || isLongMinimum(input, 16) ? value : fallback;
+	}
+
+	/**
+	 * Parses the input as a hexadecimal long, with an optional sign and "0x" or "#" prefix.
+	 *
+	 * @param input the input to parse
+	 * @return the parsed value, or empty if the input is not a valid hexadecimal long
+	 */
+	public static OptionalLong parseHex(@NonNull final CharSequence input) {
+		final long value = parseLongValue(input, 16);
+
+		return value != NOT_A_NUMBER || isLongMinimum(input, 16) ? OptionalLong.of(value) : OptionalLong.empty();
+	}
+
+	/**
+	 * Parses the input as a double, accepting an optional sign, a decimal point and an exponent.
+	 *
+	 * @param input    the input to parse
+	 * @param fallback the value to return if the input is not a valid double
+	 * @return the parsed value, or the fallback
+	 */
+	public static double parseDouble(@NonNull final CharSequence input, final double fallback) {
+		final double value = parseDoubleValue(input);
+
+		return Double.isNaN(value) ? fallback : value;
+	}
+
+	/**
+	 * Parses the input as a double, accepting an optional sign, a decimal point and an exponent.
+	 *
+	 * @param input the input to parse
+	 * @return the parsed value, or empty if the input is not a valid double
+	 */
+	public static OptionalDouble parseDouble(@NonNull final CharSequence input) {
+		final double value = parseDoubleValue(input);
+
+		return Double.isNaN(value) ? OptionalDouble.empty() : OptionalDouble.of(value);
+	}
+
+	/**
+	 * Parses the input as a long in the given radix into a reusable result holder.
+	 * For radix 16, an optional "0x" or "#" prefix after the sign is accepted.
+	 *
+	 * @param input  the input to parse
+	 * @param radix  the radix, either 10 or 16
+	 * @param result the holder to write the value to
+	 * @return true if the input was valid, false otherwise
+	 */
+	public static boolean parseLong(@NonNull final CharSequence input, final int radix, @NonNull final ParseResult result) {
+		Valid.checkBooleanInt(radix == 10 || radix == 16, "Radix must be 10 or 16, got: %s", radix);
+
+		final long value = parseLongValue(input, radix);
+
+		if (value == NOT_A_NUMBER && !isLongMinimum(input, radix))
+			return result.invalidate();
+
+		result.valid = true;
+		result.value = value;
+		result.decimal = value;
+
+		return true;
+	}
+
+	/**
+	 * Parses the input as a double into a reusable result holder.
+	 * Inputs whose digits fit in 53 bits and whose exponent is small are computed exactly
+	 * without allocating, longer ones fall back to {@link Double#parseDouble(String)}.
+	 *
+	 * @param input  the input to parse
+	 * @param result the holder to write the value to
+	 * @return true if the input was valid, false otherwise
+	 */
+	public static boolean parseDouble(@NonNull final CharSequence input, @NonNull final ParseResult result) {
+		final double value = parseDoubleValue(input);
+
+		if (Double.isNaN(value))
+			return result.invalidate();
+
+		result.valid = true;
+		result.decimal = value;
+		result.value = (long) value;
+
+		return true;
+	}
+
+	/**
+	 * Parses the input as a double in a single pass.
+	 *
+	 * @param input the input to parse
+	 * @return the parsed value, or {@link Double#NaN} if the input is invalid
+	 */
+	private static double parseDoubleValue(final CharSequence input) {
+		final int length = input.length();
+		int index = 0;
+		boolean negative = false;
+
+		if (length > 0 && (input.charAt(0) == '-' || input.charAt(0) == '+')) {
+			negative = input.charAt(0) == '-';
+			index++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean foundDigit = false;
+		boolean exact = true;
+
+		// Integer part
+		for (; index < length && isDigit(input.charAt(index)); index++) {
+			foundDigit = true;
+
+			if (mantissa == 0 && input.charAt(index) == '0')
+				continue;
+
+			if (digits < 18) {
+				mantissa = mantissa * 10 + (input.charAt(index) - '0');
+				digits++;
+			} else {
+				exponent++;
+				exact = false;
+			}
+		}
+
+		// Fraction part
+		if (index < length && input.charAt(index) == '.') {
+			index++;
+
+			for (; index < length && isDigit(input.charAt(index)); index++) {
+				foundDigit = true;
+
+				if (mantissa == 0 && input.charAt(index) == '0') {
+					exponent--;
+					continue;
+				}
+
+				if (digits < 18) {
+					mantissa = mantissa * 10 + (input.charAt(index) - '0');
+					digits++;
+					exponent--;
+				} else
+					exact = false;
+			}
+		}
+
+		if (!foundDigit)
+			return Double.NaN;
+
+		// Exponent part
+		if (index < length && (input.charAt(index) == 'e' || input.charAt(index) == 'E')) {
+			index++;
+
+			boolean negativeExponent = false;
+
+			if (index < length && (input.charAt(index) == '-' || input.charAt(index) == '+')) {
+				negativeExponent = input.charAt(index) == '-';
+				index++;
+			}
+
+			if (index == length)
+				return Double.NaN;
+
+			int explicitExponent = 0;
+
+			for (; index < length; index++) {
+				final char letter = input.charAt(index);
+
+				if (!isDigit(letter))
+					return Double.NaN;
+
+				// Clamp, anything past this is an overflow or underflow anyway
+				if (explicitExponent < 100_000)
+					explicitExponent = explicitExponent * 10 + (letter - '0');
+			}
+
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+
+		if (index != length)
+			return Double.NaN;
+
+		double value;
+
+		if (mantissa == 0)
+			value = 0;
+
+		else if (exact && mantissa <= MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22)
+			value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+
+		else
+			// Already validated, and the string keeps its sign
+			return Double.parseDouble(input.toString());
+
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parses a signed long in the given radix, skipping the hex prefix for radix 16.
+	 *
+	 * @param input the input to parse
+	 * @param radix the radix, either 10 or 16
+	 * @return the parsed value, or {@link #NOT_A_NUMBER}
+	 */
+	private static long parseLongValue(final CharSequence input, final int radix) {
+		int start = 0;
+		boolean negative = false;
+
+		if (!isEmpty(input) && (input.charAt(0) == '-' || input.charAt(0) == '+')) {
+			negative = input.charAt(0) == '-';
+			start = 1;
+		}
+
+		if (radix == 16)
+			start = skipHexPrefix(input, start);
+
+		return parseMagnitude(input, start, input.length(), radix, negative);
+	}
+
+	/**
+	 * Checks if the input is exactly {@link Long#MIN_VALUE}, which collides with {@link #NOT_A_NUMBER}.
+	 *
+	 * @param input the input to check
+	 * @param radix the radix, either 10 or 16
+	 * @return true if the input is the minimum long, false otherwise
+	 */
+	private static boolean isLongMinimum(final CharSequence input, final int radix) {
+		if (isEmpty(input) || input.charAt(0) != '-')
+			return false;
+
+		return isMinimum(input, radix == 16 ? skipHexPrefix(input, 1) : 1, radix);
+	}
+
+	/**
+	 * Parses a signed value and checks that it is within the given range.
+	 *
+	 * @param input the input to parse
+	 * @param start the index to start at
+	 * @param end   the index to end at, exclusive
+	 * @param radix the radix
+	 * @param min   the minimum allowed value
+	 * @param max   the maximum allowed value
+	 * @return the parsed value, or {@link #NOT_A_NUMBER}
+	 */
+	private static long parseSigned(final CharSequence input, int start, final int end, final int radix, final long min, final long max) {
+		boolean negative = false;
+
+		if (start < end && (input.charAt(start) == '-' || input.charAt(start) == '+')) {
+			negative = input.charAt(start) == '-';
+			start++;
+		}
+
+		final long value = parseMagnitude(input, start, end, radix, negative);
+
+		return value != NOT_A_NUMBER && value >= min && value <= max ? value : NOT_A_NUMBER;
+	}
+
+	/**
+	 * Parses the digits between start and end, accumulating negatively to cover {@link Long#MIN_VALUE}.
+	 * Note that {@link Long#MIN_VALUE} itself shares its value with {@link #NOT_A_NUMBER}.
+	 *
+	 * @param input    the input to parse
+	 * @param start    the index of the first digit
+	 * @param end      the index to end at, exclusive
+	 * @param radix    the radix
+	 * @param negative whether the value is negative
+	 * @return the parsed value, or {@link #NOT_A_NUMBER}
+	 */
+	private static long parseMagnitude(final CharSequence input, final int start, final int end, final int radix, final boolean negative) {
+		if (start >= end)
+			return NOT_A_NUMBER;
+
+		final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		final long multiplyMin = limit / radix;
+		long result = 0;
+
+		for (int i = start; i < end; i++) {
+			final int digit = digit(input.charAt(i), radix);
+
+			if (digit < 0 || result < multiplyMin)
+				return NOT_A_NUMBER;
+
+			result *= radix;
+
+			if (result < limit + digit)
+				return NOT_A_NUMBER;
+
+			result -= digit;
+		}
+
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Checks if the digits starting at the given index spell out the magnitude of {@link Long#MIN_VALUE}.
+	 *
+	 * @param input the input to check
+	 * @param start the index of the first digit
+	 * @param radix the radix
+	 * @return true if the digits are exactly the minimum long, false otherwise
+	 */
+	private static boolean isMinimum(final CharSequence input, int start, final int radix) {
+		final String minimum = radix == 16 ? "8000000000000000" : "9223372036854775808";
+
+		while (start < input.length() - 1 && input.charAt(start) == '0')
+			start++;
+
+		if (input.length() - start != minimum.length())
+			return false;
+
+		for (int i = 0; i < minimum.length(); i++)
+			if (input.charAt(start + i) != minimum.charAt(i))
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Skips a "0x", "0X" or "#" prefix at the given index.
+	 *
+	 * @param input the input
+	 * @param index the index the prefix may start at
+	 * @return the index after the prefix
+	 */
+	private static int skipHexPrefix(final CharSequence input, final int index) {
+		if (index < input.length() && input.charAt(index) == '#')
+			return index + 1;
+
+		if (index + 1 < input.length() && input.charAt(index) == '0' && (input.charAt(index + 1) == 'x' || input.charAt(index + 1) == 'X'))
+			return index + 2;
+
+		return index;
+	}
+
+	/**
+	 * Returns the value of the digit in the given radix.
+	 *
+	 * @param letter the digit character
+	 * @param radix  the radix, either 10 or 16
+	 * @return the value of the digit, or -1 if it is not a digit in the radix
+	 */
+	private static int digit(final char letter, final int radix) {
+		if (isDigit(letter))
+			return letter - '0';
+
+		if (radix == 16) {
+			if (letter >= 'a' && letter <= 'f')
+				return letter - 'a' + 10;
+
+			if (letter >= 'A' && letter <= 'F')
+				return letter - 'A' + 10;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Checks if all characters between start and end are ASCII digits.
+	 *
+	 * @param input the input
+	 * @param start the index to start at
+	 * @param end   the index to end at, exclusive
+	 * @return true if all characters are digits, false otherwise
+	 */
+	private static boolean isDigits(final CharSequence input, final int start, final int end) {
+		for (int i = start; i < end; i++)
+			if (!isDigit(input.charAt(i)))
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Checks if the character is an ASCII digit.
+	 *
+	 * @param letter the character
+	 * @return true if the character is between '0' and '9', false otherwise
+	 */
+	private static boolean isDigit(final char letter) {
+		return letter >= '0' && letter <= '9';
+	}
+
+	/**
+	 * Checks if the input is empty.
+	 *
+	 * @param input the input
+	 * @return true if the input has no characters, false otherwise
+	 */
+	private static boolean isEmpty(final CharSequence input) {
+		return input.length() == 0;
+	}
+
+	/**
+	 * Reusable holder for parse results, so hot paths can parse without allocating.
+	 * A single instance should not be shared between threads.
+	 */
+	public static final class ParseResult {
+
+		/**
+		 * Whether the last parse was successful.
+		 */
+		private boolean valid;
+
+		/**
+		 * The last parsed value as a long, truncated for decimals.
+		 */
+		private long value;
+
+		/**
+		 * The last parsed value as a double.
+		 */
+		private double decimal;
+
+		/**
+		 * Checks if the last parse was successful.
+		 *
+		 * @return true if the last parse was successful, false otherwise
+		 */
+		public boolean isValid() {
+			return this.valid;
+		}
+
+		/**
+		 * Returns the last parsed value as an int.
+		 *
+		 * @return the value, truncated to an int
+		 * @throws com.honemy.ht.exception.ValidationException if the last parse failed
+		 */
+		public int intValue() {
+			Valid.checkBoolean(this.valid, "No valid number was parsed");
+
+			return (int) this.value;
+		}
+
+		/**
+		 * Returns the last parsed value as a long.
+		 *
+		 * @return the value
+		 * @throws com.honemy.ht.exception.ValidationException if the last parse failed
+		 */
+		public long longValue() {
+			Valid.checkBoolean(this.valid, "No valid number was parsed");
+
+			return this.value;
+		}
+
+		/**
+		 * Returns the last parsed value as a double.
+		 *
+		 * @return the value
+		 * @throws com.honemy.ht.exception.ValidationException if the last parse failed
+		 */
+		public double doubleValue() {
+			Valid.checkBoolean(this.valid, "No valid number was parsed");
+
+			return this.decimal;
+		}
+
+		/**
+		 * Marks this result as invalid.
+		 *
+		 * @return always false, for convenient returns
+		 */
+		private boolean invalidate() {
+			this.valid = false;
+			this.value = 0;
+			this.decimal = 0;
+
+			return false;
+		}
+	}
+}
@@ -133,7 +133,7 @@ public final class RandomUtil {
 	 * @return a random integer between 0 (inclusive) and boundExclusive (exclusive)
 	 */
 	public static int nextInt(final int boundExclusive) {
-		Valid.checkBoolean(boundExclusive > 0, "Getting a random number must have the bound above 0, got: " + boundExclusive);
+		Valid.checkBooleanInt(boundExclusive > 0, "Getting a random number must have the bound above 0, got: %s", boundExclusive);
 		return random.nextInt(boundExclusive);
 	}
 
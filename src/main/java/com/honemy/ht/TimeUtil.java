@@ -1,10 +1,14 @@
 package com.honemy.ht;
 
+import com.honemy.ht.plugin.TaskScheduler;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import lombok.NonNull;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 
 /**
  * Utility class for time-related operations.
@@ -12,16 +16,372 @@ import java.time.format.DateTimeFormatter;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class TimeUtil {
 
-	// Define the date format as a constant
-	private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+	/**
+	 * The amount of milliseconds in one server tick.
+	 */
+	public static final long MILLIS_PER_TICK = 50;
+
+	/**
+	 * The amount of server ticks in one second.
+	 */
+	public static final long TICKS_PER_SECOND = 20;
+
+	/**
+	 * The length of the duration units used for formatting, from largest to smallest.
+	 */
+	private static final long[] UNIT_MILLIS = {604_800_000L, 86_400_000L, 3_600_000L, 60_000L, 1_000L};
+
+	/**
+	 * The suffixes of the duration units used for formatting, matching {@link #UNIT_MILLIS}.
+	 */
+	private static final char[] UNIT_SUFFIXES = {'w', 'd', 'h', 'm', 's'};
+
+	/**
+	 * The last formatted date, reused for every call within the same second.
+	 */
+	private static volatile FormattedSecond lastFormatted = new FormattedSecond(Long.MIN_VALUE, new char[0]);
+
+	/**
+	 * The coarse clock, updated once per tick while the clock task runs.
+	 */
+	private static volatile long cachedMillis;
+
+	/**
+	 * The amount of ticks since the clock task was started.
+	 */
+	private static volatile long currentTick;
+
+	/**
+	 * The task updating the coarse clock, or null if it is not running.
+	 */
+	private static volatile TaskScheduler.Task clockTask;
 
 	/**
 	 * Returns the current date and time formatted as "dd-MM-yyyy HH:mm:ss".
+	 * The result is cached per second, so repeated calls within the same second return the same string.
 	 *
 	 * @return A string representing the current date and time.
 	 */
 	public static String getFormattedDate() {
-		return LocalDateTime.now().format(DATE_FORMATTER);
+		return getFormattedSecond(System.currentTimeMillis()).text;
+	}
+
+	/**
+	 * Appends the current date and time formatted as "dd-MM-yyyy HH:mm:ss" to the builder.
+	 * Within the same second, this only copies the cached characters and does not allocate.
+	 *
+	 * @param builder The builder to append to.
+	 * @return The same builder.
+	 */
+	public static StringBuilder appendFormattedDate(@NonNull StringBuilder builder) {
+		return builder.append(getFormattedSecond(System.currentTimeMillis()).chars);
+	}
+
+	/**
+	 * Returns the current time in milliseconds from the coarse clock.
+	 * While the clock task runs, this is the time at the start of the current tick, so it may lag
+	 * behind by up to a tick (or longer during lag spikes) but costs a single volatile read.
+	 * When the clock is not running, it falls back to {@link System#currentTimeMillis()}.
+	 *
+	 * @return The current time in milliseconds.
+	 */
+	public static long currentTimeMillis() {
+		return clockTask != null ? cachedMillis : System.currentTimeMillis();
+	}
+
+	/**
+	 * Returns the amount of ticks since the clock task was started.
+	 *
+	 * @return The current tick, or 0 if the clock is not running.
+	 */
+	public static long getCurrentTick() {
+		return currentTick;
+	}
+
+	/**
+	 * Starts the task updating the coarse clock and tick counter every tick.
+	 * Called automatically when a {@link com.honemy.ht.plugin.ModernPlugin} is enabled.
+	 *
+	 * @param scheduler The scheduler to run the task on, on the global thread.
+	 */
+	public static synchronized void startClock(@NonNull TaskScheduler scheduler) {
+		stopClock();
+
+		cachedMillis = System.currentTimeMillis();
+		currentTick = 0;
+		clockTask = scheduler.runGlobalTimer(TimeUtil::tick, 1, 1);
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Stops the task updating the coarse clock, if it is running.
+	 */
+	public static synchronized void stopClock() {
+		if (clockTask != null) {
+			clockTask.cancel();
+			clockTask = null;
+		}
+	}
+
+	/**
+	 * Parses a duration such as "1d2h30m", "1w 3d" or "1500ms" into milliseconds.
+	 * Supported units are w (weeks), d (days), h (hours), m (minutes), s (seconds) and ms (milliseconds),
+	 * case-insensitive and optionally separated by whitespace. Every number needs a unit.
+	 * The input is read in a single pass without regular expressions or allocations.
+	 *
+	 * @param input The duration to parse.
+	 * @return The duration in milliseconds, or -1 if the input is invalid or overflows.
+	 */
+	public static long parseDuration(@NonNull CharSequence input) {
+		final int length = input.length();
+		long total = 0;
+		boolean foundPart = false;
+		int index = 0;
+
+		while (true) {
+			while (index < length && Character.isWhitespace(input.charAt(index)))
+				index++;
+
+			if (index == length)
+				return foundPart ? total : -1;
+
+			long amount = 0;
+			final int digitsStart = index;
+
+			for (; index < length && input.charAt(index) >= '0' && input.charAt(index) <= '9'; index++) {
+				if (amount > (Long.MAX_VALUE - 9) / 10)
+					return -1;
+
+				amount = amount * 10 + (input.charAt(index) - '0');
+			}
+
+			if (index == digitsStart)
+				return -1;
+
+			while (index < length && Character.isWhitespace(input.charAt(index)))
+				index++;
+
+			if (index == length)
+				return -1;
+
+			final char unit = Character.toLowerCase(input.charAt(index++));
+			final long unitMillis;
+
+			if (unit == 'm' && index < length && Character.toLowerCase(input.charAt(index)) == 's') {
+				index++;
+				unitMillis = 1;
+			} else if (unit == 's')
+				unitMillis = 1_000L;
+			else if (unit == 'm')
+				unitMillis = 60_000L;
+			else if (unit == 'h')
+				unitMillis = 3_600_000L;
+			else if (unit == 'd')
+				unitMillis = 86_400_000L;
+			else if (unit == 'w')
+				unitMillis = 604_800_000L;
+			else
+				return -1;
+
+			if (amount > (Long.MAX_VALUE - total) / unitMillis)
+				return -1;
+
+			total += amount * unitMillis;
+			foundPart = true;
+		}
+	}
+
+	/**
+	 * Parses a duration such as "1d2h30m" into server ticks, rounding down.
+	 *
+	 * @param input The duration to parse.
+	 * @return The duration in ticks, or -1 if the input is invalid or overflows.
+	 * @see #parseDuration(CharSequence)
+	 */
+	public static long parseDurationTicks(@NonNull CharSequence input) {
+		final long millis = parseDuration(input);
+
+		return millis < 0 ? -1 : millisToTicks(millis);
+	}
+
+	/**
+	 * Formats a duration in milliseconds into a humanized string such as "1d 2h 30m 5s".
+	 *
+	 * @param millis The duration in milliseconds.
+	 * @return The formatted duration.
+	 * @see #appendDuration(StringBuilder, long)
+	 */
+	public static String formatDuration(long millis) {
+		return appendDuration(new StringBuilder(16), millis).toString();
+	}
+
+	/**
+	 * Appends a duration in milliseconds to the builder in a humanized form such as "1d 2h 30m 5s".
+	 * Units that are zero are skipped, and durations under a second are written as "0s".
+	 * Nothing besides the builder's own growth is allocated, so a reused builder makes this allocation-free.
+	 *
+	 * @param builder The builder to append to.
+	 * @param millis  The duration in milliseconds, negative values are treated as zero.
+	 * @return The same builder.
+	 */
+	public static StringBuilder appendDuration(@NonNull StringBuilder builder, long millis) {
+		return appendDuration(builder, millis, UNIT_MILLIS.length);
+	}
+
+	/**
+	 * Appends a duration in milliseconds to the builder in a humanized form, limited to the largest units.
+	 * For example, with a limit of 2, "1d 2h 30m 5s" is written as "1d 2h".
+	 *
+	 * @param builder  The builder to append to.
+	 * @param millis   The duration in milliseconds, negative values are treated as zero.
+	 * @param maxUnits The maximum amount of units to write, at least 1.
+	 * @return The same builder.
+	 */
+	public static StringBuilder appendDuration(@NonNull StringBuilder builder, long millis, int maxUnits) {
+		Valid.checkBooleanInt(maxUnits > 0, "Max units must be at least 1, got: %s", maxUnits);
+
+		long remaining = Math.max(millis, 0);
+		int written = 0;
+
+		for (int i = 0; i < UNIT_MILLIS.length && written < maxUnits; i++) {
+			final long amount = remaining / UNIT_MILLIS[i];
+
+			if (amount == 0)
+				continue;
+
+			if (written > 0)
+				builder.append(' ');
+
+			builder.append(amount).append(UNIT_SUFFIXES[i]);
+			remaining -= amount * UNIT_MILLIS[i];
+			written++;
+		}
+
+		if (written == 0)
+			builder.append('0').append('s');
+
+		return builder;
+	}
+
+	/**
+	 * Converts server ticks to milliseconds.
+	 *
+	 * @param ticks The amount of ticks.
+	 * @return The amount of milliseconds.
+	 */
+	public static long ticksToMillis(long ticks) {
+		return ticks * MILLIS_PER_TICK;
+	}
+
+	/**
+	 * Converts milliseconds to server ticks, rounding down.
+	 *
+	 * @param millis The amount of milliseconds.
+	 * @return The amount of ticks.
+	 */
+	public static long millisToTicks(long millis) {
+		return millis / MILLIS_PER_TICK;
+	}
+
+	/**
+	 * Converts seconds to server ticks.
+	 *
+	 * @param seconds The amount of seconds.
+	 * @return The amount of ticks.
+	 */
+	public static long secondsToTicks(long seconds) {
+		return seconds * TICKS_PER_SECOND;
+	}
+
+	/**
+	 * Converts server ticks to seconds, rounding down.
+	 *
+	 * @param ticks The amount of ticks.
+	 * @return The amount of seconds.
+	 */
+	public static long ticksToSeconds(long ticks) {
+		return ticks / TICKS_PER_SECOND;
+	}
+
+	/**
+	 * Updates the coarse clock and advances the tick counter.
+	 */
+	private static void tick() {
+		cachedMillis = System.currentTimeMillis();
+		currentTick++;
+	}
+
+	/**
+	 * Returns the cached formatted second for the given time, formatting it if the second changed.
+	 *
+	 * @param millis The time in milliseconds.
+	 * @return The formatted second.
+	 */
+	private static FormattedSecond getFormattedSecond(long millis) {
+		final long second = Math.floorDiv(millis, 1000);
+		final FormattedSecond cached = lastFormatted;
+
+		if (cached.second == second)
+			return cached;
+
+		final ZoneOffset offset = ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochSecond(second));
+		final LocalDateTime date = LocalDateTime.ofEpochSecond(second, 0, offset);
+		final char[] chars = new char[19];
+
+		writeTwoDigits(chars, 0, date.getDayOfMonth());
+		chars[2] = '-';
+		writeTwoDigits(chars, 3, date.getMonthValue());
+		chars[5] = '-';
+		writeTwoDigits(chars, 6, date.getYear() / 100);
+		writeTwoDigits(chars, 8, date.getYear() % 100);
+		chars[10] = ' ';
+		writeTwoDigits(chars, 11, date.getHour());
+		chars[13] = ':';
+		writeTwoDigits(chars, 14, date.getMinute());
+		chars[16] = ':';
+		writeTwoDigits(chars, 17, date.getSecond());
+
+		final FormattedSecond formatted = new FormattedSecond(second, chars);
+
+		lastFormatted = formatted;
+		return formatted;
+	}
+
+	/**
+	 * Writes a zero-padded two digit number into the array.
+	 *
+	 * @param chars  The array to write to.
+	 * @param offset The index to write at.
+	 * @param value  The value, between 0 and 99.
+	 */
+	private static void writeTwoDigits(char[] chars, int offset, int value) {
+		chars[offset] = (char) ('0' + value / 10);
+		chars[offset + 1] = (char) ('0' + value % 10);
+	}
+
+	/**
+	 * An immutable formatted second, published as a whole so readers never see a torn value.
+	 */
+	private static final class FormattedSecond {
+
+		/**
+		 * The epoch second this value was formatted for.
+		 */
+		private final long second;
+
+		/**
+		 * The formatted characters.
+		 */
+		private final char[] chars;
+
+		/**
+		 * The formatted string.
+		 */
+		private final String text;
+
+		private FormattedSecond(long second, char[] chars) {
+			this.second = second;
+			this.chars = chars;
+			this.text = new String(chars);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package com.honemy.ht;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Utility class for validating and parsing UUIDs.
+ * Both the dashed form ("123e4567-e89b-12d3-a456-426614174000") and the dashless form
+ * ("123e4567e89b12d3a456426614174000") are accepted, and the input is checked in a single pass.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class UUIDUtil {
+
+	/**
+	 * The length of a UUID in its dashed form.
+	 */
+	private static final int DASHED_LENGTH = 36;
+
+	/**
+	 * The length of a UUID in its dashless form.
+	 */
+	private static final int DASHLESS_LENGTH = 32;
+
+	/**
+	 * The value of each ASCII character as a hex digit, or -1 if it is not one.
+	 */
+	private static final byte[] HEX_VALUES = new byte[128];
+
+	static {
+		Arrays.fill(HEX_VALUES, (byte) -1);
+
+		for (int i = 0; i < 10; i++)
+			HEX_VALUES['0' + i] = (byte) i;
+
+		for (int i = 0; i < 6; i++) {
+			HEX_VALUES['a' + i] = (byte) (10 + i);
+			HEX_VALUES['A' + i] = (byte) (10 + i);
+		}
+	}
+
+	/**
+	 * Checks if the input is a valid UUID, in either its dashed or dashless form.
+	 *
+	 * @param input the input to check
+	 * @return true if the input is a valid UUID, false otherwise
+	 */
+	public static boolean isUUID(@NonNull final CharSequence input) {
+		final boolean dashed = hasValidLayout(input);
+
+		if (!dashed && input.length() != DASHLESS_LENGTH)
+			return false;
+
+		int invalid = 0;
+
+		for (int i = 0; i < DASHLESS_LENGTH; i++)
+			invalid |= hexValue(input.charAt(dashed ? dashedIndex(i) : i));
+
+		return invalid >= 0;
+	}
+
+	/**
+	 * Parses the input into a UUID, in either its dashed or dashless form.
+	 * Unlike {@link UUID#fromString(String)}, this is strict about the group lengths and
+	 * does not split the string.
+	 *
+	 * @param input the input to parse
+	 * @return the parsed UUID, or null if the input is not a valid UUID
+	 */
+	public static UUID parse(@NonNull final CharSequence input) {
+		final boolean dashed = hasValidLayout(input);
+
+		if (!dashed && input.length() != DASHLESS_LENGTH)
+			return null;
+
+		long mostSignificant = 0;
+		long leastSignificant = 0;
+		int invalid = 0;
+
+		for (int i = 0; i < DASHLESS_LENGTH; i++) {
+			final int value = hexValue(input.charAt(dashed ? dashedIndex(i) : i));
+
+			invalid |= value;
+
+			if (i < 16)
+				mostSignificant = (mostSignificant << 4) | (value & 0xF);
+			else
+				leastSignificant = (leastSignificant << 4) | (value & 0xF);
+		}
+
+		return invalid < 0 ? null : new UUID(mostSignificant, leastSignificant);
+	}
+
+	/**
+	 * Checks if the input has the dashed layout, with dashes after the 8-4-4-4 hex groups.
+	 *
+	 * @param input the input to check
+	 * @return true if the input is 36 characters long with dashes at the right positions
+	 */
+	private static boolean hasValidLayout(final CharSequence input) {
+		return input.length() == DASHED_LENGTH
+				&& input.charAt(8) == '-'
+				&& input.charAt(13) == '-'
+				&& input.charAt(18) == '-'
+				&& input.charAt(23) == '-';
+	}
+
+	/**
+	 * Maps the index of a hex digit to its position in the dashed form.
+	 *
+	 * @param digit the index of the hex digit, from 0 to 31
+	 * @return the index of the character in the dashed form
+	 */
+	private static int dashedIndex(final int digit) {
+		if (digit < 8)
+			return digit;
+
+		if (digit < 12)
+			return digit + 1;
+
+		if (digit < 16)
+			return digit + 2;
+
+		return digit < 20 ? digit + 3 : digit + 4;
+	}
+
+	/**
+	 * Returns the value of the character as a hex digit.
+	 *
+	 * @param letter the character
+	 * @return the value of the hex digit, or -1 if it is not one
+	 */
+	private static int hexValue(final char letter) {
+		return letter < 128 ? HEX_VALUES[letter] : -1;
+	}
+}
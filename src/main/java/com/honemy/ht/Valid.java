@@ -1,30 +1,26 @@
 package com.honemy.ht;
 
-import com.honemy.ht.exception.HtException;
+import com.honemy.ht.exception.ValidationException;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import org.bukkit.util.Vector;
 
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.function.Supplier;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class Valid {
 
-	private static final Pattern PATTERN_INTEGER = Pattern.compile("-?\\d+");
-	private static final Pattern PATTERN_DECIMAL = Pattern.compile("([0-9]+\\.?[0-9]*|\\.[0-9]+)");
-
-
 	/**
 	 * Checks if the provided object is not null.
 	 *
 	 * @param toCheck the object to check
-	 * @throws HtException if the object is null
+	 * @throws ValidationException if the object is null
 	 */
 	public static void checkNotNull(final Object toCheck) {
 		if (toCheck == null) {
-			throw new HtException();
+			throw new ValidationException();
 		}
 	}
 
@@ -33,11 +29,26 @@ public final class Valid {
 	 *
 	 * @param toCheck      the object to check
 	 * @param falseMessage the exception message if the object is null
-	 * @throws HtException if the object is null
+	 * @throws ValidationException if the object is null
 	 */
 	public static void checkNotNull(final Object toCheck, final String falseMessage) {
 		if (toCheck == null) {
-			throw new HtException(falseMessage);
+			throw new ValidationException(falseMessage);
+		}
+	}
+
+	/**
+	 * Checks if the provided object is not null, building the exception message lazily.
+	 * The supplier is only called when the object is null. Named apart from {@link #checkNotNull(Object, String)}
+	 * so that passing a null message stays unambiguous.
+	 *
+	 * @param toCheck      the object to check
+	 * @param falseMessage the supplier of the exception message if the object is null
+	 * @throws ValidationException if the object is null
+	 */
+	public static void checkNotNullLazy(final Object toCheck, @NonNull final Supplier<String> falseMessage) {
+		if (toCheck == null) {
+			throw new ValidationException(falseMessage.get());
 		}
 	}
 
@@ -45,11 +56,11 @@ public final class Valid {
 	 * Checks if the provided boolean expression is true.
 	 *
 	 * @param expression the boolean expression to check
-	 * @throws HtException if the expression is false
+	 * @throws ValidationException if the expression is false
 	 */
 	public static void checkBoolean(final boolean expression) {
 		if (!expression) {
-			throw new HtException();
+			throw new ValidationException();
 		}
 	}
 
@@ -59,16 +70,108 @@ public final class Valid {
 	 * @param expression   the boolean expression to check
 	 * @param falseMessage the exception message if the expression is false
 	 * @param replacements the replacements for the message format
-	 * @throws HtException if the expression is false
+	 * @throws ValidationException if the expression is false
 	 */
 	public static void checkBoolean(final boolean expression, final String falseMessage, final Object... replacements) {
 		if (!expression) {
-			String message = falseMessage;
-			try {
-				message = String.format(falseMessage, replacements);
-			} catch (final Throwable ignored) {
-			}
-			throw new HtException(message);
+			throw new ValidationException(format(falseMessage, replacements));
+		}
+	}
+
+	/**
+	 * Checks if the provided boolean expression is true, with a custom exception message.
+	 * Unlike the varargs variant, this does not allocate anything when the check passes.
+	 *
+	 * @param expression   the boolean expression to check
+	 * @param falseMessage the exception message if the expression is false
+	 * @throws ValidationException if the expression is false
+	 */
+	public static void checkBoolean(final boolean expression, final String falseMessage) {
+		if (!expression) {
+			throw new ValidationException(format(falseMessage));
+		}
+	}
+
+	/**
+	 * Checks if the provided boolean expression is true, with a custom exception message.
+	 * The replacement is only boxed and formatted when the check fails. Named apart from
+	 * {@link #checkBoolean(boolean, String, Object...)} so that it is only used on purpose: a char, byte
+	 * or short is widened and formatted as a number, and a null Integer throws a NullPointerException
+	 * even if the check passes.
+	 *
+	 * @param expression   the boolean expression to check
+	 * @param falseMessage the exception message format if the expression is false
+	 * @param replacement  the replacement for the message format
+	 * @throws ValidationException if the expression is false
+	 */
+	public static void checkBooleanInt(final boolean expression, final String falseMessage, final int replacement) {
+		if (!expression) {
+			throw new ValidationException(format(falseMessage, replacement));
+		}
+	}
+
+	/**
+	 * Checks if the provided boolean expression is true, with a custom exception message.
+	 * The replacements are only boxed and formatted when the check fails, and are widened and
+	 * unboxed like in {@link #checkBooleanInt(boolean, String, int)}.
+	 *
+	 * @param expression   the boolean expression to check
+	 * @param falseMessage the exception message format if the expression is false
+	 * @param first        the first replacement for the message format
+	 * @param second       the second replacement for the message format
+	 * @throws ValidationException if the expression is false
+	 */
+	public static void checkBooleanInt(final boolean expression, final String falseMessage, final int first, final int second) {
+		if (!expression) {
+			throw new ValidationException(format(falseMessage, first, second));
+		}
+	}
+
+	/**
+	 * Checks if the provided boolean expression is true, with a custom exception message.
+	 * The replacement is only boxed and formatted when the check fails. A char is widened and
+	 * formatted as a number, and a null Long throws a NullPointerException even if the check passes.
+	 *
+	 * @param expression   the boolean expression to check
+	 * @param falseMessage the exception message format if the expression is false
+	 * @param replacement  the replacement for the message format
+	 * @throws ValidationException if the expression is false
+	 */
+	public static void checkBooleanLong(final boolean expression, final String falseMessage, final long replacement) {
+		if (!expression) {
+			throw new ValidationException(format(falseMessage, replacement));
+		}
+	}
+
+	/**
+	 * Checks if the provided boolean expression is true, with a custom exception message.
+	 * The replacement is only boxed and formatted when the check fails. A float is widened, so
+	 * {@code 1.1f} is formatted as {@code 1.100000023841858}, and a null Double throws a NullPointerException
+	 * even if the check passes.
+	 *
+	 * @param expression   the boolean expression to check
+	 * @param falseMessage the exception message format if the expression is false
+	 * @param replacement  the replacement for the message format
+	 * @throws ValidationException if the expression is false
+	 */
+	public static void checkBooleanDouble(final boolean expression, final String falseMessage, final double replacement) {
+		if (!expression) {
+			throw new ValidationException(format(falseMessage, replacement));
+		}
+	}
+
+	/**
+	 * Checks if the provided boolean expression is true, building the exception message lazily.
+	 * The supplier is only called when the check fails. Named apart from {@link #checkBoolean(boolean, String)}
+	 * so that passing a null message stays unambiguous.
+	 *
+	 * @param expression   the boolean expression to check
+	 * @param falseMessage the supplier of the exception message if the expression is false
+	 * @throws ValidationException if the expression is false
+	 */
+	public static void checkBooleanLazy(final boolean expression, @NonNull final Supplier<String> falseMessage) {
+		if (!expression) {
+			throw new ValidationException(falseMessage.get());
 		}
 	}
 
@@ -78,11 +181,11 @@ public final class Valid {
 	 * @param toCheck      the string to check
 	 * @param falseMessage the exception message if the string is not a valid integer
 	 * @param replacements the replacements for the message format
-	 * @throws HtException if the string is not a valid integer
+	 * @throws ValidationException if the string is not a valid integer
 	 */
 	public static void checkInteger(final String toCheck, final String falseMessage, final Object... replacements) {
 		if (!isInteger(toCheck)) {
-			throw new HtException(String.format(falseMessage, replacements));
+			throw new ValidationException(format(falseMessage, replacements));
 		}
 	}
 
@@ -133,7 +236,7 @@ public final class Valid {
 	 */
 	public static boolean isInteger(final String raw) {
 		checkNotNull(raw, "Cannot check if null is an integer!");
-		return PATTERN_INTEGER.matcher(raw).matches();
+		return NumberParser.isInteger(raw);
 	}
 
 	/**
@@ -144,7 +247,7 @@ public final class Valid {
 	 */
 	public static boolean isDecimal(final String raw) {
 		checkNotNull(raw, "Cannot check if null is a decimal!");
-		return PATTERN_DECIMAL.matcher(raw).matches();
+		return NumberParser.isDecimal(raw);
 	}
 
 	/**
@@ -159,20 +262,19 @@ public final class Valid {
 			return false;
 		}
 
-		final char[] letters = raw.toCharArray();
-		int length = letters.length;
+		int length = raw.length();
 		boolean hasExp = false;
 		boolean hasDecPoint = false;
 		boolean allowSigns = false;
 		boolean foundDigit = false;
 
-		final int start = (letters[0] == '-') ? 1 : 0;
+		final int start = (raw.charAt(0) == '-') ? 1 : 0;
 
-		if (length > start + 1 && letters[start] == '0' && letters[start + 1] == 'x') {
+		if (length > start + 1 && raw.charAt(start) == '0' && raw.charAt(start + 1) == 'x') {
 			int i = start + 2;
 			if (i == length) return false;
-			for (; i < letters.length; i++) {
-				if (!Character.isDigit(letters[i]) && "abcdefABCDEF".indexOf(letters[i]) == -1) return false;
+			for (; i < raw.length(); i++) {
+				if (!Character.isDigit(raw.charAt(i)) && "abcdefABCDEF".indexOf(raw.charAt(i)) == -1) return false;
 			}
 			return true;
 		}
@@ -181,7 +283,7 @@ public final class Valid {
 		int i = start;
 
 		while (i < length || (i < length + 1 && allowSigns && !foundDigit)) {
-			char currentChar = letters[i];
+			char currentChar = raw.charAt(i);
 			if (Character.isDigit(currentChar)) {
 				foundDigit = true;
 				allowSigns = false;
@@ -202,8 +304,8 @@ public final class Valid {
 			i++;
 		}
 
-		if (i < letters.length) {
-			char lastChar = letters[i];
+		if (i < raw.length()) {
+			char lastChar = raw.charAt(i);
 			if (Character.isDigit(lastChar)) return true;
 			if (lastChar == 'e' || lastChar == 'E') return false;
 			if (lastChar == '.') return !hasDecPoint && !hasExp && foundDigit;
@@ -305,15 +407,15 @@ public final class Valid {
 	}
 
 	/**
-	 * Checks if the provided object is a UUID.
+	 * Checks if the provided object is a UUID, or a string holding one in its dashed or dashless form.
 	 *
 	 * @param object the object to check
 	 * @return true if the object is a UUID, false otherwise
+	 * @see UUIDUtil#isUUID(CharSequence)
 	 */
 	public static boolean isUUID(final Object object) {
 		if (object instanceof String) {
-			final String[] components = object.toString().split("-");
-			return components.length == 5;
+			return UUIDUtil.isUUID((String) object);
 		}
 		return object instanceof UUID;
 	}
@@ -355,12 +457,16 @@ public final class Valid {
 
 	/**
 	 * Checks if a string is present in a list, ignoring case and leading slashes.
+	 * Lists compiled with {@link CompiledStringMatcher#compile(Iterable)} are looked up without scanning.
 	 *
 	 * @param element the string to search for
 	 * @param list    the list to search in
 	 * @return true if the string is found in the list, false otherwise
 	 */
 	public static boolean isInList(final String element, final Iterable<String> list) {
+		if (list instanceof CompiledStringMatcher)
+			return ((CompiledStringMatcher) list).contains(element);
+
 		try {
 			for (final String matched : list)
 				if (removeSlash(element).equalsIgnoreCase(removeSlash(matched)))
@@ -373,12 +479,16 @@ public final class Valid {
 
 	/**
 	 * Checks if the specified element starts with any of the elements in the provided list.
+	 * Lists compiled with {@link CompiledStringMatcher#compile(Iterable)} are looked up without scanning.
 	 *
 	 * @param element The element to check.
 	 * @param list    The list of strings to compare against.
 	 * @return {@code true} if the element starts with any of the elements in the list, {@code false} otherwise.
 	 */
 	public static boolean isInListStartsWith(final String element, final Iterable<String> list) {
+		if (list instanceof CompiledStringMatcher)
+			return ((CompiledStringMatcher) list).containsPrefixOf(element);
+
 		try {
 			for (final String matched : list)
 				if (removeSlash(element).toLowerCase().startsWith(removeSlash(matched).toLowerCase()))
@@ -403,6 +513,21 @@ public final class Valid {
 		return false;
 	}
 
+	/**
+	 * Formats the failure message, falling back to the raw message if the format is invalid.
+	 *
+	 * @param message      the message format
+	 * @param replacements the replacements for the message format
+	 * @return the formatted message
+	 */
+	private static String format(final String message, final Object... replacements) {
+		try {
+			return String.format(message, replacements);
+		} catch (final Throwable ignored) {
+			return message;
+		}
+	}
+
 	/**
 	 * Removes leading slash ('/') character from the given string if it exists.
 	 *
@@ -0,0 +1,917 @@
+package com.honemy.ht.cache;
+
+import com.honemy.ht.Valid;
+import com.honemy.ht.plugin.ModernPlugin;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A cache bounded in size and time, with values loaded on the I/O pool of the plugin.
+ * <p>
+ * Entries are spread over up to 16 segments by key hash, each with its own lock, so threads using different
+ * keys rarely wait on each other. Each segment evicts with a segmented LRU: new entries enter a probation
+ * area, and only entries read again move to a protected area holding 80% of the segment. A burst of keys
+ * read once, such as players joining and leaving, only evicts other probation entries and never the hot ones.
+ * <p>
+ * Expired entries are dropped when read, and every few seconds on the scheduled pool of the plugin.
+ * <pre>{@code
+ * final Cache<UUID, Profile> profiles = Cache.<UUID, Profile>builder(plugin)
+ *         .maximumSize(5000)
+ *         .expireAfterAccess(30, TimeUnit.MINUTES)
+ *         .loader(this::loadProfile)
+ *         .build();
+ *
+ * profiles.getAsync(player.getUniqueId()).thenAccept(profile -> ...);
+ * }</pre>
+ * Keys and values cannot be null. Call {@link #close()} when the cache is no longer used to stop its cleanup task.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public final class Cache<K, V> {
+
+	/**
+	 * The most segments, and the amount of segments of unbounded caches.
+	 */
+	private static final int MAX_SEGMENTS = 16;
+
+	/**
+	 * The smallest amount of entries per segment, so small caches evict in a single LRU order.
+	 */
+	private static final int MIN_SEGMENT_SIZE = 64;
+
+	/**
+	 * The share of each segment kept for entries read more than once.
+	 */
+	private static final double PROTECTED_SHARE = 0.8;
+
+	/**
+	 * The segments holding the entries, their amount is a power of two.
+	 */
+	private final Segment<K, V>[] segments;
+
+	/**
+	 * Selects the segment of a key hash.
+	 */
+	private final int segmentMask;
+
+	/**
+	 * How long entries are kept after being written, in nanoseconds, or 0 forever.
+	 */
+	private final long expireAfterWriteNanos;
+
+	/**
+	 * How long entries are kept after being read or written, in nanoseconds, or 0 forever.
+	 */
+	private final long expireAfterAccessNanos;
+
+	/**
+	 * How long after being written an entry is reloaded in the background when read, in nanoseconds, or 0 never.
+	 */
+	private final long refreshAfterWriteNanos;
+
+	/**
+	 * Loads missing values, or null if values are only put.
+	 */
+	private final Function<? super K, ? extends V> loader;
+
+	/**
+	 * Notified of removed entries, or null.
+	 */
+	private final RemovalListener<? super K, ? super V> removalListener;
+
+	/**
+	 * Runs the loads, the I/O pool of the plugin.
+	 */
+	private final Executor executor;
+
+	/**
+	 * The loads in progress by key, so a value is only loaded once at a time.
+	 */
+	private final Map<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+	/**
+	 * The task dropping expired entries, or null if entries do not expire.
+	 */
+	private final ScheduledFuture<?> cleanupTask;
+
+	/**
+	 * The amount of lookups that found a value.
+	 */
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * The amount of lookups that found no value.
+	 */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * The amount of entries evicted for size or expired.
+	 */
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * The amount of successful loads.
+	 */
+	private final LongAdder loadSuccesses = new LongAdder();
+
+	/**
+	 * The amount of failed loads.
+	 */
+	private final LongAdder loadFailures = new LongAdder();
+
+	/**
+	 * The time spent loading, in nanoseconds.
+	 */
+	private final LongAdder totalLoadNanos = new LongAdder();
+
+	@SuppressWarnings("unchecked")
+	private Cache(Builder<K, V> builder) {
+		int segmentCount = 1;
+
+		while (segmentCount < MAX_SEGMENTS && (long) segmentCount * 2 * MIN_SEGMENT_SIZE <= builder.maximumSize)
+			segmentCount <<= 1;
+
+		final long segmentCapacity = Math.min(Integer.MAX_VALUE, (builder.maximumSize + segmentCount - 1) / segmentCount);
+
+		this.segments = new Segment[segmentCount];
+		this.segmentMask = segmentCount - 1;
+
+		for (int i = 0; i < segmentCount; i++)
+			this.segments[i] = new Segment<>((int) segmentCapacity);
+
+		this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+		this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+		this.refreshAfterWriteNanos = builder.refreshAfterWriteNanos;
+		this.loader = builder.loader;
+		this.removalListener = builder.removalListener;
+		this.executor = builder.plugin.getExecutors().getIo();
+
+		final long shortestExpiry = Math.min(
+				this.expireAfterWriteNanos == 0 ? Long.MAX_VALUE : this.expireAfterWriteNanos,
+				this.expireAfterAccessNanos == 0 ? Long.MAX_VALUE : this.expireAfterAccessNanos);
+
+		if (shortestExpiry != Long.MAX_VALUE) {
+			final long interval = Math.max(TimeUnit.SECONDS.toNanos(1), Math.min(TimeUnit.MINUTES.toNanos(1), shortestExpiry / 2));
+
+			this.cleanupTask = builder.plugin.getExecutors().getScheduled().scheduleWithFixedDelay(this::cleanUp, interval, interval, TimeUnit.NANOSECONDS);
+		} else
+			this.cleanupTask = null;
+	}
+
+	/**
+	 * Starts building a cache.
+	 *
+	 * @param plugin the plugin whose I/O pool loads the values and scheduled pool drops expired entries.
+	 * @param <K>    the type of the keys.
+	 * @param <V>    the type of the values.
+	 * @return the builder.
+	 */
+	public static <K, V> Builder<K, V> builder(@NonNull ModernPlugin plugin) {
+		return new Builder<>(plugin);
+	}
+
+	/**
+	 * Returns the value of a key if it is cached, without loading it.
+	 *
+	 * @param key the key.
+	 * @return the value, or null if not cached or expired.
+	 */
+	public V getIfPresent(@NonNull K key) {
+		final long now = System.nanoTime();
+		final Segment<K, V> segment = this.segmentFor(key);
+		final V value;
+		boolean refresh = false;
+		List<Node<K, V>> removed = null;
+
+		synchronized (segment) {
+			final Node<K, V> node = segment.map.get(key);
+
+			if (node == null)
+				value = null;
+			else if (this.isExpired(node, now)) {
+				segment.remove(node);
+				removed = add(removed, node, RemovalCause.EXPIRED);
+				value = null;
+			} else {
+				segment.access(node);
+				node.accessNanos = now;
+				value = node.value;
+				refresh = this.refreshAfterWriteNanos > 0 && now - node.writeNanos >= this.refreshAfterWriteNanos;
+			}
+		}
+
+		(value != null ? this.hits : this.misses).increment();
+		this.notifyRemoved(removed);
+
+		if (refresh && this.loader != null)
+			this.refresh(key);
+
+		return value;
+	}
+
+	/**
+	 * Returns the value of a key, loading it on the calling thread if needed.
+	 * If the value is already being loaded, waits for that load instead.
+	 *
+	 * @param key the key.
+	 * @return the value, or null if the loader returned null.
+	 * @throws CompletionException if the loader threw an error.
+	 */
+	public V get(@NonNull K key) {
+		Valid.checkBoolean(this.loader != null, "Cannot load values of a cache without loader");
+
+		final V cached = this.getIfPresent(key);
+
+		if (cached != null)
+			return cached;
+
+		final CompletableFuture<V> created = new CompletableFuture<>();
+		final CompletableFuture<V> existing = this.loading.putIfAbsent(key, created);
+
+		if (existing != null)
+			return existing.join();
+
+		this.load(key, created);
+
+		return created.join();
+	}
+
+	/**
+	 * Returns the value of a key, loading it on the I/O pool if needed.
+	 * If the value is already being loaded, returns the future of that load.
+	 *
+	 * @param key the key.
+	 * @return a future completed with the value, or null if the loader returned null.
+	 */
+	public CompletableFuture<V> getAsync(@NonNull K key) {
+		Valid.checkBoolean(this.loader != null, "Cannot load values of a cache without loader");
+
+		final V cached = this.getIfPresent(key);
+
+		if (cached != null)
+			return CompletableFuture.completedFuture(cached);
+
+		final CompletableFuture<V> created = new CompletableFuture<>();
+		final CompletableFuture<V> existing = this.loading.putIfAbsent(key, created);
+
+		if (existing != null)
+			return existing;
+
+		this.loadAsync(key, created);
+
+		return created;
+	}
+
+	/**
+	 * Reloads the value of a key on the I/O pool, keeping the current value until the load finished.
+	 * Does nothing if the value is already being loaded.
+	 *
+	 * @param key the key.
+	 */
+	public void refresh(@NonNull K key) {
+		Valid.checkBoolean(this.loader != null, "Cannot load values of a cache without loader");
+
+		final CompletableFuture<V> created = new CompletableFuture<>();
+
+		if (this.loading.putIfAbsent(key, created) == null)
+			this.loadAsync(key, created);
+	}
+
+	/**
+	 * Caches a value, replacing the current one. A load of the key in progress does not cache its value.
+	 *
+	 * @param key   the key.
+	 * @param value the value.
+	 */
+	public void put(@NonNull K key, @NonNull V value) {
+		this.loading.remove(key);
+		this.insert(key, value, System.nanoTime(), null);
+	}
+
+	/**
+	 * Removes the value of a key. A load of the key in progress does not cache its value.
+	 *
+	 * @param key the key.
+	 */
+	public void invalidate(@NonNull K key) {
+		final Segment<K, V> segment = this.segmentFor(key);
+		Node<K, V> node;
+
+		this.loading.remove(key);
+
+		synchronized (segment) {
+			node = segment.map.get(key);
+
+			if (node != null)
+				segment.remove(node);
+		}
+
+		if (node != null)
+			this.notifyRemoved(add(null, node, RemovalCause.EXPLICIT));
+	}
+
+	/**
+	 * Removes all values. Loads in progress do not cache their values.
+	 */
+	public void invalidateAll() {
+		this.loading.clear();
+
+		for (Segment<K, V> segment : this.segments) {
+			List<Node<K, V>> removed = null;
+
+			synchronized (segment) {
+				for (Node<K, V> node : segment.map.values())
+					removed = add(removed, node, RemovalCause.EXPLICIT);
+
+				segment.clear();
+			}
+
+			this.notifyRemoved(removed);
+		}
+	}
+
+	/**
+	 * Drops the expired entries. Called every few seconds when entries expire.
+	 */
+	public void cleanUp() {
+		if (this.expireAfterWriteNanos == 0 && this.expireAfterAccessNanos == 0)
+			return;
+
+		for (Segment<K, V> segment : this.segments) {
+			final long now = System.nanoTime();
+			List<Node<K, V>> removed = null;
+
+			synchronized (segment) {
+				for (Node<K, V> node : new ArrayList<>(segment.map.values()))
+					if (this.isExpired(node, now)) {
+						segment.remove(node);
+						removed = add(removed, node, RemovalCause.EXPIRED);
+					}
+			}
+
+			this.notifyRemoved(removed);
+		}
+	}
+
+	/**
+	 * Returns the amount of cached entries, including expired entries not dropped yet.
+	 *
+	 * @return the amount of entries.
+	 */
+	public long size() {
+		long size = 0;
+
+		for (Segment<K, V> segment : this.segments)
+			synchronized (segment) {
+				size += segment.map.size();
+			}
+
+		return size;
+	}
+
+	/**
+	 * Returns the counters of the cache since it was built.
+	 *
+	 * @return the stats.
+	 */
+	public CacheStats getStats() {
+		return new CacheStats(this.hits.sum(), this.misses.sum(), this.evictions.sum(), this.loadSuccesses.sum(), this.loadFailures.sum(), this.totalLoadNanos.sum());
+	}
+
+	/**
+	 * Stops the task dropping expired entries. The cache can still be used, expired entries are then only dropped when read.
+	 */
+	public void close() {
+		if (this.cleanupTask != null)
+			this.cleanupTask.cancel(false);
+	}
+
+	/**
+	 * Loads a value on the executor. If the executor rejects the load, for example once shut down,
+	 * the load fails at once so later calls start a new one instead of waiting for it forever.
+	 *
+	 * @param key    the key.
+	 * @param future the future of the load, registered in {@link #loading}.
+	 */
+	private void loadAsync(K key, CompletableFuture<V> future) {
+		try {
+			this.executor.execute(() -> this.load(key, future));
+		} catch (RejectedExecutionException e) {
+			this.loading.remove(key, future);
+			future.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Loads a value and caches it, unless the key was invalidated or put meanwhile.
+	 *
+	 * @param key    the key.
+	 * @param future the future of the load, registered in {@link #loading}.
+	 */
+	private void load(K key, CompletableFuture<V> future) {
+		final long start = System.nanoTime();
+		final V value;
+
+		try {
+			value = this.loader.apply(key);
+		} catch (Throwable t) {
+			this.totalLoadNanos.add(System.nanoTime() - start);
+			this.loadFailures.increment();
+			this.loading.remove(key, future);
+
+			future.completeExceptionally(t);
+			return;
+		}
+
+		this.totalLoadNanos.add(System.nanoTime() - start);
+		this.loadSuccesses.increment();
+
+		if (value != null)
+			this.insert(key, value, System.nanoTime(), future);
+
+		this.loading.remove(key, future);
+		future.complete(value);
+	}
+
+	/**
+	 * Caches a value, evicting entries if the segment is full.
+	 *
+	 * @param key   the key.
+	 * @param value the value.
+	 * @param now   the current time, in nanoseconds.
+	 * @param load  the load the value comes from, or null if put directly.
+	 */
+	private void insert(K key, V value, long now, CompletableFuture<V> load) {
+		final Segment<K, V> segment = this.segmentFor(key);
+		List<Node<K, V>> removed = null;
+
+		synchronized (segment) {
+			// Checked under the lock, so a put or invalidate of the key either happens after or discards the load
+			if (load != null && this.loading.get(key) != load)
+				return;
+
+			Node<K, V> node = segment.map.get(key);
+
+			if (node != null) {
+				removed = add(removed, new Node<>(key, node.value), RemovalCause.REPLACED);
+				node.value = value;
+				segment.access(node);
+			} else {
+				node = new Node<>(key, value);
+				segment.add(node);
+
+				Node<K, V> victim;
+
+				while ((victim = segment.evictionCandidate()) != null) {
+					segment.remove(victim);
+					removed = add(removed, victim, RemovalCause.SIZE);
+				}
+			}
+
+			node.writeNanos = now;
+			node.accessNanos = now;
+		}
+
+		this.notifyRemoved(removed);
+	}
+
+	/**
+	 * Checks if an entry expired.
+	 *
+	 * @param node the entry.
+	 * @param now  the current time, in nanoseconds.
+	 * @return true if expired.
+	 */
+	private boolean isExpired(Node<K, V> node, long now) {
+		return (this.expireAfterWriteNanos > 0 && now - node.writeNanos >= this.expireAfterWriteNanos)
+				|| (this.expireAfterAccessNanos > 0 && now - node.accessNanos >= this.expireAfterAccessNanos);
+	}
+
+	/**
+	 * Counts evictions and notifies the removal listener, outside the segment lock.
+	 *
+	 * @param removed the removed entries with their cause, or null.
+	 */
+	private void notifyRemoved(List<Node<K, V>> removed) {
+		if (removed == null)
+			return;
+
+		for (Node<K, V> node : removed) {
+			if (node.cause.wasEvicted())
+				this.evictions.increment();
+
+			if (this.removalListener != null)
+				this.removalListener.onRemoval(node.key, node.value, node.cause);
+		}
+	}
+
+	/**
+	 * Returns the segment of a key.
+	 *
+	 * @param key the key.
+	 * @return the segment.
+	 */
+	private Segment<K, V> segmentFor(Object key) {
+		final int hash = key.hashCode();
+
+		// Spread the high bits, since keys with close hashes would share a segment
+		return this.segments[(hash ^ (hash >>> 16)) & this.segmentMask];
+	}
+
+	/**
+	 * Adds a removed entry to a list, creating it if needed.
+	 *
+	 * @param removed the list, or null.
+	 * @param node    the removed entry.
+	 * @param cause   why it was removed.
+	 * @param <K>     the type of the keys.
+	 * @param <V>     the type of the values.
+	 * @return the list.
+	 */
+	private static <K, V> List<Node<K, V>> add(List<Node<K, V>> removed, Node<K, V> node, RemovalCause cause) {
+		if (removed == null)
+			removed = new ArrayList<>(2);
+
+		node.cause = cause;
+		removed.add(node);
+
+		return removed;
+	}
+
+	/**
+	 * Builds a {@link Cache}.
+	 *
+	 * @param <K> the type of the keys.
+	 * @param <V> the type of the values.
+	 */
+	public static final class Builder<K, V> {
+
+		/**
+		 * The plugin whose pools the cache uses.
+		 */
+		private final ModernPlugin plugin;
+
+		/**
+		 * The most entries.
+		 */
+		private long maximumSize = Long.MAX_VALUE;
+
+		/**
+		 * How long entries are kept after being written, in nanoseconds, or 0 forever.
+		 */
+		private long expireAfterWriteNanos;
+
+		/**
+		 * How long entries are kept after being read or written, in nanoseconds, or 0 forever.
+		 */
+		private long expireAfterAccessNanos;
+
+		/**
+		 * How long after being written an entry is reloaded when read, in nanoseconds, or 0 never.
+		 */
+		private long refreshAfterWriteNanos;
+
+		/**
+		 * Loads missing values, or null.
+		 */
+		private Function<? super K, ? extends V> loader;
+
+		/**
+		 * Notified of removed entries, or null.
+		 */
+		private RemovalListener<? super K, ? super V> removalListener;
+
+		private Builder(ModernPlugin plugin) {
+			this.plugin = plugin;
+		}
+
+		/**
+		 * Sets the most entries, unbounded by default. The limit applies per segment, so the least recently
+		 * used entry of the whole cache is not always the one evicted.
+		 *
+		 * @param maximumSize the most entries.
+		 * @return this builder.
+		 */
+		public Builder<K, V> maximumSize(long maximumSize) {
+			Valid.checkBoolean(maximumSize > 0, "Maximum size must be above 0, got: %s", maximumSize);
+
+			this.maximumSize = maximumSize;
+
+			return this;
+		}
+
+		/**
+		 * Drops entries the given time after they were last written.
+		 *
+		 * @param duration the time.
+		 * @param unit     the unit of the time.
+		 * @return this builder.
+		 */
+		public Builder<K, V> expireAfterWrite(long duration, @NonNull TimeUnit unit) {
+			this.expireAfterWriteNanos = toNanos(duration, unit);
+
+			return this;
+		}
+
+		/**
+		 * Drops entries the given time after they were last read or written.
+		 *
+		 * @param duration the time.
+		 * @param unit     the unit of the time.
+		 * @return this builder.
+		 */
+		public Builder<K, V> expireAfterAccess(long duration, @NonNull TimeUnit unit) {
+			this.expireAfterAccessNanos = toNanos(duration, unit);
+
+			return this;
+		}
+
+		/**
+		 * Reloads entries in the background when read the given time after they were written.
+		 * The current value is returned until the new one is loaded. Requires a loader.
+		 *
+		 * @param duration the time.
+		 * @param unit     the unit of the time.
+		 * @return this builder.
+		 */
+		public Builder<K, V> refreshAfterWrite(long duration, @NonNull TimeUnit unit) {
+			this.refreshAfterWriteNanos = toNanos(duration, unit);
+
+			return this;
+		}
+
+		/**
+		 * Sets the function loading missing values on the I/O pool. It may block, and return null if there is no value.
+		 *
+		 * @param loader the loader.
+		 * @return this builder.
+		 */
+		public Builder<K, V> loader(@NonNull Function<? super K, ? extends V> loader) {
+			this.loader = loader;
+
+			return this;
+		}
+
+		/**
+		 * Sets the listener notified of removed entries.
+		 *
+		 * @param removalListener the listener.
+		 * @return this builder.
+		 */
+		public Builder<K, V> removalListener(@NonNull RemovalListener<? super K, ? super V> removalListener) {
+			this.removalListener = removalListener;
+
+			return this;
+		}
+
+		/**
+		 * Builds the cache.
+		 *
+		 * @return the cache.
+		 */
+		public Cache<K, V> build() {
+			Valid.checkBoolean(this.refreshAfterWriteNanos == 0 || this.loader != null, "Refreshing entries requires a loader");
+
+			return new Cache<>(this);
+		}
+
+		/**
+		 * Converts a positive duration to nanoseconds.
+		 *
+		 * @param duration the duration.
+		 * @param unit     the unit of the duration.
+		 * @return the duration, in nanoseconds.
+		 */
+		private static long toNanos(long duration, TimeUnit unit) {
+			Valid.checkBoolean(duration > 0, "Duration must be above 0, got: %s", duration);
+
+			return unit.toNanos(duration);
+		}
+	}
+
+	/**
+	 * A cached entry, linked in the LRU order of its area.
+	 */
+	private static final class Node<K, V> {
+
+		/**
+		 * The key.
+		 */
+		private final K key;
+
+		/**
+		 * The value.
+		 */
+		private V value;
+
+		/**
+		 * When the value was written, in nanoseconds.
+		 */
+		private long writeNanos;
+
+		/**
+		 * When the value was last read or written, in nanoseconds.
+		 */
+		private long accessNanos;
+
+		/**
+		 * Whether the entry is in the protected area.
+		 */
+		private boolean protectedArea;
+
+		/**
+		 * Why the entry was removed, once removed.
+		 */
+		private RemovalCause cause;
+
+		/**
+		 * The previous entry in LRU order.
+		 */
+		private Node<K, V> previous;
+
+		/**
+		 * The next entry in LRU order.
+		 */
+		private Node<K, V> next;
+
+		private Node(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * A part of the cache with its own lock and segmented LRU, only used while synchronized on it.
+	 */
+	private static final class Segment<K, V> {
+
+		/**
+		 * The entries by key.
+		 */
+		private final Map<K, Node<K, V>> map = new HashMap<>();
+
+		/**
+		 * The sentinel of the probation area, its next entry is the least recently used.
+		 */
+		private final Node<K, V> probation = sentinel();
+
+		/**
+		 * The sentinel of the protected area, its next entry is the least recently used.
+		 */
+		private final Node<K, V> protectedArea = sentinel();
+
+		/**
+		 * The most entries.
+		 */
+		private final int capacity;
+
+		/**
+		 * The most entries in the protected area.
+		 */
+		private final int protectedCapacity;
+
+		/**
+		 * The amount of entries in the protected area.
+		 */
+		private int protectedSize;
+
+		private Segment(int capacity) {
+			this.capacity = capacity;
+			this.protectedCapacity = (int) (capacity * PROTECTED_SHARE);
+		}
+
+		/**
+		 * Adds a new entry to the probation area.
+		 *
+		 * @param node the entry.
+		 */
+		private void add(Node<K, V> node) {
+			this.map.put(node.key, node);
+			linkLast(this.probation, node);
+		}
+
+		/**
+		 * Marks an entry as used: moves it to the protected area, demoting the least recently used protected entry if full.
+		 *
+		 * @param node the entry.
+		 */
+		private void access(Node<K, V> node) {
+			unlink(node);
+
+			if (node.protectedArea) {
+				linkLast(this.protectedArea, node);
+				return;
+			}
+
+			if (this.protectedCapacity == 0) {
+				linkLast(this.probation, node);
+				return;
+			}
+
+			node.protectedArea = true;
+			this.protectedSize++;
+			linkLast(this.protectedArea, node);
+
+			if (this.protectedSize > this.protectedCapacity) {
+				final Node<K, V> demoted = this.protectedArea.next;
+
+				unlink(demoted);
+				demoted.protectedArea = false;
+				this.protectedSize--;
+				linkLast(this.probation, demoted);
+			}
+		}
+
+		/**
+		 * Returns the entry to evict if the segment is over capacity.
+		 *
+		 * @return the least recently used probation entry, or protected one if there are none, or null if not full.
+		 */
+		private Node<K, V> evictionCandidate() {
+			if (this.map.size() <= this.capacity)
+				return null;
+
+			return this.probation.next != this.probation ? this.probation.next : this.protectedArea.next;
+		}
+
+		/**
+		 * Removes an entry.
+		 *
+		 * @param node the entry.
+		 */
+		private void remove(Node<K, V> node) {
+			this.map.remove(node.key);
+			unlink(node);
+
+			if (node.protectedArea) {
+				node.protectedArea = false;
+				this.protectedSize--;
+			}
+		}
+
+		/**
+		 * Removes all entries.
+		 */
+		private void clear() {
+			this.map.clear();
+			this.probation.next = this.probation.previous = this.probation;
+			this.protectedArea.next = this.protectedArea.previous = this.protectedArea;
+			this.protectedSize = 0;
+		}
+
+		/**
+		 * Creates the sentinel of an empty circular list.
+		 *
+		 * @param <K> the type of the keys.
+		 * @param <V> the type of the values.
+		 * @return the sentinel.
+		 */
+		private static <K, V> Node<K, V> sentinel() {
+			final Node<K, V> sentinel = new Node<>(null, null);
+
+			sentinel.previous = sentinel;
+			sentinel.next = sentinel;
+
+			return sentinel;
+		}
+
+		/**
+		 * Links an entry as the most recently used of a list.
+		 *
+		 * @param sentinel the sentinel of the list.
+		 * @param node     the entry.
+		 */
+		private static <K, V> void linkLast(Node<K, V> sentinel, Node<K, V> node) {
+			node.previous = sentinel.previous;
+			node.next = sentinel;
+			sentinel.previous.next = node;
+			sentinel.previous = node;
+		}
+
+		/**
+		 * Unlinks an entry from its list.
+		 *
+		 * @param node the entry.
+		 */
+		private static <K, V> void unlink(Node<K, V> node) {
+			node.previous.next = node.next;
+			node.next.previous = node.previous;
+			node.previous = null;
+			node.next = null;
+		}
+	}
+}
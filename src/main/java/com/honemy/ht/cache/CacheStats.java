@@ -0,0 +1,82 @@
+package com.honemy.ht.cache;
+
+import lombok.Getter;
+
+/**
+ * The counters of a {@link Cache} at the time {@link Cache#getStats()} was called.
+ */
+public final class CacheStats {
+
+	/**
+	 * The amount of lookups that found a value.
+	 */
+	@Getter
+	private final long hits;
+
+	/**
+	 * The amount of lookups that found no value.
+	 */
+	@Getter
+	private final long misses;
+
+	/**
+	 * The amount of entries evicted for size or expired.
+	 */
+	@Getter
+	private final long evictions;
+
+	/**
+	 * The amount of values loaded or refreshed successfully.
+	 */
+	@Getter
+	private final long loadSuccesses;
+
+	/**
+	 * The amount of loads and refreshes that threw an error.
+	 */
+	@Getter
+	private final long loadFailures;
+
+	/**
+	 * The time spent loading and refreshing, in nanoseconds.
+	 */
+	@Getter
+	private final long totalLoadNanos;
+
+	CacheStats(long hits, long misses, long evictions, long loadSuccesses, long loadFailures, long totalLoadNanos) {
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.loadSuccesses = loadSuccesses;
+		this.loadFailures = loadFailures;
+		this.totalLoadNanos = totalLoadNanos;
+	}
+
+	/**
+	 * Returns the share of lookups that found a value.
+	 *
+	 * @return the hit rate between 0 and 1, or 1 if there were no lookups.
+	 */
+	public double getHitRate() {
+		final long requests = this.hits + this.misses;
+
+		return requests == 0 ? 1 : (double) this.hits / requests;
+	}
+
+	/**
+	 * Returns the average time spent per load.
+	 *
+	 * @return the average load time, in nanoseconds.
+	 */
+	public double getAverageLoadNanos() {
+		final long loads = this.loadSuccesses + this.loadFailures;
+
+		return loads == 0 ? 0 : (double) this.totalLoadNanos / loads;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("CacheStats{hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, loads=%d, loadFailures=%d, averageLoad=%.2f ms}",
+				this.hits, this.misses, this.getHitRate() * 100, this.evictions, this.loadSuccesses, this.loadFailures, this.getAverageLoadNanos() / 1_000_000);
+	}
+}
@@ -0,0 +1,36 @@
+package com.honemy.ht.cache;
+
+/**
+ * Why an entry was removed from a {@link Cache}.
+ */
+public enum RemovalCause {
+
+	/**
+	 * Removed with {@link Cache#invalidate(Object)} or {@link Cache#invalidateAll()}.
+	 */
+	EXPLICIT,
+
+	/**
+	 * Its value was replaced by a put or a refresh.
+	 */
+	REPLACED,
+
+	/**
+	 * Evicted to keep the cache within its maximum size.
+	 */
+	SIZE,
+
+	/**
+	 * Expired after its write or access time.
+	 */
+	EXPIRED;
+
+	/**
+	 * Checks if the entry was removed by the cache itself, not by a call.
+	 *
+	 * @return true if evicted or expired.
+	 */
+	public boolean wasEvicted() {
+		return this == SIZE || this == EXPIRED;
+	}
+}
@@ -0,0 +1,21 @@
+package com.honemy.ht.cache;
+
+/**
+ * Notified when an entry is removed from a {@link Cache}, for example to save a player profile once evicted.
+ * It is called on the thread removing the entry, after the cache lock is released.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+@FunctionalInterface
+public interface RemovalListener<K, V> {
+
+	/**
+	 * Called when an entry was removed.
+	 *
+	 * @param key   the key.
+	 * @param value the removed value.
+	 * @param cause why the entry was removed.
+	 */
+	void onRemoval(K key, V value, RemovalCause cause);
+}
@@ -0,0 +1,77 @@
+package com.honemy.ht.collection;
+
+import com.honemy.ht.Valid;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Hashing and sizing shared by the open addressing collections.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class Hashing {
+
+	/**
+	 * The share of slots used before the table grows.
+	 */
+	static final float LOAD_FACTOR = 0.75f;
+
+	/**
+	 * The largest table, a power of two.
+	 */
+	static final int MAX_CAPACITY = 1 << 30;
+
+	/**
+	 * The golden ratio multiplier spreading close keys, such as neighbour chunks, over the whole table.
+	 */
+	private static final long PHI = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * Mixes a long key into a hash whose low bits all depend on the whole key.
+	 *
+	 * @param key the key.
+	 * @return the hash.
+	 */
+	static int mix(long key) {
+		final long hash = key * PHI;
+
+		return (int) (hash ^ (hash >>> 32) ^ (hash >>> 16));
+	}
+
+	/**
+	 * Mixes an int key into a hash whose low bits all depend on the whole key.
+	 *
+	 * @param key the key.
+	 * @return the hash.
+	 */
+	static int mix(int key) {
+		final int hash = key * 0x9E3779B9;
+
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns the table size holding the given amount of entries under the load factor.
+	 *
+	 * @param expected the amount of entries.
+	 * @return the table size, a power of two.
+	 */
+	static int tableSize(int expected) {
+		Valid.checkBoolean(expected >= 0, "Expected size cannot be negative, got: %s", expected);
+
+		final long needed = Math.max(2, (long) Math.ceil(expected / LOAD_FACTOR));
+
+		Valid.checkBoolean(needed <= MAX_CAPACITY, "Expected size %s is too large", expected);
+
+		return (int) Long.highestOneBit(needed - 1) << 1;
+	}
+
+	/**
+	 * Returns the amount of entries a table holds before growing.
+	 *
+	 * @param tableSize the table size.
+	 * @return the amount of entries.
+	 */
+	static int maxFill(int tableSize) {
+		return Math.min(tableSize - 1, (int) Math.ceil(tableSize * LOAD_FACTOR));
+	}
+}
@@ -0,0 +1,285 @@
+package com.honemy.ht.collection;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of primitive ints, for example entity ids or packed chunk section coordinates.
+ * <p>
+ * Values are stored in a single array with open addressing and linear probing, so nothing is boxed nor
+ * allocated per value. A value costs about 5 bytes at the default load factor. Not thread safe.
+ */
+public final class IntSet {
+
+	/**
+	 * The values, 0 marking a free slot. The value 0 itself is stored apart.
+	 */
+	private int[] values;
+
+	/**
+	 * The table size minus one, to wrap indexes.
+	 */
+	private int mask;
+
+	/**
+	 * The amount of values before the table grows.
+	 */
+	private int maxFill;
+
+	/**
+	 * The amount of values, including 0.
+	 */
+	private int size;
+
+	/**
+	 * Whether the set contains 0.
+	 */
+	private boolean containsZero;
+
+	/**
+	 * Creates an empty set.
+	 */
+	public IntSet() {
+		this(16);
+	}
+
+	/**
+	 * Creates an empty set holding the given amount of values without growing.
+	 *
+	 * @param expected the amount of values.
+	 */
+	public IntSet(int expected) {
+		this.allocate(Hashing.tableSize(expected));
+	}
+
+	/**
+	 * Returns the amount of values.
+	 *
+	 * @return the size.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Checks if the set has no values.
+	 *
+	 * @return true if empty.
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Checks if the set contains a value.
+	 *
+	 * @param value the value.
+	 * @return true if the set contains it.
+	 */
+	public boolean contains(int value) {
+		return value == 0 ? this.containsZero : this.find(value) >= 0;
+	}
+
+	/**
+	 * Adds a value.
+	 *
+	 * @param value the value.
+	 * @return true if the value was added, false if already present.
+	 */
+	public boolean add(int value) {
+		if (value == 0) {
+			if (this.containsZero)
+				return false;
+
+			this.containsZero = true;
+			this.size++;
+
+			return true;
+		}
+
+		int index = Hashing.mix(value) & this.mask;
+		int current;
+
+		while ((current = this.values[index]) != 0) {
+			if (current == value)
+				return false;
+
+			index = (index + 1) & this.mask;
+		}
+
+		this.values[index] = value;
+
+		if (++this.size > this.maxFill)
+			this.rehash(this.values.length << 1);
+
+		return true;
+	}
+
+	/**
+	 * Removes a value.
+	 *
+	 * @param value the value.
+	 * @return true if the value was removed, false if missing.
+	 */
+	public boolean remove(int value) {
+		if (value == 0) {
+			if (!this.containsZero)
+				return false;
+
+			this.containsZero = false;
+			this.size--;
+
+			return true;
+		}
+
+		final int index = this.find(value);
+
+		if (index < 0)
+			return false;
+
+		this.size--;
+		this.shiftKeys(index);
+
+		return true;
+	}
+
+	/**
+	 * Removes all values, keeping the table size.
+	 */
+	public void clear() {
+		if (this.size == 0)
+			return;
+
+		Arrays.fill(this.values, 0);
+		this.containsZero = false;
+		this.size = 0;
+	}
+
+	/**
+	 * Calls the action for each value, in no particular order. The set must not be changed meanwhile.
+	 *
+	 * @param action the action.
+	 */
+	public void forEach(@NonNull IntConsumer action) {
+		if (this.containsZero)
+			action.accept(0);
+
+		for (int value : this.values)
+			if (value != 0)
+				action.accept(value);
+	}
+
+	/**
+	 * Returns the values, in no particular order.
+	 *
+	 * @return a new array of the values.
+	 */
+	public int[] toArray() {
+		final int[] result = new int[this.size];
+		int count = 0;
+
+		if (this.containsZero)
+			result[count++] = 0;
+
+		for (int value : this.values)
+			if (value != 0)
+				result[count++] = value;
+
+		return result;
+	}
+
+	/**
+	 * Finds the slot of a value other than 0.
+	 *
+	 * @param value the value.
+	 * @return the index of the slot, or -1 if missing.
+	 */
+	private int find(int value) {
+		int index = Hashing.mix(value) & this.mask;
+		int current;
+
+		while ((current = this.values[index]) != 0) {
+			if (current == value)
+				return index;
+
+			index = (index + 1) & this.mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Frees a slot, moving back the following values of its probe sequence so lookups still find them.
+	 *
+	 * @param index the index of the freed slot.
+	 */
+	private void shiftKeys(int index) {
+		final int[] values = this.values;
+
+		while (true) {
+			final int last = index;
+			int current;
+
+			index = (index + 1) & this.mask;
+
+			while (true) {
+				if ((current = values[index]) == 0) {
+					values[last] = 0;
+
+					return;
+				}
+
+				final int slot = Hashing.mix(current) & this.mask;
+
+				// Move the value only if its home slot is not between the freed slot and itself
+				if (last <= index ? last >= slot || slot > index : last >= slot && slot > index)
+					break;
+
+				index = (index + 1) & this.mask;
+			}
+
+			values[last] = current;
+		}
+	}
+
+	/**
+	 * Moves the values to a table of the given size.
+	 *
+	 * @param tableSize the new table size, a power of two.
+	 */
+	private void rehash(int tableSize) {
+		final int[] oldValues = this.values;
+
+		this.allocate(tableSize);
+
+		for (int value : oldValues) {
+			if (value == 0)
+				continue;
+
+			int index = Hashing.mix(value) & this.mask;
+
+			while (this.values[index] != 0)
+				index = (index + 1) & this.mask;
+
+			this.values[index] = value;
+		}
+	}
+
+	/**
+	 * Creates an empty array of the given size.
+	 *
+	 * @param tableSize the table size, a power of two.
+	 */
+	private void allocate(int tableSize) {
+		this.values = new int[tableSize];
+		this.mask = tableSize - 1;
+		this.maxFill = Hashing.maxFill(tableSize);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(this.toArray());
+	}
+}
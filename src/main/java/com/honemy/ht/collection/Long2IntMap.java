@@ -0,0 +1,393 @@
+package com.honemy.ht.collection;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive long keys to primitive int values, for example block counts per packed chunk key.
+ * <p>
+ * Keys and values are stored in two parallel arrays with open addressing and linear probing, so nothing is
+ * boxed nor allocated per entry. An entry costs about 16 bytes at the default load factor.
+ * Missing keys return the {@link #getDefaultReturnValue() default return value}, 0 unless changed. Not thread safe.
+ */
+public final class Long2IntMap {
+
+	/**
+	 * The keys, 0 marking a free slot. The key 0 itself is stored apart.
+	 */
+	private long[] keys;
+
+	/**
+	 * The values, at the index of their key.
+	 */
+	private int[] values;
+
+	/**
+	 * The table size minus one, to wrap indexes.
+	 */
+	private int mask;
+
+	/**
+	 * The amount of entries before the table grows.
+	 */
+	private int maxFill;
+
+	/**
+	 * The amount of entries, including the key 0.
+	 */
+	private int size;
+
+	/**
+	 * Whether the key 0 has a value.
+	 */
+	private boolean containsZero;
+
+	/**
+	 * The value of the key 0.
+	 */
+	private int zeroValue;
+
+	/**
+	 * The value returned for missing keys.
+	 */
+	@Getter
+	@Setter
+	private int defaultReturnValue;
+
+	/**
+	 * Creates an empty map.
+	 */
+	public Long2IntMap() {
+		this(16);
+	}
+
+	/**
+	 * Creates an empty map holding the given amount of entries without growing.
+	 *
+	 * @param expected the amount of entries.
+	 */
+	public Long2IntMap(int expected) {
+		this.allocate(Hashing.tableSize(expected));
+	}
+
+	/**
+	 * Returns the amount of entries.
+	 *
+	 * @return the size.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Checks if the map has no entries.
+	 *
+	 * @return true if empty.
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Returns the value of a key.
+	 *
+	 * @param key the key.
+	 * @return the value, or the default return value if missing.
+	 */
+	public int get(long key) {
+		if (key == 0)
+			return this.containsZero ? this.zeroValue : this.defaultReturnValue;
+
+		final int index = this.find(key);
+
+		return index >= 0 ? this.values[index] : this.defaultReturnValue;
+	}
+
+	/**
+	 * Checks if a key has a value.
+	 *
+	 * @param key the key.
+	 * @return true if the key has a value.
+	 */
+	public boolean containsKey(long key) {
+		return key == 0 ? this.containsZero : this.find(key) >= 0;
+	}
+
+	/**
+	 * Sets the value of a key.
+	 *
+	 * @param key   the key.
+	 * @param value the value.
+	 * @return the previous value, or the default return value if there was none.
+	 */
+	public int put(long key, int value) {
+		final int index = this.insertionSlot(key);
+
+		if (index < 0) {
+			final int previous = this.zeroValue;
+
+			this.zeroValue = value;
+
+			return previous;
+		}
+
+		final int previous = this.values[index];
+
+		this.values[index] = value;
+
+		return previous;
+	}
+
+	/**
+	 * Adds to the value of a key, starting from the default return value if missing.
+	 *
+	 * @param key       the key.
+	 * @param increment the amount added.
+	 * @return the new value.
+	 */
+	public int addTo(long key, int increment) {
+		final int index = this.insertionSlot(key);
+
+		if (index < 0)
+			return this.zeroValue += increment;
+
+		return this.values[index] += increment;
+	}
+
+	/**
+	 * Removes the value of a key.
+	 *
+	 * @param key the key.
+	 * @return the removed value, or the default return value if there was none.
+	 */
+	public int remove(long key) {
+		if (key == 0) {
+			if (!this.containsZero)
+				return this.defaultReturnValue;
+
+			this.containsZero = false;
+			this.size--;
+
+			return this.zeroValue;
+		}
+
+		final int index = this.find(key);
+
+		if (index < 0)
+			return this.defaultReturnValue;
+
+		final int previous = this.values[index];
+
+		this.size--;
+		this.shiftKeys(index);
+
+		return previous;
+	}
+
+	/**
+	 * Removes all entries, keeping the table size.
+	 */
+	public void clear() {
+		if (this.size == 0)
+			return;
+
+		Arrays.fill(this.keys, 0);
+		this.containsZero = false;
+		this.size = 0;
+	}
+
+	/**
+	 * Calls the action for each entry, in no particular order. The map must not be changed meanwhile.
+	 *
+	 * @param action the action.
+	 */
+	public void forEach(@NonNull EntryConsumer action) {
+		if (this.containsZero)
+			action.accept(0, this.zeroValue);
+
+		final long[] keys = this.keys;
+
+		for (int i = 0; i < keys.length; i++)
+			if (keys[i] != 0)
+				action.accept(keys[i], this.values[i]);
+	}
+
+	/**
+	 * Returns the keys, in no particular order.
+	 *
+	 * @return a new array of the keys.
+	 */
+	public long[] keys() {
+		final long[] result = new long[this.size];
+		int count = 0;
+
+		if (this.containsZero)
+			result[count++] = 0;
+
+		for (long key : this.keys)
+			if (key != 0)
+				result[count++] = key;
+
+		return result;
+	}
+
+	/**
+	 * Finds the slot of a key other than 0.
+	 *
+	 * @param key the key.
+	 * @return the index of the slot, or -1 if missing.
+	 */
+	private int find(long key) {
+		int index = Hashing.mix(key) & this.mask;
+		long current;
+
+		while ((current = this.keys[index]) != 0) {
+			if (current == key)
+				return index;
+
+			index = (index + 1) & this.mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Finds the slot of a key, adding the key with the default return value if missing.
+	 *
+	 * @param key the key.
+	 * @return the index of the slot, or -1 for the key 0.
+	 */
+	private int insertionSlot(long key) {
+		if (key == 0) {
+			if (!this.containsZero) {
+				this.containsZero = true;
+				this.zeroValue = this.defaultReturnValue;
+				this.size++;
+			}
+
+			return -1;
+		}
+
+		int index = Hashing.mix(key) & this.mask;
+		long current;
+
+		while ((current = this.keys[index]) != 0) {
+			if (current == key)
+				return index;
+
+			index = (index + 1) & this.mask;
+		}
+
+		this.keys[index] = key;
+		this.values[index] = this.defaultReturnValue;
+
+		if (++this.size > this.maxFill) {
+			this.rehash(this.keys.length << 1);
+
+			return this.find(key);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Frees a slot, moving back the following entries of its probe sequence so lookups still find them.
+	 *
+	 * @param index the index of the freed slot.
+	 */
+	private void shiftKeys(int index) {
+		final long[] keys = this.keys;
+
+		while (true) {
+			final int last = index;
+			long current;
+
+			index = (index + 1) & this.mask;
+
+			while (true) {
+				if ((current = keys[index]) == 0) {
+					keys[last] = 0;
+
+					return;
+				}
+
+				final int slot = Hashing.mix(current) & this.mask;
+
+				// Move the entry only if its home slot is not between the freed slot and itself
+				if (last <= index ? last >= slot || slot > index : last >= slot && slot > index)
+					break;
+
+				index = (index + 1) & this.mask;
+			}
+
+			keys[last] = current;
+			this.values[last] = this.values[index];
+		}
+	}
+
+	/**
+	 * Moves the entries to a table of the given size.
+	 *
+	 * @param tableSize the new table size, a power of two.
+	 */
+	private void rehash(int tableSize) {
+		final long[] oldKeys = this.keys;
+		final int[] oldValues = this.values;
+
+		this.allocate(tableSize);
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			final long key = oldKeys[i];
+
+			if (key == 0)
+				continue;
+
+			int index = Hashing.mix(key) & this.mask;
+
+			while (this.keys[index] != 0)
+				index = (index + 1) & this.mask;
+
+			this.keys[index] = key;
+			this.values[index] = oldValues[i];
+		}
+	}
+
+	/**
+	 * Creates empty arrays of the given size.
+	 *
+	 * @param tableSize the table size, a power of two.
+	 */
+	private void allocate(int tableSize) {
+		this.keys = new long[tableSize];
+		this.values = new int[tableSize];
+		this.mask = tableSize - 1;
+		this.maxFill = Hashing.maxFill(tableSize);
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder("{");
+
+		this.forEach((key, value) -> builder.append(builder.length() > 1 ? ", " : "").append(key).append('=').append(value));
+
+		return builder.append('}').toString();
+	}
+
+	/**
+	 * An action taking an entry of the map.
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer {
+
+		/**
+		 * Called with an entry.
+		 *
+		 * @param key   the key.
+		 * @param value the value.
+		 */
+		void accept(long key, int value);
+	}
+}
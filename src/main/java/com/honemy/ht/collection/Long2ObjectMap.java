@@ -0,0 +1,425 @@
+package com.honemy.ht.collection;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+/**
+ * A map from primitive long keys to objects, such as packed chunk or block keys from {@link com.honemy.ht.BlockKeys}.
+ * <p>
+ * Keys and values are stored in two parallel arrays with open addressing and linear probing, so a lookup
+ * reads consecutive slots and no entry or boxed key is allocated. An entry costs about 21 bytes at the
+ * default load factor, against about 80 for a {@code HashMap<Long, V>} entry with its boxed key.
+ * <p>
+ * Null values are not allowed, {@link #get(long)} returns null for missing keys. Not thread safe.
+ *
+ * @param <V> the type of the values.
+ */
+public final class Long2ObjectMap<V> {
+
+	/**
+	 * The keys, 0 marking a free slot. The key 0 itself is stored apart.
+	 */
+	private long[] keys;
+
+	/**
+	 * The values, at the index of their key.
+	 */
+	private Object[] values;
+
+	/**
+	 * The table size minus one, to wrap indexes.
+	 */
+	private int mask;
+
+	/**
+	 * The amount of entries before the table grows.
+	 */
+	private int maxFill;
+
+	/**
+	 * The amount of entries, including the key 0.
+	 */
+	private int size;
+
+	/**
+	 * Whether the key 0 has a value.
+	 */
+	private boolean containsZero;
+
+	/**
+	 * The value of the key 0.
+	 */
+	private V zeroValue;
+
+	/**
+	 * Creates an empty map.
+	 */
+	public Long2ObjectMap() {
+		this(16);
+	}
+
+	/**
+	 * Creates an empty map holding the given amount of entries without growing.
+	 *
+	 * @param expected the amount of entries.
+	 */
+	public Long2ObjectMap(int expected) {
+		this.allocate(Hashing.tableSize(expected));
+	}
+
+	/**
+	 * Returns the amount of entries.
+	 *
+	 * @return the size.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Checks if the map has no entries.
+	 *
+	 * @return true if empty.
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Returns the value of a key.
+	 *
+	 * @param key the key.
+	 * @return the value, or null if missing.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		if (key == 0)
+			return this.zeroValue;
+
+		final long[] keys = this.keys;
+		int index = Hashing.mix(key) & this.mask;
+		long current;
+
+		while ((current = keys[index]) != 0) {
+			if (current == key)
+				return (V) this.values[index];
+
+			index = (index + 1) & this.mask;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the value of a key, or a default value.
+	 *
+	 * @param key          the key.
+	 * @param defaultValue the value if missing.
+	 * @return the value.
+	 */
+	public V getOrDefault(long key, V defaultValue) {
+		final V value = this.get(key);
+
+		return value != null ? value : defaultValue;
+	}
+
+	/**
+	 * Checks if a key has a value.
+	 *
+	 * @param key the key.
+	 * @return true if the key has a value.
+	 */
+	public boolean containsKey(long key) {
+		return key == 0 ? this.containsZero : this.find(key) >= 0;
+	}
+
+	/**
+	 * Sets the value of a key.
+	 *
+	 * @param key   the key.
+	 * @param value the value.
+	 * @return the previous value, or null if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, @NonNull V value) {
+		if (key == 0) {
+			final V previous = this.zeroValue;
+
+			if (!this.containsZero) {
+				this.containsZero = true;
+				this.size++;
+			}
+
+			this.zeroValue = value;
+
+			return previous;
+		}
+
+		int index = Hashing.mix(key) & this.mask;
+		long current;
+
+		while ((current = this.keys[index]) != 0) {
+			if (current == key) {
+				final V previous = (V) this.values[index];
+
+				this.values[index] = value;
+
+				return previous;
+			}
+
+			index = (index + 1) & this.mask;
+		}
+
+		this.keys[index] = key;
+		this.values[index] = value;
+
+		if (++this.size > this.maxFill)
+			this.rehash(this.keys.length << 1);
+
+		return null;
+	}
+
+	/**
+	 * Sets the value of a key if it has none.
+	 *
+	 * @param key   the key.
+	 * @param value the value.
+	 * @return the current value, or null if the value was set.
+	 */
+	public V putIfAbsent(long key, @NonNull V value) {
+		final V current = this.get(key);
+
+		if (current != null)
+			return current;
+
+		this.put(key, value);
+
+		return null;
+	}
+
+	/**
+	 * Returns the value of a key, computing and storing it if missing.
+	 *
+	 * @param key      the key.
+	 * @param function computes the value from the key, may return null to store nothing.
+	 * @return the current or computed value.
+	 */
+	public V computeIfAbsent(long key, @NonNull LongFunction<? extends V> function) {
+		V value = this.get(key);
+
+		if (value == null) {
+			value = function.apply(key);
+
+			if (value != null)
+				this.put(key, value);
+		}
+
+		return value;
+	}
+
+	/**
+	 * Removes the value of a key.
+	 *
+	 * @param key the key.
+	 * @return the removed value, or null if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		if (key == 0) {
+			final V previous = this.zeroValue;
+
+			if (this.containsZero) {
+				this.containsZero = false;
+				this.zeroValue = null;
+				this.size--;
+			}
+
+			return previous;
+		}
+
+		final int index = this.find(key);
+
+		if (index < 0)
+			return null;
+
+		final V previous = (V) this.values[index];
+
+		this.size--;
+		this.shiftKeys(index);
+
+		return previous;
+	}
+
+	/**
+	 * Removes all entries, keeping the table size.
+	 */
+	public void clear() {
+		if (this.size == 0)
+			return;
+
+		Arrays.fill(this.keys, 0);
+		Arrays.fill(this.values, null);
+		this.containsZero = false;
+		this.zeroValue = null;
+		this.size = 0;
+	}
+
+	/**
+	 * Calls the action for each entry, in no particular order. The map must not be changed meanwhile.
+	 *
+	 * @param action the action.
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(@NonNull EntryConsumer<? super V> action) {
+		if (this.containsZero)
+			action.accept(0, this.zeroValue);
+
+		final long[] keys = this.keys;
+
+		for (int i = 0; i < keys.length; i++)
+			if (keys[i] != 0)
+				action.accept(keys[i], (V) this.values[i]);
+	}
+
+	/**
+	 * Returns the keys, in no particular order.
+	 *
+	 * @return a new array of the keys.
+	 */
+	public long[] keys() {
+		final long[] result = new long[this.size];
+		int count = 0;
+
+		if (this.containsZero)
+			result[count++] = 0;
+
+		for (long key : this.keys)
+			if (key != 0)
+				result[count++] = key;
+
+		return result;
+	}
+
+	/**
+	 * Finds the slot of a key other than 0.
+	 *
+	 * @param key the key.
+	 * @return the index of the slot, or -1 if missing.
+	 */
+	private int find(long key) {
+		int index = Hashing.mix(key) & this.mask;
+		long current;
+
+		while ((current = this.keys[index]) != 0) {
+			if (current == key)
+				return index;
+
+			index = (index + 1) & this.mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Frees a slot, moving back the following entries of its probe sequence so lookups still find them.
+	 *
+	 * @param index the index of the freed slot.
+	 */
+	private void shiftKeys(int index) {
+		final long[] keys = this.keys;
+
+		while (true) {
+			final int last = index;
+			long current;
+
+			index = (index + 1) & this.mask;
+
+			while (true) {
+				if ((current = keys[index]) == 0) {
+					keys[last] = 0;
+					this.values[last] = null;
+
+					return;
+				}
+
+				final int slot = Hashing.mix(current) & this.mask;
+
+				// Move the entry only if its home slot is not between the freed slot and itself
+				if (last <= index ? last >= slot || slot > index : last >= slot && slot > index)
+					break;
+
+				index = (index + 1) & this.mask;
+			}
+
+			keys[last] = current;
+			this.values[last] = this.values[index];
+		}
+	}
+
+	/**
+	 * Moves the entries to a table of the given size.
+	 *
+	 * @param tableSize the new table size, a power of two.
+	 */
+	private void rehash(int tableSize) {
+		final long[] oldKeys = this.keys;
+		final Object[] oldValues = this.values;
+
+		this.allocate(tableSize);
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			final long key = oldKeys[i];
+
+			if (key == 0)
+				continue;
+
+			int index = Hashing.mix(key) & this.mask;
+
+			while (this.keys[index] != 0)
+				index = (index + 1) & this.mask;
+
+			this.keys[index] = key;
+			this.values[index] = oldValues[i];
+		}
+	}
+
+	/**
+	 * Creates empty arrays of the given size.
+	 *
+	 * @param tableSize the table size, a power of two.
+	 */
+	private void allocate(int tableSize) {
+		this.keys = new long[tableSize];
+		this.values = new Object[tableSize];
+		this.mask = tableSize - 1;
+		this.maxFill = Hashing.maxFill(tableSize);
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder("{");
+
+		this.forEach((key, value) -> builder.append(builder.length() > 1 ? ", " : "").append(key).append('=').append(value));
+
+		return builder.append('}').toString();
+	}
+
+	/**
+	 * An action taking an entry of the map.
+	 *
+	 * @param <V> the type of the values.
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer<V> {
+
+		/**
+		 * Called with an entry.
+		 *
+		 * @param key   the key.
+		 * @param value the value.
+		 */
+		void accept(long key, V value);
+	}
+}
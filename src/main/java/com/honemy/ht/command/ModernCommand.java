@@ -3,6 +3,8 @@ package com.honemy.ht.command;
 import com.honemy.ht.Common;
 import com.honemy.ht.Messenger;
 import com.honemy.ht.ReflectionUtil;
+import com.honemy.ht.debug.Timing;
+import com.honemy.ht.debug.Timings;
 import com.honemy.ht.exception.CommandException;
 import com.honemy.ht.logger.ModernLogger;
 import com.honemy.ht.remain.Remain;
@@ -48,6 +50,11 @@ public abstract class ModernCommand extends Command {
 	 */
 	private Object commandMap;
 
+	/**
+	 * The timing measuring the execution of the command.
+	 */
+	private final Timing timing;
+
 	/**
 	 * Constructor for a command with a name.
 	 *
@@ -65,6 +72,7 @@ public abstract class ModernCommand extends Command {
 	 */
 	protected ModernCommand(String name, String... aliases) {
 		super(name);
+		this.timing = Timings.of("command:" + name);
 		this.setAliases(Arrays.asList(aliases));
 		this.initialize();
 	}
@@ -115,12 +123,16 @@ public abstract class ModernCommand extends Command {
 		this.commandLabel = commandLabel;
 		this.args = args;
 
+		final long start = Timings.start();
+
 		try {
 			this.onCommand();
 		} catch (CommandException e) {
 			handleCommandException(e);
 		} catch (Throwable t) {
 			Common.error(t, "An error occurred while executing command: " + this.commandLabel);
+		} finally {
+			this.timing.stop(start);
 		}
 		return false;
 	}
@@ -0,0 +1,206 @@
+package com.honemy.ht.config;
+
+import com.honemy.ht.exception.HtException;
+import com.honemy.ht.logger.ModernLogger;
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * A configuration file loaded through a {@link ConfigCache}, parsed once and kept in memory.
+ * <p>
+ * {@link #get()} returns the current value without locking nor touching the disk. When the file changes,
+ * it is parsed again off the main thread and the value is replaced at once, readers see either the old
+ * or the new value. If the new file cannot be parsed, the old value is kept and the error is logged.
+ *
+ * @param <T> the type of the value, built from the parsed file.
+ */
+public final class CachedConfig<T> {
+
+	/**
+	 * The cache owning the config.
+	 */
+	private final ConfigCache cache;
+
+	/**
+	 * The path of the file, relative to the data folder.
+	 */
+	@Getter
+	private final String name;
+
+	/**
+	 * The absolute path of the file.
+	 */
+	@Getter
+	private final Path file;
+
+	/**
+	 * Builds the value from the parsed file.
+	 */
+	private final Function<ConfigSnapshot, T> mapper;
+
+	/**
+	 * Called on the main thread with the new value after each reload.
+	 */
+	private final List<Consumer<? super T>> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * The current value.
+	 */
+	private volatile T value;
+
+	/**
+	 * The parsed file the current value was built from.
+	 */
+	@Getter
+	private volatile ConfigSnapshot snapshot;
+
+	/**
+	 * The contents the current value was parsed from, so events not changing the file are ignored.
+	 */
+	private byte[] contents;
+
+	/**
+	 * The reload waiting for the file to stop changing, or null.
+	 */
+	private final AtomicReference<ScheduledFuture<?>> pendingReload = new AtomicReference<>();
+
+	CachedConfig(ConfigCache cache, String name, Path file, Function<ConfigSnapshot, T> mapper) {
+		this.cache = cache;
+		this.name = name;
+		this.file = file;
+		this.mapper = mapper;
+	}
+
+	/**
+	 * Returns the current value, without locking.
+	 *
+	 * @return the value.
+	 */
+	public T get() {
+		return this.value;
+	}
+
+	/**
+	 * Calls the listener on the main thread with the new value after each reload.
+	 *
+	 * @param listener the listener.
+	 */
+	public void onReload(@NonNull Consumer<? super T> listener) {
+		this.listeners.add(listener);
+	}
+
+	/**
+	 * Parses the file again off the main thread, even if it did not change, for example from a reload command.
+	 *
+	 * @return a future completed with the new value, or failed if the file cannot be parsed.
+	 */
+	public CompletableFuture<T> reload() {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				this.load(true);
+			} catch (IOException | InvalidConfigurationException e) {
+				throw new HtException(e, "Failed to reload " + this.name);
+			}
+
+			return this.value;
+		}, this.cache.getPlugin().getExecutors().getIo());
+	}
+
+	/**
+	 * Parses the file for the first time, on the calling thread.
+	 *
+	 * @throws HtException if the file cannot be read or parsed.
+	 */
+	void loadFirst() {
+		try {
+			this.load(true);
+		} catch (IOException | InvalidConfigurationException e) {
+			throw new HtException(e, "Failed to load " + this.name);
+		}
+	}
+
+	/**
+	 * Reloads the file once it stopped changing for the debounce delay.
+	 */
+	void scheduleReload() {
+		final ScheduledFuture<?> previous = this.pendingReload.getAndSet(this.cache.getPlugin().getExecutors().getScheduled().schedule(
+				() -> this.cache.getPlugin().getExecutors().getIo().execute(this::reloadChanged),
+				this.cache.getDebounceMillis(), TimeUnit.MILLISECONDS));
+
+		if (previous != null)
+			previous.cancel(false);
+	}
+
+	/**
+	 * Reloads the file if its contents changed, logging errors.
+	 */
+	private void reloadChanged() {
+		try {
+			this.load(false);
+		} catch (IOException | InvalidConfigurationException | RuntimeException e) {
+			ModernLogger.log(Level.WARNING, e, "Failed to reload " + this.name + ", keeping the previous values");
+		}
+	}
+
+	/**
+	 * Reads, parses and maps the file, then replaces the value and notifies the listeners.
+	 * A missing file gives an empty snapshot.
+	 *
+	 * @param force whether to parse the file even if its contents did not change.
+	 * @throws IOException                   if the file cannot be read.
+	 * @throws InvalidConfigurationException if the file is not valid YAML.
+	 */
+	private synchronized void load(boolean force) throws IOException, InvalidConfigurationException {
+		byte[] read;
+
+		try {
+			read = Files.readAllBytes(this.file);
+		} catch (NoSuchFileException e) {
+			read = new byte[0];
+		}
+
+		if (!force && Arrays.equals(read, this.contents))
+			return;
+
+		final YamlConfiguration yaml = new YamlConfiguration();
+
+		yaml.loadFromString(new String(read, StandardCharsets.UTF_8));
+
+		final ConfigSnapshot parsed = ConfigSnapshot.of(yaml);
+		final T mapped = this.mapper.apply(parsed);
+		final boolean first = this.contents == null;
+
+		this.contents = read;
+		this.snapshot = parsed;
+		this.value = mapped;
+
+		if (!first && !this.listeners.isEmpty())
+			this.cache.getPlugin().getTaskScheduler().runGlobal(() -> {
+				for (Consumer<? super T> listener : this.listeners)
+					listener.accept(mapped);
+			});
+	}
+
+	@Override
+	public String toString() {
+		return "CachedConfig{" + this.name + "}";
+	}
+}
@@ -0,0 +1,219 @@
+package com.honemy.ht.config;
+
+import com.honemy.ht.Valid;
+import com.honemy.ht.exception.HtException;
+import com.honemy.ht.logger.ModernLogger;
+import com.honemy.ht.plugin.ModernPlugin;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Loads YAML configuration files of the data folder and reloads them when they change on disk.
+ * <p>
+ * Each file is parsed once into an immutable {@link ConfigSnapshot}, optionally mapped to a typed settings
+ * object, and kept in a {@link CachedConfig}. A watcher thread is notified by the file system when a loaded
+ * file changes. Once the file stopped changing for the debounce delay, it is parsed again on the I/O pool
+ * and the cached value is replaced:
+ * <pre>{@code
+ * final CachedConfig<Settings> settings = getConfigs().load("settings.yml", Settings::new);
+ *
+ * settings.get().getSpawnRadius(); // never reads the disk
+ * }</pre>
+ */
+public final class ConfigCache {
+
+	/**
+	 * The plugin owning the cache.
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final ModernPlugin plugin;
+
+	/**
+	 * The loaded configs by absolute file path.
+	 */
+	private final Map<Path, List<CachedConfig<?>>> configs = new ConcurrentHashMap<>();
+
+	/**
+	 * The directories registered to the watch service.
+	 */
+	private final Set<Path> watchedDirectories = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * How long a file must stop changing before it is reloaded, in milliseconds.
+	 */
+	@Getter
+	private volatile long debounceMillis = 250;
+
+	/**
+	 * The watch service notified of file changes, or null before the first config is loaded.
+	 */
+	private WatchService watchService;
+
+	/**
+	 * The thread waiting for file changes, or null before the first config is loaded.
+	 */
+	private Thread watcherThread;
+
+	/**
+	 * Creates a cache for the files of the given plugin.
+	 *
+	 * @param plugin the plugin owning the cache.
+	 */
+	public ConfigCache(@NonNull ModernPlugin plugin) {
+		this.plugin = plugin;
+	}
+
+	/**
+	 * Sets how long a file must stop changing before it is reloaded, since editors often write a file in several steps.
+	 *
+	 * @param debounce the delay.
+	 * @param unit     the unit of the delay.
+	 */
+	public void setDebounce(long debounce, @NonNull TimeUnit unit) {
+		Valid.checkBoolean(debounce >= 0, "Debounce delay cannot be negative, got: %s", debounce);
+
+		this.debounceMillis = unit.toMillis(debounce);
+	}
+
+	/**
+	 * Loads a configuration file as a snapshot, and reloads it when it changes.
+	 *
+	 * @param path the path of the file, relative to the data folder.
+	 * @return the cached config.
+	 * @see #load(String, Function)
+	 */
+	public CachedConfig<ConfigSnapshot> load(@NonNull String path) {
+		return this.load(path, Function.identity());
+	}
+
+	/**
+	 * Loads a configuration file, and reloads it when it changes.
+	 * If the file is missing and the plugin jar contains it, it is copied to the data folder first.
+	 * The file is parsed on the calling thread, later reloads are parsed on the I/O pool.
+	 *
+	 * @param path   the path of the file, relative to the data folder.
+	 * @param mapper builds the value from the parsed file, for example the constructor of a settings class.
+	 *               It must not use the server, since reloads call it off the main thread.
+	 * @param <T>    the type of the value.
+	 * @return the cached config.
+	 * @throws HtException if the file cannot be read or parsed.
+	 */
+	public <T> CachedConfig<T> load(@NonNull String path, @NonNull Function<ConfigSnapshot, T> mapper) {
+		final Path file = this.plugin.getDataFolder().toPath().resolve(path).toAbsolutePath().normalize();
+
+		if (Files.notExists(file) && this.plugin.getResource(path) != null)
+			this.plugin.saveResource(path, false);
+
+		final CachedConfig<T> config = new CachedConfig<>(this, path, file, mapper);
+
+		config.loadFirst();
+
+		this.configs.computeIfAbsent(file, key -> new CopyOnWriteArrayList<>()).add(config);
+		this.watch(file.getParent());
+
+		return config;
+	}
+
+	/**
+	 * Stops watching files. Loaded configs keep their current values.
+	 */
+	public synchronized void stop() {
+		if (this.watchService == null)
+			return;
+
+		try {
+			this.watchService.close();
+		} catch (IOException e) {
+			ModernLogger.log(Level.WARNING, e, "Failed to close the config watch service");
+		}
+
+		this.watcherThread.interrupt();
+		this.watchService = null;
+		this.watcherThread = null;
+		this.watchedDirectories.clear();
+	}
+
+	/**
+	 * Registers a directory to the watch service, starting the watcher thread if needed.
+	 *
+	 * @param directory the directory.
+	 */
+	private synchronized void watch(Path directory) {
+		if (this.watchedDirectories.contains(directory))
+			return;
+
+		try {
+			if (this.watchService == null) {
+				this.watchService = directory.getFileSystem().newWatchService();
+				this.watcherThread = new Thread(this::run, this.plugin.getName() + "-config-watcher");
+				this.watcherThread.setDaemon(true);
+				this.watcherThread.start();
+			}
+
+			Files.createDirectories(directory);
+			directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+			this.watchedDirectories.add(directory);
+		} catch (IOException e) {
+			ModernLogger.log(Level.WARNING, e, "Failed to watch " + directory + ", its configs will not be reloaded automatically");
+		}
+	}
+
+	/**
+	 * Waits for file changes and schedules the reload of the changed configs.
+	 */
+	private void run() {
+		final WatchService service;
+
+		synchronized (this) {
+			service = this.watchService;
+		}
+
+		try {
+			while (true) {
+				final WatchKey key = service.take();
+				final Path directory = (Path) key.watchable();
+
+				for (WatchEvent<?> event : key.pollEvents()) {
+					// Events were lost, reload every config of the directory
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						for (Map.Entry<Path, List<CachedConfig<?>>> entry : this.configs.entrySet())
+							if (directory.equals(entry.getKey().getParent()))
+								entry.getValue().forEach(CachedConfig::scheduleReload);
+
+						continue;
+					}
+
+					final List<CachedConfig<?>> changed = this.configs.get(directory.resolve((Path) event.context()));
+
+					if (changed != null)
+						changed.forEach(CachedConfig::scheduleReload);
+				}
+
+				key.reset();
+			}
+		} catch (InterruptedException | ClosedWatchServiceException ignored) {
+			// Stopped
+		} catch (Throwable t) {
+			ModernLogger.log(Level.SEVERE, t, "The config watcher failed, configs will no longer be reloaded automatically");
+		}
+	}
+}
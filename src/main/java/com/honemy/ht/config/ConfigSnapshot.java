@@ -0,0 +1,278 @@
+package com.honemy.ht.config;
+
+import lombok.NonNull;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable copy of a parsed YAML configuration, safe to read from any thread.
+ * <p>
+ * Values are copied out of the Bukkit configuration once, with lists and maps made unmodifiable, so reading
+ * never touches the disk nor the parser. Paths use dots to separate sections, same as Bukkit.
+ * Sections are views of the same snapshot, returned by {@link #getSection(String)}.
+ */
+public final class ConfigSnapshot {
+
+	/**
+	 * An empty snapshot, used for missing sections.
+	 */
+	static final ConfigSnapshot EMPTY = new ConfigSnapshot(Collections.emptyMap(), Collections.emptyMap(), "");
+
+	/**
+	 * The values by full path, sections excluded.
+	 */
+	private final Map<String, Object> values;
+
+	/**
+	 * The names of the direct children of each section by full path, the root section being the empty path.
+	 */
+	private final Map<String, Set<String>> children;
+
+	/**
+	 * The full path of this section followed by a dot, or empty for the root.
+	 */
+	private final String prefix;
+
+	private ConfigSnapshot(Map<String, Object> values, Map<String, Set<String>> children, String prefix) {
+		this.values = values;
+		this.children = children;
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Copies a parsed configuration.
+	 *
+	 * @param section the root section.
+	 * @return the snapshot.
+	 */
+	static ConfigSnapshot of(@NonNull ConfigurationSection section) {
+		final Map<String, Object> values = new HashMap<>();
+		final Map<String, Set<String>> children = new HashMap<>();
+
+		copy(section, "", values, children);
+
+		return new ConfigSnapshot(values, children, "");
+	}
+
+	/**
+	 * Copies the values of a section and its subsections.
+	 *
+	 * @param section  the section.
+	 * @param path     the full path of the section, empty for the root.
+	 * @param values   the values by full path to fill.
+	 * @param children the children of each section to fill.
+	 */
+	private static void copy(ConfigurationSection section, String path, Map<String, Object> values, Map<String, Set<String>> children) {
+		final Set<String> keys = new LinkedHashSet<>(section.getKeys(false));
+
+		children.put(path, Collections.unmodifiableSet(keys));
+
+		for (String key : keys) {
+			final String childPath = path.isEmpty() ? key : path + "." + key;
+
+			if (section.isConfigurationSection(key))
+				copy(section.getConfigurationSection(key), childPath, values, children);
+			else
+				values.put(childPath, freeze(section.get(key)));
+		}
+	}
+
+	/**
+	 * Makes a value immutable, copying lists and maps deeply.
+	 *
+	 * @param value the value.
+	 * @return the immutable value.
+	 */
+	private static Object freeze(Object value) {
+		if (value instanceof List) {
+			final List<Object> copy = new ArrayList<>(((List<?>) value).size());
+
+			for (Object element : (List<?>) value)
+				copy.add(freeze(element));
+
+			return Collections.unmodifiableList(copy);
+		}
+
+		if (value instanceof Map) {
+			final Map<Object, Object> copy = new LinkedHashMap<>();
+
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+				copy.put(entry.getKey(), freeze(entry.getValue()));
+
+			return Collections.unmodifiableMap(copy);
+		}
+
+		if (value instanceof ConfigurationSection)
+			return freeze(((ConfigurationSection) value).getValues(false));
+
+		return value;
+	}
+
+	/**
+	 * Checks if the path has a value or is a section.
+	 *
+	 * @param path the path.
+	 * @return true if the path exists.
+	 */
+	public boolean contains(@NonNull String path) {
+		return this.values.containsKey(this.prefix + path) || this.children.containsKey(this.prefix + path);
+	}
+
+	/**
+	 * Checks if the path is a section.
+	 *
+	 * @param path the path.
+	 * @return true if the path is a section.
+	 */
+	public boolean isSection(@NonNull String path) {
+		return this.children.containsKey(this.prefix + path);
+	}
+
+	/**
+	 * Returns the names of the direct children of this section, in file order.
+	 *
+	 * @return the keys.
+	 */
+	public Set<String> getKeys() {
+		final String path = this.prefix.isEmpty() ? "" : this.prefix.substring(0, this.prefix.length() - 1);
+
+		return this.children.getOrDefault(path, Collections.emptySet());
+	}
+
+	/**
+	 * Returns a section as a view of this snapshot.
+	 *
+	 * @param path the path of the section.
+	 * @return the section, or an empty snapshot if the path is not a section.
+	 */
+	public ConfigSnapshot getSection(@NonNull String path) {
+		return this.isSection(path) ? new ConfigSnapshot(this.values, this.children, this.prefix + path + ".") : EMPTY;
+	}
+
+	/**
+	 * Returns the raw value at the path, lists and maps being unmodifiable.
+	 *
+	 * @param path the path.
+	 * @return the value, or null if missing or a section.
+	 */
+	public Object get(@NonNull String path) {
+		return this.values.get(this.prefix + path);
+	}
+
+	/**
+	 * Returns the text at the path, converting other values to text.
+	 *
+	 * @param path the path.
+	 * @param def  the value if missing.
+	 * @return the text.
+	 */
+	public String getString(@NonNull String path, String def) {
+		final Object value = this.get(path);
+
+		return value == null ? def : value.toString();
+	}
+
+	/**
+	 * Returns the text at the path.
+	 *
+	 * @param path the path.
+	 * @return the text, or null if missing.
+	 */
+	public String getString(@NonNull String path) {
+		return this.getString(path, null);
+	}
+
+	/**
+	 * Returns the number at the path as an int.
+	 *
+	 * @param path the path.
+	 * @param def  the value if missing or not a number.
+	 * @return the number.
+	 */
+	public int getInt(@NonNull String path, int def) {
+		final Object value = this.get(path);
+
+		return value instanceof Number ? ((Number) value).intValue() : def;
+	}
+
+	/**
+	 * Returns the number at the path as a long.
+	 *
+	 * @param path the path.
+	 * @param def  the value if missing or not a number.
+	 * @return the number.
+	 */
+	public long getLong(@NonNull String path, long def) {
+		final Object value = this.get(path);
+
+		return value instanceof Number ? ((Number) value).longValue() : def;
+	}
+
+	/**
+	 * Returns the number at the path as a double.
+	 *
+	 * @param path the path.
+	 * @param def  the value if missing or not a number.
+	 * @return the number.
+	 */
+	public double getDouble(@NonNull String path, double def) {
+		final Object value = this.get(path);
+
+		return value instanceof Number ? ((Number) value).doubleValue() : def;
+	}
+
+	/**
+	 * Returns the boolean at the path.
+	 *
+	 * @param path the path.
+	 * @param def  the value if missing or not a boolean.
+	 * @return the boolean.
+	 */
+	public boolean getBoolean(@NonNull String path, boolean def) {
+		final Object value = this.get(path);
+
+		return value instanceof Boolean ? (Boolean) value : def;
+	}
+
+	/**
+	 * Returns the list at the path.
+	 *
+	 * @param path the path.
+	 * @return the unmodifiable list, or an empty list if missing or not a list.
+	 */
+	public List<?> getList(@NonNull String path) {
+		final Object value = this.get(path);
+
+		return value instanceof List ? (List<?>) value : Collections.emptyList();
+	}
+
+	/**
+	 * Returns the list at the path, converting its elements to text.
+	 *
+	 * @param path the path.
+	 * @return the list, or an empty list if missing or not a list.
+	 */
+	public List<String> getStringList(@NonNull String path) {
+		final List<?> list = this.getList(path);
+		final List<String> strings = new ArrayList<>(list.size());
+
+		for (Object element : list)
+			if (element != null)
+				strings.add(element.toString());
+
+		return strings;
+	}
+
+	@Override
+	public String toString() {
+		return "ConfigSnapshot{" + (this.prefix.isEmpty() ? "root" : this.prefix.substring(0, this.prefix.length() - 1)) + ", " + this.getKeys() + "}";
+	}
+}
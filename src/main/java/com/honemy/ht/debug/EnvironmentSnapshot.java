@@ -0,0 +1,97 @@
+package com.honemy.ht.debug;
+
+import com.honemy.ht.event.EventBus;
+import com.honemy.ht.plugin.ModernPlugin;
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+
+import java.util.Arrays;
+
+/**
+ * The server environment described in error reports: the plugin, server and Java versions and the installed plugins.
+ * <p>
+ * Describing the environment builds the list of all plugins, so it is computed once and reused by every report.
+ * Once {@link #listen(EventBus)} was called, it is computed again on the next report after a plugin is enabled
+ * or disabled. Otherwise it is computed once.
+ */
+public final class EnvironmentSnapshot {
+
+	/**
+	 * The current snapshot, or null if it must be computed again.
+	 */
+	private static volatile EnvironmentSnapshot current;
+
+	/**
+	 * The name and version of the plugin, for example "MyPlugin 1.0.0".
+	 */
+	@Getter
+	private final String plugin;
+
+	/**
+	 * The server and Java versions, for example "Running CraftBukkit 1.20.4-R0.1-SNAPSHOT and Java 17.0.9".
+	 */
+	@Getter
+	private final String systemInfo;
+
+	/**
+	 * The installed plugins, for example "Plugins: [MyPlugin v1.0.0, Vault v1.7.3]".
+	 */
+	@Getter
+	private final String pluginList;
+
+	/**
+	 * Describes the environment.
+	 */
+	private EnvironmentSnapshot() {
+		this.plugin = ModernPlugin.getNamed() + " " + ModernPlugin.getVersion();
+		this.systemInfo = "Running " + Bukkit.getName() + " " + Bukkit.getBukkitVersion() + " and Java " + System.getProperty("java.version");
+		this.pluginList = "Plugins: " + Arrays.toString(Bukkit.getPluginManager().getPlugins());
+	}
+
+	/**
+	 * Returns the snapshot of the environment, computing it if a plugin was enabled or disabled since the last call.
+	 *
+	 * @return the snapshot.
+	 */
+	public static EnvironmentSnapshot get() {
+		EnvironmentSnapshot snapshot = current;
+
+		if (snapshot == null) {
+			snapshot = new EnvironmentSnapshot();
+
+			current = snapshot;
+		}
+
+		return snapshot;
+	}
+
+	/**
+	 * Forgets the snapshot, so the next call to {@link #get()} computes it again.
+	 */
+	public static void invalidate() {
+		current = null;
+	}
+
+	/**
+	 * Forgets the snapshot whenever a plugin is enabled or disabled.
+	 * The snapshot is only computed again when an error is reported, so enabling many plugins costs nothing.
+	 *
+	 * @param eventBus the event bus of the plugin.
+	 */
+	public static void listen(@NonNull EventBus eventBus) {
+		eventBus.subscribe(PluginEnableEvent.class, event -> invalidate())
+				.name("EnvironmentSnapshot#onPluginEnable")
+				.priority(EventPriority.MONITOR)
+				.register();
+		eventBus.subscribe(PluginDisableEvent.class, event -> invalidate())
+				.name("EnvironmentSnapshot#onPluginDisable")
+				.priority(EventPriority.MONITOR)
+				.register();
+
+		invalidate();
+	}
+}
@@ -1,11 +1,12 @@
 package com.honemy.ht.debug;
 
 import com.honemy.ht.Common;
+import com.honemy.ht.CompiledStringMatcher;
 import com.honemy.ht.FileUtil;
 import com.honemy.ht.TimeUtil;
+import com.honemy.ht.Valid;
 import com.honemy.ht.exception.HtException;
 import com.honemy.ht.logger.ModernLogger;
-import com.honemy.ht.plugin.ModernPlugin;
 import lombok.NonNull;
 import org.bukkit.Bukkit;
 
@@ -19,24 +20,41 @@ import java.util.logging.Level;
  */
 public final class ModernDebug {
 
+	/**
+	 * The prefixes of the classes whose frames are not printed.
+	 */
+	private static final CompiledStringMatcher HIDDEN_CLASS_PREFIXES = CompiledStringMatcher.compile(Arrays.asList(
+			"net.minecraft.",
+			"org.bukkit.craftbukkit.",
+			"org.github.paperspigot.ServerScheduler",
+			"jdk.nashorn.",
+			"org.openjdk.nashorn.",
+			"javax.script.",
+			"org.yaml.snakeyaml.",
+			"sun.reflect.",
+			"jdk.internal.reflect.",
+			"sun.misc.",
+			"java.util.concurrent.ThreadPoolExecutor"));
+
 	/**
 	 * Saves the error to a file and logs the error message and stack trace.
+	 * The environment in the header comes from the cached {@link EnvironmentSnapshot}.
 	 *
 	 * @param thrown   The throwable to save and log.
 	 * @param messages The error messages to save.
 	 */
 	public static void saveError(Throwable thrown, String... messages) {
-		String systemInfo = "Running " + Bukkit.getName() + " " + Bukkit.getBukkitVersion() + " and Java " + System.getProperty("java.version");
-
 		try {
+			// Inside the try, the snapshot may query the server, which fails during shutdown
+			final EnvironmentSnapshot environment = EnvironmentSnapshot.get();
+			String systemInfo = environment.getSystemInfo();
 			List<String> lines = new ArrayList<>();
-			String header = ModernPlugin.getNamed() + " " + ModernPlugin.getVersion() + " encountered " + thrown.getClass().getSimpleName();
-			String pluginsList = Arrays.toString(Bukkit.getPluginManager().getPlugins());
+			String header = environment.getPlugin() + " encountered " + thrown.getClass().getSimpleName();
 
 			lines.add("------------------------------------[ " + TimeUtil.getFormattedDate() + " ]-----------------------------------");
 			lines.add(header);
 			lines.add(systemInfo);
-			lines.add("Plugins: " + pluginsList);
+			lines.add(environment.getPluginList());
 			lines.add("----------------------------------------------------------------------------------------------");
 
 			if (messages != null && messages.length > 0 && !String.join("", messages).isEmpty()) {
@@ -83,63 +101,106 @@ public final class ModernDebug {
 
 	/**
 	 * Logs the stack trace of the given throwable.
+	 * The trace is sent to the console in a single write, without frames of the server internals.
 	 *
 	 * @param throwable The throwable to log the stack trace of.
 	 */
 	public static void printStackTrace(@NonNull Throwable throwable) {
-		List<Throwable> causes = new ArrayList<>();
-		Throwable cause = throwable.getCause();
+		final StringBuilder trace = new StringBuilder(1024);
+		Throwable lastCause = null;
 
-		while (cause != null) {
-			causes.add(cause);
-			cause = cause.getCause();
-		}
+		for (Throwable cause = throwable.getCause(); cause != null; cause = cause.getCause())
+			lastCause = cause;
 
-		if (throwable instanceof HtException && !causes.isEmpty()) {
-			print(throwable.getMessage());
+		if (throwable instanceof HtException && lastCause != null) {
+			trace.append(throwable.getMessage());
 		} else {
-			print(throwable.toString());
-			printStackTraceElements(throwable);
+			trace.append(throwable);
+			appendStackTrace(trace, throwable.getStackTrace());
 		}
 
-		if (!causes.isEmpty()) {
-			Throwable lastCause = causes.get(causes.size() - 1);
-			print(lastCause.toString());
-			printStackTraceElements(lastCause);
+		if (lastCause != null) {
+			trace.append('\n').append(lastCause);
+			appendStackTrace(trace, lastCause.getStackTrace());
 		}
+
+		print(trace.toString());
+	}
+
+	/**
+	 * Captures the stack of the current thread, without frames of the server internals.
+	 * On Java 9 and above, only the frames needed to reach the limit are walked.
+	 *
+	 * @param limit The most frames returned.
+	 * @return The frames, starting with the caller of this method.
+	 */
+	public static StackTraceElement[] captureStackTrace(int limit) {
+		Valid.checkBoolean(limit > 0, "Frame limit must be above 0, got: %s", limit);
+
+		return StackCapture.capture(limit, ModernDebug::canPrint);
+	}
+
+	/**
+	 * Logs the stack of the current thread, to find where something is called from.
+	 *
+	 * @param message The message printed before the stack.
+	 * @param limit   The most frames printed.
+	 */
+	public static void printCurrentStackTrace(@NonNull String message, int limit) {
+		final StringBuilder trace = new StringBuilder(message.length() + limit * 64).append(message);
+
+		appendStackTrace(trace, captureStackTrace(limit));
+		print(trace.toString());
 	}
 
 	/**
-	 * Logs the stack trace elements of the given throwable.
+	 * Appends the stack trace elements that can be printed, one per line.
 	 *
-	 * @param throwable The throwable to log the stack trace elements of.
+	 * @param trace    The builder to append to.
+	 * @param elements The stack trace elements.
 	 */
-	private static void printStackTraceElements(Throwable throwable) {
-		for (StackTraceElement element : throwable.getStackTrace()) {
-			String line = element.toString();
-			if (canPrint(line)) {
-				print("\tat " + line);
+	private static void appendStackTrace(StringBuilder trace, StackTraceElement[] elements) {
+		for (StackTraceElement element : elements) {
+			if (canPrint(element.getClassName(), element.getMethodName())) {
+				trace.append("\n\tat ");
+				appendElement(trace, element);
 			}
 		}
 	}
 
 	/**
-	 * Checks if the message can be printed.
+	 * Appends a stack trace element the way Java 8 prints it, without building an intermediate string.
 	 *
-	 * @param message The message to check.
-	 * @return True if the message can be printed, false otherwise.
+	 * @param trace   The builder to append to.
+	 * @param element The stack trace element.
 	 */
-	private static boolean canPrint(String message) {
-		return !(message.contains("net.minecraft") ||
-				message.contains("org.bukkit.craftbukkit") ||
-				message.contains("org.github.paperspigot.ServerScheduler") ||
-				message.contains("nashorn") ||
-				message.contains("javax.script") ||
-				message.contains("org.yaml.snakeyaml") ||
-				message.contains("sun.reflect") ||
-				message.contains("sun.misc") ||
-				message.contains("java.lang.Thread.run") ||
-				message.contains("java.util.concurrent.ThreadPoolExecutor"));
+	private static void appendElement(StringBuilder trace, StackTraceElement element) {
+		trace.append(element.getClassName()).append('.').append(element.getMethodName());
+
+		if (element.isNativeMethod()) {
+			trace.append("(Native Method)");
+		} else if (element.getFileName() == null) {
+			trace.append("(Unknown Source)");
+		} else if (element.getLineNumber() >= 0) {
+			trace.append('(').append(element.getFileName()).append(':').append(element.getLineNumber()).append(')');
+		} else {
+			trace.append('(').append(element.getFileName()).append(')');
+		}
+	}
+
+	/**
+	 * Checks if a frame can be printed, hiding the server internals, reflection and thread pool frames.
+	 * Uses a trie of the hidden class name prefixes, so each frame is checked in one pass over its class name.
+	 *
+	 * @param className  The class of the frame.
+	 * @param methodName The method of the frame.
+	 * @return True if the frame can be printed, false otherwise.
+	 */
+	private static boolean canPrint(String className, String methodName) {
+		if (HIDDEN_CLASS_PREFIXES.containsPrefixOf(className)) {
+			return false;
+		}
+		return !("run".equals(methodName) && "java.lang.Thread".equals(className));
 	}
 
 	/**
@@ -0,0 +1,163 @@
+package com.honemy.ht.debug;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Captures the stack of the current thread, keeping only frames matching a filter, up to a limit.
+ * <p>
+ * On Java 9 and above, frames are walked lazily with {@code StackWalker}, so only the frames needed to reach
+ * the limit are materialized. HTools is compiled against Java 8, so the walker is reached through method handles.
+ * On Java 8, the full stack is captured with a {@link Throwable}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class StackCapture {
+
+	/**
+	 * The stack walker instance, or null on Java 8.
+	 */
+	private static final Object WALKER;
+
+	/**
+	 * {@code StackWalker#walk(Function)}, or null on Java 8.
+	 */
+	private static final MethodHandle WALK;
+
+	/**
+	 * {@code StackFrame#getClassName()}, taking an Object, or null on Java 8.
+	 */
+	private static final MethodHandle GET_CLASS_NAME;
+
+	/**
+	 * {@code StackFrame#getMethodName()}, taking an Object, or null on Java 8.
+	 */
+	private static final MethodHandle GET_METHOD_NAME;
+
+	/**
+	 * {@code StackFrame#toStackTraceElement()}, taking an Object, or null on Java 8.
+	 */
+	private static final MethodHandle TO_STACK_TRACE_ELEMENT;
+
+	static {
+		Object walker = null;
+		MethodHandle walk = null;
+		MethodHandle getClassName = null;
+		MethodHandle getMethodName = null;
+		MethodHandle toStackTraceElement = null;
+
+		try {
+			final Class<?> walkerClass = Class.forName("java.lang.StackWalker");
+			final Class<?> frameClass = Class.forName("java.lang.StackWalker$StackFrame");
+
+			// Looked up by name since StackWalker does not exist on Java 8. Its methods are public and not caller sensitive, so any lookup works
+			final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+			walker = walkerClass.getMethod("getInstance").invoke(null);
+			walk = lookup.findVirtual(walkerClass, "walk", MethodType.methodType(Object.class, Function.class))
+					.asType(MethodType.methodType(Object.class, Object.class, Function.class));
+			getClassName = lookup.findVirtual(frameClass, "getClassName", MethodType.methodType(String.class))
+					.asType(MethodType.methodType(String.class, Object.class));
+			getMethodName = lookup.findVirtual(frameClass, "getMethodName", MethodType.methodType(String.class))
+					.asType(MethodType.methodType(String.class, Object.class));
+			toStackTraceElement = lookup.findVirtual(frameClass, "toStackTraceElement", MethodType.methodType(StackTraceElement.class))
+					.asType(MethodType.methodType(StackTraceElement.class, Object.class));
+		} catch (ReflectiveOperationException ignored) {
+			// Java 8, capture through a throwable
+			walker = null;
+		}
+
+		WALKER = walker;
+		WALK = walk;
+		GET_CLASS_NAME = getClassName;
+		GET_METHOD_NAME = getMethodName;
+		TO_STACK_TRACE_ELEMENT = toStackTraceElement;
+	}
+
+	/**
+	 * Captures the stack of the current thread, skipping the leading frames of the capture itself.
+	 *
+	 * @param limit  the most frames returned.
+	 * @param filter the filter frames must match, given their class and method names.
+	 * @return the frames, innermost first.
+	 */
+	static StackTraceElement[] capture(int limit, BiPredicate<String, String> filter) {
+		if (WALKER == null)
+			return capture(new Throwable().getStackTrace(), limit, filter);
+
+		final Function<Stream<Object>, List<StackTraceElement>> walker = frames -> {
+			final List<StackTraceElement> captured = new ArrayList<>(Math.min(limit, 32));
+			final Iterator<Object> iterator = frames.iterator();
+			boolean leading = true;
+
+			try {
+				while (captured.size() < limit && iterator.hasNext()) {
+					final Object frame = iterator.next();
+					final String className = (String) GET_CLASS_NAME.invokeExact(frame);
+
+					if (leading && isInternal(className))
+						continue;
+
+					leading = false;
+
+					if (filter.test(className, (String) GET_METHOD_NAME.invokeExact(frame)))
+						captured.add((StackTraceElement) TO_STACK_TRACE_ELEMENT.invokeExact(frame));
+				}
+			} catch (Throwable t) {
+				throw new IllegalStateException("Failed to walk the stack", t);
+			}
+
+			return captured;
+		};
+
+		try {
+			// invokeExact needs the exact (Object, Function)Object signature, so cast the result afterwards
+			final Object captured = WALK.invokeExact(WALKER, (Function<?, ?>) walker);
+
+			return ((List<?>) captured).toArray(new StackTraceElement[0]);
+		} catch (Throwable t) {
+			return capture(new Throwable().getStackTrace(), limit, filter);
+		}
+	}
+
+	/**
+	 * Filters already captured frames, skipping the leading frames of the capture itself.
+	 *
+	 * @param frames the frames, innermost first.
+	 * @param limit  the most frames returned.
+	 * @param filter the filter frames must match, given their class and method names.
+	 * @return the frames, innermost first.
+	 */
+	private static StackTraceElement[] capture(StackTraceElement[] frames, int limit, BiPredicate<String, String> filter) {
+		final List<StackTraceElement> captured = new ArrayList<>(Math.min(limit, frames.length));
+		int index = 0;
+
+		while (index < frames.length && isInternal(frames[index].getClassName()))
+			index++;
+
+		for (; index < frames.length && captured.size() < limit; index++)
+			if (filter.test(frames[index].getClassName(), frames[index].getMethodName()))
+				captured.add(frames[index]);
+
+		return captured.toArray(new StackTraceElement[0]);
+	}
+
+	/**
+	 * Checks if a frame belongs to the capture itself.
+	 *
+	 * @param className the class of the frame.
+	 * @return true if the frame should be skipped.
+	 */
+	private static boolean isInternal(String className) {
+		return className.equals(StackCapture.class.getName()) || className.equals(ModernDebug.class.getName());
+	}
+}
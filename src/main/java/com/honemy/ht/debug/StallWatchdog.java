@@ -0,0 +1,318 @@
+package com.honemy.ht.debug;
+
+import com.honemy.ht.FileUtil;
+import com.honemy.ht.Valid;
+import com.honemy.ht.logger.ModernLogger;
+import com.honemy.ht.plugin.ModernPlugin;
+import com.honemy.ht.plugin.TaskScheduler;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Detects ticks that take too long and samples the stack of the main thread while they last.
+ * <p>
+ * A task updates a heartbeat every tick, and a watchdog thread checks it every sample interval. Once the
+ * heartbeat is older than the threshold, the watchdog samples the main thread stack until the tick ends,
+ * then saves the samples to {@code stalls/stall-<date>.folded} in the data folder with {@link FileUtil#saveAsync(File, String)}.
+ * <p>
+ * The file uses the folded stack format, one line per distinct stack with frames from the thread root
+ * separated by semicolons and followed by the amount of samples. It can be rendered with flame graph
+ * tools such as FlameGraph or speedscope.
+ * <p>
+ * The watchdog is not started automatically, call {@link #start()} when the plugin starts.
+ */
+public final class StallWatchdog {
+
+	/**
+	 * The format of the date in the names of the written files.
+	 */
+	private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS");
+
+	/**
+	 * The plugin owning the watchdog.
+	 */
+	private final ModernPlugin plugin;
+
+	/**
+	 * How long a tick must take to be sampled, in milliseconds.
+	 */
+	@Getter
+	private volatile long thresholdMillis = 250;
+
+	/**
+	 * The time between samples, in milliseconds.
+	 */
+	@Getter
+	private volatile long sampleIntervalMillis = 10;
+
+	/**
+	 * The most samples taken per stall, so a frozen server does not sample forever.
+	 */
+	@Getter
+	private volatile int maxSamples = 3000;
+
+	/**
+	 * The most frames kept per sample, counted from the innermost frame.
+	 */
+	@Getter
+	private volatile int maxDepth = 128;
+
+	/**
+	 * The amount of stalls detected since the watchdog started.
+	 */
+	@Getter
+	private volatile int stalls;
+
+	/**
+	 * The time the heartbeat was last updated, in nanoseconds, or 0 before the first tick.
+	 */
+	private volatile long heartbeat;
+
+	/**
+	 * The thread updating the heartbeat, sampled during stalls.
+	 */
+	private volatile Thread mainThread;
+
+	/**
+	 * The task updating the heartbeat, or null if the watchdog is not running.
+	 */
+	private TaskScheduler.Task heartbeatTask;
+
+	/**
+	 * The thread checking the heartbeat, or null if the watchdog is not running.
+	 */
+	private Thread watchdogThread;
+
+	/**
+	 * Creates a new watchdog for the given plugin.
+	 *
+	 * @param plugin the plugin owning the watchdog.
+	 */
+	public StallWatchdog(@NonNull ModernPlugin plugin) {
+		this.plugin = plugin;
+	}
+
+	/**
+	 * Sets how long a tick must take to be sampled.
+	 *
+	 * @param threshold the threshold.
+	 * @param unit      the unit of the threshold.
+	 */
+	public void setThreshold(long threshold, @NonNull TimeUnit unit) {
+		Valid.checkBoolean(threshold > 0, "Stall threshold must be above 0, got: %s", threshold);
+
+		this.thresholdMillis = unit.toMillis(threshold);
+	}
+
+	/**
+	 * Sets the time between samples.
+	 *
+	 * @param interval the interval.
+	 * @param unit     the unit of the interval.
+	 */
+	public void setSampleInterval(long interval, @NonNull TimeUnit unit) {
+		Valid.checkBoolean(unit.toMillis(interval) > 0, "Sample interval must be at least 1 ms, got: %s", interval);
+
+		this.sampleIntervalMillis = unit.toMillis(interval);
+	}
+
+	/**
+	 * Sets the most samples taken per stall.
+	 *
+	 * @param maxSamples the most samples.
+	 */
+	public void setMaxSamples(int maxSamples) {
+		Valid.checkBoolean(maxSamples > 0, "Max samples must be above 0, got: %s", maxSamples);
+
+		this.maxSamples = maxSamples;
+	}
+
+	/**
+	 * Sets the most frames kept per sample.
+	 *
+	 * @param maxDepth the most frames.
+	 */
+	public void setMaxDepth(int maxDepth) {
+		Valid.checkBoolean(maxDepth > 0, "Max depth must be above 0, got: %s", maxDepth);
+
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Checks if the watchdog is running.
+	 *
+	 * @return true if the watchdog is running.
+	 */
+	public synchronized boolean isRunning() {
+		return this.watchdogThread != null;
+	}
+
+	/**
+	 * Starts the heartbeat task and the watchdog thread. Does nothing if already running.
+	 */
+	public synchronized void start() {
+		if (this.watchdogThread != null)
+			return;
+
+		this.heartbeat = 0;
+		this.heartbeatTask = this.plugin.getTaskScheduler().runGlobalTimer(this::beat, 1, 1);
+		this.watchdogThread = new Thread(this::watch, this.plugin.getName() + "-watchdog");
+		this.watchdogThread.setDaemon(true);
+		this.watchdogThread.start();
+	}
+
+	/**
+	 * Stops the heartbeat task and the watchdog thread. Samples of an ongoing stall are discarded.
+	 */
+	public synchronized void stop() {
+		if (this.watchdogThread == null)
+			return;
+
+		this.heartbeatTask.cancel();
+		this.watchdogThread.interrupt();
+		this.heartbeatTask = null;
+		this.watchdogThread = null;
+	}
+
+	/**
+	 * Updates the heartbeat, called every tick.
+	 */
+	private void beat() {
+		if (this.mainThread == null)
+			this.mainThread = Thread.currentThread();
+
+		this.heartbeat = System.nanoTime();
+	}
+
+	/**
+	 * Checks the heartbeat every sample interval and samples the main thread while it is late.
+	 */
+	private void watch() {
+		Stall stall = null;
+
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				Thread.sleep(this.sampleIntervalMillis);
+
+				final long beat = this.heartbeat;
+				final Thread thread = this.mainThread;
+
+				if (beat == 0 || thread == null)
+					continue;
+
+				// The tick ended, the time between both heartbeats is about how long it took
+				if (stall != null && stall.heartbeat != beat) {
+					this.report(stall, TimeUnit.NANOSECONDS.toMillis(beat - stall.heartbeat));
+
+					stall = null;
+				}
+
+				if (System.nanoTime() - beat < TimeUnit.MILLISECONDS.toNanos(this.thresholdMillis))
+					continue;
+
+				if (stall == null)
+					stall = new Stall(beat);
+
+				if (stall.samples < this.maxSamples)
+					stall.sample(thread.getStackTrace(), this.maxDepth);
+			}
+		} catch (InterruptedException ignored) {
+			// Stopped
+		} catch (Throwable t) {
+			ModernLogger.log(Level.SEVERE, t, "The stall watchdog failed and was stopped");
+		}
+	}
+
+	/**
+	 * Logs a stall and saves its samples without blocking.
+	 *
+	 * @param stall          the stall.
+	 * @param durationMillis how long the tick took, about.
+	 */
+	private void report(Stall stall, long durationMillis) {
+		this.stalls++;
+
+		final String name = "stall-" + LocalDateTime.now().format(FILE_DATE_FORMAT) + ".folded";
+		final List<String> lines = stall.fold();
+
+		ModernLogger.log(Level.WARNING, "The main thread stalled for about " + durationMillis + " ms, " + stall.samples + " stack samples are saved to stalls/" + name);
+
+		FileUtil.saveAsync(FileUtil.getFile("stalls/" + name), String.join("\n", lines) + "\n");
+	}
+
+	/**
+	 * The samples of a stall in progress.
+	 */
+	private static final class Stall {
+
+		/**
+		 * The heartbeat the stall started after.
+		 */
+		private final long heartbeat;
+
+		/**
+		 * The amount of samples of each distinct stack, folded from the thread root.
+		 */
+		private final Map<String, Integer> stacks = new HashMap<>();
+
+		/**
+		 * The amount of samples taken.
+		 */
+		private int samples;
+
+		private Stall(long heartbeat) {
+			this.heartbeat = heartbeat;
+		}
+
+		/**
+		 * Adds a sample of the stack.
+		 *
+		 * @param frames   the frames, innermost first.
+		 * @param maxDepth the most frames kept.
+		 */
+		private void sample(StackTraceElement[] frames, int maxDepth) {
+			final int depth = Math.min(frames.length, maxDepth);
+			final StringBuilder folded = new StringBuilder(depth * 48);
+
+			if (depth < frames.length)
+				folded.append("[truncated]");
+
+			for (int i = depth - 1; i >= 0; i--) {
+				if (folded.length() > 0)
+					folded.append(';');
+
+				folded.append(frames[i].getClassName()).append('.').append(frames[i].getMethodName());
+			}
+
+			this.stacks.merge(folded.toString(), 1, Integer::sum);
+			this.samples++;
+		}
+
+		/**
+		 * Returns the lines of the folded stack file, most sampled stacks first.
+		 *
+		 * @return the lines.
+		 */
+		private List<String> fold() {
+			final List<Map.Entry<String, Integer>> entries = new ArrayList<>(this.stacks.entrySet());
+			final List<String> lines = new ArrayList<>(entries.size());
+
+			entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+
+			for (Map.Entry<String, Integer> entry : entries)
+				lines.add(entry.getKey() + " " + entry.getValue());
+
+			return lines;
+		}
+	}
+}
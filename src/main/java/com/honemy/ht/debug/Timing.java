@@ -0,0 +1,310 @@
+package com.honemy.ht.debug;
+
+import com.honemy.ht.TimeUtil;
+import com.honemy.ht.Valid;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Measures the time spent in a component (a listener, a task, a command) over the last minute of ticks.
+ * <p>
+ * Calls are aggregated in slots of one second of ticks, each keeping the amount of calls, the total
+ * and longest time, the highest time accumulated in a single tick and a histogram of call durations.
+ * Only the last {@link #WINDOW_TICKS} ticks are kept, older slots are reused.
+ * <p>
+ * Get instances from {@link Timings#of(String)}, and measure with {@link Timings#start()} and {@link #stop(long)}.
+ */
+public final class Timing {
+
+	/**
+	 * The amount of ticks aggregated in a slot.
+	 */
+	private static final int TICKS_PER_SLOT = (int) TimeUtil.TICKS_PER_SECOND;
+
+	/**
+	 * The amount of slots kept.
+	 */
+	private static final int SLOTS = 60;
+
+	/**
+	 * The amount of ticks kept, the longest window that can be reported.
+	 */
+	public static final int WINDOW_TICKS = TICKS_PER_SLOT * SLOTS;
+
+	/**
+	 * The amount of histogram buckets. Bucket {@code i} counts calls under {@code 2^(i + 10)} nanoseconds,
+	 * so from 1 microsecond to about 8 seconds, the last bucket counting everything above.
+	 */
+	private static final int BUCKETS = 24;
+
+	/**
+	 * The name of the component.
+	 */
+	@Getter
+	private final String name;
+
+	/**
+	 * The slot number stored at each index, used to detect and clear stale slots.
+	 */
+	private final long[] slotNumbers = new long[SLOTS];
+
+	/**
+	 * The amount of calls per slot.
+	 */
+	private final long[] calls = new long[SLOTS];
+
+	/**
+	 * The total time per slot, in nanoseconds.
+	 */
+	private final long[] totalNanos = new long[SLOTS];
+
+	/**
+	 * The longest call per slot, in nanoseconds.
+	 */
+	private final long[] maxNanos = new long[SLOTS];
+
+	/**
+	 * The highest time accumulated in a single tick per slot, in nanoseconds.
+	 */
+	private final long[] maxTickNanos = new long[SLOTS];
+
+	/**
+	 * The histogram of call durations per slot.
+	 */
+	private final int[][] histograms = new int[SLOTS][BUCKETS];
+
+	/**
+	 * The tick the time in {@link #currentTickNanos} was accumulated in.
+	 */
+	private long currentTick = -1;
+
+	/**
+	 * The time accumulated in the current tick, in nanoseconds.
+	 */
+	private long currentTickNanos;
+
+	/**
+	 * Creates a new timing. Use {@link Timings#of(String)} to get a registered one.
+	 *
+	 * @param name the name of the component.
+	 */
+	Timing(String name) {
+		this.name = name;
+
+		for (int i = 0; i < SLOTS; i++)
+			this.slotNumbers[i] = -1;
+	}
+
+	/**
+	 * Records the time since the given start, if it was measured.
+	 *
+	 * @param start the value returned by {@link Timings#start()}.
+	 */
+	public void stop(long start) {
+		if (start != 0)
+			this.record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Records a call of the component.
+	 *
+	 * @param nanos the time spent, in nanoseconds.
+	 */
+	public synchronized void record(long nanos) {
+		final long tick = TimeUtil.getCurrentTick();
+		final long slotNumber = tick / TICKS_PER_SLOT;
+		final int slot = (int) (slotNumber % SLOTS);
+
+		if (this.slotNumbers[slot] != slotNumber)
+			this.clear(slot, slotNumber);
+
+		if (tick != this.currentTick) {
+			this.currentTick = tick;
+			this.currentTickNanos = 0;
+		}
+
+		this.currentTickNanos += nanos;
+		this.calls[slot]++;
+		this.totalNanos[slot] += nanos;
+		this.histograms[slot][bucket(nanos)]++;
+
+		if (nanos > this.maxNanos[slot])
+			this.maxNanos[slot] = nanos;
+
+		if (this.currentTickNanos > this.maxTickNanos[slot])
+			this.maxTickNanos[slot] = this.currentTickNanos;
+	}
+
+	/**
+	 * Aggregates the calls of the last ticks.
+	 * The window is rounded up to whole slots, so it may include up to a second of older ticks.
+	 *
+	 * @param windowTicks the amount of ticks, at most {@link #WINDOW_TICKS}.
+	 * @return the aggregated calls.
+	 */
+	public synchronized Snapshot snapshot(int windowTicks) {
+		Valid.checkBoolean(windowTicks > 0 && windowTicks <= WINDOW_TICKS, "Timing window must be between 1 and %s ticks, got: %s", WINDOW_TICKS, windowTicks);
+
+		final long currentSlot = TimeUtil.getCurrentTick() / TICKS_PER_SLOT;
+		final long firstSlot = currentSlot - (windowTicks + TICKS_PER_SLOT - 1) / TICKS_PER_SLOT + 1;
+		final int[] histogram = new int[BUCKETS];
+
+		long calls = 0;
+		long total = 0;
+		long max = 0;
+		long maxTick = 0;
+
+		for (long slotNumber = Math.max(firstSlot, 0); slotNumber <= currentSlot; slotNumber++) {
+			final int slot = (int) (slotNumber % SLOTS);
+
+			if (this.slotNumbers[slot] != slotNumber)
+				continue;
+
+			calls += this.calls[slot];
+			total += this.totalNanos[slot];
+			max = Math.max(max, this.maxNanos[slot]);
+			maxTick = Math.max(maxTick, this.maxTickNanos[slot]);
+
+			for (int bucket = 0; bucket < BUCKETS; bucket++)
+				histogram[bucket] += this.histograms[slot][bucket];
+		}
+
+		return new Snapshot(this.name, windowTicks, calls, total, max, maxTick, histogram);
+	}
+
+	/**
+	 * Forgets all recorded calls.
+	 */
+	public synchronized void reset() {
+		for (int slot = 0; slot < SLOTS; slot++)
+			this.clear(slot, -1);
+
+		this.currentTick = -1;
+		this.currentTickNanos = 0;
+	}
+
+	/**
+	 * Clears a slot for reuse.
+	 *
+	 * @param slot       the index of the slot.
+	 * @param slotNumber the slot number it is reused for.
+	 */
+	private void clear(int slot, long slotNumber) {
+		this.slotNumbers[slot] = slotNumber;
+		this.calls[slot] = 0;
+		this.totalNanos[slot] = 0;
+		this.maxNanos[slot] = 0;
+		this.maxTickNanos[slot] = 0;
+
+		Arrays.fill(this.histograms[slot], 0);
+	}
+
+	/**
+	 * Returns the histogram bucket of a call duration.
+	 *
+	 * @param nanos the duration, in nanoseconds.
+	 * @return the bucket.
+	 */
+	private static int bucket(long nanos) {
+		return Math.min(64 - Long.numberOfLeadingZeros(nanos >> 10), BUCKETS - 1);
+	}
+
+	/**
+	 * The calls of a component aggregated over a window of ticks.
+	 */
+	public static final class Snapshot {
+
+		/**
+		 * The name of the component.
+		 */
+		@Getter
+		private final String name;
+
+		/**
+		 * The amount of ticks in the window.
+		 */
+		@Getter
+		private final int windowTicks;
+
+		/**
+		 * The amount of calls.
+		 */
+		@Getter
+		private final long calls;
+
+		/**
+		 * The total time spent, in nanoseconds.
+		 */
+		@Getter
+		private final long totalNanos;
+
+		/**
+		 * The longest call, in nanoseconds.
+		 */
+		@Getter
+		private final long maxNanos;
+
+		/**
+		 * The highest time accumulated in a single tick, in nanoseconds.
+		 */
+		@Getter
+		private final long maxTickNanos;
+
+		/**
+		 * The histogram of call durations.
+		 */
+		private final int[] histogram;
+
+		private Snapshot(String name, int windowTicks, long calls, long totalNanos, long maxNanos, long maxTickNanos, int[] histogram) {
+			this.name = name;
+			this.windowTicks = windowTicks;
+			this.calls = calls;
+			this.totalNanos = totalNanos;
+			this.maxNanos = maxNanos;
+			this.maxTickNanos = maxTickNanos;
+			this.histogram = histogram;
+		}
+
+		/**
+		 * Returns the average time spent per tick in the window.
+		 *
+		 * @return the average time, in nanoseconds.
+		 */
+		public double getNanosPerTick() {
+			return (double) this.totalNanos / this.windowTicks;
+		}
+
+		/**
+		 * Returns the average time spent per call.
+		 *
+		 * @return the average time, in nanoseconds, or 0 if there were no calls.
+		 */
+		public double getNanosPerCall() {
+			return this.calls == 0 ? 0 : (double) this.totalNanos / this.calls;
+		}
+
+		/**
+		 * Estimates a percentile of the call durations from the histogram.
+		 * The result is the upper bound of the bucket holding the percentile, so it is within a factor of 2.
+		 *
+		 * @param percentile the percentile, between 0 and 100.
+		 * @return the estimated duration, in nanoseconds, or 0 if there were no calls.
+		 */
+		public long getPercentileNanos(double percentile) {
+			Valid.checkBooleanDouble(percentile >= 0 && percentile <= 100, "Percentile must be between 0 and 100, got: %s", percentile);
+
+			final long target = (long) Math.ceil(this.calls * percentile / 100);
+			long seen = 0;
+
+			for (int bucket = 0; bucket < BUCKETS - 1; bucket++) {
+				seen += this.histogram[bucket];
+
+				if (seen >= target && seen > 0)
+					return Math.min(1024L << bucket, this.maxNanos);
+			}
+
+			return this.maxNanos;
+		}
+	}
+}
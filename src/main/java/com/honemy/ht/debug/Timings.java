@@ -0,0 +1,189 @@
+package com.honemy.ht.debug;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Utility class measuring the time spent in listeners, scheduled tasks and commands, to find what causes lag.
+ * <p>
+ * HTools measures its own components automatically: event handlers registered through the
+ * {@link com.honemy.ht.event.EventBus}, tasks scheduled through the {@link com.honemy.ht.plugin.TaskScheduler},
+ * work of the {@link com.honemy.ht.plugin.TickScheduler} and {@link com.honemy.ht.command.ModernCommand}s.
+ * Other code can be measured the same way:
+ * <pre>{@code
+ * private static final Timing TIMING = Timings.of("pathfinding");
+ *
+ * final long start = Timings.start();
+ * ...
+ * TIMING.stop(start);
+ * }</pre>
+ * While disabled, which is the default, measuring costs a single volatile read.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class Timings {
+
+	/**
+	 * The registered timings by name.
+	 */
+	private static final Map<String, Timing> timings = new ConcurrentHashMap<>();
+
+	/**
+	 * The timings of scheduled tasks by class, so wrapping a task does not build its name every time.
+	 */
+	private static final ClassValue<Timing> taskTimings = new ClassValue<Timing>() {
+		@Override
+		protected Timing computeValue(Class<?> type) {
+			return of("task:" + describe(type));
+		}
+	};
+
+	/**
+	 * Whether calls are measured.
+	 */
+	@Getter
+	@Setter
+	private static volatile boolean enabled;
+
+	/**
+	 * Returns the timing of a component, registering it if needed.
+	 *
+	 * @param name the name of the component, for example "event:MyListener#onMove".
+	 * @return the timing.
+	 */
+	public static Timing of(@NonNull String name) {
+		return timings.computeIfAbsent(name, Timing::new);
+	}
+
+	/**
+	 * Starts measuring a call.
+	 *
+	 * @return the value to pass to {@link Timing#stop(long)}, or 0 if timings are disabled.
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Wraps a task so its calls are measured, under the name of its class.
+	 *
+	 * @param task the task.
+	 * @return the measured task.
+	 */
+	public static Runnable wrap(@NonNull Runnable task) {
+		final Timing timing = taskTimings.get(task.getClass());
+
+		return () -> {
+			final long start = start();
+
+			try {
+				task.run();
+			} finally {
+				timing.stop(start);
+			}
+		};
+	}
+
+	/**
+	 * Returns all registered timings.
+	 *
+	 * @return the timings.
+	 */
+	public static Collection<Timing> getTimings() {
+		return Collections.unmodifiableCollection(timings.values());
+	}
+
+	/**
+	 * Returns the components that spent the most time over the last ticks.
+	 *
+	 * @param windowTicks the amount of ticks, at most {@link Timing#WINDOW_TICKS}.
+	 * @param limit       the maximum amount of components returned.
+	 * @return the components, slowest first.
+	 */
+	public static List<Timing.Snapshot> getTopOffenders(int windowTicks, int limit) {
+		final List<Timing.Snapshot> snapshots = new ArrayList<>();
+
+		for (Timing timing : timings.values()) {
+			final Timing.Snapshot snapshot = timing.snapshot(windowTicks);
+
+			if (snapshot.getCalls() > 0)
+				snapshots.add(snapshot);
+		}
+
+		snapshots.sort(Comparator.comparingLong(Timing.Snapshot::getTotalNanos).reversed());
+
+		return snapshots.size() > limit ? new ArrayList<>(snapshots.subList(0, limit)) : snapshots;
+	}
+
+	/**
+	 * Formats a report of the components that spent the most time over the last ticks.
+	 *
+	 * @param windowTicks the amount of ticks, at most {@link Timing#WINDOW_TICKS}.
+	 * @param limit       the maximum amount of components reported.
+	 * @return the report lines.
+	 */
+	public static List<String> report(int windowTicks, int limit) {
+		final List<Timing.Snapshot> offenders = getTopOffenders(windowTicks, limit);
+		final List<String> lines = new ArrayList<>(offenders.size() + 1);
+
+		lines.add(String.format("Top %d of %d components over the last %d ticks%s:", offenders.size(), timings.size(), windowTicks, enabled ? "" : " (timings are disabled)"));
+
+		int rank = 1;
+
+		for (Timing.Snapshot snapshot : offenders)
+			lines.add(String.format("#%d %s: %.3f ms/tick (max %.2f ms in a tick), %d calls, avg %s, p95 %s, max %s",
+					rank++, snapshot.getName(), snapshot.getNanosPerTick() / 1e6, snapshot.getMaxTickNanos() / 1e6, snapshot.getCalls(),
+					formatNanos(snapshot.getNanosPerCall()), formatNanos(snapshot.getPercentileNanos(95)), formatNanos(snapshot.getMaxNanos())));
+
+		return lines;
+	}
+
+	/**
+	 * Forgets the recorded calls of all components.
+	 */
+	public static void reset() {
+		for (Timing timing : timings.values())
+			timing.reset();
+	}
+
+	/**
+	 * Formats a duration with the most readable unit.
+	 *
+	 * @param nanos the duration, in nanoseconds.
+	 * @return the formatted duration.
+	 */
+	private static String formatNanos(double nanos) {
+		if (nanos >= 1e6)
+			return String.format("%.2f ms", nanos / 1e6);
+
+		if (nanos >= 1e3)
+			return String.format("%.1f us", nanos / 1e3);
+
+		return String.format("%.0f ns", nanos);
+	}
+
+	/**
+	 * Describes a task class, turning lambda classes into the class declaring them.
+	 *
+	 * @param type the class of the task.
+	 * @return the description.
+	 */
+	private static String describe(Class<?> type) {
+		final String name = type.getName();
+		final int lambda = name.indexOf("$$Lambda");
+		final String declaring = lambda == -1 ? name : name.substring(0, lambda);
+		final String simple = declaring.substring(declaring.lastIndexOf('.') + 1);
+
+		return lambda == -1 ? simple : simple + " (lambda)";
+	}
+}
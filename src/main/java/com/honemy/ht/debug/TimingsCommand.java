@@ -0,0 +1,99 @@
+package com.honemy.ht.debug;
+
+import com.honemy.ht.Messenger;
+import com.honemy.ht.NumberParser;
+import com.honemy.ht.command.ModernCommand;
+import com.honemy.ht.exception.CommandException;
+import lombok.NonNull;
+
+/**
+ * Command controlling {@link Timings} and reporting the components that spent the most time.
+ * <ul>
+ *     <li>{@code /<label> on} and {@code /<label> off} enable and disable timings.</li>
+ *     <li>{@code /<label> reset} forgets all recorded calls.</li>
+ *     <li>{@code /<label> [ticks] [limit]} reports the slowest components over the last ticks, 200 and 10 by default.</li>
+ * </ul>
+ * It is not registered automatically, register it with {@link com.honemy.ht.plugin.ModernPlugin#registerCommand(ModernCommand)}.
+ */
+public class TimingsCommand extends ModernCommand {
+
+	/**
+	 * The default amount of ticks reported.
+	 */
+	private static final int DEFAULT_WINDOW_TICKS = 200;
+
+	/**
+	 * The default amount of components reported.
+	 */
+	private static final int DEFAULT_LIMIT = 10;
+
+	/**
+	 * The permission required to use the command.
+	 */
+	private final String permission;
+
+	/**
+	 * Creates the command.
+	 *
+	 * @param name       the name of the command.
+	 * @param permission the permission required to use the command.
+	 * @param aliases    the aliases of the command.
+	 */
+	public TimingsCommand(@NonNull String name, @NonNull String permission, String... aliases) {
+		super(name, aliases);
+
+		this.permission = permission;
+	}
+
+	@Override
+	protected void onCommand() {
+		if (!this.sender.hasPermission(this.permission))
+			throw new CommandException("You do not have permission to use this command.");
+
+		final String action = this.args.length > 0 ? this.args[0].toLowerCase() : "";
+
+		switch (action) {
+			case "on":
+				Timings.setEnabled(true);
+				Messenger.success(this.sender, "Timings enabled.");
+				break;
+
+			case "off":
+				Timings.setEnabled(false);
+				Messenger.success(this.sender, "Timings disabled.");
+				break;
+
+			case "reset":
+				Timings.reset();
+				Messenger.success(this.sender, "Timings reset.");
+				break;
+
+			default:
+				final int windowTicks = this.parseArgument(0, DEFAULT_WINDOW_TICKS, Timing.WINDOW_TICKS);
+				final int limit = this.parseArgument(1, DEFAULT_LIMIT, Integer.MAX_VALUE);
+
+				Messenger.info(this.sender, Timings.report(windowTicks, limit).toArray(new String[0]));
+		}
+	}
+
+	/**
+	 * Parses a positive number argument.
+	 *
+	 * @param index    the index of the argument.
+	 * @param fallback the value if the argument is missing.
+	 * @param max      the highest allowed value.
+	 * @return the value.
+	 * @throws CommandException if the argument is not a number in range.
+	 */
+	private int parseArgument(int index, int fallback, int max) {
+		if (this.args.length <= index)
+			return fallback;
+
+		final int value = NumberParser.parseInt(this.args[index], -1);
+
+		if (value < 1 || value > max)
+			throw new CommandException("Usage: /" + this.commandLabel + " [on|off|reset|ticks (1-" + Timing.WINDOW_TICKS + ")] [limit]");
+
+		return value;
+	}
+}
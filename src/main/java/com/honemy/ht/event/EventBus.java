@@ -0,0 +1,353 @@
+package com.honemy.ht.event;
+
+import com.honemy.ht.Valid;
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Registers event handlers to Bukkit with generated invokers and filters.
+ * <p>
+ * Bukkit calls annotated listener methods through {@link Method#invoke(Object, Object...)}, which adds up for
+ * frequent events such as player movement. Handlers registered here are bound once to generated classes
+ * calling them directly, see {@link HandlerFactory}, and filters run before the handler is called.
+ * The time spent in each handler is measured by {@link com.honemy.ht.debug.Timings}.
+ * <p>
+ * Listener methods are found like Bukkit does, with {@link EventHandler}, and can be restricted with {@link Filter}.
+ * Handlers can also be registered without a listener class with {@link #subscribe(Class, Consumer)}.
+ */
+public final class EventBus {
+
+	/**
+	 * The plugin owning the handlers.
+	 */
+	private final Plugin plugin;
+
+	/**
+	 * The subscriptions of every registered listener.
+	 */
+	private final Map<Listener, List<Subscription>> listeners = new ConcurrentHashMap<>();
+
+	/**
+	 * All active subscriptions.
+	 */
+	private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Creates a new event bus for the given plugin.
+	 *
+	 * @param plugin the plugin owning the handlers.
+	 */
+	public EventBus(@NonNull Plugin plugin) {
+		this.plugin = plugin;
+	}
+
+	/**
+	 * Registers every method of the listener annotated with {@link EventHandler}, including inherited ones.
+	 * An overridden method is only registered if the overriding one is annotated, like Bukkit does.
+	 * Nothing is registered if a method cannot be bound.
+	 *
+	 * @param listener the listener.
+	 * @return the subscriptions created.
+	 */
+	public List<Subscription> register(@NonNull Listener listener) {
+		Valid.checkBooleanLazy(!this.listeners.containsKey(listener), () -> "Listener " + listener.getClass().getName() + " is already registered");
+
+		final List<Subscription> created = new ArrayList<>();
+		final Set<String> overridden = new HashSet<>();
+
+		// Bind every handler before registering any, so a bad signature leaves nothing registered
+		for (Class<?> type = listener.getClass(); type != null && type != Object.class; type = type.getSuperclass())
+			for (Method method : type.getDeclaredMethods()) {
+				final EventHandler annotation = method.getAnnotation(EventHandler.class);
+
+				if (annotation != null && !method.isBridge() && !method.isSynthetic() && !overridden.contains(overrideKey(method)))
+					created.add(this.bind(listener, method, annotation));
+
+				if (!Modifier.isPrivate(method.getModifiers()) && !Modifier.isStatic(method.getModifiers())) {
+					overridden.add(method.getName() + Arrays.toString(method.getParameterTypes()));
+					overridden.add(method.getDeclaringClass().getPackage() + " " + method.getName() + Arrays.toString(method.getParameterTypes()));
+				}
+			}
+
+		try {
+			for (Subscription subscription : created)
+				this.add(subscription);
+
+		} catch (Throwable t) {
+			for (Subscription subscription : created)
+				subscription.unregister();
+
+			throw t;
+		}
+
+		this.listeners.put(listener, created);
+
+		return Collections.unmodifiableList(created);
+	}
+
+	/**
+	 * Returns the key a method overriding the given one was recorded under by {@link #register(Listener)}.
+	 * Package private methods are only overridden from the same package.
+	 *
+	 * @param method the method.
+	 * @return the key, or null if the method cannot be overridden.
+	 */
+	private static String overrideKey(Method method) {
+		final int modifiers = method.getModifiers();
+
+		if (Modifier.isPrivate(modifiers) || Modifier.isStatic(modifiers))
+			return null;
+
+		final String signature = method.getName() + Arrays.toString(method.getParameterTypes());
+
+		return Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers) ? signature : method.getDeclaringClass().getPackage() + " " + signature;
+	}
+
+	/**
+	 * Creates the subscription calling a listener method.
+	 *
+	 * @param listener   the listener.
+	 * @param method     the method annotated with {@link EventHandler}.
+	 * @param annotation the annotation.
+	 * @return the subscription.
+	 */
+	private Subscription bind(Listener listener, Method method, EventHandler annotation) {
+		final String name = method.getDeclaringClass().getSimpleName() + "#" + method.getName();
+		final Class<?>[] parameters = method.getParameterTypes();
+
+		Valid.checkBooleanLazy(parameters.length == 1 && Event.class.isAssignableFrom(parameters[0]), () -> "Event handler " + name + " must take a single event");
+
+		return new Subscription(this, name, parameters[0].asSubclass(Event.class), annotation.priority(), annotation.ignoreCancelled(),
+				createFilter(method.getAnnotation(Filter.class)), HandlerFactory.create(listener, method));
+	}
+
+	/**
+	 * Unregisters every method of the listener registered with {@link #register(Listener)}.
+	 *
+	 * @param listener the listener.
+	 */
+	public void unregister(@NonNull Listener listener) {
+		final List<Subscription> removed = this.listeners.remove(listener);
+
+		if (removed != null)
+			for (Subscription subscription : removed)
+				subscription.unregister();
+	}
+
+	/**
+	 * Starts building a handler for events of the given type and its subtypes.
+	 *
+	 * @param type    the type of events.
+	 * @param handler the handler.
+	 * @param <T>     the type of events.
+	 * @return the builder, call {@link SubscriptionBuilder#register()} to register the handler.
+	 */
+	public <T extends Event> SubscriptionBuilder<T> subscribe(@NonNull Class<T> type, @NonNull Consumer<? super T> handler) {
+		return new SubscriptionBuilder<>(type, handler);
+	}
+
+	/**
+	 * Returns all active subscriptions.
+	 *
+	 * @return the subscriptions.
+	 */
+	public List<Subscription> getSubscriptions() {
+		return Collections.unmodifiableList(this.subscriptions);
+	}
+
+	/**
+	 * Registers the subscription to Bukkit.
+	 *
+	 * @param subscription the subscription.
+	 */
+	private void add(Subscription subscription) {
+		Bukkit.getPluginManager().registerEvent(subscription.getType(), subscription, subscription.getPriority(), subscription, this.plugin, subscription.isIgnoreCancelled());
+
+		this.subscriptions.add(subscription);
+	}
+
+	/**
+	 * Forgets an unregistered subscription.
+	 *
+	 * @param subscription the subscription.
+	 */
+	void remove(Subscription subscription) {
+		this.subscriptions.remove(subscription);
+	}
+
+	/**
+	 * Creates the filter described by the annotation.
+	 *
+	 * @param annotation the annotation, may be null.
+	 * @return the filter, or null if nothing is filtered.
+	 */
+	private static Predicate<Event> createFilter(Filter annotation) {
+		if (annotation == null)
+			return null;
+
+		Predicate<Event> filter = null;
+
+		if (annotation.worlds().length > 0)
+			filter = EventFilters.inWorlds(annotation.worlds());
+
+		if (!annotation.permission().isEmpty())
+			filter = and(filter, EventFilters.hasPermission(annotation.permission()));
+
+		return filter;
+	}
+
+	/**
+	 * Combines two filters, either of which may be null.
+	 *
+	 * @param first  the first filter.
+	 * @param second the second filter.
+	 * @return the combined filter.
+	 */
+	private static Predicate<Event> and(Predicate<Event> first, Predicate<Event> second) {
+		return first == null ? second : second == null ? first : first.and(second);
+	}
+
+	/**
+	 * Builds a handler registered with {@link #subscribe(Class, Consumer)}.
+	 *
+	 * @param <T> the type of events.
+	 */
+	public final class SubscriptionBuilder<T extends Event> {
+
+		/**
+		 * The type of events.
+		 */
+		private final Class<T> type;
+
+		/**
+		 * The handler.
+		 */
+		private final Consumer<? super T> handler;
+
+		/**
+		 * The name shown in timings and errors.
+		 */
+		private String name;
+
+		/**
+		 * The priority of the handler.
+		 */
+		private EventPriority priority = EventPriority.NORMAL;
+
+		/**
+		 * Whether cancelled events are skipped.
+		 */
+		private boolean ignoreCancelled;
+
+		/**
+		 * The filter events must match, or null.
+		 */
+		private Predicate<Event> filter;
+
+		private SubscriptionBuilder(Class<T> type, Consumer<? super T> handler) {
+			this.type = type;
+			this.handler = handler;
+			this.name = type.getSimpleName() + " handler";
+		}
+
+		/**
+		 * Sets the name shown in timings and errors.
+		 *
+		 * @param name the name.
+		 * @return this builder.
+		 */
+		public SubscriptionBuilder<T> name(@NonNull String name) {
+			this.name = name;
+
+			return this;
+		}
+
+		/**
+		 * Sets the priority of the handler, {@link EventPriority#NORMAL} by default.
+		 *
+		 * @param priority the priority.
+		 * @return this builder.
+		 */
+		public SubscriptionBuilder<T> priority(@NonNull EventPriority priority) {
+			this.priority = priority;
+
+			return this;
+		}
+
+		/**
+		 * Skips cancelled events.
+		 *
+		 * @return this builder.
+		 */
+		public SubscriptionBuilder<T> ignoreCancelled() {
+			this.ignoreCancelled = true;
+
+			return this;
+		}
+
+		/**
+		 * Only handles events matching the filter. Multiple filters must all match.
+		 *
+		 * @param filter the filter.
+		 * @return this builder.
+		 */
+		public SubscriptionBuilder<T> filter(@NonNull Predicate<? super T> filter) {
+			this.filter = and(this.filter, event -> filter.test(this.type.cast(event)));
+
+			return this;
+		}
+
+		/**
+		 * Only handles events happening in one of the given worlds.
+		 *
+		 * @param worlds the names of the worlds.
+		 * @return this builder.
+		 */
+		public SubscriptionBuilder<T> inWorlds(@NonNull String... worlds) {
+			this.filter = and(this.filter, EventFilters.inWorlds(worlds));
+
+			return this;
+		}
+
+		/**
+		 * Only handles events of players having the given permission.
+		 *
+		 * @param permission the permission.
+		 * @return this builder.
+		 */
+		public SubscriptionBuilder<T> withPermission(@NonNull String permission) {
+			this.filter = and(this.filter, EventFilters.hasPermission(permission));
+
+			return this;
+		}
+
+		/**
+		 * Registers the handler.
+		 *
+		 * @return the subscription, used to unregister the handler.
+		 */
+		public Subscription register() {
+			final Class<T> type = this.type;
+			final Consumer<? super T> handler = this.handler;
+			final Subscription subscription = new Subscription(EventBus.this, this.name, type, this.priority, this.ignoreCancelled, this.filter,
+					event -> handler.accept(type.cast(event)));
+
+			EventBus.this.add(subscription);
+
+			return subscription;
+		}
+	}
+}
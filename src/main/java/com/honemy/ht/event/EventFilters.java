@@ -0,0 +1,153 @@
+package com.honemy.ht.event;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Projectile;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.block.BlockEvent;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityEvent;
+import org.bukkit.event.player.PlayerEvent;
+import org.bukkit.event.vehicle.VehicleDamageEvent;
+import org.bukkit.event.vehicle.VehicleDestroyEvent;
+import org.bukkit.event.vehicle.VehicleEnterEvent;
+import org.bukkit.event.vehicle.VehicleExitEvent;
+import org.bukkit.event.world.WorldEvent;
+import org.bukkit.projectiles.ProjectileSource;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Utility class for common event filters, checked before a subscription is called.
+ * <p>
+ * The world of an event is found for player, entity, block and world events. The player is found for
+ * player events, entity events whose entity is a player or a projectile shot by one, damage events whose
+ * damager is a player or a projectile shot by one (before the damaged entity), and vehicle events where a
+ * player enters, exits, damages or destroys the vehicle. Events without one never match.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class EventFilters {
+
+	/**
+	 * Matches events happening in one of the given worlds.
+	 *
+	 * @param worlds the names of the worlds.
+	 * @return the filter.
+	 */
+	public static Predicate<Event> inWorlds(@NonNull String... worlds) {
+		final Set<String> names = new HashSet<>(Arrays.asList(worlds));
+
+		return event -> {
+			final World world = getWorld(event);
+
+			return world != null && names.contains(world.getName());
+		};
+	}
+
+	/**
+	 * Matches events of players having the given permission.
+	 *
+	 * @param permission the permission.
+	 * @return the filter.
+	 */
+	public static Predicate<Event> hasPermission(@NonNull String permission) {
+		return event -> {
+			final Player player = getPlayer(event);
+
+			return player != null && player.hasPermission(permission);
+		};
+	}
+
+	/**
+	 * Matches events that are not cancelled, or cannot be cancelled.
+	 *
+	 * @return the filter.
+	 */
+	public static Predicate<Event> notCancelled() {
+		return event -> !(event instanceof Cancellable) || !((Cancellable) event).isCancelled();
+	}
+
+	/**
+	 * Returns the world an event happens in.
+	 *
+	 * @param event the event.
+	 * @return the world, or null if the event has none.
+	 */
+	public static World getWorld(@NonNull Event event) {
+		if (event instanceof PlayerEvent)
+			return ((PlayerEvent) event).getPlayer().getWorld();
+
+		if (event instanceof EntityEvent)
+			return ((EntityEvent) event).getEntity().getWorld();
+
+		if (event instanceof BlockEvent)
+			return ((BlockEvent) event).getBlock().getWorld();
+
+		if (event instanceof WorldEvent)
+			return ((WorldEvent) event).getWorld();
+
+		return null;
+	}
+
+	/**
+	 * Returns the player of an event.
+	 *
+	 * @param event the event.
+	 * @return the player, or null if the event has none.
+	 */
+	public static Player getPlayer(@NonNull Event event) {
+		if (event instanceof PlayerEvent)
+			return ((PlayerEvent) event).getPlayer();
+
+		if (event instanceof EntityDamageByEntityEvent) {
+			final Player damager = asPlayer(((EntityDamageByEntityEvent) event).getDamager());
+
+			if (damager != null)
+				return damager;
+		}
+
+		if (event instanceof EntityEvent)
+			return asPlayer(((EntityEvent) event).getEntity());
+
+		if (event instanceof VehicleEnterEvent)
+			return asPlayer(((VehicleEnterEvent) event).getEntered());
+
+		if (event instanceof VehicleExitEvent)
+			return asPlayer(((VehicleExitEvent) event).getExited());
+
+		if (event instanceof VehicleDamageEvent)
+			return asPlayer(((VehicleDamageEvent) event).getAttacker());
+
+		if (event instanceof VehicleDestroyEvent)
+			return asPlayer(((VehicleDestroyEvent) event).getAttacker());
+
+		return null;
+	}
+
+	/**
+	 * Returns the player an entity is, or the player who shot it if it is a projectile.
+	 *
+	 * @param entity the entity, may be null.
+	 * @return the player, or null if the entity is neither.
+	 */
+	private static Player asPlayer(Entity entity) {
+		if (entity instanceof Player)
+			return (Player) entity;
+
+		if (entity instanceof Projectile) {
+			final ProjectileSource shooter = ((Projectile) entity).getShooter();
+
+			return shooter instanceof Player ? (Player) shooter : null;
+		}
+
+		return null;
+	}
+}
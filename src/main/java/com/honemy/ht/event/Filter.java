@@ -0,0 +1,29 @@
+package com.honemy.ht.event;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Restricts an {@link org.bukkit.event.EventHandler} method registered through {@link EventBus#register(org.bukkit.event.Listener)}.
+ * The conditions are checked before the method is called, see {@link EventFilters} for how they match events.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Filter {
+
+	/**
+	 * The names of the worlds the event must happen in, or empty for any world.
+	 *
+	 * @return the world names.
+	 */
+	String[] worlds() default {};
+
+	/**
+	 * The permission the player of the event must have, or empty for none.
+	 *
+	 * @return the permission.
+	 */
+	String permission() default "";
+}
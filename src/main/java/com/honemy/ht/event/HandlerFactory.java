@@ -0,0 +1,124 @@
+package com.honemy.ht.event;
+
+import com.honemy.ht.exception.HtException;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.bukkit.event.Event;
+import org.bukkit.event.Listener;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Binds listener methods to handlers that call them without {@link Method#invoke(Object, Object...)}.
+ * <p>
+ * Public methods of public classes are bound through {@link LambdaMetafactory}, which generates a class
+ * calling the method directly, as fast as a hand written lambda once inlined. Other methods fall back to a
+ * {@link MethodHandle}, still faster than reflection since access checks and boxing happen once.
+ * Static methods are supported too, called without the listener.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class HandlerFactory {
+
+	/**
+	 * The lookup used to create handlers.
+	 */
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	/**
+	 * Creates a handler calling the method on the listener.
+	 *
+	 * @param listener the listener owning the method.
+	 * @param method   the method taking a single event.
+	 * @return the handler.
+	 */
+	static Handler create(Listener listener, Method method) {
+		if (canGenerate(listener.getClass(), method))
+			try {
+				return generate(listener, method);
+			} catch (Throwable ignored) {
+				// Fall back to a method handle below
+			}
+
+		try {
+			method.setAccessible(true);
+
+			MethodHandle handle = LOOKUP.unreflect(method);
+
+			// Static handlers, which Bukkit accepts too, take no listener
+			if (!Modifier.isStatic(method.getModifiers()))
+				handle = handle.bindTo(listener);
+
+			handle = handle.asType(MethodType.methodType(void.class, Event.class));
+
+			final MethodHandle target = handle;
+
+			// A statement, so invokeExact is called with the exact (Event)void signature
+			return event -> {
+				target.invokeExact(event);
+			};
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			throw new HtException(e, "Failed to bind " + method.getName() + " on " + listener.getClass().getName());
+		}
+	}
+
+	/**
+	 * Generates a class implementing {@link Handler} that calls the method directly.
+	 *
+	 * @param listener the listener owning the method.
+	 * @param method   the method taking a single event.
+	 * @return the handler.
+	 * @throws Throwable if the class cannot be generated.
+	 */
+	private static Handler generate(Listener listener, Method method) throws Throwable {
+		final boolean isStatic = Modifier.isStatic(method.getModifiers());
+		final MethodHandle target = LOOKUP.unreflect(method);
+		final CallSite site = LambdaMetafactory.metafactory(LOOKUP,
+				"handle",
+				isStatic ? MethodType.methodType(Handler.class) : MethodType.methodType(Handler.class, listener.getClass()),
+				MethodType.methodType(void.class, Event.class),
+				target,
+				MethodType.methodType(void.class, method.getParameterTypes()[0]));
+
+		return isStatic ? (Handler) site.getTarget().invoke() : (Handler) site.getTarget().invoke(listener);
+	}
+
+	/**
+	 * Checks if a class calling the method can be generated next to this class.
+	 * The method and its class must be public, and the class visible from the HTools class loader.
+	 *
+	 * @param type   the class of the listener.
+	 * @param method the method.
+	 * @return true if a class can be generated.
+	 */
+	private static boolean canGenerate(Class<?> type, Method method) {
+		if (!Modifier.isPublic(type.getModifiers()) || !Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers()))
+			return false;
+
+		try {
+			return Class.forName(type.getName(), false, HandlerFactory.class.getClassLoader()) == type;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Calls a listener method with an event.
+	 */
+	@FunctionalInterface
+	interface Handler {
+
+		/**
+		 * Handles the event.
+		 *
+		 * @param event the event.
+		 * @throws Throwable anything thrown by the listener method.
+		 */
+		void handle(Event event) throws Throwable;
+	}
+}
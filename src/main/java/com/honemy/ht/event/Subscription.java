@@ -0,0 +1,114 @@
+package com.honemy.ht.event;
+
+import com.honemy.ht.debug.Timing;
+import com.honemy.ht.debug.Timings;
+import lombok.Getter;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+
+import java.util.function.Predicate;
+
+/**
+ * A handler registered through an {@link EventBus}, with its filter.
+ * The time spent in the handler is measured by {@link Timings} as "event:" followed by the name.
+ * Each subscription is registered to Bukkit as its own listener, so it can be unregistered on its own.
+ */
+public final class Subscription implements Listener, EventExecutor {
+
+	/**
+	 * The bus owning the subscription.
+	 */
+	private final EventBus bus;
+
+	/**
+	 * The name of the subscription, shown in timings and errors.
+	 */
+	@Getter
+	private final String name;
+
+	/**
+	 * The type of events handled.
+	 */
+	@Getter
+	private final Class<? extends Event> type;
+
+	/**
+	 * The priority the subscription is registered with.
+	 */
+	@Getter
+	private final EventPriority priority;
+
+	/**
+	 * Whether cancelled events are skipped, checked by Bukkit before calling the subscription.
+	 */
+	@Getter
+	private final boolean ignoreCancelled;
+
+	/**
+	 * The filter events must match to be handled, or null to handle all events.
+	 */
+	private final Predicate<Event> filter;
+
+	/**
+	 * The handler called with matching events.
+	 */
+	private final HandlerFactory.Handler handler;
+
+	/**
+	 * The timing measuring the handler.
+	 */
+	@Getter
+	private final Timing timing;
+
+	Subscription(EventBus bus, String name, Class<? extends Event> type, EventPriority priority, boolean ignoreCancelled, Predicate<Event> filter, HandlerFactory.Handler handler) {
+		this.bus = bus;
+		this.name = name;
+		this.type = type;
+		this.priority = priority;
+		this.ignoreCancelled = ignoreCancelled;
+		this.filter = filter;
+		this.handler = handler;
+		this.timing = Timings.of("event:" + name);
+	}
+
+	/**
+	 * Called by Bukkit for every event of the registered type and its subtypes.
+	 *
+	 * @param listener this subscription.
+	 * @param event    the event.
+	 * @throws EventException if the handler threw an error.
+	 */
+	@Override
+	public void execute(Listener listener, Event event) throws EventException {
+		// Bukkit also passes events of subtypes with their own handler list
+		if (!this.type.isInstance(event) || (this.filter != null && !this.filter.test(event)))
+			return;
+
+		final long start = Timings.start();
+
+		try {
+			this.handler.handle(event);
+		} catch (Throwable t) {
+			throw new EventException(t, "Could not pass event " + event.getEventName() + " to " + this.name);
+		} finally {
+			this.timing.stop(start);
+		}
+	}
+
+	/**
+	 * Unregisters the subscription, it is not called for any further event.
+	 */
+	public void unregister() {
+		HandlerList.unregisterAll(this);
+		this.bus.remove(this);
+	}
+
+	@Override
+	public String toString() {
+		return "Subscription{" + this.name + ", " + this.type.getSimpleName() + ", " + this.priority + "}";
+	}
+}
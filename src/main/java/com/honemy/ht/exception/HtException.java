@@ -18,6 +18,11 @@ public class HtException extends RuntimeException {
 	@Setter
 	private static boolean saveErrorAutomatically = true;
 
+	/**
+	 * Whether this exception has already been saved to the error file.
+	 */
+	private boolean saved;
+
 	/**
 	 * Constructs a new HtException with the specified cause.
 	 * If saveErrorAutomatically is true, the error is saved.
@@ -28,7 +33,7 @@ public class HtException extends RuntimeException {
 		super(t);
 
 		if (saveErrorAutomatically)
-			ModernDebug.saveError(t);
+			this.save(t);
 	}
 
 	/**
@@ -41,7 +46,7 @@ public class HtException extends RuntimeException {
 		super(message);
 
 		if (saveErrorAutomatically)
-			ModernDebug.saveError(this, message);
+			this.save(this, message);
 	}
 
 	/**
@@ -55,7 +60,7 @@ public class HtException extends RuntimeException {
 		super(message, t);
 
 		if (saveErrorAutomatically)
-			ModernDebug.saveError(t, message);
+			this.save(t, message);
 	}
 
 	/**
@@ -64,7 +69,40 @@ public class HtException extends RuntimeException {
 	 */
 	public HtException() {
 		if (saveErrorAutomatically)
-			ModernDebug.saveError(this);
+			this.save(this);
+	}
+
+	/**
+	 * Constructs a new HtException with the specified detail message without saving it.
+	 * Used by lightweight subclasses whose reporting is left to the top-level handler.
+	 *
+	 * @param message            the detail message.
+	 * @param writableStackTrace whether the stack trace should be captured.
+	 */
+	protected HtException(String message, boolean writableStackTrace) {
+		super(message, null, false, writableStackTrace);
+	}
+
+	/**
+	 * Checks if this exception still has to be saved by the handler catching it.
+	 * This is the case when it was not saved on construction and saving is enabled.
+	 *
+	 * @return true if the error should be saved, false otherwise.
+	 */
+	public boolean isReportPending() {
+		return !this.saved && saveErrorAutomatically;
+	}
+
+	/**
+	 * Saves the error and marks this exception as saved.
+	 *
+	 * @param thrown   the throwable to save.
+	 * @param messages the messages to save.
+	 */
+	private void save(Throwable thrown, String... messages) {
+		this.saved = true;
+
+		ModernDebug.saveError(thrown, messages);
 	}
 
 	/**
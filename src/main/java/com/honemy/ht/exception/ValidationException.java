@@ -0,0 +1,47 @@
+package com.honemy.ht.exception;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Lightweight exception thrown by validation checks.
+ * Unlike a plain HtException, it is not saved to the error file when constructed, so
+ * failures that callers catch and handle stay cheap. Uncaught ones are saved by the
+ * top-level handler through {@link com.honemy.ht.Common#error(Throwable, String...)}.
+ */
+public class ValidationException extends HtException {
+
+	/**
+	 * A static flag to control whether the stack trace is captured on construction.
+	 * Disabling it makes throwing cheaper, but saved reports will not show where the check failed.
+	 */
+	@Getter
+	@Setter
+	private static boolean captureStackTrace = true;
+
+	/**
+	 * Constructs a new ValidationException without a detail message.
+	 */
+	public ValidationException() {
+		this(null);
+	}
+
+	/**
+	 * Constructs a new ValidationException with the specified detail message.
+	 *
+	 * @param message the detail message.
+	 */
+	public ValidationException(String message) {
+		this(message, captureStackTrace);
+	}
+
+	/**
+	 * Constructs a new ValidationException with the specified detail message.
+	 *
+	 * @param message            the detail message.
+	 * @param writableStackTrace whether the stack trace should be captured.
+	 */
+	public ValidationException(String message, boolean writableStackTrace) {
+		super(message, writableStackTrace);
+	}
+}
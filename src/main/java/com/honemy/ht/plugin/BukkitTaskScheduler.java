@@ -0,0 +1,151 @@
+package com.honemy.ht.plugin;
+
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Task scheduler for classic servers, running everything but async tasks on the main thread.
+ */
+final class BukkitTaskScheduler implements TaskScheduler {
+
+	/**
+	 * The plugin owning the tasks.
+	 */
+	private final Plugin plugin;
+
+	/**
+	 * Creates a new scheduler for the given plugin.
+	 *
+	 * @param plugin the plugin owning the tasks.
+	 */
+	BukkitTaskScheduler(Plugin plugin) {
+		this.plugin = plugin;
+	}
+
+	@Override
+	public Task runGlobal(@NonNull Runnable task) {
+		return wrap(Bukkit.getScheduler().runTask(this.plugin, task));
+	}
+
+	@Override
+	public Task runGlobalLater(@NonNull Runnable task, long delay) {
+		return wrap(Bukkit.getScheduler().runTaskLater(this.plugin, task, delay));
+	}
+
+	@Override
+	public Task runGlobalTimer(@NonNull Runnable task, long delay, long period) {
+		return wrap(Bukkit.getScheduler().runTaskTimer(this.plugin, task, delay, period));
+	}
+
+	@Override
+	public Task runAt(@NonNull Location location, @NonNull Runnable task) {
+		return this.runGlobal(task);
+	}
+
+	@Override
+	public Task runAtLater(@NonNull Location location, @NonNull Runnable task, long delay) {
+		return this.runGlobalLater(task, delay);
+	}
+
+	@Override
+	public Task runAtTimer(@NonNull Location location, @NonNull Runnable task, long delay, long period) {
+		return this.runGlobalTimer(task, delay, period);
+	}
+
+	@Override
+	public Task runAtChunk(@NonNull World world, int chunkX, int chunkZ, @NonNull Runnable task) {
+		return this.runGlobal(task);
+	}
+
+	@Override
+	public Task runFor(@NonNull Entity entity, @NonNull Runnable task, Runnable retired) {
+		return this.runForLater(entity, task, retired, 0);
+	}
+
+	@Override
+	public Task runForLater(@NonNull Entity entity, @NonNull Runnable task, Runnable retired, long delay) {
+		if (!entity.isValid())
+			return null;
+
+		return this.runGlobalLater(() -> {
+			if (entity.isValid())
+				task.run();
+
+			else if (retired != null)
+				retired.run();
+		}, delay);
+	}
+
+	@Override
+	public Task runForTimer(@NonNull Entity entity, @NonNull Runnable task, Runnable retired, long delay, long period) {
+		if (!entity.isValid())
+			return null;
+
+		final BukkitTask[] handle = new BukkitTask[1];
+
+		handle[0] = Bukkit.getScheduler().runTaskTimer(this.plugin, () -> {
+			if (entity.isValid()) {
+				task.run();
+
+				return;
+			}
+
+			handle[0].cancel();
+
+			if (retired != null)
+				retired.run();
+		}, delay, period);
+
+		return wrap(handle[0]);
+	}
+
+	@Override
+	public Task runAsync(@NonNull Runnable task) {
+		return wrap(Bukkit.getScheduler().runTaskAsynchronously(this.plugin, task));
+	}
+
+	@Override
+	public Task runAsyncLater(@NonNull Runnable task, long delay) {
+		return wrap(Bukkit.getScheduler().runTaskLaterAsynchronously(this.plugin, task, delay));
+	}
+
+	@Override
+	public boolean isOwnedByCurrentThread(@NonNull Location location) {
+		return Bukkit.isPrimaryThread();
+	}
+
+	@Override
+	public boolean isOwnedByCurrentThread(@NonNull Entity entity) {
+		return Bukkit.isPrimaryThread();
+	}
+
+	@Override
+	public void cancelAll() {
+		Bukkit.getScheduler().cancelTasks(this.plugin);
+	}
+
+	/**
+	 * Wraps a Bukkit task into a task handle.
+	 *
+	 * @param task the Bukkit task.
+	 * @return the task handle.
+	 */
+	private static Task wrap(BukkitTask task) {
+		return new Task() {
+			@Override
+			public void cancel() {
+				task.cancel();
+			}
+
+			@Override
+			public boolean isCancelled() {
+				return task.isCancelled();
+			}
+		};
+	}
+}
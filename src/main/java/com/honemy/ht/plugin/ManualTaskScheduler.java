@@ -0,0 +1,311 @@
+package com.honemy.ht.plugin;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+import java.util.PriorityQueue;
+
+/**
+ * Task scheduler keeping its tasks in memory until {@link #tick()} is called, to test code using a
+ * {@link TaskScheduler} without a server.
+ * <p>
+ * Every task, async ones included, runs on the thread calling {@link #tick()}, in the order they are due
+ * and then in the order they were scheduled. Like on a server, a task scheduled without a delay runs on
+ * the next tick. Entity tasks run while {@link Entity#isValid()} and are retired once it is not.
+ * Errors thrown by a task are thrown by {@link #tick()}, the tasks not run yet stay queued.
+ */
+public final class ManualTaskScheduler implements TaskScheduler {
+
+	/**
+	 * The tasks not run yet, the first due first.
+	 */
+	private final PriorityQueue<ManualTask> queue = new PriorityQueue<>();
+
+	/**
+	 * The thread considered to own every location and entity.
+	 */
+	private final Thread owner;
+
+	/**
+	 * The amount of ticks run so far.
+	 */
+	@Getter
+	private volatile long currentTick;
+
+	/**
+	 * The amount of tasks scheduled so far, ordering the tasks due on the same tick.
+	 */
+	private long scheduled;
+
+	/**
+	 * Creates a new scheduler whose tasks are owned by the current thread.
+	 */
+	public ManualTaskScheduler() {
+		this(Thread.currentThread());
+	}
+
+	/**
+	 * Creates a new scheduler whose tasks are owned by the given thread.
+	 *
+	 * @param owner the thread considered to own every location and entity.
+	 */
+	public ManualTaskScheduler(@NonNull Thread owner) {
+		this.owner = owner;
+	}
+
+	/**
+	 * Runs one tick, running the tasks due.
+	 */
+	public void tick() {
+		this.tick(1);
+	}
+
+	/**
+	 * Runs the given amount of ticks, running the tasks due on each.
+	 *
+	 * @param ticks the amount of ticks.
+	 */
+	public void tick(long ticks) {
+		for (long i = 0; i < ticks; i++) {
+			final long tick;
+
+			synchronized (this) {
+				tick = ++this.currentTick;
+			}
+
+			ManualTask task;
+
+			while ((task = this.pollDue(tick)) != null)
+				task.runnable.run();
+		}
+	}
+
+	/**
+	 * Returns the amount of tasks waiting to run, repeating ones included.
+	 *
+	 * @return the amount of pending tasks.
+	 */
+	public synchronized int getPendingTasks() {
+		return this.queue.size();
+	}
+
+	@Override
+	public Task runGlobal(@NonNull Runnable task) {
+		return this.schedule(task, 0, 0);
+	}
+
+	@Override
+	public Task runGlobalLater(@NonNull Runnable task, long delay) {
+		return this.schedule(task, delay, 0);
+	}
+
+	@Override
+	public Task runGlobalTimer(@NonNull Runnable task, long delay, long period) {
+		return this.schedule(task, delay, Math.max(period, 1));
+	}
+
+	@Override
+	public Task runAt(@NonNull Location location, @NonNull Runnable task) {
+		return this.runGlobal(task);
+	}
+
+	@Override
+	public Task runAtLater(@NonNull Location location, @NonNull Runnable task, long delay) {
+		return this.runGlobalLater(task, delay);
+	}
+
+	@Override
+	public Task runAtTimer(@NonNull Location location, @NonNull Runnable task, long delay, long period) {
+		return this.runGlobalTimer(task, delay, period);
+	}
+
+	@Override
+	public Task runAtChunk(@NonNull World world, int chunkX, int chunkZ, @NonNull Runnable task) {
+		return this.runGlobal(task);
+	}
+
+	@Override
+	public Task runFor(@NonNull Entity entity, @NonNull Runnable task, Runnable retired) {
+		return this.runForLater(entity, task, retired, 0);
+	}
+
+	@Override
+	public Task runForLater(@NonNull Entity entity, @NonNull Runnable task, Runnable retired, long delay) {
+		return this.scheduleFor(entity, task, retired, delay, 0);
+	}
+
+	@Override
+	public Task runForTimer(@NonNull Entity entity, @NonNull Runnable task, Runnable retired, long delay, long period) {
+		return this.scheduleFor(entity, task, retired, delay, Math.max(period, 1));
+	}
+
+	@Override
+	public Task runAsync(@NonNull Runnable task) {
+		return this.runGlobal(task);
+	}
+
+	@Override
+	public Task runAsyncLater(@NonNull Runnable task, long delay) {
+		return this.runGlobalLater(task, delay);
+	}
+
+	@Override
+	public boolean isOwnedByCurrentThread(@NonNull Location location) {
+		return Thread.currentThread() == this.owner;
+	}
+
+	@Override
+	public boolean isOwnedByCurrentThread(@NonNull Entity entity) {
+		return Thread.currentThread() == this.owner;
+	}
+
+	@Override
+	public synchronized void cancelAll() {
+		for (final ManualTask task : this.queue)
+			task.cancelled = true;
+
+		this.queue.clear();
+	}
+
+	/**
+	 * Queues an entity task, running while the entity is valid and retired once it is not.
+	 *
+	 * @param entity  the entity.
+	 * @param task    the task to run.
+	 * @param retired the callback if the entity was removed, may be null.
+	 * @param delay   the delay in ticks.
+	 * @param period  the period in ticks, 0 to run once.
+	 * @return the queued task, or null if the entity is already removed.
+	 */
+	private ManualTask scheduleFor(Entity entity, Runnable task, Runnable retired, long delay, long period) {
+		if (!entity.isValid())
+			return null;
+
+		final ManualTask[] handle = new ManualTask[1];
+
+		handle[0] = this.schedule(() -> {
+			if (entity.isValid()) {
+				task.run();
+
+				return;
+			}
+
+			handle[0].cancel();
+
+			if (retired != null)
+				retired.run();
+		}, delay, period);
+
+		return handle[0];
+	}
+
+	/**
+	 * Queues a task.
+	 *
+	 * @param runnable the task to run.
+	 * @param delay    the delay in ticks, raised to one.
+	 * @param period   the period in ticks, 0 to run once.
+	 * @return the queued task.
+	 */
+	private synchronized ManualTask schedule(Runnable runnable, long delay, long period) {
+		final ManualTask task = new ManualTask(runnable, this.currentTick + Math.max(delay, 1), period, this.scheduled++);
+
+		this.queue.add(task);
+
+		return task;
+	}
+
+	/**
+	 * Removes the next task due on the given tick, queuing it again for its next run if it repeats.
+	 *
+	 * @param tick the tick.
+	 * @return the task, or null if none is due.
+	 */
+	private synchronized ManualTask pollDue(long tick) {
+		final ManualTask task = this.queue.peek();
+
+		if (task == null || task.dueTick > tick)
+			return null;
+
+		this.queue.poll();
+
+		// Queued again before running, so an error thrown by it does not stop it, like on a server
+		if (task.period > 0) {
+			task.dueTick = tick + task.period;
+			task.order = this.scheduled++;
+
+			this.queue.add(task);
+		}
+
+		return task;
+	}
+
+	/**
+	 * A task waiting in the queue.
+	 */
+	private final class ManualTask implements Task, Comparable<ManualTask> {
+
+		/**
+		 * The task to run.
+		 */
+		private final Runnable runnable;
+
+		/**
+		 * The period in ticks, 0 to run once.
+		 */
+		private final long period;
+
+		/**
+		 * The tick the task runs on next.
+		 */
+		private long dueTick;
+
+		/**
+		 * The order of the task among the tasks due on the same tick.
+		 */
+		private long order;
+
+		/**
+		 * Whether the task was cancelled.
+		 */
+		private volatile boolean cancelled;
+
+		/**
+		 * Creates a new task.
+		 *
+		 * @param runnable the task to run.
+		 * @param dueTick  the tick the task runs on.
+		 * @param period   the period in ticks, 0 to run once.
+		 * @param order    the order of the task among the tasks due on the same tick.
+		 */
+		private ManualTask(Runnable runnable, long dueTick, long period, long order) {
+			this.runnable = runnable;
+			this.dueTick = dueTick;
+			this.period = period;
+			this.order = order;
+		}
+
+		@Override
+		public void cancel() {
+			synchronized (ManualTaskScheduler.this) {
+				this.cancelled = true;
+				ManualTaskScheduler.this.queue.remove(this);
+			}
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return this.cancelled;
+		}
+
+		@Override
+		public int compareTo(ManualTask other) {
+			final int byTick = Long.compare(this.dueTick, other.dueTick);
+
+			return byTick != 0 ? byTick : Long.compare(this.order, other.order);
+		}
+	}
+}
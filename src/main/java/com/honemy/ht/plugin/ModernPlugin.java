@@ -1,9 +1,15 @@
 package com.honemy.ht.plugin;
 
+import com.honemy.ht.FileUtil;
 import com.honemy.ht.MinecraftVersion;
 import com.honemy.ht.MinecraftVersion.V;
+import com.honemy.ht.TimeUtil;
 import com.honemy.ht.command.ModernCommand;
+import com.honemy.ht.config.ConfigCache;
+import com.honemy.ht.debug.EnvironmentSnapshot;
 import com.honemy.ht.debug.ModernDebug;
+import com.honemy.ht.debug.StallWatchdog;
+import com.honemy.ht.event.EventBus;
 import com.honemy.ht.logger.ModernLogger;
 import lombok.Getter;
 import org.bukkit.Bukkit;
@@ -11,6 +17,9 @@ import org.bukkit.event.Listener;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 /**
@@ -42,6 +51,49 @@ public abstract class ModernPlugin extends JavaPlugin implements Listener {
 	@Getter
 	private static File data;
 
+	/**
+	 * The scheduler running tasks on the right thread for the server's threading model,
+	 * created by {@link #createTaskScheduler()}.
+	 */
+	@Getter
+	private final TaskScheduler taskScheduler = this.createTaskScheduler();
+
+	/**
+	 * The scheduler running budgeted work on the main thread every tick.
+	 */
+	@Getter
+	private final TickScheduler tickScheduler = new TickScheduler();
+
+	/**
+	 * The thread pools of the plugin, shut down when it is disabled.
+	 */
+	@Getter
+	private final PluginExecutors executors = new PluginExecutors(this);
+
+	/**
+	 * The event bus registering handlers with generated invokers and filters.
+	 */
+	@Getter
+	private final EventBus eventBus = new EventBus(this);
+
+	/**
+	 * The configuration files loaded from the data folder, reloaded when they change on disk.
+	 */
+	@Getter
+	private final ConfigCache configs = new ConfigCache(this);
+
+	/**
+	 * The watchdog sampling the main thread during long ticks, started with {@link StallWatchdog#start()}.
+	 */
+	@Getter
+	private final StallWatchdog stallWatchdog = new StallWatchdog(this);
+
+	/**
+	 * The time spent in each startup task declared in {@link #onPluginStartup(StartupPlan)}, by start time.
+	 */
+	@Getter
+	private List<StartupPlan.Timing> startupTimings = Collections.emptyList();
+
 	/**
 	 * Returns the instance of the plugin.
 	 * If the instance is null, it tries to get the plugin instance.
@@ -102,7 +154,17 @@ public abstract class ModernPlugin extends JavaPlugin implements Listener {
 	 */
 	@Override
 	public final void onEnable() {
+		TimeUtil.startClock(this.taskScheduler);
+		this.tickScheduler.start(this.taskScheduler);
+		EnvironmentSnapshot.listen(this.eventBus);
+
 		try {
+			final StartupPlan plan = new StartupPlan(this);
+
+			this.onPluginStartup(plan);
+			plan.execute();
+
+			this.startupTimings = plan.getTimings();
 			this.onPluginStart();
 		} catch (Throwable t) {
 			ModernDebug.printStackTrace(t);
@@ -114,7 +176,44 @@ public abstract class ModernPlugin extends JavaPlugin implements Listener {
 	 */
 	@Override
 	public final void onDisable() {
-		this.onPluginStop();
+		try {
+			this.onPluginStop();
+		} catch (Throwable t) {
+			ModernDebug.printStackTrace(t);
+		} finally {
+			// Each step runs even if a previous one failed, so no thread or queued save outlives a reload
+			stopSafely(this.stallWatchdog::stop);
+			stopSafely(this.configs::stop);
+			stopSafely(this.tickScheduler::stop);
+			stopSafely(this.executors::shutdown);
+			stopSafely(() -> FileUtil.flushSaves(this.executors.getShutdownTimeoutMillis(), TimeUnit.MILLISECONDS));
+			stopSafely(TimeUtil::stopClock);
+			stopSafely(this.taskScheduler::cancelAll);
+		}
+	}
+
+	/**
+	 * Creates the scheduler of the plugin, once while the plugin is constructed.
+	 * Override it to run the tasks elsewhere, such as on a {@link ManualTaskScheduler} in tests.
+	 * It runs before the fields of subclasses are set, so it must not read them.
+	 *
+	 * @return the scheduler.
+	 */
+	protected TaskScheduler createTaskScheduler() {
+		return TaskScheduler.create(this);
+	}
+
+	/**
+	 * Runs a teardown step, printing its error instead of throwing it so the next steps still run.
+	 *
+	 * @param step the step.
+	 */
+	private static void stopSafely(Runnable step) {
+		try {
+			step.run();
+		} catch (Throwable t) {
+			ModernDebug.printStackTrace(t);
+		}
 	}
 
 	/**
@@ -143,6 +242,17 @@ public abstract class ModernPlugin extends JavaPlugin implements Listener {
 		// Can be overridden by subclasses
 	}
 
+	/**
+	 * Called when the plugin is enabled, before {@link #onPluginStart()}, to declare startup tasks.
+	 * Independent tasks run in parallel, and the time spent in each is logged once they all finished.
+	 * Can be overridden by subclasses to provide specific behavior.
+	 *
+	 * @param plan the plan to declare the tasks in.
+	 */
+	protected void onPluginStartup(StartupPlan plan) {
+		// Can be overridden by subclasses
+	}
+
 	/**
 	 * Called when the plugin is started.
 	 * Must be overridden by subclasses to provide specific behavior.
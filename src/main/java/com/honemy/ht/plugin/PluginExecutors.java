@@ -0,0 +1,390 @@
+package com.honemy.ht.plugin;
+
+import com.honemy.ht.Common;
+import com.honemy.ht.Valid;
+import com.honemy.ht.logger.ModernLogger;
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Managed thread pools owned by a plugin and shut down together with it.
+ * <ul>
+ *     <li>The CPU pool is bounded to the amount of cores, with a bounded queue, for computations.</li>
+ *     <li>The I/O pool runs on virtual threads when the runtime supports them, or on a growing pool otherwise.</li>
+ *     <li>The scheduled pool runs delayed and repeating tasks.</li>
+ * </ul>
+ * Threads are named after the plugin and pool. Errors thrown by tasks passed to {@code execute} and by
+ * repeating tasks are reported to {@link Common#error(Throwable, String...)}, tasks passed to
+ * {@code submit} report their errors through the returned future.
+ */
+public final class PluginExecutors {
+
+	/**
+	 * The capacity of the CPU pool queue, submitting past it is rejected.
+	 */
+	private static final int CPU_QUEUE_CAPACITY = 4096;
+
+	/**
+	 * The maximum amount of platform threads in the I/O pool, when virtual threads are not available.
+	 */
+	private static final int IO_THREADS = 32;
+
+	/**
+	 * The amount of threads in the scheduled pool.
+	 */
+	private static final int SCHEDULED_THREADS = 2;
+
+	/**
+	 * The plugin owning the pools.
+	 */
+	private final Plugin plugin;
+
+	/**
+	 * The pool for CPU bound work.
+	 */
+	@Getter
+	private final ManagedExecutor cpu;
+
+	/**
+	 * The pool for blocking I/O work.
+	 */
+	@Getter
+	private final ManagedExecutor io;
+
+	/**
+	 * The pool for delayed and repeating work.
+	 */
+	@Getter
+	private final ScheduledExecutorService scheduled;
+
+	/**
+	 * Whether the I/O pool runs on virtual threads.
+	 */
+	@Getter
+	private final boolean virtualThreads;
+
+	/**
+	 * How long to wait for running tasks when shutting down, in milliseconds.
+	 */
+	@Getter
+	private volatile long shutdownTimeoutMillis = 5000;
+
+	/**
+	 * Creates the pools for the given plugin. Threads are only started once work is submitted.
+	 *
+	 * @param plugin the plugin owning the pools.
+	 */
+	public PluginExecutors(@NonNull Plugin plugin) {
+		this.plugin = plugin;
+
+		final int cores = Runtime.getRuntime().availableProcessors();
+		final ThreadPoolExecutor cpuPool = new ThreadPoolExecutor(cores, cores, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(CPU_QUEUE_CAPACITY), this.newThreadFactory("cpu"));
+
+		cpuPool.allowCoreThreadTimeOut(true);
+		this.cpu = new ManagedExecutor("cpu", cpuPool);
+
+		ExecutorService ioPool = this.newVirtualThreadExecutor();
+		this.virtualThreads = ioPool != null;
+
+		if (ioPool == null) {
+			final ThreadPoolExecutor platformPool = new ThreadPoolExecutor(IO_THREADS, IO_THREADS, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), this.newThreadFactory("io"));
+
+			platformPool.allowCoreThreadTimeOut(true);
+			ioPool = platformPool;
+		}
+
+		this.io = new ManagedExecutor("io", ioPool);
+
+		final ScheduledThreadPoolExecutor scheduledPool = new ReportingScheduledExecutor(SCHEDULED_THREADS, this.newThreadFactory("scheduled"));
+
+		scheduledPool.setRemoveOnCancelPolicy(true);
+		this.scheduled = scheduledPool;
+	}
+
+	/**
+	 * Sets how long to wait for running tasks when shutting down.
+	 *
+	 * @param timeout the timeout.
+	 * @param unit    the unit of the timeout.
+	 */
+	public void setShutdownTimeout(long timeout, @NonNull TimeUnit unit) {
+		Valid.checkBoolean(timeout >= 0, "Shutdown timeout cannot be negative, got: %s", timeout);
+
+		this.shutdownTimeoutMillis = unit.toMillis(timeout);
+	}
+
+	/**
+	 * Shuts down all pools, waiting up to the shutdown timeout for running tasks to finish.
+	 * Tasks still running after that are interrupted.
+	 */
+	void shutdown() {
+		final ExecutorService[] pools = {this.scheduled, this.cpu, this.io};
+
+		for (ExecutorService pool : pools)
+			pool.shutdown();
+
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.shutdownTimeoutMillis);
+
+		for (ExecutorService pool : pools) {
+			try {
+				final long remaining = deadline - System.nanoTime();
+
+				if (remaining > 0 && pool.awaitTermination(remaining, TimeUnit.NANOSECONDS))
+					continue;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			final List<Runnable> dropped = pool.shutdownNow();
+
+			ModernLogger.log(Level.WARNING, "Forced executor shutdown after " + this.shutdownTimeoutMillis + " ms, " + dropped.size() + " queued tasks were dropped.");
+		}
+	}
+
+	/**
+	 * Creates a factory for named platform threads reporting uncaught errors.
+	 *
+	 * @param pool the name of the pool.
+	 * @return the thread factory.
+	 */
+	private ThreadFactory newThreadFactory(String pool) {
+		final AtomicInteger counter = new AtomicInteger();
+
+		return runnable -> {
+			final Thread thread = new Thread(runnable, this.plugin.getName() + "-" + pool + "-" + counter.incrementAndGet());
+
+			thread.setDaemon(true);
+			thread.setUncaughtExceptionHandler(PluginExecutors::reportUncaught);
+
+			return thread;
+		};
+	}
+
+	/**
+	 * Creates an executor starting a new virtual thread per task, if the runtime supports it.
+	 * Uses reflection since HTools is compiled against Java 8.
+	 *
+	 * @return the executor, or null if virtual threads are not available.
+	 */
+	private ExecutorService newVirtualThreadExecutor() {
+		try {
+			final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, this.plugin.getName() + "-io-", 1L);
+			builder = builderClass.getMethod("uncaughtExceptionHandler", Thread.UncaughtExceptionHandler.class).invoke(builder, (Thread.UncaughtExceptionHandler) PluginExecutors::reportUncaught);
+
+			final ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+			final Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+
+			return (ExecutorService) newExecutor.invoke(null, factory);
+		} catch (ReflectiveOperationException | UnsupportedOperationException | LinkageError e) {
+			// Older runtime, or virtual threads are a preview feature that is not enabled
+			return null;
+		}
+	}
+
+	/**
+	 * Reports an error that escaped a pool thread.
+	 *
+	 * @param thread the thread the error was thrown on.
+	 * @param thrown the error.
+	 */
+	private static void reportUncaught(Thread thread, Throwable thrown) {
+		Common.error(thrown, "Uncaught error in thread " + thread.getName());
+	}
+
+	/**
+	 * An executor service that counts its tasks and reports their errors.
+	 */
+	public static final class ManagedExecutor extends AbstractExecutorService {
+
+		/**
+		 * The name of the pool.
+		 */
+		@Getter
+		private final String name;
+
+		/**
+		 * The executor running the tasks.
+		 */
+		private final ExecutorService delegate;
+
+		/**
+		 * The amount of tasks currently running.
+		 */
+		private final AtomicInteger active = new AtomicInteger();
+
+		/**
+		 * The amount of tasks that finished, successfully or not.
+		 */
+		private final AtomicLong completed = new AtomicLong();
+
+		/**
+		 * The amount of tasks that threw an error.
+		 */
+		private final AtomicLong failed = new AtomicLong();
+
+		/**
+		 * The amount of tasks that were rejected because the pool was saturated or shut down.
+		 */
+		private final AtomicLong rejected = new AtomicLong();
+
+		private ManagedExecutor(String name, ExecutorService delegate) {
+			this.name = name;
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void execute(@NonNull Runnable command) {
+			try {
+				this.delegate.execute(() -> this.run(command));
+			} catch (RejectedExecutionException e) {
+				this.rejected.incrementAndGet();
+
+				throw e;
+			}
+		}
+
+		/**
+		 * Runs the task, updating the counters and reporting errors.
+		 *
+		 * @param command the task to run.
+		 */
+		private void run(Runnable command) {
+			this.active.incrementAndGet();
+
+			try {
+				command.run();
+			} catch (Throwable t) {
+				this.failed.incrementAndGet();
+
+				Common.error(t, "An error occurred in a task on the " + this.name + " executor");
+			} finally {
+				this.active.decrementAndGet();
+				this.completed.incrementAndGet();
+			}
+		}
+
+		/**
+		 * Returns the amount of tasks currently running.
+		 *
+		 * @return the amount of active tasks.
+		 */
+		public int getActiveCount() {
+			return this.active.get();
+		}
+
+		/**
+		 * Returns the amount of tasks waiting to run.
+		 *
+		 * @return the queue size, always 0 for pools without a queue.
+		 */
+		public int getQueueSize() {
+			return this.delegate instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) this.delegate).getQueue().size() : 0;
+		}
+
+		/**
+		 * Returns the remaining capacity of the queue, used to tell how close the pool is to saturation.
+		 *
+		 * @return the remaining queue capacity, or {@link Integer#MAX_VALUE} if unbounded.
+		 */
+		public int getRemainingCapacity() {
+			return this.delegate instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) this.delegate).getQueue().remainingCapacity() : Integer.MAX_VALUE;
+		}
+
+		/**
+		 * Returns the amount of tasks that finished, successfully or not.
+		 *
+		 * @return the amount of completed tasks.
+		 */
+		public long getCompletedCount() {
+			return this.completed.get();
+		}
+
+		/**
+		 * Returns the amount of tasks that threw an error.
+		 *
+		 * @return the amount of failed tasks.
+		 */
+		public long getFailedCount() {
+			return this.failed.get();
+		}
+
+		/**
+		 * Returns the amount of tasks rejected because the pool was saturated or shut down.
+		 *
+		 * @return the amount of rejected tasks.
+		 */
+		public long getRejectedCount() {
+			return this.rejected.get();
+		}
+
+		@Override
+		public void shutdown() {
+			this.delegate.shutdown();
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return this.delegate.shutdownNow();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return this.delegate.isShutdown();
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return this.delegate.isTerminated();
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+			return this.delegate.awaitTermination(timeout, unit);
+		}
+	}
+
+	/**
+	 * A scheduled executor that reports errors killing repeating tasks, which would otherwise stop silently.
+	 */
+	private static final class ReportingScheduledExecutor extends ScheduledThreadPoolExecutor {
+
+		private ReportingScheduledExecutor(int threads, ThreadFactory factory) {
+			super(threads, factory);
+		}
+
+		@Override
+		protected void afterExecute(Runnable runnable, Throwable thrown) {
+			super.afterExecute(runnable, thrown);
+
+			if (!(runnable instanceof RunnableScheduledFuture))
+				return;
+
+			final RunnableScheduledFuture<?> future = (RunnableScheduledFuture<?>) runnable;
+
+			if (!future.isPeriodic() || !future.isDone() || future.isCancelled())
+				return;
+
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				Common.error(e.getCause(), "A repeating task on the scheduled executor failed and was stopped");
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (CancellationException ignored) {
+			}
+		}
+	}
+}
@@ -0,0 +1,480 @@
+package com.honemy.ht.plugin;
+
+import com.honemy.ht.TimeUtil;
+import com.honemy.ht.exception.HtException;
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Task scheduler for regionized servers (Folia), routing tasks to the global, region, entity and async schedulers.
+ * The schedulers are not part of the Spigot API, so they are resolved by reflection once on creation.
+ */
+final class RegionizedTaskScheduler implements TaskScheduler {
+
+	/**
+	 * The package holding the regionized scheduler API.
+	 */
+	private static final String SCHEDULER_PACKAGE = "io.papermc.paper.threadedregions.scheduler.";
+
+	/**
+	 * The plugin owning the tasks.
+	 */
+	private final Plugin plugin;
+
+	/**
+	 * The global region scheduler.
+	 */
+	private final Object globalScheduler;
+
+	/**
+	 * The resolved {@code GlobalRegionScheduler#run(Plugin, Consumer)} method.
+	 */
+	private final Method globalRun;
+
+	/**
+	 * The resolved {@code GlobalRegionScheduler#runDelayed(Plugin, Consumer, long)} method.
+	 */
+	private final Method globalRunDelayed;
+
+	/**
+	 * The resolved {@code GlobalRegionScheduler#runAtFixedRate(Plugin, Consumer, long, long)} method.
+	 */
+	private final Method globalRunAtFixedRate;
+
+	/**
+	 * The resolved {@code GlobalRegionScheduler#cancelTasks(Plugin)} method.
+	 */
+	private final Method globalCancelTasks;
+
+	/**
+	 * The region scheduler.
+	 */
+	private final Object regionScheduler;
+
+	/**
+	 * The resolved {@code RegionScheduler#run(Plugin, Location, Consumer)} method.
+	 */
+	private final Method regionRun;
+
+	/**
+	 * The resolved {@code RegionScheduler#runDelayed(Plugin, Location, Consumer, long)} method.
+	 */
+	private final Method regionRunDelayed;
+
+	/**
+	 * The resolved {@code RegionScheduler#runAtFixedRate(Plugin, Location, Consumer, long, long)} method.
+	 */
+	private final Method regionRunAtFixedRate;
+
+	/**
+	 * The resolved {@code RegionScheduler#run(Plugin, World, int, int, Consumer)} method.
+	 */
+	private final Method regionRunAtChunk;
+
+	/**
+	 * The resolved {@code Entity#getScheduler()} method.
+	 */
+	private final Method entityGetScheduler;
+
+	/**
+	 * The resolved {@code EntityScheduler#run(Plugin, Consumer, Runnable)} method.
+	 */
+	private final Method entityRun;
+
+	/**
+	 * The resolved {@code EntityScheduler#runDelayed(Plugin, Consumer, Runnable, long)} method.
+	 */
+	private final Method entityRunDelayed;
+
+	/**
+	 * The resolved {@code EntityScheduler#runAtFixedRate(Plugin, Consumer, Runnable, long, long)} method.
+	 */
+	private final Method entityRunAtFixedRate;
+
+	/**
+	 * The async scheduler.
+	 */
+	private final Object asyncScheduler;
+
+	/**
+	 * The resolved {@code AsyncScheduler#runNow(Plugin, Consumer)} method.
+	 */
+	private final Method asyncRunNow;
+
+	/**
+	 * The resolved {@code AsyncScheduler#runDelayed(Plugin, Consumer, long, TimeUnit)} method.
+	 */
+	private final Method asyncRunDelayed;
+
+	/**
+	 * The resolved {@code AsyncScheduler#cancelTasks(Plugin)} method.
+	 */
+	private final Method asyncCancelTasks;
+
+	/**
+	 * The resolved {@code Bukkit#isOwnedByCurrentRegion(Location)} method.
+	 */
+	private final Method ownsLocation;
+
+	/**
+	 * The resolved {@code Bukkit#isOwnedByCurrentRegion(Entity)} method.
+	 */
+	private final Method ownsEntity;
+
+	/**
+	 * The resolved {@code ScheduledTask#cancel()} method.
+	 */
+	private final Method taskCancel;
+
+	/**
+	 * The resolved {@code ScheduledTask#isCancelled()} method.
+	 */
+	private final Method taskIsCancelled;
+
+	/**
+	 * The region and entity tasks not finished yet. Unlike the global and async schedulers,
+	 * the region and entity schedulers cannot cancel the tasks of a plugin, so they are cancelled one by one.
+	 */
+	private final Set<TrackedTask> trackedTasks = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Creates a new scheduler for the given plugin, resolving the regionized scheduler API.
+	 *
+	 * @param plugin the plugin owning the tasks.
+	 * @throws HtException if the regionized scheduler API is not available.
+	 */
+	RegionizedTaskScheduler(Plugin plugin) {
+		this.plugin = plugin;
+
+		try {
+			final Class<?> globalClass = Class.forName(SCHEDULER_PACKAGE + "GlobalRegionScheduler");
+			final Class<?> regionClass = Class.forName(SCHEDULER_PACKAGE + "RegionScheduler");
+			final Class<?> entityClass = Class.forName(SCHEDULER_PACKAGE + "EntityScheduler");
+			final Class<?> asyncClass = Class.forName(SCHEDULER_PACKAGE + "AsyncScheduler");
+			final Class<?> taskClass = Class.forName(SCHEDULER_PACKAGE + "ScheduledTask");
+
+			this.globalScheduler = Bukkit.class.getMethod("getGlobalRegionScheduler").invoke(null);
+			this.globalRun = globalClass.getMethod("run", Plugin.class, Consumer.class);
+			this.globalRunDelayed = globalClass.getMethod("runDelayed", Plugin.class, Consumer.class, long.class);
+			this.globalRunAtFixedRate = globalClass.getMethod("runAtFixedRate", Plugin.class, Consumer.class, long.class, long.class);
+			this.globalCancelTasks = globalClass.getMethod("cancelTasks", Plugin.class);
+
+			this.regionScheduler = Bukkit.class.getMethod("getRegionScheduler").invoke(null);
+			this.regionRun = regionClass.getMethod("run", Plugin.class, Location.class, Consumer.class);
+			this.regionRunDelayed = regionClass.getMethod("runDelayed", Plugin.class, Location.class, Consumer.class, long.class);
+			this.regionRunAtFixedRate = regionClass.getMethod("runAtFixedRate", Plugin.class, Location.class, Consumer.class, long.class, long.class);
+			this.regionRunAtChunk = regionClass.getMethod("run", Plugin.class, World.class, int.class, int.class, Consumer.class);
+
+			this.entityGetScheduler = Entity.class.getMethod("getScheduler");
+			this.entityRun = entityClass.getMethod("run", Plugin.class, Consumer.class, Runnable.class);
+			this.entityRunDelayed = entityClass.getMethod("runDelayed", Plugin.class, Consumer.class, Runnable.class, long.class);
+			this.entityRunAtFixedRate = entityClass.getMethod("runAtFixedRate", Plugin.class, Consumer.class, Runnable.class, long.class, long.class);
+
+			this.asyncScheduler = Bukkit.class.getMethod("getAsyncScheduler").invoke(null);
+			this.asyncRunNow = asyncClass.getMethod("runNow", Plugin.class, Consumer.class);
+			this.asyncRunDelayed = asyncClass.getMethod("runDelayed", Plugin.class, Consumer.class, long.class, TimeUnit.class);
+			this.asyncCancelTasks = asyncClass.getMethod("cancelTasks", Plugin.class);
+
+			this.ownsLocation = Bukkit.class.getMethod("isOwnedByCurrentRegion", Location.class);
+			this.ownsEntity = Bukkit.class.getMethod("isOwnedByCurrentRegion", Entity.class);
+
+			this.taskCancel = taskClass.getMethod("cancel");
+			this.taskIsCancelled = taskClass.getMethod("isCancelled");
+		} catch (ReflectiveOperationException e) {
+			throw new HtException(e, "Failed to resolve the regionized scheduler API");
+		}
+	}
+
+	@Override
+	public Task runGlobal(@NonNull Runnable task) {
+		return this.wrap(this.invoke(this.globalRun, this.globalScheduler, this.plugin, consumer(task)));
+	}
+
+	@Override
+	public Task runGlobalLater(@NonNull Runnable task, long delay) {
+		// Regionized schedulers reject delays below one tick
+		if (delay < 1)
+			return this.runGlobal(task);
+
+		return this.wrap(this.invoke(this.globalRunDelayed, this.globalScheduler, this.plugin, consumer(task), delay));
+	}
+
+	@Override
+	public Task runGlobalTimer(@NonNull Runnable task, long delay, long period) {
+		return this.wrap(this.invoke(this.globalRunAtFixedRate, this.globalScheduler, this.plugin, consumer(task), Math.max(delay, 1), Math.max(period, 1)));
+	}
+
+	@Override
+	public Task runAt(@NonNull Location location, @NonNull Runnable task) {
+		return this.track(task, false, tracked -> this.invoke(this.regionRun, this.regionScheduler, this.plugin, location, tracked.consumer()));
+	}
+
+	@Override
+	public Task runAtLater(@NonNull Location location, @NonNull Runnable task, long delay) {
+		if (delay < 1)
+			return this.runAt(location, task);
+
+		return this.track(task, false, tracked -> this.invoke(this.regionRunDelayed, this.regionScheduler, this.plugin, location, tracked.consumer(), delay));
+	}
+
+	@Override
+	public Task runAtTimer(@NonNull Location location, @NonNull Runnable task, long delay, long period) {
+		return this.track(task, true, tracked -> this.invoke(this.regionRunAtFixedRate, this.regionScheduler, this.plugin, location, tracked.consumer(), Math.max(delay, 1), Math.max(period, 1)));
+	}
+
+	@Override
+	public Task runAtChunk(@NonNull World world, int chunkX, int chunkZ, @NonNull Runnable task) {
+		return this.track(task, false, tracked -> this.invoke(this.regionRunAtChunk, this.regionScheduler, this.plugin, world, chunkX, chunkZ, tracked.consumer()));
+	}
+
+	@Override
+	public Task runFor(@NonNull Entity entity, @NonNull Runnable task, Runnable retired) {
+		return this.track(task, false, tracked -> this.invoke(this.entityRun, this.invoke(this.entityGetScheduler, entity), this.plugin, tracked.consumer(), tracked.retired(retired)));
+	}
+
+	@Override
+	public Task runForLater(@NonNull Entity entity, @NonNull Runnable task, Runnable retired, long delay) {
+		if (delay < 1)
+			return this.runFor(entity, task, retired);
+
+		return this.track(task, false, tracked -> this.invoke(this.entityRunDelayed, this.invoke(this.entityGetScheduler, entity), this.plugin, tracked.consumer(), tracked.retired(retired), delay));
+	}
+
+	@Override
+	public Task runForTimer(@NonNull Entity entity, @NonNull Runnable task, Runnable retired, long delay, long period) {
+		return this.track(task, true, tracked -> this.invoke(this.entityRunAtFixedRate, this.invoke(this.entityGetScheduler, entity), this.plugin, tracked.consumer(), tracked.retired(retired), Math.max(delay, 1), Math.max(period, 1)));
+	}
+
+	@Override
+	public Task runAsync(@NonNull Runnable task) {
+		return this.wrap(this.invoke(this.asyncRunNow, this.asyncScheduler, this.plugin, consumer(task)));
+	}
+
+	@Override
+	public Task runAsyncLater(@NonNull Runnable task, long delay) {
+		if (delay < 1)
+			return this.runAsync(task);
+
+		return this.wrap(this.invoke(this.asyncRunDelayed, this.asyncScheduler, this.plugin, consumer(task), TimeUtil.ticksToMillis(delay), TimeUnit.MILLISECONDS));
+	}
+
+	@Override
+	public boolean isOwnedByCurrentThread(@NonNull Location location) {
+		return (boolean) this.invoke(this.ownsLocation, null, location);
+	}
+
+	@Override
+	public boolean isOwnedByCurrentThread(@NonNull Entity entity) {
+		return (boolean) this.invoke(this.ownsEntity, null, entity);
+	}
+
+	@Override
+	public void cancelAll() {
+		for (final TrackedTask tracked : this.trackedTasks)
+			tracked.cancel();
+
+		this.invoke(this.globalCancelTasks, this.globalScheduler, this.plugin);
+		this.invoke(this.asyncCancelTasks, this.asyncScheduler, this.plugin);
+	}
+
+	/**
+	 * Schedules a region or entity task, keeping track of it until it finished.
+	 *
+	 * @param task       the task to run.
+	 * @param repeating  whether the task runs until cancelled.
+	 * @param scheduling the call scheduling the task, given its tracked task.
+	 * @return the task handle, or null if the entity was already removed.
+	 */
+	private Task track(Runnable task, boolean repeating, Function<TrackedTask, Object> scheduling) {
+		final TrackedTask tracked = new TrackedTask(task, repeating);
+		final Object scheduledTask;
+
+		this.trackedTasks.add(tracked);
+
+		try {
+			scheduledTask = scheduling.apply(tracked);
+		} catch (Throwable t) {
+			this.trackedTasks.remove(tracked);
+
+			throw t;
+		}
+
+		if (scheduledTask == null) {
+			this.trackedTasks.remove(tracked);
+
+			return null;
+		}
+
+		tracked.scheduledTask = scheduledTask;
+
+		// cancelAll may have run before the scheduled task was known
+		if (tracked.cancelled)
+			this.invoke(this.taskCancel, scheduledTask);
+
+		return tracked;
+	}
+
+	/**
+	 * Wraps a regionized scheduled task into a task handle.
+	 *
+	 * @param scheduledTask the scheduled task, may be null if the entity was already removed.
+	 * @return the task handle, or null.
+	 */
+	private Task wrap(Object scheduledTask) {
+		if (scheduledTask == null)
+			return null;
+
+		return new Task() {
+			@Override
+			public void cancel() {
+				RegionizedTaskScheduler.this.invoke(RegionizedTaskScheduler.this.taskCancel, scheduledTask);
+			}
+
+			@Override
+			public boolean isCancelled() {
+				return (boolean) RegionizedTaskScheduler.this.invoke(RegionizedTaskScheduler.this.taskIsCancelled, scheduledTask);
+			}
+		};
+	}
+
+	/**
+	 * Invokes a resolved scheduler method, unwrapping errors thrown by it.
+	 *
+	 * @param method    the method to invoke.
+	 * @param target    the object to invoke it on, or null for static methods.
+	 * @param arguments the arguments.
+	 * @return the result of the method.
+	 */
+	private Object invoke(Method method, Object target, Object... arguments) {
+		try {
+			return method.invoke(target, arguments);
+		} catch (InvocationTargetException e) {
+			final Throwable cause = e.getCause();
+
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+
+			if (cause instanceof Error)
+				throw (Error) cause;
+
+			throw new HtException(cause, "Failed to call " + method.getName() + " on the regionized scheduler");
+		} catch (IllegalAccessException e) {
+			throw new HtException(e, "Failed to call " + method.getName() + " on the regionized scheduler");
+		}
+	}
+
+	/**
+	 * Adapts a runnable to the consumer of scheduled tasks expected by the regionized schedulers.
+	 *
+	 * @param task the task to run.
+	 * @return the consumer.
+	 */
+	private static Consumer<Object> consumer(Runnable task) {
+		return scheduledTask -> task.run();
+	}
+
+	/**
+	 * A region or entity task, forgotten once it ran, was retired or was cancelled.
+	 */
+	private final class TrackedTask implements Task {
+
+		/**
+		 * The task to run.
+		 */
+		private final Runnable task;
+
+		/**
+		 * Whether the task runs until cancelled.
+		 */
+		private final boolean repeating;
+
+		/**
+		 * The regionized scheduled task, null until scheduled.
+		 */
+		private volatile Object scheduledTask;
+
+		/**
+		 * Whether the task was cancelled.
+		 */
+		private volatile boolean cancelled;
+
+		/**
+		 * Creates a new tracked task.
+		 *
+		 * @param task      the task to run.
+		 * @param repeating whether the task runs until cancelled.
+		 */
+		private TrackedTask(Runnable task, boolean repeating) {
+			this.task = task;
+			this.repeating = repeating;
+		}
+
+		/**
+		 * Returns the consumer running the task, expected by the regionized schedulers.
+		 *
+		 * @return the consumer.
+		 */
+		private Consumer<Object> consumer() {
+			return scheduledTask -> {
+				// Cancelled before its handle was known, so it could not be cancelled then
+				if (this.cancelled) {
+					RegionizedTaskScheduler.this.invoke(RegionizedTaskScheduler.this.taskCancel, scheduledTask);
+
+					return;
+				}
+
+				try {
+					this.task.run();
+				} finally {
+					if (!this.repeating)
+						RegionizedTaskScheduler.this.trackedTasks.remove(this);
+				}
+			};
+		}
+
+		/**
+		 * Returns the callback run when the entity was removed, forgetting the task before running the given one.
+		 *
+		 * @param retired the callback if the entity was removed, may be null.
+		 * @return the callback.
+		 */
+		private Runnable retired(Runnable retired) {
+			return () -> {
+				RegionizedTaskScheduler.this.trackedTasks.remove(this);
+
+				if (retired != null)
+					retired.run();
+			};
+		}
+
+		@Override
+		public void cancel() {
+			final Object scheduledTask = this.scheduledTask;
+
+			this.cancelled = true;
+			RegionizedTaskScheduler.this.trackedTasks.remove(this);
+
+			if (scheduledTask != null)
+				RegionizedTaskScheduler.this.invoke(RegionizedTaskScheduler.this.taskCancel, scheduledTask);
+		}
+
+		@Override
+		public boolean isCancelled() {
+			final Object scheduledTask = this.scheduledTask;
+
+			return this.cancelled || scheduledTask != null && (boolean) RegionizedTaskScheduler.this.invoke(RegionizedTaskScheduler.this.taskIsCancelled, scheduledTask);
+		}
+	}
+}
@@ -0,0 +1,486 @@
+package com.honemy.ht.plugin;
+
+import com.honemy.ht.Valid;
+import com.honemy.ht.exception.HtException;
+import com.honemy.ht.logger.ModernLogger;
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.plugin.Plugin;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Declares the startup of a plugin as phases of tasks with dependencies, so independent work runs in parallel.
+ * <p>
+ * Async tasks (config parsing, data preloading, index building) run on a fork-join pool, while main tasks
+ * (registering commands and listeners, touching worlds) run on the thread enabling the plugin.
+ * A task starts once all of its dependencies finished, and every task of a phase depends on all tasks
+ * of the phases declared before it.
+ * <p>
+ * Once executed, the time spent in each task is logged as a startup report.
+ */
+public final class StartupPlan {
+
+	/**
+	 * The name of the phase tasks are added to before any phase is declared.
+	 */
+	private static final String DEFAULT_PHASE = "default";
+
+	/**
+	 * The marker waking up the main thread once the execution is over.
+	 */
+	private static final StartupTask WAKE_UP = new StartupTask("", "", () -> {
+	}, true, Collections.emptySet());
+
+	/**
+	 * The plugin being started.
+	 */
+	private final Plugin plugin;
+
+	/**
+	 * The declared tasks by name, in declaration order.
+	 */
+	private final Map<String, StartupTask> tasks = new LinkedHashMap<>();
+
+	/**
+	 * The tasks of all phases before the current one.
+	 */
+	private final List<String> previousPhases = new ArrayList<>();
+
+	/**
+	 * The tasks of the current phase.
+	 */
+	private final List<String> currentPhase = new ArrayList<>();
+
+	/**
+	 * The name of the current phase.
+	 */
+	private String phase = DEFAULT_PHASE;
+
+	/**
+	 * The timings of the executed tasks, empty until the plan is executed.
+	 */
+	@Getter
+	private List<Timing> timings = Collections.emptyList();
+
+	/**
+	 * The time the whole plan took, in nanoseconds, or 0 until the plan is executed.
+	 */
+	@Getter
+	private long totalNanos;
+
+	/**
+	 * Creates a new empty plan for the given plugin.
+	 *
+	 * @param plugin the plugin being started.
+	 */
+	StartupPlan(@NonNull Plugin plugin) {
+		this.plugin = plugin;
+	}
+
+	/**
+	 * Starts a new phase. Tasks added afterwards only start once every task added before has finished.
+	 *
+	 * @param name the name of the phase, shown in the startup report.
+	 * @return this plan.
+	 */
+	public StartupPlan phase(@NonNull String name) {
+		this.previousPhases.addAll(this.currentPhase);
+		this.currentPhase.clear();
+		this.phase = name;
+
+		return this;
+	}
+
+	/**
+	 * Adds a task running on the fork-join pool. It must not call the Bukkit API.
+	 *
+	 * @param name         the unique name of the task.
+	 * @param task         the work to run.
+	 * @param dependencies the names of the tasks of the current phase that must finish first.
+	 * @return this plan.
+	 */
+	public StartupPlan async(@NonNull String name, @NonNull Runnable task, String... dependencies) {
+		return this.add(name, task, false, dependencies);
+	}
+
+	/**
+	 * Adds a task running on the main thread, for work calling the Bukkit API.
+	 *
+	 * @param name         the unique name of the task.
+	 * @param task         the work to run.
+	 * @param dependencies the names of the tasks of the current phase that must finish first.
+	 * @return this plan.
+	 */
+	public StartupPlan main(@NonNull String name, @NonNull Runnable task, String... dependencies) {
+		return this.add(name, task, true, dependencies);
+	}
+
+	/**
+	 * Adds a task to the current phase.
+	 *
+	 * @param name         the unique name of the task.
+	 * @param task         the work to run.
+	 * @param mainThread   whether the task runs on the main thread.
+	 * @param dependencies the names of the tasks that must finish first.
+	 * @return this plan.
+	 */
+	private StartupPlan add(String name, Runnable task, boolean mainThread, String... dependencies) {
+		Valid.checkBooleanLazy(!this.tasks.containsKey(name), () -> "Startup task " + name + " is already declared");
+
+		final Set<String> required = new LinkedHashSet<>(this.previousPhases);
+
+		for (String dependency : dependencies) {
+			Valid.checkBooleanLazy(this.currentPhase.contains(dependency), () -> "Startup task " + name + " depends on " + dependency + ", which is not declared before it in phase " + this.phase);
+
+			required.add(dependency);
+		}
+
+		this.tasks.put(name, new StartupTask(name, this.phase, task, mainThread, required));
+		this.currentPhase.add(name);
+
+		return this;
+	}
+
+	/**
+	 * Checks if the plan has no tasks.
+	 *
+	 * @return true if no task was declared.
+	 */
+	public boolean isEmpty() {
+		return this.tasks.isEmpty();
+	}
+
+	/**
+	 * Runs all tasks, blocking the calling thread until they finished, then logs the startup report.
+	 * Dependencies can only point to tasks declared before, so the plan cannot contain cycles.
+	 *
+	 * @throws HtException if a task failed, after the tasks already running have finished.
+	 */
+	void execute() {
+		if (this.tasks.isEmpty())
+			return;
+
+		final Execution execution = new Execution();
+
+		try {
+			execution.run();
+		} finally {
+			execution.pool.shutdown();
+		}
+
+		final List<Timing> results = new ArrayList<>(this.tasks.size());
+
+		for (StartupTask task : this.tasks.values())
+			if (task.timing != null)
+				results.add(task.timing);
+
+		results.sort(Comparator.comparingLong(Timing::getStartNanos));
+
+		this.timings = Collections.unmodifiableList(results);
+		this.totalNanos = execution.totalNanos;
+
+		if (execution.failure != null)
+			throw new HtException(execution.failure, "Startup task " + execution.failedTask + " failed");
+
+		this.logReport();
+	}
+
+	/**
+	 * Logs the time spent in each task and how much time the parallel startup saved.
+	 */
+	private void logReport() {
+		long sumNanos = 0;
+
+		for (Timing timing : this.timings)
+			sumNanos += timing.getDurationNanos();
+
+		final List<String> lines = new ArrayList<>(this.timings.size() + 1);
+
+		lines.add(String.format("Started %d tasks in %.1f ms (%.1f ms of work, %.1fx parallelism)",
+				this.timings.size(), this.totalNanos / 1e6, sumNanos / 1e6, this.totalNanos == 0 ? 1 : (double) sumNanos / this.totalNanos));
+
+		for (Timing timing : this.timings)
+			lines.add(String.format(" - %s/%s [%s]: %.1f ms, started at +%.1f ms",
+					timing.getPhase(), timing.getName(), timing.isMainThread() ? "main" : "async", timing.getDurationNanos() / 1e6, timing.getStartNanos() / 1e6));
+
+		ModernLogger.log(Level.INFO, lines.toArray(new String[0]));
+	}
+
+	/**
+	 * The state of a single run of the plan.
+	 */
+	private final class Execution {
+
+		/**
+		 * The pool running async tasks.
+		 */
+		private final ForkJoinPool pool;
+
+		/**
+		 * Main thread tasks that are ready to run, or {@link #WAKE_UP} once the execution is over.
+		 */
+		private final LinkedBlockingQueue<StartupTask> mainQueue = new LinkedBlockingQueue<>();
+
+		/**
+		 * The tasks depending on each task, by name.
+		 */
+		private final Map<String, List<StartupTask>> dependents = new HashMap<>();
+
+		/**
+		 * The amount of tasks that have not finished yet.
+		 */
+		private final AtomicInteger remaining = new AtomicInteger();
+
+		/**
+		 * The amount of tasks currently running.
+		 */
+		private final AtomicInteger running = new AtomicInteger();
+
+		/**
+		 * The time the execution started, in nanoseconds.
+		 */
+		private final long start = System.nanoTime();
+
+		/**
+		 * The time the execution took, in nanoseconds.
+		 */
+		private long totalNanos;
+
+		/**
+		 * The first error thrown by a task, or null.
+		 */
+		private volatile Throwable failure;
+
+		/**
+		 * The name of the task that threw the first error, or null.
+		 */
+		private volatile String failedTask;
+
+		private Execution() {
+			final AtomicInteger counter = new AtomicInteger();
+
+			// Startup tasks often block on file reads, so keep some parallelism even on a single core
+			this.pool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()), pool -> {
+				final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+
+				thread.setName(StartupPlan.this.plugin.getName() + "-startup-" + counter.incrementAndGet());
+
+				// The default factory uses the system class loader on Java 9+, which cannot see the plugin's classes
+				thread.setContextClassLoader(StartupPlan.this.plugin.getClass().getClassLoader());
+
+				return thread;
+			}, null, false);
+		}
+
+		/**
+		 * Schedules the tasks without dependencies, then runs main thread tasks as they become ready
+		 * until every task finished or one failed.
+		 */
+		private void run() {
+			final Collection<StartupTask> tasks = StartupPlan.this.tasks.values();
+
+			this.remaining.set(tasks.size());
+
+			for (StartupTask task : tasks) {
+				task.pending.set(task.dependencies.size());
+
+				for (String dependency : task.dependencies)
+					this.dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(task);
+			}
+
+			for (StartupTask task : tasks)
+				if (task.dependencies.isEmpty())
+					this.schedule(task);
+
+			try {
+				while (true) {
+					final StartupTask task = this.mainQueue.take();
+
+					if (task == WAKE_UP)
+						break;
+
+					this.runTask(task);
+				}
+
+				// After a failure, let the tasks already running finish, and skip the queued ones
+				while (this.running.get() > 0) {
+					final StartupTask task = this.mainQueue.poll(10, TimeUnit.MILLISECONDS);
+
+					if (task != null && task != WAKE_UP)
+						this.runTask(task);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+
+				this.fail("startup", e);
+			}
+
+			this.totalNanos = System.nanoTime() - this.start;
+		}
+
+		/**
+		 * Queues a task whose dependencies all finished on its thread.
+		 *
+		 * @param task the task to schedule.
+		 */
+		private void schedule(StartupTask task) {
+			if (this.failure != null)
+				return;
+
+			this.running.incrementAndGet();
+
+			if (task.mainThread)
+				this.mainQueue.add(task);
+			else
+				this.pool.execute(() -> this.runTask(task));
+		}
+
+		/**
+		 * Runs a task, records its timing and schedules the tasks that were waiting for it.
+		 *
+		 * @param task the task to run.
+		 */
+		private void runTask(StartupTask task) {
+			try {
+				if (this.failure != null)
+					return;
+
+				final long taskStart = System.nanoTime();
+
+				try {
+					task.task.run();
+				} catch (Throwable t) {
+					this.fail(task.name, t);
+
+					return;
+				} finally {
+					task.timing = new Timing(task.name, task.phase, task.mainThread, taskStart - this.start, System.nanoTime() - taskStart);
+				}
+
+				for (StartupTask dependent : this.dependents.getOrDefault(task.name, Collections.emptyList()))
+					if (dependent.pending.decrementAndGet() == 0)
+						this.schedule(dependent);
+
+				if (this.remaining.decrementAndGet() == 0)
+					this.mainQueue.add(WAKE_UP);
+			} finally {
+				this.running.decrementAndGet();
+			}
+		}
+
+		/**
+		 * Records the first failure and stops scheduling new tasks.
+		 *
+		 * @param taskName the name of the failed task.
+		 * @param thrown   the error.
+		 */
+		private synchronized void fail(String taskName, Throwable thrown) {
+			if (this.failure != null)
+				return;
+
+			this.failedTask = taskName;
+			this.failure = thrown;
+			this.mainQueue.add(WAKE_UP);
+		}
+	}
+
+	/**
+	 * A declared task.
+	 */
+	private static final class StartupTask {
+
+		/**
+		 * The unique name of the task.
+		 */
+		private final String name;
+
+		/**
+		 * The phase of the task.
+		 */
+		private final String phase;
+
+		/**
+		 * The work to run.
+		 */
+		private final Runnable task;
+
+		/**
+		 * Whether the task runs on the main thread.
+		 */
+		private final boolean mainThread;
+
+		/**
+		 * The names of the tasks that must finish first.
+		 */
+		private final Set<String> dependencies;
+
+		/**
+		 * The amount of dependencies that have not finished yet.
+		 */
+		private final AtomicInteger pending = new AtomicInteger();
+
+		/**
+		 * The timing of the task, set once it ran.
+		 */
+		private volatile Timing timing;
+
+		private StartupTask(String name, String phase, Runnable task, boolean mainThread, Set<String> dependencies) {
+			this.name = name;
+			this.phase = phase;
+			this.task = task;
+			this.mainThread = mainThread;
+			this.dependencies = dependencies;
+		}
+	}
+
+	/**
+	 * The time spent in a startup task.
+	 */
+	public static final class Timing {
+
+		/**
+		 * The name of the task.
+		 */
+		@Getter
+		private final String name;
+
+		/**
+		 * The phase of the task.
+		 */
+		@Getter
+		private final String phase;
+
+		/**
+		 * Whether the task ran on the main thread.
+		 */
+		@Getter
+		private final boolean mainThread;
+
+		/**
+		 * When the task started, in nanoseconds since the plan started.
+		 */
+		@Getter
+		private final long startNanos;
+
+		/**
+		 * How long the task ran, in nanoseconds.
+		 */
+		@Getter
+		private final long durationNanos;
+
+		private Timing(String name, String phase, boolean mainThread, long startNanos, long durationNanos) {
+			this.name = name;
+			this.phase = phase;
+			this.mainThread = mainThread;
+			this.startNanos = startNanos;
+			this.durationNanos = durationNanos;
+		}
+	}
+}
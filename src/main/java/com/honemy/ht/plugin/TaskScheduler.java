@@ -0,0 +1,191 @@
+package com.honemy.ht.plugin;
+
+import com.honemy.ht.MinecraftVersion;
+import lombok.NonNull;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Scheduler facade that runs tasks on the right thread for the server's threading model.
+ * <p>
+ * On classic servers everything but async tasks runs on the main thread through the Bukkit scheduler.
+ * On regionized servers (Folia), global tasks run on the global region thread, location and chunk
+ * tasks on the thread owning that region, and entity tasks on the thread owning the entity,
+ * following it across regions.
+ * <p>
+ * All delays and periods are in server ticks. Code taking a scheduler can be tested without a server
+ * with a {@link ManualTaskScheduler}.
+ */
+public interface TaskScheduler {
+
+	/**
+	 * Creates the scheduler matching the threading model detected by {@link MinecraftVersion.Threading#isRegionized()}.
+	 * The time spent in its tasks is measured by {@link com.honemy.ht.debug.Timings}.
+	 *
+	 * @param plugin the plugin owning the tasks.
+	 * @return the scheduler.
+	 */
+	static TaskScheduler create(@NonNull Plugin plugin) {
+		return new TimedTaskScheduler(MinecraftVersion.Threading.isRegionized() ? new RegionizedTaskScheduler(plugin) : new BukkitTaskScheduler(plugin));
+	}
+
+	/**
+	 * Runs a task on the global thread, which is the main thread on classic servers.
+	 *
+	 * @param task the task to run.
+	 * @return the scheduled task.
+	 */
+	Task runGlobal(@NonNull Runnable task);
+
+	/**
+	 * Runs a task on the global thread after a delay.
+	 *
+	 * @param task  the task to run.
+	 * @param delay the delay in ticks.
+	 * @return the scheduled task.
+	 */
+	Task runGlobalLater(@NonNull Runnable task, long delay);
+
+	/**
+	 * Runs a task on the global thread repeatedly.
+	 *
+	 * @param task   the task to run.
+	 * @param delay  the delay before the first run in ticks.
+	 * @param period the period between runs in ticks.
+	 * @return the scheduled task.
+	 */
+	Task runGlobalTimer(@NonNull Runnable task, long delay, long period);
+
+	/**
+	 * Runs a task on the thread owning the region of the location.
+	 *
+	 * @param location the location.
+	 * @param task     the task to run.
+	 * @return the scheduled task.
+	 */
+	Task runAt(@NonNull Location location, @NonNull Runnable task);
+
+	/**
+	 * Runs a task on the thread owning the region of the location after a delay.
+	 *
+	 * @param location the location.
+	 * @param task     the task to run.
+	 * @param delay    the delay in ticks.
+	 * @return the scheduled task.
+	 */
+	Task runAtLater(@NonNull Location location, @NonNull Runnable task, long delay);
+
+	/**
+	 * Runs a task on the thread owning the region of the location repeatedly.
+	 *
+	 * @param location the location.
+	 * @param task     the task to run.
+	 * @param delay    the delay before the first run in ticks.
+	 * @param period   the period between runs in ticks.
+	 * @return the scheduled task.
+	 */
+	Task runAtTimer(@NonNull Location location, @NonNull Runnable task, long delay, long period);
+
+	/**
+	 * Runs a task on the thread owning the region of the chunk.
+	 *
+	 * @param world  the world of the chunk.
+	 * @param chunkX the chunk X coordinate.
+	 * @param chunkZ the chunk Z coordinate.
+	 * @param task   the task to run.
+	 * @return the scheduled task.
+	 */
+	Task runAtChunk(@NonNull World world, int chunkX, int chunkZ, @NonNull Runnable task);
+
+	/**
+	 * Runs a task on the thread owning the entity.
+	 * If the entity is removed before the task runs, the retired callback runs instead.
+	 *
+	 * @param entity  the entity.
+	 * @param task    the task to run.
+	 * @param retired the callback if the entity was removed, may be null.
+	 * @return the scheduled task, or null if the entity is already removed.
+	 */
+	Task runFor(@NonNull Entity entity, @NonNull Runnable task, Runnable retired);
+
+	/**
+	 * Runs a task on the thread owning the entity after a delay.
+	 *
+	 * @param entity  the entity.
+	 * @param task    the task to run.
+	 * @param retired the callback if the entity was removed, may be null.
+	 * @param delay   the delay in ticks.
+	 * @return the scheduled task, or null if the entity is already removed.
+	 */
+	Task runForLater(@NonNull Entity entity, @NonNull Runnable task, Runnable retired, long delay);
+
+	/**
+	 * Runs a task on the thread owning the entity repeatedly, until cancelled or the entity is removed.
+	 *
+	 * @param entity  the entity.
+	 * @param task    the task to run.
+	 * @param retired the callback if the entity was removed, may be null.
+	 * @param delay   the delay before the first run in ticks.
+	 * @param period  the period between runs in ticks.
+	 * @return the scheduled task, or null if the entity is already removed.
+	 */
+	Task runForTimer(@NonNull Entity entity, @NonNull Runnable task, Runnable retired, long delay, long period);
+
+	/**
+	 * Runs a task off the server threads.
+	 *
+	 * @param task the task to run.
+	 * @return the scheduled task.
+	 */
+	Task runAsync(@NonNull Runnable task);
+
+	/**
+	 * Runs a task off the server threads after a delay.
+	 *
+	 * @param task  the task to run.
+	 * @param delay the delay in ticks.
+	 * @return the scheduled task.
+	 */
+	Task runAsyncLater(@NonNull Runnable task, long delay);
+
+	/**
+	 * Checks if the current thread owns the region of the location, so it may access it directly.
+	 *
+	 * @param location the location.
+	 * @return true if the location can be accessed from the current thread.
+	 */
+	boolean isOwnedByCurrentThread(@NonNull Location location);
+
+	/**
+	 * Checks if the current thread owns the entity, so it may access it directly.
+	 *
+	 * @param entity the entity.
+	 * @return true if the entity can be accessed from the current thread.
+	 */
+	boolean isOwnedByCurrentThread(@NonNull Entity entity);
+
+	/**
+	 * Cancels all tasks of the plugin, including the region and entity tasks still pending or repeating.
+	 */
+	void cancelAll();
+
+	/**
+	 * A handle to a scheduled task.
+	 */
+	interface Task {
+
+		/**
+		 * Cancels the task. Does nothing if it already ran or was cancelled.
+		 */
+		void cancel();
+
+		/**
+		 * Checks if the task was cancelled.
+		 *
+		 * @return true if the task was cancelled.
+		 */
+		boolean isCancelled();
+	}
+}
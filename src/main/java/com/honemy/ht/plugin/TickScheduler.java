@@ -0,0 +1,360 @@
+package com.honemy.ht.plugin;
+
+import com.honemy.ht.Common;
+import com.honemy.ht.Valid;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs queued work on the main thread within a time budget per tick.
+ * Heavy jobs (mass block updates, migrations, leaderboard rebuilds) are split into small units,
+ * and each tick the scheduler processes as many units as fit in the budget, highest priority first.
+ * Whatever does not fit is carried over to the next tick, so the server keeps a stable TPS.
+ * <p>
+ * Work can be submitted from any thread, but always runs on the main thread (the global region thread on Folia).
+ * Work submitted once the scheduler is stopped never runs, its future is returned cancelled.
+ */
+public final class TickScheduler {
+
+	/**
+	 * The default time budget per tick, in nanoseconds.
+	 */
+	private static final long DEFAULT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+	/**
+	 * The weight of the latest tick in the average tick time.
+	 */
+	private static final double AVERAGE_WEIGHT = 0.05;
+
+	/**
+	 * The priority of submitted work. Higher priorities are always processed first.
+	 */
+	public enum Priority {
+		HIGH,
+		NORMAL,
+		LOW
+	}
+
+	/**
+	 * A unit of work that may need several slices to finish.
+	 */
+	@FunctionalInterface
+	public interface Job {
+
+		/**
+		 * Processes a small slice of the work.
+		 *
+		 * @return true if the job is finished, false if it should run again.
+		 */
+		boolean process();
+	}
+
+	/**
+	 * The queued work for each priority, indexed by ordinal.
+	 */
+	private final ConcurrentLinkedDeque<QueuedJob>[] queues;
+
+	/**
+	 * The amount of queued jobs, across all priorities.
+	 */
+	private final AtomicInteger backlog = new AtomicInteger();
+
+	/**
+	 * The time budget per tick, in nanoseconds.
+	 */
+	@Getter
+	private volatile long budgetNanos = DEFAULT_BUDGET_NANOS;
+
+	/**
+	 * The time spent processing work in the last tick, in nanoseconds.
+	 */
+	@Getter
+	private volatile long lastTickNanos;
+
+	/**
+	 * The moving average of the time spent processing work per tick, in nanoseconds.
+	 */
+	@Getter
+	private volatile double averageTickNanos;
+
+	/**
+	 * The longest time spent processing work in a single tick, in nanoseconds.
+	 */
+	@Getter
+	private volatile long maxTickNanos;
+
+	/**
+	 * The amount of slices processed in the last tick.
+	 */
+	@Getter
+	private volatile int lastTickSlices;
+
+	/**
+	 * The total amount of finished jobs.
+	 */
+	@Getter
+	private volatile long completedJobs;
+
+	/**
+	 * The repeating task driving the scheduler, or null if it is not running.
+	 */
+	private TaskScheduler.Task task;
+
+	/**
+	 * Whether the scheduler was stopped, so submitted work would never run.
+	 */
+	private volatile boolean stopped;
+
+	/**
+	 * Creates a new scheduler. It only processes work once started.
+	 */
+	@SuppressWarnings("unchecked")
+	public TickScheduler() {
+		this.queues = new ConcurrentLinkedDeque[Priority.values().length];
+
+		for (int i = 0; i < this.queues.length; i++)
+			this.queues[i] = new ConcurrentLinkedDeque<>();
+	}
+
+	/**
+	 * Sets the time budget per tick.
+	 * At least one slice is always processed per tick, so work keeps progressing even with a tiny budget.
+	 *
+	 * @param budget the budget.
+	 * @param unit   the unit of the budget.
+	 */
+	public void setBudget(long budget, @NonNull TimeUnit unit) {
+		Valid.checkBoolean(budget > 0, "Tick budget must be above 0, got: %s", budget);
+
+		this.budgetNanos = unit.toNanos(budget);
+	}
+
+	/**
+	 * Submits a job to run once, with normal priority.
+	 *
+	 * @param runnable the work to run.
+	 * @return a future completed once the work has run.
+	 */
+	public CompletableFuture<Void> submit(@NonNull Runnable runnable) {
+		return this.submit(Priority.NORMAL, runnable);
+	}
+
+	/**
+	 * Submits a job to run once.
+	 *
+	 * @param priority the priority of the job.
+	 * @param runnable the work to run.
+	 * @return a future completed once the work has run.
+	 */
+	public CompletableFuture<Void> submit(@NonNull Priority priority, @NonNull Runnable runnable) {
+		return this.submitJob(priority, () -> {
+			runnable.run();
+
+			return true;
+		});
+	}
+
+	/**
+	 * Submits a job that is processed in slices until it reports it is finished.
+	 * Named apart from {@link #submit(Priority, Runnable)} so a lambda returning a boolean by chance,
+	 * such as {@code () -> set.add(value)}, is never taken for a job.
+	 *
+	 * @param priority the priority of the job.
+	 * @param job      the job to process.
+	 * @return a future completed once the job is finished, or cancelled if the scheduler is stopped.
+	 */
+	public CompletableFuture<Void> submitJob(@NonNull Priority priority, @NonNull Job job) {
+		final QueuedJob queued = new QueuedJob(job);
+		final ConcurrentLinkedDeque<QueuedJob> queue = this.queues[priority.ordinal()];
+
+		if (this.stopped) {
+			queued.future.cancel(false);
+
+			return queued.future;
+		}
+
+		this.backlog.incrementAndGet();
+		queue.offerLast(queued);
+
+		// stop() may have drained the queues before the job was added, it would never run
+		if (this.stopped && queue.remove(queued)) {
+			this.backlog.decrementAndGet();
+			queued.future.cancel(false);
+		}
+
+		return queued.future;
+	}
+
+	/**
+	 * Submits a job processing every element of the iterable, one element per slice.
+	 *
+	 * @param priority the priority of the job.
+	 * @param elements the elements to process.
+	 * @param action   the action to run for each element.
+	 * @param <T>      the type of the elements.
+	 * @return a future completed once every element has been processed.
+	 */
+	public <T> CompletableFuture<Void> submitAll(@NonNull Priority priority, @NonNull Iterable<T> elements, @NonNull Consumer<T> action) {
+		final Iterator<T> iterator = elements.iterator();
+
+		return this.submitJob(priority, () -> {
+			if (iterator.hasNext())
+				action.accept(iterator.next());
+
+			return !iterator.hasNext();
+		});
+	}
+
+	/**
+	 * Returns the amount of queued jobs, across all priorities.
+	 *
+	 * @return the backlog.
+	 */
+	public int getBacklog() {
+		return this.backlog.get();
+	}
+
+	/**
+	 * Checks if the scheduler is running.
+	 *
+	 * @return true if the scheduler is running, false otherwise.
+	 */
+	public boolean isRunning() {
+		return this.task != null;
+	}
+
+	/**
+	 * Starts processing queued work every tick, on the global thread.
+	 *
+	 * @param scheduler the scheduler to run on.
+	 */
+	void start(TaskScheduler scheduler) {
+		this.stopped = false;
+
+		if (this.task == null)
+			this.task = scheduler.runGlobalTimer(this::tick, 1, 1);
+	}
+
+	/**
+	 * Stops processing and cancels all queued work, and the work submitted afterwards.
+	 */
+	void stop() {
+		this.stopped = true;
+
+		if (this.task != null) {
+			this.task.cancel();
+			this.task = null;
+		}
+
+		for (ConcurrentLinkedDeque<QueuedJob> queue : this.queues) {
+			QueuedJob queued;
+
+			while ((queued = queue.pollFirst()) != null) {
+				this.backlog.decrementAndGet();
+				queued.future.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Processes queued work until the budget for this tick runs out.
+	 */
+	private void tick() {
+		final long start = System.nanoTime();
+		final long deadline = start + this.budgetNanos;
+		int slices = 0;
+
+		do {
+			final ConcurrentLinkedDeque<QueuedJob> queue = this.nextQueue();
+
+			if (queue == null)
+				break;
+
+			final QueuedJob queued = queue.pollFirst();
+
+			// The queue may have been drained by stop() in the meantime
+			if (queued == null)
+				continue;
+
+			slices++;
+
+			if (this.process(queued)) {
+				this.backlog.decrementAndGet();
+				this.completedJobs++;
+			} else
+				queue.offerFirst(queued);
+		} while (System.nanoTime() < deadline);
+
+		final long spent = System.nanoTime() - start;
+
+		this.lastTickNanos = spent;
+		this.lastTickSlices = slices;
+		this.averageTickNanos += (spent - this.averageTickNanos) * AVERAGE_WEIGHT;
+
+		if (spent > this.maxTickNanos)
+			this.maxTickNanos = spent;
+	}
+
+	/**
+	 * Processes one slice of the job.
+	 *
+	 * @param queued the job to process.
+	 * @return true if the job is done, either finished or failed.
+	 */
+	private boolean process(QueuedJob queued) {
+		try {
+			if (queued.future.isCancelled() || queued.job.process()) {
+				queued.future.complete(null);
+
+				return true;
+			}
+
+			return false;
+		} catch (Throwable t) {
+			queued.future.completeExceptionally(t);
+			Common.error(t, "An error occurred while processing scheduled work");
+
+			return true;
+		}
+	}
+
+	/**
+	 * Returns the queue with the highest priority that has work.
+	 *
+	 * @return the queue, or null if there is no work.
+	 */
+	private ConcurrentLinkedDeque<QueuedJob> nextQueue() {
+		for (ConcurrentLinkedDeque<QueuedJob> queue : this.queues)
+			if (!queue.isEmpty())
+				return queue;
+
+		return null;
+	}
+
+	/**
+	 * A job waiting in a queue, with the future to complete once it is done.
+	 */
+	private static final class QueuedJob {
+
+		/**
+		 * The job to process.
+		 */
+		private final Job job;
+
+		/**
+		 * The future completed once the job is done.
+		 */
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+		private QueuedJob(Job job) {
+			this.job = job;
+		}
+	}
+}
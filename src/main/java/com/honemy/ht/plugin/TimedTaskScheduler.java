@@ -0,0 +1,102 @@
+package com.honemy.ht.plugin;
+
+import com.honemy.ht.debug.Timings;
+import lombok.NonNull;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+/**
+ * Task scheduler measuring the time spent in every task with {@link Timings}, under the name of the task class.
+ */
+final class TimedTaskScheduler implements TaskScheduler {
+
+	/**
+	 * The scheduler running the tasks.
+	 */
+	private final TaskScheduler delegate;
+
+	/**
+	 * Creates a new scheduler measuring the tasks of the given one.
+	 *
+	 * @param delegate the scheduler running the tasks.
+	 */
+	TimedTaskScheduler(TaskScheduler delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Task runGlobal(@NonNull Runnable task) {
+		return this.delegate.runGlobal(Timings.wrap(task));
+	}
+
+	@Override
+	public Task runGlobalLater(@NonNull Runnable task, long delay) {
+		return this.delegate.runGlobalLater(Timings.wrap(task), delay);
+	}
+
+	@Override
+	public Task runGlobalTimer(@NonNull Runnable task, long delay, long period) {
+		return this.delegate.runGlobalTimer(Timings.wrap(task), delay, period);
+	}
+
+	@Override
+	public Task runAt(@NonNull Location location, @NonNull Runnable task) {
+		return this.delegate.runAt(location, Timings.wrap(task));
+	}
+
+	@Override
+	public Task runAtLater(@NonNull Location location, @NonNull Runnable task, long delay) {
+		return this.delegate.runAtLater(location, Timings.wrap(task), delay);
+	}
+
+	@Override
+	public Task runAtTimer(@NonNull Location location, @NonNull Runnable task, long delay, long period) {
+		return this.delegate.runAtTimer(location, Timings.wrap(task), delay, period);
+	}
+
+	@Override
+	public Task runAtChunk(@NonNull World world, int chunkX, int chunkZ, @NonNull Runnable task) {
+		return this.delegate.runAtChunk(world, chunkX, chunkZ, Timings.wrap(task));
+	}
+
+	@Override
+	public Task runFor(@NonNull Entity entity, @NonNull Runnable task, Runnable retired) {
+		return this.delegate.runFor(entity, Timings.wrap(task), retired);
+	}
+
+	@Override
+	public Task runForLater(@NonNull Entity entity, @NonNull Runnable task, Runnable retired, long delay) {
+		return this.delegate.runForLater(entity, Timings.wrap(task), retired, delay);
+	}
+
+	@Override
+	public Task runForTimer(@NonNull Entity entity, @NonNull Runnable task, Runnable retired, long delay, long period) {
+		return this.delegate.runForTimer(entity, Timings.wrap(task), retired, delay, period);
+	}
+
+	@Override
+	public Task runAsync(@NonNull Runnable task) {
+		return this.delegate.runAsync(Timings.wrap(task));
+	}
+
+	@Override
+	public Task runAsyncLater(@NonNull Runnable task, long delay) {
+		return this.delegate.runAsyncLater(Timings.wrap(task), delay);
+	}
+
+	@Override
+	public boolean isOwnedByCurrentThread(@NonNull Location location) {
+		return this.delegate.isOwnedByCurrentThread(location);
+	}
+
+	@Override
+	public boolean isOwnedByCurrentThread(@NonNull Entity entity) {
+		return this.delegate.isOwnedByCurrentThread(entity);
+	}
+
+	@Override
+	public void cancelAll() {
+		this.delegate.cancelAll();
+	}
+}
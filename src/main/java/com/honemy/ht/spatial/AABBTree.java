@@ -0,0 +1,761 @@
+package com.honemy.ht.spatial;
+
+import com.honemy.ht.Valid;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A spatial index keeping boxes in a balanced tree of bounding boxes, each node enclosing its children.
+ * <p>
+ * Queries skip every branch whose box misses the searched area, so they cost about the logarithm of the
+ * amount tracked, wherever the values are. Boxes are stored enlarged by a margin so small moves leave the
+ * tree untouched. Suited to values with a size such as regions, or to points spread too far apart for a
+ * {@link SpatialGrid}. Nodes freed by removals and moves are reused.
+ *
+ * @param <T> the type of the values.
+ */
+public final class AABBTree<T> implements SpatialIndex<T> {
+
+	/**
+	 * The distance boxes are enlarged by in the tree.
+	 */
+	@Getter
+	private final double margin;
+
+	/**
+	 * The leaves by their value.
+	 */
+	private final Map<T, Node<T>> leaves = new HashMap<>();
+
+	/**
+	 * The root, or null if empty.
+	 */
+	private Node<T> root;
+
+	/**
+	 * The freed nodes, linked through their parent.
+	 */
+	private Node<T> freeNodes;
+
+	/**
+	 * The nodes left to visit by the running query.
+	 */
+	private Node<T>[] stack = newNodeArray(64);
+
+	/**
+	 * The closest values of the running k-nearest query.
+	 */
+	private final NearestBuffer nearest = new NearestBuffer();
+
+	/**
+	 * Creates a tree enlarging boxes by one block.
+	 */
+	public AABBTree() {
+		this(1);
+	}
+
+	/**
+	 * Creates a tree enlarging boxes by the given margin. A larger margin makes moves cheaper and queries
+	 * slower, about the distance a value moves in a few ticks works well.
+	 *
+	 * @param margin the margin, in blocks.
+	 */
+	public AABBTree(double margin) {
+		Valid.checkBoolean(margin >= 0, "Margin cannot be negative, got: %s", margin);
+
+		this.margin = margin;
+	}
+
+	@Override
+	public int size() {
+		return this.leaves.size();
+	}
+
+	@Override
+	public boolean contains(T value) {
+		return this.leaves.containsKey(value);
+	}
+
+	@Override
+	public boolean insert(T value, double x, double y, double z) {
+		return this.insert(value, x, y, z, x, y, z);
+	}
+
+	/**
+	 * Tracks a value covering a box, or moves it there if already tracked.
+	 *
+	 * @param value the value.
+	 * @param minX  the lowest x coordinate.
+	 * @param minY  the lowest y coordinate.
+	 * @param minZ  the lowest z coordinate.
+	 * @param maxX  the highest x coordinate.
+	 * @param maxY  the highest y coordinate.
+	 * @param maxZ  the highest z coordinate.
+	 * @return true if the value was not tracked before.
+	 */
+	public boolean insert(@NonNull T value, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		checkBox(minX, minY, minZ, maxX, maxY, maxZ);
+
+		final Node<T> existing = this.leaves.get(value);
+
+		if (existing != null) {
+			this.relocate(existing, minX, minY, minZ, maxX, maxY, maxZ);
+
+			return false;
+		}
+
+		final Node<T> leaf = this.allocate();
+
+		leaf.value = value;
+		leaf.height = 0;
+		leaf.setTight(minX, minY, minZ, maxX, maxY, maxZ);
+		leaf.fatten(this.margin);
+
+		this.leaves.put(value, leaf);
+		this.insertLeaf(leaf);
+
+		return true;
+	}
+
+	@Override
+	public boolean move(T value, double x, double y, double z) {
+		return this.move(value, x, y, z, x, y, z);
+	}
+
+	/**
+	 * Moves a tracked value to cover a box.
+	 *
+	 * @param value the value.
+	 * @param minX  the lowest x coordinate.
+	 * @param minY  the lowest y coordinate.
+	 * @param minZ  the lowest z coordinate.
+	 * @param maxX  the highest x coordinate.
+	 * @param maxY  the highest y coordinate.
+	 * @param maxZ  the highest z coordinate.
+	 * @return true if the value was tracked, false if nothing changed.
+	 */
+	public boolean move(T value, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		checkBox(minX, minY, minZ, maxX, maxY, maxZ);
+
+		final Node<T> leaf = this.leaves.get(value);
+
+		if (leaf == null)
+			return false;
+
+		this.relocate(leaf, minX, minY, minZ, maxX, maxY, maxZ);
+
+		return true;
+	}
+
+	@Override
+	public boolean remove(T value) {
+		final Node<T> leaf = this.leaves.remove(value);
+
+		if (leaf == null)
+			return false;
+
+		this.removeLeaf(leaf);
+		this.free(leaf);
+
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		this.leaves.clear();
+		this.root = null;
+		this.freeNodes = null;
+	}
+
+	@Override
+	public int queryRadius(double x, double y, double z, double radius, @NonNull List<? super T> out) {
+		Valid.checkBooleanDouble(radius >= 0, "Radius cannot be negative, got: %s", radius);
+
+		if (this.root == null)
+			return 0;
+
+		final double radiusSquared = radius * radius;
+		int count = 0;
+		int top = 0;
+
+		this.stack[top++] = this.root;
+
+		while (top > 0) {
+			final Node<T> node = this.stack[--top];
+
+			this.stack[top] = null;
+
+			if (node.fatDistanceSquared(x, y, z) > radiusSquared)
+				continue;
+
+			if (node.isLeaf()) {
+				if (node.tightDistanceSquared(x, y, z) <= radiusSquared) {
+					out.add(node.value);
+					count++;
+				}
+
+			} else
+				top = this.push(node, top);
+		}
+
+		return count;
+	}
+
+	@Override
+	public int queryBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, @NonNull List<? super T> out) {
+		if (this.root == null)
+			return 0;
+
+		int count = 0;
+		int top = 0;
+
+		this.stack[top++] = this.root;
+
+		while (top > 0) {
+			final Node<T> node = this.stack[--top];
+
+			this.stack[top] = null;
+
+			if (node.minX > maxX || node.maxX < minX || node.minY > maxY || node.maxY < minY || node.minZ > maxZ || node.maxZ < minZ)
+				continue;
+
+			if (node.isLeaf()) {
+				if (node.tightMinX <= maxX && node.tightMaxX >= minX && node.tightMinY <= maxY && node.tightMaxY >= minY && node.tightMinZ <= maxZ && node.tightMaxZ >= minZ) {
+					out.add(node.value);
+					count++;
+				}
+
+			} else
+				top = this.push(node, top);
+		}
+
+		return count;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The distance to a value is the distance to the closest point of its box.
+	 */
+	@Override
+	public int nearest(double x, double y, double z, int count, @NonNull List<? super T> out) {
+		Valid.checkBooleanInt(count >= 0, "Count cannot be negative, got: %s", count);
+
+		final int limit = Math.min(count, this.leaves.size());
+
+		if (limit == 0)
+			return 0;
+
+		final NearestBuffer nearest = this.nearest;
+		int top = 0;
+
+		nearest.reset(limit);
+		this.stack[top++] = this.root;
+
+		while (top > 0) {
+			final Node<T> node = this.stack[--top];
+
+			this.stack[top] = null;
+
+			if (node.fatDistanceSquared(x, y, z) >= nearest.worst())
+				continue;
+
+			if (node.isLeaf()) {
+				nearest.offer(node.value, node.tightDistanceSquared(x, y, z));
+
+				continue;
+			}
+
+			// Push the farther child first so the closer one is visited first and shrinks the search sooner
+			final boolean leftCloser = node.left.fatDistanceSquared(x, y, z) <= node.right.fatDistanceSquared(x, y, z);
+
+			this.ensureStack(top + 2);
+			this.stack[top++] = leftCloser ? node.right : node.left;
+			this.stack[top++] = leftCloser ? node.left : node.right;
+		}
+
+		return nearest.drainTo(out);
+	}
+
+	/**
+	 * Returns the height of the tree, to check its balance.
+	 *
+	 * @return the height, 0 for a single value and -1 if empty.
+	 */
+	public int getHeight() {
+		return this.root == null ? -1 : this.root.height;
+	}
+
+	/**
+	 * Updates the box of a leaf, moving it in the tree only if it left its enlarged box.
+	 *
+	 * @param leaf the leaf.
+	 * @param minX the lowest x coordinate.
+	 * @param minY the lowest y coordinate.
+	 * @param minZ the lowest z coordinate.
+	 * @param maxX the highest x coordinate.
+	 * @param maxY the highest y coordinate.
+	 * @param maxZ the highest z coordinate.
+	 */
+	private void relocate(Node<T> leaf, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		leaf.setTight(minX, minY, minZ, maxX, maxY, maxZ);
+
+		if (leaf.minX <= minX && leaf.minY <= minY && leaf.minZ <= minZ && leaf.maxX >= maxX && leaf.maxY >= maxY && leaf.maxZ >= maxZ)
+			return;
+
+		this.removeLeaf(leaf);
+		leaf.fatten(this.margin);
+		this.insertLeaf(leaf);
+	}
+
+	/**
+	 * Adds a leaf next to the node whose enclosing box would grow the least, then rebalances upwards.
+	 *
+	 * @param leaf the leaf.
+	 */
+	private void insertLeaf(Node<T> leaf) {
+		if (this.root == null) {
+			this.root = leaf;
+			leaf.parent = null;
+
+			return;
+		}
+
+		Node<T> sibling = this.root;
+
+		while (!sibling.isLeaf()) {
+			final double area = sibling.surface();
+			final double combinedArea = Node.unionSurface(sibling, leaf);
+
+			// Cost of making a new parent for this node and the leaf, and of pushing the leaf further down
+			final double cost = 2 * combinedArea;
+			final double inheritance = 2 * (combinedArea - area);
+			final double leftCost = descendCost(sibling.left, leaf, inheritance);
+			final double rightCost = descendCost(sibling.right, leaf, inheritance);
+
+			if (cost < leftCost && cost < rightCost)
+				break;
+
+			sibling = leftCost < rightCost ? sibling.left : sibling.right;
+		}
+
+		final Node<T> oldParent = sibling.parent;
+		final Node<T> newParent = this.allocate();
+
+		newParent.parent = oldParent;
+		newParent.value = null;
+		newParent.setUnion(sibling, leaf);
+		newParent.height = sibling.height + 1;
+		newParent.left = sibling;
+		newParent.right = leaf;
+		sibling.parent = newParent;
+		leaf.parent = newParent;
+
+		if (oldParent == null)
+			this.root = newParent;
+
+		else if (oldParent.left == sibling)
+			oldParent.left = newParent;
+
+		else
+			oldParent.right = newParent;
+
+		this.refit(newParent.parent);
+	}
+
+	/**
+	 * Removes a leaf, its sibling taking the place of their parent, then rebalances upwards.
+	 *
+	 * @param leaf the leaf.
+	 */
+	private void removeLeaf(Node<T> leaf) {
+		if (leaf == this.root) {
+			this.root = null;
+
+			return;
+		}
+
+		final Node<T> parent = leaf.parent;
+		final Node<T> grandParent = parent.parent;
+		final Node<T> sibling = parent.left == leaf ? parent.right : parent.left;
+
+		sibling.parent = grandParent;
+
+		if (grandParent == null)
+			this.root = sibling;
+
+		else {
+			if (grandParent.left == parent)
+				grandParent.left = sibling;
+			else
+				grandParent.right = sibling;
+
+			this.refit(grandParent);
+		}
+
+		this.free(parent);
+		leaf.parent = null;
+	}
+
+	/**
+	 * Rebalances and recomputes the boxes and heights from a node up to the root.
+	 *
+	 * @param node the lowest changed node, or null.
+	 */
+	private void refit(Node<T> node) {
+		while (node != null) {
+			node = this.balance(node);
+			node.setUnion(node.left, node.right);
+			node.height = 1 + Math.max(node.left.height, node.right.height);
+			node = node.parent;
+		}
+	}
+
+	/**
+	 * Rotates a node if one of its children is more than one level taller than the other.
+	 *
+	 * @param a the node.
+	 * @return the node now at the place of the given one.
+	 */
+	private Node<T> balance(Node<T> a) {
+		if (a.isLeaf() || a.height < 2)
+			return a;
+
+		final Node<T> b = a.left;
+		final Node<T> c = a.right;
+		final int balance = c.height - b.height;
+
+		if (balance > 1)
+			return this.rotateUp(a, c, b, false);
+
+		if (balance < -1)
+			return this.rotateUp(a, b, c, true);
+
+		return a;
+	}
+
+	/**
+	 * Moves the taller child of a node in its place, the node taking the shorter grandchild.
+	 *
+	 * @param a          the node.
+	 * @param tall       the taller child, moved up.
+	 * @param other      the other child, kept under the node.
+	 * @param tallIsLeft whether the taller child is the left child.
+	 * @return the taller child, now at the place of the node.
+	 */
+	private Node<T> rotateUp(Node<T> a, Node<T> tall, Node<T> other, boolean tallIsLeft) {
+		final Node<T> f = tall.left;
+		final Node<T> g = tall.right;
+
+		// Swap the node and its taller child
+		tall.left = a;
+		tall.parent = a.parent;
+		a.parent = tall;
+
+		if (tall.parent == null)
+			this.root = tall;
+
+		else if (tall.parent.left == a)
+			tall.parent.left = tall;
+
+		else
+			tall.parent.right = tall;
+
+		// Keep the taller grandchild up and hand the shorter one to the node
+		final Node<T> keep = f.height > g.height ? f : g;
+		final Node<T> give = keep == f ? g : f;
+
+		tall.right = keep;
+
+		if (tallIsLeft)
+			a.left = give;
+		else
+			a.right = give;
+
+		give.parent = a;
+
+		a.setUnion(other, give);
+		a.height = 1 + Math.max(other.height, give.height);
+		tall.setUnion(a, keep);
+		tall.height = 1 + Math.max(a.height, keep.height);
+
+		return tall;
+	}
+
+	/**
+	 * Pushes the children of a node on the query stack.
+	 *
+	 * @param node the node.
+	 * @param top  the size of the stack.
+	 * @return the new size of the stack.
+	 */
+	private int push(Node<T> node, int top) {
+		this.ensureStack(top + 2);
+		this.stack[top++] = node.left;
+		this.stack[top++] = node.right;
+
+		return top;
+	}
+
+	/**
+	 * Grows the query stack if needed.
+	 *
+	 * @param size the needed size.
+	 */
+	private void ensureStack(int size) {
+		if (size > this.stack.length)
+			this.stack = Arrays.copyOf(this.stack, Math.max(size, this.stack.length << 1));
+	}
+
+	/**
+	 * Returns a freed node, or a new one.
+	 *
+	 * @return the node.
+	 */
+	private Node<T> allocate() {
+		final Node<T> node = this.freeNodes;
+
+		if (node == null)
+			return new Node<>();
+
+		this.freeNodes = node.parent;
+		node.parent = null;
+
+		return node;
+	}
+
+	/**
+	 * Keeps a node for reuse.
+	 *
+	 * @param node the node.
+	 */
+	private void free(Node<T> node) {
+		node.value = null;
+		node.left = null;
+		node.right = null;
+		node.parent = this.freeNodes;
+		this.freeNodes = node;
+	}
+
+	@Override
+	public String toString() {
+		return "AABBTree{size=" + this.leaves.size() + ", height=" + this.getHeight() + ", margin=" + this.margin + "}";
+	}
+
+	/**
+	 * Returns the cost of adding a leaf under a child of the node being descended.
+	 *
+	 * @param child       the child.
+	 * @param leaf        the leaf.
+	 * @param inheritance the growth of the boxes above the child.
+	 * @return the cost.
+	 */
+	private static double descendCost(Node<?> child, Node<?> leaf, double inheritance) {
+		final double combined = Node.unionSurface(child, leaf);
+
+		return child.isLeaf() ? combined + inheritance : combined - child.surface() + inheritance;
+	}
+
+	/**
+	 * Checks that a box has its lowest coordinates first.
+	 *
+	 * @param minX the lowest x coordinate.
+	 * @param minY the lowest y coordinate.
+	 * @param minZ the lowest z coordinate.
+	 * @param maxX the highest x coordinate.
+	 * @param maxY the highest y coordinate.
+	 * @param maxZ the highest z coordinate.
+	 */
+	private static void checkBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		Valid.checkBoolean(minX <= maxX && minY <= maxY && minZ <= maxZ, "Box minimum must not exceed its maximum, got: %s %s %s to %s %s %s", minX, minY, minZ, maxX, maxY, maxZ);
+	}
+
+	/**
+	 * Creates an array of nodes.
+	 *
+	 * @param length the length.
+	 * @param <T>    the type of the values.
+	 * @return the array.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> Node<T>[] newNodeArray(int length) {
+		return new Node[length];
+	}
+
+	/**
+	 * A node of the tree, either a leaf holding a value or a branch with two children.
+	 *
+	 * @param <T> the type of the value.
+	 */
+	private static final class Node<T> {
+
+		/**
+		 * The enclosing box: enlarged by the margin for a leaf, enclosing both children for a branch.
+		 */
+		private double minX, minY, minZ, maxX, maxY, maxZ;
+
+		/**
+		 * The exact box of the value of a leaf.
+		 */
+		private double tightMinX, tightMinY, tightMinZ, tightMaxX, tightMaxY, tightMaxZ;
+
+		/**
+		 * The parent, or the next free node once freed.
+		 */
+		private Node<T> parent;
+
+		/**
+		 * The left child, null for a leaf.
+		 */
+		private Node<T> left;
+
+		/**
+		 * The right child, null for a leaf.
+		 */
+		private Node<T> right;
+
+		/**
+		 * The height of the subtree, 0 for a leaf.
+		 */
+		private int height;
+
+		/**
+		 * The value of a leaf.
+		 */
+		private T value;
+
+		/**
+		 * Checks if the node is a leaf.
+		 *
+		 * @return true if a leaf.
+		 */
+		private boolean isLeaf() {
+			return this.left == null;
+		}
+
+		/**
+		 * Sets the exact box.
+		 *
+		 * @param minX the lowest x coordinate.
+		 * @param minY the lowest y coordinate.
+		 * @param minZ the lowest z coordinate.
+		 * @param maxX the highest x coordinate.
+		 * @param maxY the highest y coordinate.
+		 * @param maxZ the highest z coordinate.
+		 */
+		private void setTight(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+			this.tightMinX = minX;
+			this.tightMinY = minY;
+			this.tightMinZ = minZ;
+			this.tightMaxX = maxX;
+			this.tightMaxY = maxY;
+			this.tightMaxZ = maxZ;
+		}
+
+		/**
+		 * Sets the enclosing box to the exact box enlarged by a margin.
+		 *
+		 * @param margin the margin.
+		 */
+		private void fatten(double margin) {
+			this.minX = this.tightMinX - margin;
+			this.minY = this.tightMinY - margin;
+			this.minZ = this.tightMinZ - margin;
+			this.maxX = this.tightMaxX + margin;
+			this.maxY = this.tightMaxY + margin;
+			this.maxZ = this.tightMaxZ + margin;
+		}
+
+		/**
+		 * Sets the enclosing box to the smallest one enclosing two nodes.
+		 *
+		 * @param first  the first node.
+		 * @param second the second node.
+		 */
+		private void setUnion(Node<T> first, Node<T> second) {
+			this.minX = Math.min(first.minX, second.minX);
+			this.minY = Math.min(first.minY, second.minY);
+			this.minZ = Math.min(first.minZ, second.minZ);
+			this.maxX = Math.max(first.maxX, second.maxX);
+			this.maxY = Math.max(first.maxY, second.maxY);
+			this.maxZ = Math.max(first.maxZ, second.maxZ);
+		}
+
+		/**
+		 * Returns the surface area of the enclosing box, the cost tree building tries to keep low.
+		 *
+		 * @return the surface area.
+		 */
+		private double surface() {
+			final double dx = this.maxX - this.minX, dy = this.maxY - this.minY, dz = this.maxZ - this.minZ;
+
+			return 2 * (dx * dy + dy * dz + dz * dx);
+		}
+
+		/**
+		 * Returns the squared distance from a point to the enclosing box.
+		 *
+		 * @param x the x coordinate.
+		 * @param y the y coordinate.
+		 * @param z the z coordinate.
+		 * @return the squared distance, 0 if inside.
+		 */
+		private double fatDistanceSquared(double x, double y, double z) {
+			return distanceSquared(x, y, z, this.minX, this.minY, this.minZ, this.maxX, this.maxY, this.maxZ);
+		}
+
+		/**
+		 * Returns the squared distance from a point to the exact box.
+		 *
+		 * @param x the x coordinate.
+		 * @param y the y coordinate.
+		 * @param z the z coordinate.
+		 * @return the squared distance, 0 if inside.
+		 */
+		private double tightDistanceSquared(double x, double y, double z) {
+			return distanceSquared(x, y, z, this.tightMinX, this.tightMinY, this.tightMinZ, this.tightMaxX, this.tightMaxY, this.tightMaxZ);
+		}
+
+		/**
+		 * Returns the surface area of the smallest box enclosing two nodes.
+		 *
+		 * @param first  the first node.
+		 * @param second the second node.
+		 * @return the surface area.
+		 */
+		private static double unionSurface(Node<?> first, Node<?> second) {
+			final double dx = Math.max(first.maxX, second.maxX) - Math.min(first.minX, second.minX);
+			final double dy = Math.max(first.maxY, second.maxY) - Math.min(first.minY, second.minY);
+			final double dz = Math.max(first.maxZ, second.maxZ) - Math.min(first.minZ, second.minZ);
+
+			return 2 * (dx * dy + dy * dz + dz * dx);
+		}
+
+		/**
+		 * Returns the squared distance from a point to a box.
+		 *
+		 * @param x    the x coordinate.
+		 * @param y    the y coordinate.
+		 * @param z    the z coordinate.
+		 * @param minX the lowest x coordinate of the box.
+		 * @param minY the lowest y coordinate of the box.
+		 * @param minZ the lowest z coordinate of the box.
+		 * @param maxX the highest x coordinate of the box.
+		 * @param maxY the highest y coordinate of the box.
+		 * @param maxZ the highest z coordinate of the box.
+		 * @return the squared distance, 0 if inside.
+		 */
+		private static double distanceSquared(double x, double y, double z, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+			final double dx = x < minX ? minX - x : x > maxX ? x - maxX : 0;
+			final double dy = y < minY ? minY - y : y > maxY ? y - maxY : 0;
+			final double dz = z < minZ ? minZ - z : z > maxZ ? z - maxZ : 0;
+
+			return dx * dx + dy * dy + dz * dz;
+		}
+	}
+}
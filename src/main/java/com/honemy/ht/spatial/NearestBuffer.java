@@ -0,0 +1,143 @@
+package com.honemy.ht.spatial;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A bounded max heap keeping the closest values offered during a k-nearest query.
+ * <p>
+ * Each index owns one and reuses it, so queries only allocate when asked for more values than ever before.
+ */
+final class NearestBuffer {
+
+	/**
+	 * The values, as a heap whose root is the farthest.
+	 */
+	private Object[] values = new Object[16];
+
+	/**
+	 * The squared distances, at the index of their value.
+	 */
+	private double[] distances = new double[16];
+
+	/**
+	 * The amount of values.
+	 */
+	private int size;
+
+	/**
+	 * The maximum amount of values.
+	 */
+	private int limit;
+
+	/**
+	 * Empties the buffer for a new query.
+	 *
+	 * @param limit the maximum amount of values.
+	 */
+	void reset(int limit) {
+		if (limit > this.values.length) {
+			final int capacity = Math.max(limit, this.values.length << 1);
+
+			this.values = new Object[capacity];
+			this.distances = new double[capacity];
+		}
+
+		this.size = 0;
+		this.limit = limit;
+	}
+
+	/**
+	 * Returns the squared distance a value must be under to be kept.
+	 *
+	 * @return the squared distance, infinite until the buffer is full.
+	 */
+	double worst() {
+		return this.size < this.limit ? Double.POSITIVE_INFINITY : this.distances[0];
+	}
+
+	/**
+	 * Offers a value, kept if among the closest so far.
+	 *
+	 * @param value    the value.
+	 * @param distance the squared distance of the value.
+	 */
+	void offer(Object value, double distance) {
+		if (this.size < this.limit) {
+			int index = this.size++;
+
+			// Sift up
+			while (index > 0) {
+				final int parent = (index - 1) >>> 1;
+
+				if (this.distances[parent] >= distance)
+					break;
+
+				this.values[index] = this.values[parent];
+				this.distances[index] = this.distances[parent];
+				index = parent;
+			}
+
+			this.values[index] = value;
+			this.distances[index] = distance;
+
+		} else if (distance < this.distances[0])
+			this.siftDown(value, distance, this.size);
+	}
+
+	/**
+	 * Adds the values to a list, closest first, and empties the buffer.
+	 *
+	 * @param out the list.
+	 * @return the amount of values added.
+	 */
+	@SuppressWarnings("unchecked")
+	<T> int drainTo(List<? super T> out) {
+		final int count = this.size;
+
+		// Heap sort, moving the farthest value to the end each time
+		for (int end = count - 1; end > 0; end--) {
+			final Object value = this.values[end];
+			final double distance = this.distances[end];
+
+			this.values[end] = this.values[0];
+			this.distances[end] = this.distances[0];
+			this.siftDown(value, distance, end);
+		}
+
+		for (int i = 0; i < count; i++)
+			out.add((T) this.values[i]);
+
+		Arrays.fill(this.values, 0, count, null);
+		this.size = 0;
+
+		return count;
+	}
+
+	/**
+	 * Places a value at the root and moves it down to its place.
+	 *
+	 * @param value    the value.
+	 * @param distance the squared distance of the value.
+	 * @param size     the amount of values in the heap.
+	 */
+	private void siftDown(Object value, double distance, int size) {
+		int index = 0;
+		int child;
+
+		while ((child = (index << 1) + 1) < size) {
+			if (child + 1 < size && this.distances[child + 1] > this.distances[child])
+				child++;
+
+			if (this.distances[child] <= distance)
+				break;
+
+			this.values[index] = this.values[child];
+			this.distances[index] = this.distances[child];
+			index = child;
+		}
+
+		this.values[index] = value;
+		this.distances[index] = distance;
+	}
+}
@@ -0,0 +1,590 @@
+package com.honemy.ht.spatial;
+
+import com.honemy.ht.BlockKeys;
+import com.honemy.ht.Valid;
+import com.honemy.ht.collection.Long2ObjectMap;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A spatial index bucketing points into square columns of the world, by default one per chunk.
+ * <p>
+ * A query only visits the cells it overlaps, so its cost follows the amount of values around the point
+ * rather than the amount tracked. Moving a value inside its cell only updates its coordinates.
+ * Suited to many moving points such as players, mobs or markers. Values with a size, such as regions,
+ * fit better in an {@link AABBTree}.
+ *
+ * @param <T> the type of the values.
+ */
+public final class SpatialGrid<T> implements SpatialIndex<T> {
+
+	/**
+	 * The shift from block coordinates to cell coordinates.
+	 */
+	private final int cellShift;
+
+	/**
+	 * The width of a cell, in blocks.
+	 */
+	@Getter
+	private final int cellSize;
+
+	/**
+	 * The non empty cells by their packed coordinates.
+	 */
+	private final Long2ObjectMap<Cell<T>> cells = new Long2ObjectMap<>();
+
+	/**
+	 * The non empty cells, to scan them all when a query covers more cells than exist.
+	 */
+	private Cell<T>[] cellList = newCellArray(16);
+
+	/**
+	 * The amount of non empty cells.
+	 */
+	private int cellCount;
+
+	/**
+	 * The entries by their value.
+	 */
+	private final Map<T, Entry<T>> entries = new HashMap<>();
+
+	/**
+	 * The closest values of the running k-nearest query.
+	 */
+	private final NearestBuffer nearest = new NearestBuffer();
+
+	/**
+	 * The lowest cell x ever used since the last clear, bounding k-nearest searches.
+	 */
+	private int minCellX = Integer.MAX_VALUE;
+
+	/**
+	 * The highest cell x ever used since the last clear.
+	 */
+	private int maxCellX = Integer.MIN_VALUE;
+
+	/**
+	 * The lowest cell z ever used since the last clear.
+	 */
+	private int minCellZ = Integer.MAX_VALUE;
+
+	/**
+	 * The highest cell z ever used since the last clear.
+	 */
+	private int maxCellZ = Integer.MIN_VALUE;
+
+	/**
+	 * Creates a grid whose cells are chunks.
+	 */
+	public SpatialGrid() {
+		this(16);
+	}
+
+	/**
+	 * Creates a grid with the given cell size. Pick about the usual query radius.
+	 *
+	 * @param cellSize the width of a cell in blocks, a power of two.
+	 */
+	public SpatialGrid(int cellSize) {
+		Valid.checkBoolean(cellSize > 0 && (cellSize & (cellSize - 1)) == 0, "Cell size must be a power of two, got: %s", cellSize);
+
+		this.cellSize = cellSize;
+		this.cellShift = Integer.numberOfTrailingZeros(cellSize);
+	}
+
+	@Override
+	public int size() {
+		return this.entries.size();
+	}
+
+	@Override
+	public boolean contains(T value) {
+		return this.entries.containsKey(value);
+	}
+
+	@Override
+	public boolean insert(@NonNull T value, double x, double y, double z) {
+		final Entry<T> entry = this.entries.get(value);
+
+		if (entry != null) {
+			this.relocate(entry, x, y, z);
+
+			return false;
+		}
+
+		final Entry<T> created = new Entry<>(value, x, y, z);
+
+		this.entries.put(value, created);
+		this.cellAt(this.toCell(x), this.toCell(z)).add(created);
+
+		return true;
+	}
+
+	@Override
+	public boolean move(T value, double x, double y, double z) {
+		final Entry<T> entry = this.entries.get(value);
+
+		if (entry == null)
+			return false;
+
+		this.relocate(entry, x, y, z);
+
+		return true;
+	}
+
+	@Override
+	public boolean remove(T value) {
+		final Entry<T> entry = this.entries.remove(value);
+
+		if (entry == null)
+			return false;
+
+		this.detach(entry);
+
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		this.entries.clear();
+		this.cells.clear();
+		Arrays.fill(this.cellList, 0, this.cellCount, null);
+		this.cellCount = 0;
+		this.minCellX = this.minCellZ = Integer.MAX_VALUE;
+		this.maxCellX = this.maxCellZ = Integer.MIN_VALUE;
+	}
+
+	@Override
+	public int queryRadius(double x, double y, double z, double radius, @NonNull List<? super T> out) {
+		Valid.checkBooleanDouble(radius >= 0, "Radius cannot be negative, got: %s", radius);
+
+		final double radiusSquared = radius * radius;
+		final int fromX = this.toCell(x - radius), toX = this.toCell(x + radius);
+		final int fromZ = this.toCell(z - radius), toZ = this.toCell(z + radius);
+		int count = 0;
+
+		if (this.coversMoreThanExists(fromX, toX, fromZ, toZ)) {
+			for (int i = 0; i < this.cellCount; i++) {
+				final Cell<T> cell = this.cellList[i];
+
+				if (cell.x >= fromX && cell.x <= toX && cell.z >= fromZ && cell.z <= toZ)
+					count += cell.collectWithin(x, y, z, radiusSquared, out);
+			}
+
+			return count;
+		}
+
+		for (int cellX = fromX; cellX <= toX; cellX++)
+			for (int cellZ = fromZ; cellZ <= toZ; cellZ++) {
+				final Cell<T> cell = this.cells.get(BlockKeys.chunkKey(cellX, cellZ));
+
+				if (cell != null)
+					count += cell.collectWithin(x, y, z, radiusSquared, out);
+			}
+
+		return count;
+	}
+
+	@Override
+	public int queryBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, @NonNull List<? super T> out) {
+		final int fromX = this.toCell(minX), toX = this.toCell(maxX);
+		final int fromZ = this.toCell(minZ), toZ = this.toCell(maxZ);
+		int count = 0;
+
+		if (this.coversMoreThanExists(fromX, toX, fromZ, toZ)) {
+			for (int i = 0; i < this.cellCount; i++) {
+				final Cell<T> cell = this.cellList[i];
+
+				if (cell.x >= fromX && cell.x <= toX && cell.z >= fromZ && cell.z <= toZ)
+					count += cell.collectInside(minX, minY, minZ, maxX, maxY, maxZ, out);
+			}
+
+			return count;
+		}
+
+		for (int cellX = fromX; cellX <= toX; cellX++)
+			for (int cellZ = fromZ; cellZ <= toZ; cellZ++) {
+				final Cell<T> cell = this.cells.get(BlockKeys.chunkKey(cellX, cellZ));
+
+				if (cell != null)
+					count += cell.collectInside(minX, minY, minZ, maxX, maxY, maxZ, out);
+			}
+
+		return count;
+	}
+
+	@Override
+	public int nearest(double x, double y, double z, int count, @NonNull List<? super T> out) {
+		Valid.checkBooleanInt(count >= 0, "Count cannot be negative, got: %s", count);
+
+		final int limit = Math.min(count, this.entries.size());
+
+		if (limit == 0)
+			return 0;
+
+		final NearestBuffer nearest = this.nearest;
+		final int centerX = this.toCell(x), centerZ = this.toCell(z);
+		final long farthest = Math.max(
+				Math.max((long) centerX - this.minCellX, (long) this.maxCellX - centerX),
+				Math.max((long) centerZ - this.minCellZ, (long) this.maxCellZ - centerZ));
+		final int maxRing = (int) Math.min(farthest, Integer.MAX_VALUE / 2);
+
+		nearest.reset(limit);
+
+		// Search rings of cells around the point until no farther cell can hold a closer value
+		for (int ring = 0; ring <= maxRing; ring++) {
+			if (ring * 8L > this.cellCount) {
+				for (int i = 0; i < this.cellCount; i++) {
+					final Cell<T> cell = this.cellList[i];
+
+					if (Math.max(Math.abs(cell.x - centerX), Math.abs(cell.z - centerZ)) >= ring)
+						cell.offerTo(nearest, x, y, z);
+				}
+
+				break;
+			}
+
+			if (ring == 0)
+				this.offerCell(centerX, centerZ, x, y, z);
+
+			else {
+				for (int offset = -ring; offset <= ring; offset++) {
+					this.offerCell(centerX + offset, centerZ - ring, x, y, z);
+					this.offerCell(centerX + offset, centerZ + ring, x, y, z);
+				}
+
+				for (int offset = -ring + 1; offset < ring; offset++) {
+					this.offerCell(centerX - ring, centerZ + offset, x, y, z);
+					this.offerCell(centerX + ring, centerZ + offset, x, y, z);
+				}
+			}
+
+			final double reach = Math.min(
+					Math.min(x - ((double) (centerX - ring) * this.cellSize), ((double) (centerX + ring + 1) * this.cellSize) - x),
+					Math.min(z - ((double) (centerZ - ring) * this.cellSize), ((double) (centerZ + ring + 1) * this.cellSize) - z));
+
+			if (nearest.worst() <= reach * reach)
+				break;
+		}
+
+		return nearest.drainTo(out);
+	}
+
+	/**
+	 * Offers the values of a cell to the running k-nearest query.
+	 *
+	 * @param cellX the cell x.
+	 * @param cellZ the cell z.
+	 * @param x     the x coordinate of the query.
+	 * @param y     the y coordinate of the query.
+	 * @param z     the z coordinate of the query.
+	 */
+	private void offerCell(int cellX, int cellZ, double x, double y, double z) {
+		final Cell<T> cell = this.cells.get(BlockKeys.chunkKey(cellX, cellZ));
+
+		if (cell != null)
+			cell.offerTo(this.nearest, x, y, z);
+	}
+
+	/**
+	 * Checks if a range of cells is larger than the amount of non empty cells, in which case scanning
+	 * those is cheaper than looking each cell of the range up.
+	 *
+	 * @param fromX the lowest cell x.
+	 * @param toX   the highest cell x.
+	 * @param fromZ the lowest cell z.
+	 * @param toZ   the highest cell z.
+	 * @return true if the range is larger.
+	 */
+	private boolean coversMoreThanExists(int fromX, int toX, int fromZ, int toZ) {
+		return ((long) toX - fromX + 1) * ((long) toZ - fromZ + 1) > this.cellCount;
+	}
+
+	/**
+	 * Updates the position of an entry, changing its cell if needed.
+	 *
+	 * @param entry the entry.
+	 * @param x     the x coordinate.
+	 * @param y     the y coordinate.
+	 * @param z     the z coordinate.
+	 */
+	private void relocate(Entry<T> entry, double x, double y, double z) {
+		final int cellX = this.toCell(x), cellZ = this.toCell(z);
+
+		entry.x = x;
+		entry.y = y;
+		entry.z = z;
+
+		if (entry.cell.x != cellX || entry.cell.z != cellZ) {
+			this.detach(entry);
+			this.cellAt(cellX, cellZ).add(entry);
+		}
+	}
+
+	/**
+	 * Removes an entry from its cell, dropping the cell once empty.
+	 *
+	 * @param entry the entry.
+	 */
+	private void detach(Entry<T> entry) {
+		final Cell<T> cell = entry.cell;
+
+		cell.remove(entry);
+
+		if (cell.size == 0) {
+			this.cells.remove(BlockKeys.chunkKey(cell.x, cell.z));
+
+			final Cell<T> last = this.cellList[--this.cellCount];
+
+			this.cellList[cell.listIndex] = last;
+			last.listIndex = cell.listIndex;
+			this.cellList[this.cellCount] = null;
+		}
+	}
+
+	/**
+	 * Returns a cell, creating it if empty.
+	 *
+	 * @param cellX the cell x.
+	 * @param cellZ the cell z.
+	 * @return the cell.
+	 */
+	private Cell<T> cellAt(int cellX, int cellZ) {
+		final long key = BlockKeys.chunkKey(cellX, cellZ);
+		Cell<T> cell = this.cells.get(key);
+
+		if (cell == null) {
+			cell = new Cell<>(cellX, cellZ);
+
+			this.cells.put(key, cell);
+
+			if (this.cellCount == this.cellList.length)
+				this.cellList = Arrays.copyOf(this.cellList, this.cellCount << 1);
+
+			cell.listIndex = this.cellCount;
+			this.cellList[this.cellCount++] = cell;
+
+			this.minCellX = Math.min(this.minCellX, cellX);
+			this.maxCellX = Math.max(this.maxCellX, cellX);
+			this.minCellZ = Math.min(this.minCellZ, cellZ);
+			this.maxCellZ = Math.max(this.maxCellZ, cellZ);
+		}
+
+		return cell;
+	}
+
+	/**
+	 * Returns the cell coordinate of a block coordinate.
+	 *
+	 * @param coordinate the block coordinate.
+	 * @return the cell coordinate.
+	 */
+	private int toCell(double coordinate) {
+		return (int) Math.floor(coordinate) >> this.cellShift;
+	}
+
+	@Override
+	public String toString() {
+		return "SpatialGrid{size=" + this.entries.size() + ", cells=" + this.cellCount + ", cellSize=" + this.cellSize + "}";
+	}
+
+	/**
+	 * Creates an array of cells.
+	 *
+	 * @param length the length.
+	 * @param <T>    the type of the values.
+	 * @return the array.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> Cell<T>[] newCellArray(int length) {
+		return new Cell[length];
+	}
+
+	/**
+	 * A tracked value and its position.
+	 *
+	 * @param <T> the type of the value.
+	 */
+	private static final class Entry<T> {
+
+		/**
+		 * The value.
+		 */
+		private final T value;
+
+		/**
+		 * The x coordinate.
+		 */
+		private double x;
+
+		/**
+		 * The y coordinate.
+		 */
+		private double y;
+
+		/**
+		 * The z coordinate.
+		 */
+		private double z;
+
+		/**
+		 * The cell holding the entry.
+		 */
+		private Cell<T> cell;
+
+		/**
+		 * The index of the entry in its cell.
+		 */
+		private int index;
+
+		private Entry(T value, double x, double y, double z) {
+			this.value = value;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+	}
+
+	/**
+	 * A column of the grid and the entries in it.
+	 *
+	 * @param <T> the type of the values.
+	 */
+	private static final class Cell<T> {
+
+		/**
+		 * The cell x.
+		 */
+		private final int x;
+
+		/**
+		 * The cell z.
+		 */
+		private final int z;
+
+		/**
+		 * The entries, in no particular order.
+		 */
+		private Entry<T>[] entries;
+
+		/**
+		 * The amount of entries.
+		 */
+		private int size;
+
+		/**
+		 * The index of the cell in the cell list.
+		 */
+		private int listIndex;
+
+		@SuppressWarnings("unchecked")
+		private Cell(int x, int z) {
+			this.x = x;
+			this.z = z;
+			this.entries = new Entry[4];
+		}
+
+		/**
+		 * Adds an entry.
+		 *
+		 * @param entry the entry.
+		 */
+		private void add(Entry<T> entry) {
+			if (this.size == this.entries.length)
+				this.entries = Arrays.copyOf(this.entries, this.size << 1);
+
+			entry.cell = this;
+			entry.index = this.size;
+			this.entries[this.size++] = entry;
+		}
+
+		/**
+		 * Removes an entry, moving the last one to its index.
+		 *
+		 * @param entry the entry.
+		 */
+		private void remove(Entry<T> entry) {
+			final Entry<T> last = this.entries[--this.size];
+
+			this.entries[entry.index] = last;
+			last.index = entry.index;
+			this.entries[this.size] = null;
+		}
+
+		/**
+		 * Adds the values within a squared distance of a point to a list.
+		 *
+		 * @param x             the x coordinate.
+		 * @param y             the y coordinate.
+		 * @param z             the z coordinate.
+		 * @param radiusSquared the squared distance.
+		 * @param out           the list.
+		 * @return the amount of values added.
+		 */
+		private int collectWithin(double x, double y, double z, double radiusSquared, List<? super T> out) {
+			int count = 0;
+
+			for (int i = 0; i < this.size; i++) {
+				final Entry<T> entry = this.entries[i];
+				final double dx = entry.x - x, dy = entry.y - y, dz = entry.z - z;
+
+				if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+					out.add(entry.value);
+					count++;
+				}
+			}
+
+			return count;
+		}
+
+		/**
+		 * Adds the values inside a box to a list.
+		 *
+		 * @param minX the lowest x coordinate.
+		 * @param minY the lowest y coordinate.
+		 * @param minZ the lowest z coordinate.
+		 * @param maxX the highest x coordinate.
+		 * @param maxY the highest y coordinate.
+		 * @param maxZ the highest z coordinate.
+		 * @param out  the list.
+		 * @return the amount of values added.
+		 */
+		private int collectInside(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, List<? super T> out) {
+			int count = 0;
+
+			for (int i = 0; i < this.size; i++) {
+				final Entry<T> entry = this.entries[i];
+
+				if (entry.x >= minX && entry.x <= maxX && entry.y >= minY && entry.y <= maxY && entry.z >= minZ && entry.z <= maxZ) {
+					out.add(entry.value);
+					count++;
+				}
+			}
+
+			return count;
+		}
+
+		/**
+		 * Offers the values to a k-nearest query.
+		 *
+		 * @param nearest the closest values so far.
+		 * @param x       the x coordinate of the query.
+		 * @param y       the y coordinate of the query.
+		 * @param z       the z coordinate of the query.
+		 */
+		private void offerTo(NearestBuffer nearest, double x, double y, double z) {
+			for (int i = 0; i < this.size; i++) {
+				final Entry<T> entry = this.entries[i];
+				final double dx = entry.x - x, dy = entry.y - y, dz = entry.z - z;
+
+				nearest.offer(entry.value, dx * dx + dy * dy + dz * dz);
+			}
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.honemy.ht.spatial;
+
+import lombok.NonNull;
+import org.bukkit.Location;
+
+import java.util.List;
+
+/**
+ * Tracks values at positions and finds the ones near a point without checking them all.
+ * <p>
+ * Positions do not include the world, use one index per world. Queries add their results to a list given by
+ * the caller, which can be cleared and reused every tick so that queries allocate nothing.
+ * Implementations are not thread safe.
+ *
+ * @param <T> the type of the values.
+ */
+public interface SpatialIndex<T> {
+
+	/**
+	 * Returns the amount of tracked values.
+	 *
+	 * @return the size.
+	 */
+	int size();
+
+	/**
+	 * Checks if a value is tracked.
+	 *
+	 * @param value the value.
+	 * @return true if tracked.
+	 */
+	boolean contains(T value);
+
+	/**
+	 * Tracks a value at a point, or moves it there if already tracked.
+	 *
+	 * @param value the value.
+	 * @param x     the x coordinate.
+	 * @param y     the y coordinate.
+	 * @param z     the z coordinate.
+	 * @return true if the value was not tracked before.
+	 */
+	boolean insert(T value, double x, double y, double z);
+
+	/**
+	 * Tracks a value at a location, or moves it there if already tracked.
+	 *
+	 * @param value    the value.
+	 * @param location the location, its world is ignored.
+	 * @return true if the value was not tracked before.
+	 */
+	default boolean insert(T value, @NonNull Location location) {
+		return this.insert(value, location.getX(), location.getY(), location.getZ());
+	}
+
+	/**
+	 * Moves a tracked value to a point.
+	 *
+	 * @param value the value.
+	 * @param x     the x coordinate.
+	 * @param y     the y coordinate.
+	 * @param z     the z coordinate.
+	 * @return true if the value was tracked, false if nothing changed.
+	 */
+	boolean move(T value, double x, double y, double z);
+
+	/**
+	 * Moves a tracked value to a location.
+	 *
+	 * @param value    the value.
+	 * @param location the location, its world is ignored.
+	 * @return true if the value was tracked, false if nothing changed.
+	 */
+	default boolean move(T value, @NonNull Location location) {
+		return this.move(value, location.getX(), location.getY(), location.getZ());
+	}
+
+	/**
+	 * Stops tracking a value.
+	 *
+	 * @param value the value.
+	 * @return true if the value was tracked.
+	 */
+	boolean remove(T value);
+
+	/**
+	 * Stops tracking all values.
+	 */
+	void clear();
+
+	/**
+	 * Finds the values within a distance of a point.
+	 *
+	 * @param x      the x coordinate.
+	 * @param y      the y coordinate.
+	 * @param z      the z coordinate.
+	 * @param radius the distance.
+	 * @param out    the list the values are added to, in no particular order.
+	 * @return the amount of values added.
+	 */
+	int queryRadius(double x, double y, double z, double radius, List<? super T> out);
+
+	/**
+	 * Finds the values within a distance of a location.
+	 *
+	 * @param location the location, its world is ignored.
+	 * @param radius   the distance.
+	 * @param out      the list the values are added to, in no particular order.
+	 * @return the amount of values added.
+	 */
+	default int queryRadius(@NonNull Location location, double radius, List<? super T> out) {
+		return this.queryRadius(location.getX(), location.getY(), location.getZ(), radius, out);
+	}
+
+	/**
+	 * Finds the values inside a box, bounds included.
+	 *
+	 * @param minX the lowest x coordinate.
+	 * @param minY the lowest y coordinate.
+	 * @param minZ the lowest z coordinate.
+	 * @param maxX the highest x coordinate.
+	 * @param maxY the highest y coordinate.
+	 * @param maxZ the highest z coordinate.
+	 * @param out  the list the values are added to, in no particular order.
+	 * @return the amount of values added.
+	 */
+	int queryBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, List<? super T> out);
+
+	/**
+	 * Finds the values closest to a point.
+	 *
+	 * @param x     the x coordinate.
+	 * @param y     the y coordinate.
+	 * @param z     the z coordinate.
+	 * @param count the maximum amount of values.
+	 * @param out   the list the values are added to, closest first.
+	 * @return the amount of values added.
+	 */
+	int nearest(double x, double y, double z, int count, List<? super T> out);
+
+	/**
+	 * Finds the values closest to a location.
+	 *
+	 * @param location the location, its world is ignored.
+	 * @param count    the maximum amount of values.
+	 * @param out      the list the values are added to, closest first.
+	 * @return the amount of values added.
+	 */
+	default int nearest(@NonNull Location location, int count, List<? super T> out) {
+		return this.nearest(location.getX(), location.getY(), location.getZ(), count, out);
+	}
+}
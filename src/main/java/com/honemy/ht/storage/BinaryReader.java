@@ -0,0 +1,274 @@
+package com.honemy.ht.storage;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Reads values written by a {@link BinaryWriter}, from a byte array, in the order they were written.
+ */
+public final class BinaryReader {
+
+	/**
+	 * The bytes read.
+	 */
+	private final byte[] buffer;
+
+	/**
+	 * The index the bytes end before.
+	 */
+	private final int limit;
+
+	/**
+	 * The index of the next byte read.
+	 */
+	@Getter
+	private int position;
+
+	/**
+	 * Creates a reader of all the given bytes.
+	 *
+	 * @param buffer the bytes.
+	 */
+	public BinaryReader(@NonNull byte[] buffer) {
+		this(buffer, 0, buffer.length);
+	}
+
+	/**
+	 * Creates a reader of a range of the given bytes.
+	 *
+	 * @param buffer the bytes.
+	 * @param offset the index of the first byte read.
+	 * @param length the amount of bytes that can be read.
+	 */
+	public BinaryReader(@NonNull byte[] buffer, int offset, int length) {
+		this.buffer = buffer;
+		this.position = offset;
+		this.limit = offset + length;
+	}
+
+	/**
+	 * Returns the amount of bytes left.
+	 *
+	 * @return the remaining bytes.
+	 */
+	public int remaining() {
+		return this.limit - this.position;
+	}
+
+	/**
+	 * Reads a byte.
+	 *
+	 * @return the byte.
+	 * @throws IOException if there are no bytes left.
+	 */
+	public byte readByte() throws IOException {
+		this.require(1);
+
+		return this.buffer[this.position++];
+	}
+
+	/**
+	 * Reads a boolean.
+	 *
+	 * @return the boolean.
+	 * @throws IOException if there are no bytes left.
+	 */
+	public boolean readBoolean() throws IOException {
+		return this.readByte() != 0;
+	}
+
+	/**
+	 * Reads an unsigned varint.
+	 *
+	 * @return the int.
+	 * @throws IOException if the bytes end or the varint is longer than 5 bytes.
+	 */
+	public int readVarInt() throws IOException {
+		int value = 0;
+
+		for (int shift = 0; shift < 35; shift += 7) {
+			final byte read = this.readByte();
+
+			value |= (read & 0x7F) << shift;
+
+			if ((read & 0x80) == 0)
+				return value;
+		}
+
+		throw new IOException("Varint is longer than 5 bytes");
+	}
+
+	/**
+	 * Reads a zigzag encoded varint.
+	 *
+	 * @return the int.
+	 * @throws IOException if the bytes end or the varint is longer than 5 bytes.
+	 */
+	public int readSignedVarInt() throws IOException {
+		final int value = this.readVarInt();
+
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Reads an unsigned varint long.
+	 *
+	 * @return the long.
+	 * @throws IOException if the bytes end or the varint is longer than 10 bytes.
+	 */
+	public long readVarLong() throws IOException {
+		long value = 0;
+
+		for (int shift = 0; shift < 70; shift += 7) {
+			final byte read = this.readByte();
+
+			value |= (long) (read & 0x7F) << shift;
+
+			if ((read & 0x80) == 0)
+				return value;
+		}
+
+		throw new IOException("Varlong is longer than 10 bytes");
+	}
+
+	/**
+	 * Reads a zigzag encoded varint long.
+	 *
+	 * @return the long.
+	 * @throws IOException if the bytes end or the varint is longer than 10 bytes.
+	 */
+	public long readSignedVarLong() throws IOException {
+		final long value = this.readVarLong();
+
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Reads a 4 byte big endian int.
+	 *
+	 * @return the int.
+	 * @throws IOException if less than 4 bytes are left.
+	 */
+	public int readInt() throws IOException {
+		this.require(4);
+
+		final byte[] b = this.buffer;
+		final int p = this.position;
+
+		this.position += 4;
+
+		return (b[p] & 0xFF) << 24 | (b[p + 1] & 0xFF) << 16 | (b[p + 2] & 0xFF) << 8 | (b[p + 3] & 0xFF);
+	}
+
+	/**
+	 * Reads an 8 byte big endian long.
+	 *
+	 * @return the long.
+	 * @throws IOException if less than 8 bytes are left.
+	 */
+	public long readLong() throws IOException {
+		this.require(8);
+
+		long value = 0;
+
+		for (int i = 0; i < 8; i++)
+			value = value << 8 | (this.buffer[this.position++] & 0xFF);
+
+		return value;
+	}
+
+	/**
+	 * Reads a double.
+	 *
+	 * @return the double.
+	 * @throws IOException if less than 8 bytes are left.
+	 */
+	public double readDouble() throws IOException {
+		return Double.longBitsToDouble(this.readLong());
+	}
+
+	/**
+	 * Reads a UUID written as two longs.
+	 *
+	 * @return the UUID.
+	 * @throws IOException if less than 16 bytes are left.
+	 */
+	public UUID readUUID() throws IOException {
+		return new UUID(this.readLong(), this.readLong());
+	}
+
+	/**
+	 * Reads a string written as its UTF-8 length and bytes.
+	 *
+	 * @return the string.
+	 * @throws IOException if the bytes end before the string.
+	 */
+	public String readString() throws IOException {
+		final int length = this.readLength();
+		final String value = new String(this.buffer, this.position, length, StandardCharsets.UTF_8);
+
+		this.position += length;
+
+		return value;
+	}
+
+	/**
+	 * Reads bytes written with their length.
+	 *
+	 * @return the bytes.
+	 * @throws IOException if the bytes end before them.
+	 */
+	public byte[] readBytes() throws IOException {
+		final int length = this.readLength();
+		final byte[] bytes = new byte[length];
+
+		System.arraycopy(this.buffer, this.position, bytes, 0, length);
+		this.position += length;
+
+		return bytes;
+	}
+
+	/**
+	 * Skips bytes.
+	 *
+	 * @param length the amount of bytes skipped.
+	 * @throws IOException if less bytes are left.
+	 */
+	public void skip(int length) throws IOException {
+		this.require(length);
+		this.position += length;
+	}
+
+	/**
+	 * Reads a length prefix and checks that many bytes are left.
+	 *
+	 * @return the length.
+	 * @throws IOException if the length is negative or more than the bytes left.
+	 */
+	private int readLength() throws IOException {
+		final int length = this.readVarInt();
+
+		if (length < 0)
+			throw new IOException("Negative length " + length);
+
+		this.require(length);
+
+		return length;
+	}
+
+	/**
+	 * Checks the given amount of bytes are left.
+	 *
+	 * @param length the amount of bytes.
+	 * @throws EOFException if less bytes are left.
+	 */
+	private void require(int length) throws EOFException {
+		if (length > this.limit - this.position)
+			throw new EOFException("Needed " + length + " bytes, " + (this.limit - this.position) + " left");
+	}
+}
@@ -0,0 +1,262 @@
+package com.honemy.ht.storage;
+
+import lombok.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Writes values in the compact binary format of the {@link PlayerDataStore}, to a growing byte array.
+ * <ul>
+ *     <li>Whole numbers are varints: 7 bits per byte, so small values take a single byte.</li>
+ *     <li>Signed varints are zigzag encoded first, so small negative values stay small.</li>
+ *     <li>Strings are their UTF-8 length as a varint followed by the bytes.</li>
+ *     <li>UUIDs are two fixed 8 byte longs.</li>
+ * </ul>
+ * Read the values back in the same order with a {@link BinaryReader}.
+ */
+public final class BinaryWriter {
+
+	/**
+	 * The written bytes, followed by unused capacity.
+	 */
+	private byte[] buffer;
+
+	/**
+	 * The amount of written bytes.
+	 */
+	private int size;
+
+	/**
+	 * Creates a writer with the default capacity.
+	 */
+	public BinaryWriter() {
+		this(64);
+	}
+
+	/**
+	 * Creates a writer with the given capacity, growing as needed.
+	 *
+	 * @param capacity the initial capacity, in bytes.
+	 */
+	public BinaryWriter(int capacity) {
+		this.buffer = new byte[Math.max(capacity, 16)];
+	}
+
+	/**
+	 * Writes a byte.
+	 *
+	 * @param value the byte.
+	 * @return this writer.
+	 */
+	public BinaryWriter writeByte(int value) {
+		this.ensureCapacity(1);
+		this.buffer[this.size++] = (byte) value;
+
+		return this;
+	}
+
+	/**
+	 * Writes a boolean as a byte.
+	 *
+	 * @param value the boolean.
+	 * @return this writer.
+	 */
+	public BinaryWriter writeBoolean(boolean value) {
+		return this.writeByte(value ? 1 : 0);
+	}
+
+	/**
+	 * Writes an int as an unsigned varint, taking 1 byte below 128 and up to 5 bytes.
+	 * Negative values take 5 bytes, use {@link #writeSignedVarInt(int)} for them.
+	 *
+	 * @param value the int.
+	 * @return this writer.
+	 */
+	public BinaryWriter writeVarInt(int value) {
+		this.ensureCapacity(5);
+
+		while ((value & ~0x7F) != 0) {
+			this.buffer[this.size++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		this.buffer[this.size++] = (byte) value;
+
+		return this;
+	}
+
+	/**
+	 * Writes an int as a zigzag encoded varint, so small negative values take few bytes.
+	 *
+	 * @param value the int.
+	 * @return this writer.
+	 */
+	public BinaryWriter writeSignedVarInt(int value) {
+		return this.writeVarInt((value << 1) ^ (value >> 31));
+	}
+
+	/**
+	 * Writes a long as an unsigned varint, taking 1 byte below 128 and up to 10 bytes.
+	 * Negative values take 10 bytes, use {@link #writeSignedVarLong(long)} for them.
+	 *
+	 * @param value the long.
+	 * @return this writer.
+	 */
+	public BinaryWriter writeVarLong(long value) {
+		this.ensureCapacity(10);
+
+		while ((value & ~0x7FL) != 0) {
+			this.buffer[this.size++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		this.buffer[this.size++] = (byte) value;
+
+		return this;
+	}
+
+	/**
+	 * Writes a long as a zigzag encoded varint, so small negative values take few bytes.
+	 *
+	 * @param value the long.
+	 * @return this writer.
+	 */
+	public BinaryWriter writeSignedVarLong(long value) {
+		return this.writeVarLong((value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * Writes an int as 4 bytes, big endian.
+	 *
+	 * @param value the int.
+	 * @return this writer.
+	 */
+	public BinaryWriter writeInt(int value) {
+		this.ensureCapacity(4);
+		this.buffer[this.size++] = (byte) (value >>> 24);
+		this.buffer[this.size++] = (byte) (value >>> 16);
+		this.buffer[this.size++] = (byte) (value >>> 8);
+		this.buffer[this.size++] = (byte) value;
+
+		return this;
+	}
+
+	/**
+	 * Writes a long as 8 bytes, big endian.
+	 *
+	 * @param value the long.
+	 * @return this writer.
+	 */
+	public BinaryWriter writeLong(long value) {
+		this.ensureCapacity(8);
+
+		for (int shift = 56; shift >= 0; shift -= 8)
+			this.buffer[this.size++] = (byte) (value >>> shift);
+
+		return this;
+	}
+
+	/**
+	 * Writes a double as its 8 byte IEEE 754 representation.
+	 *
+	 * @param value the double.
+	 * @return this writer.
+	 */
+	public BinaryWriter writeDouble(double value) {
+		return this.writeLong(Double.doubleToRawLongBits(value));
+	}
+
+	/**
+	 * Writes a UUID as two longs.
+	 *
+	 * @param uuid the UUID.
+	 * @return this writer.
+	 */
+	public BinaryWriter writeUUID(@NonNull UUID uuid) {
+		return this.writeLong(uuid.getMostSignificantBits()).writeLong(uuid.getLeastSignificantBits());
+	}
+
+	/**
+	 * Writes a string as its UTF-8 length followed by its UTF-8 bytes.
+	 *
+	 * @param value the string.
+	 * @return this writer.
+	 */
+	public BinaryWriter writeString(@NonNull String value) {
+		return this.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Writes bytes prefixed with their length.
+	 *
+	 * @param bytes the bytes.
+	 * @return this writer.
+	 */
+	public BinaryWriter writeBytes(@NonNull byte[] bytes) {
+		this.writeVarInt(bytes.length);
+
+		return this.writeRaw(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Writes bytes as they are, without their length.
+	 *
+	 * @param bytes  the bytes.
+	 * @param offset the index of the first byte written.
+	 * @param length the amount of bytes written.
+	 * @return this writer.
+	 */
+	public BinaryWriter writeRaw(@NonNull byte[] bytes, int offset, int length) {
+		this.ensureCapacity(length);
+		System.arraycopy(bytes, offset, this.buffer, this.size, length);
+		this.size += length;
+
+		return this;
+	}
+
+	/**
+	 * Returns the amount of written bytes.
+	 *
+	 * @return the size, in bytes.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Forgets the written bytes, keeping the capacity.
+	 */
+	public void clear() {
+		this.size = 0;
+	}
+
+	/**
+	 * Returns a copy of the written bytes.
+	 *
+	 * @return the bytes.
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(this.buffer, this.size);
+	}
+
+	/**
+	 * Returns the internal buffer, valid up to {@link #size()} and until the next write.
+	 *
+	 * @return the buffer.
+	 */
+	byte[] getBuffer() {
+		return this.buffer;
+	}
+
+	/**
+	 * Grows the buffer so it fits the given amount of additional bytes.
+	 *
+	 * @param additional the amount of bytes about to be written.
+	 */
+	private void ensureCapacity(int additional) {
+		if (this.size + additional > this.buffer.length)
+			this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length << 1, this.size + additional));
+	}
+}
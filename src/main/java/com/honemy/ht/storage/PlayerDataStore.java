@@ -0,0 +1,829 @@
+package com.honemy.ht.storage;
+
+import com.honemy.ht.Valid;
+import com.honemy.ht.exception.HtException;
+import com.honemy.ht.logger.ModernLogger;
+import com.honemy.ht.plugin.ModernPlugin;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded key-value store of per-player data in a single file of the data folder.
+ * <p>
+ * Values are stored in a compact binary format defined by a {@link RecordCodec}. The file is an append-only
+ * log of records, each being its length, a put or delete marker, the player UUID, the value and a CRC32
+ * checksum. An index in memory maps each player to the position of their latest value, so loading a player
+ * reads a single record. A log cut short by a crash is truncated after its last complete record when opened,
+ * the dropped bytes being copied to {@code <name>.db.corrupt-<position>}. A log with a corrupted record
+ * followed by valid ones is not opened, so no data is lost.
+ * <p>
+ * Writes are cached: {@link #put(UUID, Object)} encodes the value at once and returns, and the pending values
+ * are appended in a single write on a background thread every flush interval. Once most of the log is
+ * overwritten values, it is compacted into a new file holding only the latest values, which then replaces it.
+ * <p>
+ * Call {@link #close()} in {@link ModernPlugin#onPluginStop()} to write the last pending values.
+ *
+ * @param <V> the type of the values.
+ */
+public final class PlayerDataStore<V> {
+
+	/**
+	 * The first bytes of a store file, "HTKV".
+	 */
+	private static final int MAGIC = 0x48544B56;
+
+	/**
+	 * The version of the file format.
+	 */
+	private static final byte FORMAT_VERSION = 1;
+
+	/**
+	 * The size of the magic and version at the start of the file.
+	 */
+	private static final int HEADER_SIZE = 5;
+
+	/**
+	 * The marker of a record storing a value.
+	 */
+	private static final byte PUT = 1;
+
+	/**
+	 * The marker of a record deleting a value.
+	 */
+	private static final byte DELETE = 2;
+
+	/**
+	 * The size of the marker and UUID before the value of a record.
+	 */
+	private static final int KEY_SIZE = 17;
+
+	/**
+	 * The smallest log compacted, in bytes, so small stores are never rewritten.
+	 */
+	private static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+
+	/**
+	 * The size of the chunks written while compacting, in bytes.
+	 */
+	private static final int COMPACTION_CHUNK_SIZE = 256 * 1024;
+
+	/**
+	 * The pending value of deleted players, compared by identity.
+	 */
+	private static final byte[] TOMBSTONE = new byte[0];
+
+	/**
+	 * The pool values are loaded on by {@link #load(UUID)}.
+	 */
+	private final Executor loadExecutor;
+
+	/**
+	 * The log file.
+	 */
+	@Getter
+	private final Path file;
+
+	/**
+	 * Converts the values to and from bytes.
+	 */
+	private final RecordCodec<V> codec;
+
+	/**
+	 * The position of the latest value of each player in the log.
+	 */
+	private final Map<UUID, Location> index = new ConcurrentHashMap<>();
+
+	/**
+	 * The values loaded or stored since they were last unloaded.
+	 */
+	private final Map<UUID, V> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * The encoded values not yet written to the log, or {@link #TOMBSTONE} for deleted players.
+	 */
+	private final Map<UUID, byte[]> pending = new ConcurrentHashMap<>();
+
+	/**
+	 * Held to read the log, and exclusively to replace it with a compacted one.
+	 */
+	private final ReadWriteLock channelLock = new ReentrantReadWriteLock();
+
+	/**
+	 * Held while appending to or compacting the log, so only one thread writes it.
+	 */
+	private final Object writeLock = new Object();
+
+	/**
+	 * The open log.
+	 */
+	private FileChannel channel;
+
+	/**
+	 * The size of the log, written under the write lock.
+	 */
+	private volatile long fileSize;
+
+	/**
+	 * The bytes of the records holding the latest values, written under the write lock.
+	 */
+	private volatile long liveBytes;
+
+	/**
+	 * The task flushing pending values every interval.
+	 */
+	private final ScheduledFuture<?> flushTask;
+
+	/**
+	 * Whether the store was closed.
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * Opens a store, package private so tests can open one without a plugin.
+	 *
+	 * @param file                the log file, created if missing.
+	 * @param codec               converts the values to and from bytes.
+	 * @param flushScheduler      the pool flushing pending values.
+	 * @param loadExecutor        the pool values are loaded on by {@link #load(UUID)}.
+	 * @param flushIntervalMillis how often pending values are written, in milliseconds.
+	 * @throws IOException if the file cannot be read, is not a store, or is corrupted.
+	 */
+	PlayerDataStore(Path file, RecordCodec<V> codec, ScheduledExecutorService flushScheduler, Executor loadExecutor, long flushIntervalMillis) throws IOException {
+		this.loadExecutor = loadExecutor;
+		this.file = file;
+		this.codec = codec;
+
+		Files.createDirectories(file.getParent());
+
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			this.replay();
+		} catch (IOException | RuntimeException e) {
+			this.channel.close();
+
+			throw e;
+		}
+
+		this.flushTask = flushScheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Opens a store in the data folder, flushing pending values every 5 seconds.
+	 *
+	 * @param plugin the plugin owning the store.
+	 * @param name   the name of the store, its file being {@code <name>.db} in the data folder.
+	 * @param codec  converts the values to and from bytes.
+	 * @param <V>    the type of the values.
+	 * @return the store.
+	 * @throws HtException if the file cannot be read or is not a store.
+	 */
+	public static <V> PlayerDataStore<V> open(@NonNull ModernPlugin plugin, @NonNull String name, @NonNull RecordCodec<V> codec) {
+		return open(plugin, name, codec, 5, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Opens a store in the data folder.
+	 *
+	 * @param plugin        the plugin owning the store.
+	 * @param name          the name of the store, its file being {@code <name>.db} in the data folder.
+	 * @param codec         converts the values to and from bytes.
+	 * @param flushInterval how often pending values are written.
+	 * @param unit          the unit of the interval.
+	 * @param <V>           the type of the values.
+	 * @return the store.
+	 * @throws HtException if the file cannot be read or is not a store.
+	 */
+	public static <V> PlayerDataStore<V> open(@NonNull ModernPlugin plugin, @NonNull String name, @NonNull RecordCodec<V> codec, long flushInterval, @NonNull TimeUnit unit) {
+		Valid.checkBoolean(unit.toMillis(flushInterval) > 0, "Flush interval must be at least 1 ms, got: %s", flushInterval);
+
+		final Path file = plugin.getDataFolder().toPath().resolve(name + ".db");
+
+		try {
+			return new PlayerDataStore<>(file, codec, plugin.getExecutors().getScheduled(), plugin.getExecutors().getIo(), unit.toMillis(flushInterval));
+		} catch (IOException e) {
+			throw new HtException(e, "Failed to open data store " + file);
+		}
+	}
+
+	/**
+	 * Returns the value of a player, reading it from the log if it is not loaded.
+	 * Reading a single record takes microseconds, but can be done off the main thread with {@link #load(UUID)}.
+	 *
+	 * @param uuid the player.
+	 * @return the value, or null if the player has none.
+	 * @throws HtException if the value cannot be read.
+	 */
+	public V get(@NonNull UUID uuid) {
+		final V cached = this.cache.get(uuid);
+
+		if (cached != null)
+			return cached;
+
+		try {
+			final byte[] encoded = this.pending.get(uuid);
+
+			if (encoded == TOMBSTONE)
+				return null;
+
+			final V value = encoded != null ? this.decode(encoded) : this.read(uuid);
+
+			if (value == null)
+				return null;
+
+			final V previous = this.cache.putIfAbsent(uuid, value);
+
+			if (previous != null)
+				return previous;
+
+			// The value may have been removed while it was read, remove() marks it before clearing the cache
+			if (this.pending.get(uuid) == TOMBSTONE) {
+				this.cache.remove(uuid, value);
+
+				return null;
+			}
+
+			return value;
+		} catch (IOException e) {
+			throw new HtException(e, "Failed to read the data of " + uuid + " from " + this.file);
+		}
+	}
+
+	/**
+	 * Loads the value of a player on the I/O pool, for example when they log in.
+	 *
+	 * @param uuid the player.
+	 * @return a future completed with the value, or null if the player has none.
+	 */
+	public CompletableFuture<V> load(@NonNull UUID uuid) {
+		return CompletableFuture.supplyAsync(() -> this.get(uuid), this.loadExecutor);
+	}
+
+	/**
+	 * Checks if a player has a value.
+	 *
+	 * @param uuid the player.
+	 * @return true if the player has a value.
+	 */
+	public boolean contains(@NonNull UUID uuid) {
+		final byte[] encoded = this.pending.get(uuid);
+
+		return encoded != null ? encoded != TOMBSTONE : this.index.containsKey(uuid);
+	}
+
+	/**
+	 * Stores the value of a player. The value is encoded at once, so later changes to it are not stored
+	 * unless it is put again, and written to the log by the next flush.
+	 *
+	 * @param uuid  the player.
+	 * @param value the value.
+	 */
+	public void put(@NonNull UUID uuid, @NonNull V value) {
+		this.checkOpen();
+
+		final BinaryWriter out = new BinaryWriter();
+
+		this.codec.write(out, value);
+		this.cache.put(uuid, value);
+		this.pending.put(uuid, out.toByteArray());
+	}
+
+	/**
+	 * Deletes the value of a player, written to the log by the next flush.
+	 *
+	 * @param uuid the player.
+	 */
+	public void remove(@NonNull UUID uuid) {
+		this.checkOpen();
+
+		this.pending.put(uuid, TOMBSTONE);
+		this.cache.remove(uuid);
+	}
+
+	/**
+	 * Forgets the loaded value of a player, for example when they quit, to free memory.
+	 * A value stored but not yet written is still written.
+	 *
+	 * @param uuid the player.
+	 */
+	public void unload(@NonNull UUID uuid) {
+		this.cache.remove(uuid);
+	}
+
+	/**
+	 * Returns the amount of values waiting to be written.
+	 *
+	 * @return the amount of pending values.
+	 */
+	public int getPendingCount() {
+		return this.pending.size();
+	}
+
+	/**
+	 * Returns the size of the log.
+	 *
+	 * @return the size, in bytes.
+	 */
+	public long getFileSize() {
+		return this.fileSize;
+	}
+
+	/**
+	 * Writes the pending values to the log in a single write, then compacts the log if most of it is overwritten values.
+	 * Called every flush interval, values that fail to be written are retried by the next flush.
+	 *
+	 * @return true if all pending values were written.
+	 */
+	public boolean flush() {
+		synchronized (this.writeLock) {
+			if (this.channel == null || !this.channel.isOpen())
+				return this.pending.isEmpty();
+
+			try {
+				this.append();
+
+				if (this.fileSize > MIN_COMPACTION_SIZE && this.fileSize > this.liveBytes * 2)
+					this.compact();
+
+				return true;
+			} catch (IOException e) {
+				ModernLogger.log(Level.WARNING, e, "Failed to write " + this.pending.size() + " values to " + this.file + ", retrying at the next flush");
+
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Writes the pending values and closes the log. The store cannot be changed afterwards.
+	 */
+	public void close() {
+		this.closed = true;
+		this.flushTask.cancel(false);
+		this.flush();
+
+		synchronized (this.writeLock) {
+			this.channelLock.writeLock().lock();
+
+			try {
+				this.channel.close();
+			} catch (IOException e) {
+				ModernLogger.log(Level.WARNING, e, "Failed to close " + this.file);
+			} finally {
+				this.channelLock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Reads the log into the index, truncating an incomplete or corrupted last record.
+	 *
+	 * @throws IOException if the file cannot be read, is not a store, or has a corrupted record followed by valid ones.
+	 */
+	private void replay() throws IOException {
+		final long size = this.channel.size();
+
+		if (size == 0) {
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put(FORMAT_VERSION);
+
+			header.flip();
+			this.writeFully(header, 0);
+			this.fileSize = HEADER_SIZE;
+
+			return;
+		}
+
+		Valid.checkBoolean(size <= Integer.MAX_VALUE, "Data store %s is larger than 2 GB", this.file);
+
+		final ByteBuffer contents = ByteBuffer.allocate((int) size);
+
+		while (contents.hasRemaining())
+			if (this.channel.read(contents, contents.position()) < 0)
+				throw new IOException("Unexpected end of " + this.file);
+
+		final byte[] bytes = contents.array();
+		final BinaryReader in = new BinaryReader(bytes);
+
+		if (size < HEADER_SIZE || in.readInt() != MAGIC || in.readByte() != FORMAT_VERSION)
+			throw new IOException(this.file + " is not a data store of format version " + FORMAT_VERSION);
+
+		final CRC32 crc = new CRC32();
+		long live = 0;
+
+		while (in.remaining() > 0) {
+			final int start = in.getPosition();
+
+			try {
+				final int bodyLength = in.readVarInt();
+				final int bodyStart = in.getPosition();
+
+				if (bodyLength < KEY_SIZE)
+					throw new IOException("Record is too short");
+
+				in.skip(bodyLength);
+
+				crc.reset();
+				crc.update(bytes, bodyStart, bodyLength);
+
+				if (in.readInt() != (int) crc.getValue())
+					throw new IOException("Record checksum does not match");
+
+				final BinaryReader body = new BinaryReader(bytes, bodyStart, KEY_SIZE);
+				final byte type = body.readByte();
+				final UUID uuid = body.readUUID();
+				final Location previous = type == PUT
+						? this.index.put(uuid, new Location(bodyStart + KEY_SIZE, bodyLength - KEY_SIZE, in.getPosition() - start))
+						: this.index.remove(uuid);
+
+				if (previous != null)
+					live -= previous.recordLength;
+
+				if (type == PUT)
+					live += in.getPosition() - start;
+			} catch (IOException e) {
+				this.dropTail(bytes, start, e);
+				this.fileSize = start;
+				this.liveBytes = live;
+
+				return;
+			}
+		}
+
+		this.fileSize = size;
+		this.liveBytes = live;
+	}
+
+	/**
+	 * Truncates the log before a bad record cut short by a crash, keeping a copy of the dropped bytes
+	 * unless they are zeros, as left by a crash after the file grew but before the record was written.
+	 *
+	 * @param bytes the contents of the log.
+	 * @param start the position of the bad record.
+	 * @param cause the error reading the bad record.
+	 * @throws IOException if a valid record follows the bad one, meaning the log is corrupted rather than cut short.
+	 */
+	private void dropTail(byte[] bytes, int start, IOException cause) throws IOException {
+		final int dropped = bytes.length - start;
+
+		if (isZeroFilled(bytes, start))
+			ModernLogger.log(Level.WARNING, "Data store " + this.file + " ends with " + dropped + " zeros at byte " + start + ", probably from a crash. Dropping them.");
+
+		else {
+			final CRC32 crc = new CRC32();
+
+			// A crash only tears the last write, so a complete record after the bad one means the log is corrupted
+			for (int offset = start + 1; offset < bytes.length; offset++)
+				if (isRecord(bytes, offset, crc))
+					throw new IOException("Data store " + this.file + " has a corrupted record at byte " + start + " followed by a valid record at byte " + offset + "."
+							+ " Refusing to open it so it can be recovered.", cause);
+
+			final Path copy = this.file.resolveSibling(this.file.getFileName() + ".corrupt-" + start);
+
+			try (OutputStream out = Files.newOutputStream(copy)) {
+				out.write(bytes, start, dropped);
+			}
+
+			ModernLogger.log(Level.WARNING, "Data store " + this.file + " ends with an incomplete record at byte " + start + ", probably from a crash."
+					+ " Dropping the last " + dropped + " bytes, copied to " + copy + ".");
+		}
+
+		this.channel.truncate(start);
+	}
+
+	/**
+	 * Checks if a complete record with a matching checksum starts at an offset.
+	 *
+	 * @param bytes  the contents of the log.
+	 * @param offset the offset.
+	 * @param crc    the checksum computed, reset before use.
+	 * @return true if a valid record starts at the offset.
+	 */
+	private static boolean isRecord(byte[] bytes, int offset, CRC32 crc) {
+		final BinaryReader in = new BinaryReader(bytes, offset, bytes.length - offset);
+
+		try {
+			final int bodyLength = in.readVarInt();
+			final int bodyStart = in.getPosition();
+
+			if (bodyLength < KEY_SIZE || bodyLength > in.remaining() - 4)
+				return false;
+
+			in.skip(bodyLength);
+
+			crc.reset();
+			crc.update(bytes, bodyStart, bodyLength);
+
+			return in.readInt() == (int) crc.getValue() && (bytes[bodyStart] == PUT || bytes[bodyStart] == DELETE);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Checks if the bytes from an offset to the end are all zeros.
+	 *
+	 * @param bytes  the bytes.
+	 * @param offset the offset.
+	 * @return true if only zeros follow the offset.
+	 */
+	private static boolean isZeroFilled(byte[] bytes, int offset) {
+		for (int i = offset; i < bytes.length; i++)
+			if (bytes[i] != 0)
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Appends the pending values to the log in a single write.
+	 *
+	 * @throws IOException if the log cannot be written.
+	 */
+	private void append() throws IOException {
+		if (this.pending.isEmpty())
+			return;
+
+		final List<UUID> keys = new ArrayList<>(this.pending.size());
+		final List<byte[]> values = new ArrayList<>(this.pending.size());
+
+		for (Map.Entry<UUID, byte[]> entry : this.pending.entrySet()) {
+			keys.add(entry.getKey());
+			values.add(entry.getValue());
+		}
+
+		final BinaryWriter out = new BinaryWriter(keys.size() * 64);
+		final List<Location> locations = new ArrayList<>(keys.size());
+		final CRC32 crc = new CRC32();
+
+		for (int i = 0; i < keys.size(); i++) {
+			final byte[] value = values.get(i);
+			final byte type = value == TOMBSTONE ? DELETE : PUT;
+			final long start = this.fileSize + out.size();
+
+			out.writeVarInt(KEY_SIZE + value.length);
+
+			final int bodyStart = out.size();
+
+			out.writeByte(type).writeUUID(keys.get(i)).writeRaw(value, 0, value.length);
+
+			crc.reset();
+			crc.update(out.getBuffer(), bodyStart, out.size() - bodyStart);
+			out.writeInt((int) crc.getValue());
+
+			locations.add(type == PUT ? new Location(this.fileSize + bodyStart + KEY_SIZE, value.length, (int) (this.fileSize + out.size() - start)) : null);
+		}
+
+		try {
+			this.writeFully(ByteBuffer.wrap(out.getBuffer(), 0, out.size()), this.fileSize);
+			this.channel.force(false);
+		} catch (IOException e) {
+			// Drop a partial write, so the next flush appends after the last complete record
+			this.channel.truncate(this.fileSize);
+
+			throw e;
+		}
+
+		this.fileSize += out.size();
+
+		long live = this.liveBytes;
+
+		for (int i = 0; i < keys.size(); i++) {
+			final Location location = locations.get(i);
+			final Location previous = location != null ? this.index.put(keys.get(i), location) : this.index.remove(keys.get(i));
+
+			if (previous != null)
+				live -= previous.recordLength;
+
+			if (location != null)
+				live += location.recordLength;
+
+			// Keep values stored again while writing, they are written by the next flush
+			this.pending.remove(keys.get(i), values.get(i));
+		}
+
+		this.liveBytes = live;
+	}
+
+	/**
+	 * Rewrites the log with only the latest values, then replaces it.
+	 *
+	 * @throws IOException if the new log cannot be written.
+	 */
+	private void compact() throws IOException {
+		final Path compacted = this.file.resolveSibling(this.file.getFileName() + ".compact");
+		final FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		final Map<UUID, Location> locations = new HashMap<>(this.index.size() * 2);
+		final BinaryWriter out = new BinaryWriter(COMPACTION_CHUNK_SIZE + 1024);
+		final CRC32 crc = new CRC32();
+		long written = 0;
+
+		try {
+			out.writeInt(MAGIC).writeByte(FORMAT_VERSION);
+
+			// Appends only happen on this thread, so the index and log do not change meanwhile
+			for (Map.Entry<UUID, Location> entry : this.index.entrySet()) {
+				final Location location = entry.getValue();
+				final byte[] value = this.readRecord(location);
+				final int start = out.size();
+
+				out.writeVarInt(KEY_SIZE + value.length);
+
+				final int bodyStart = out.size();
+
+				out.writeByte(PUT).writeUUID(entry.getKey()).writeRaw(value, 0, value.length);
+
+				crc.reset();
+				crc.update(out.getBuffer(), bodyStart, out.size() - bodyStart);
+				out.writeInt((int) crc.getValue());
+
+				locations.put(entry.getKey(), new Location(written + bodyStart + KEY_SIZE, value.length, out.size() - start));
+
+				if (out.size() >= COMPACTION_CHUNK_SIZE) {
+					this.writeFully(target, ByteBuffer.wrap(out.getBuffer(), 0, out.size()), written);
+					written += out.size();
+					out.clear();
+				}
+			}
+
+			this.writeFully(target, ByteBuffer.wrap(out.getBuffer(), 0, out.size()), written);
+			written += out.size();
+			target.force(true);
+		} catch (IOException e) {
+			target.close();
+			Files.deleteIfExists(compacted);
+
+			throw e;
+		}
+
+		final long previousSize = this.fileSize;
+		final FileChannel previous = this.channel;
+
+		this.channelLock.writeLock().lock();
+
+		try {
+			try {
+				Files.move(compacted, this.file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(compacted, this.file, StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			this.channel = target;
+			this.index.putAll(locations);
+			this.fileSize = written;
+			this.liveBytes = written - HEADER_SIZE;
+		} catch (IOException e) {
+			target.close();
+			Files.deleteIfExists(compacted);
+
+			throw e;
+		} finally {
+			this.channelLock.writeLock().unlock();
+		}
+
+		previous.close();
+
+		ModernLogger.log(Level.INFO, "Compacted data store " + this.file.getFileName() + " from " + previousSize + " to " + written + " bytes");
+	}
+
+	/**
+	 * Reads the latest value of a player from the log.
+	 *
+	 * @param uuid the player.
+	 * @return the value, or null if the player has none.
+	 * @throws IOException if the value cannot be read.
+	 */
+	private V read(UUID uuid) throws IOException {
+		final byte[] encoded;
+
+		this.channelLock.readLock().lock();
+
+		try {
+			final Location location = this.index.get(uuid);
+
+			if (location == null)
+				return null;
+
+			encoded = this.readRecord(location);
+		} finally {
+			this.channelLock.readLock().unlock();
+		}
+
+		return this.decode(encoded);
+	}
+
+	/**
+	 * Reads the value of a record from the log, with the channel lock or write lock held.
+	 *
+	 * @param location the position of the value.
+	 * @return the encoded value.
+	 * @throws IOException if the value cannot be read.
+	 */
+	private byte[] readRecord(Location location) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(location.length);
+
+		while (buffer.hasRemaining())
+			if (this.channel.read(buffer, location.offset + buffer.position()) < 0)
+				throw new IOException("Unexpected end of " + this.file + " at byte " + (location.offset + buffer.position()));
+
+		return buffer.array();
+	}
+
+	/**
+	 * Decodes a value.
+	 *
+	 * @param encoded the encoded value.
+	 * @return the value.
+	 * @throws IOException if the bytes are not a valid value.
+	 */
+	private V decode(byte[] encoded) throws IOException {
+		return this.codec.read(new BinaryReader(encoded));
+	}
+
+	/**
+	 * Writes a buffer to the log at the given position.
+	 *
+	 * @param buffer   the bytes.
+	 * @param position the position in the log.
+	 * @throws IOException if the log cannot be written.
+	 */
+	private void writeFully(ByteBuffer buffer, long position) throws IOException {
+		this.writeFully(this.channel, buffer, position);
+	}
+
+	/**
+	 * Writes a buffer to a file at the given position.
+	 *
+	 * @param target   the file.
+	 * @param buffer   the bytes.
+	 * @param position the position in the file.
+	 * @throws IOException if the file cannot be written.
+	 */
+	private void writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining())
+			position += target.write(buffer, position);
+	}
+
+	/**
+	 * Checks the store was not closed.
+	 */
+	private void checkOpen() {
+		Valid.checkBoolean(!this.closed, "Data store %s is closed", this.file);
+	}
+
+	@Override
+	public String toString() {
+		return "PlayerDataStore{" + this.file.getFileName() + ", " + this.index.size() + " stored, " + this.pending.size() + " pending}";
+	}
+
+	/**
+	 * The position of the latest value of a player in the log.
+	 */
+	private static final class Location {
+
+		/**
+		 * The position of the value in the log.
+		 */
+		private final long offset;
+
+		/**
+		 * The length of the value, in bytes.
+		 */
+		private final int length;
+
+		/**
+		 * The length of the whole record, in bytes.
+		 */
+		private final int recordLength;
+
+		private Location(long offset, int length, int recordLength) {
+			this.offset = offset;
+			this.length = length;
+			this.recordLength = recordLength;
+		}
+	}
+}
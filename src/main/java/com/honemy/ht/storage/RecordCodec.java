@@ -0,0 +1,31 @@
+package com.honemy.ht.storage;
+
+import java.io.IOException;
+
+/**
+ * Converts values stored in a {@link PlayerDataStore} to and from bytes.
+ * <p>
+ * To add fields later, append them at the end and read them only while {@link BinaryReader#remaining()} is
+ * above 0, so records written before keep loading.
+ *
+ * @param <V> the type of the values.
+ */
+public interface RecordCodec<V> {
+
+	/**
+	 * Writes a value.
+	 *
+	 * @param out   the writer.
+	 * @param value the value.
+	 */
+	void write(BinaryWriter out, V value);
+
+	/**
+	 * Reads a value written by {@link #write(BinaryWriter, Object)}.
+	 *
+	 * @param in the reader, limited to the bytes of the value.
+	 * @return the value.
+	 * @throws IOException if the bytes are not a valid value.
+	 */
+	V read(BinaryReader in) throws IOException;
+}
@@ -0,0 +1,47 @@
+package com.honemy.ht;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+
+import java.lang.reflect.Proxy;
+import java.util.logging.Logger;
+
+/**
+ * Installs a server answering only the version and logger, for tests of classes logging through
+ * {@link com.honemy.ht.logger.ModernLogger}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TestServer {
+
+	/**
+	 * Installs the server, unless one is already installed.
+	 */
+	public static synchronized void install() {
+		if (Bukkit.getServer() != null)
+			return;
+
+		final Logger logger = Logger.getLogger("TestServer");
+
+		Bukkit.setServer((Server) Proxy.newProxyInstance(TestServer.class.getClassLoader(), new Class<?>[] {Server.class}, (proxy, method, arguments) -> {
+			switch (method.getName()) {
+				case "getLogger":
+					return logger;
+
+				case "getName":
+					return "TestServer";
+
+				case "getVersion":
+				case "getBukkitVersion":
+					return "1.20.6-R0.1-SNAPSHOT";
+
+				case "toString":
+					return "TestServer";
+
+				default:
+					return null;
+			}
+		}));
+	}
+}
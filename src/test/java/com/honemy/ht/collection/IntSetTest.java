@@ -0,0 +1,106 @@
+package com.honemy.ht.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntSetTest {
+
+	@Test
+	void matchesHashSet() {
+		final Random random = new Random(48);
+		final IntSet set = new IntSet();
+		final Set<Integer> expected = new HashSet<>();
+
+		for (int i = 0; i < 200_000; i++) {
+			// Few distinct values around 0, so values collide, are removed and come back often
+			final int value = random.nextInt(10) == 0 ? random.nextInt() : random.nextInt(1000) - 500;
+
+			switch (random.nextInt(3)) {
+				case 0:
+					assertEquals(expected.add(value), set.add(value));
+					break;
+
+				case 1:
+					assertEquals(expected.remove(value), set.remove(value));
+					break;
+
+				default:
+					assertEquals(expected.contains(value), set.contains(value));
+			}
+
+			assertEquals(expected.size(), set.size());
+		}
+
+		assertContainsExactly(expected, set);
+	}
+
+	@Test
+	void keepsCollidingValuesReachableAfterRemovals() {
+		// Values sharing the last slots of a 16 slot table, so their run wraps to the start of the table
+		final List<Integer> values = new ArrayList<>(collidingValues(14, 4));
+
+		values.addAll(collidingValues(15, 2));
+		values.addAll(collidingValues(0, 2));
+
+		for (int removed = 0; removed < values.size(); removed++) {
+			final IntSet set = new IntSet(values.size());
+			final Set<Integer> expected = new HashSet<>(values);
+
+			for (int value : values)
+				set.add(value);
+
+			final int value = values.get(removed);
+
+			assertTrue(set.remove(value));
+			assertFalse(set.remove(value));
+			expected.remove(value);
+			assertContainsExactly(expected, set);
+		}
+	}
+
+	@Test
+	void storesZeroApart() {
+		final IntSet set = new IntSet();
+
+		assertFalse(set.contains(0));
+		assertTrue(set.add(0));
+		assertFalse(set.add(0));
+		assertArrayEquals(new int[] {0}, set.toArray());
+		assertTrue(set.remove(0));
+		assertTrue(set.isEmpty());
+	}
+
+	private static List<Integer> collidingValues(int slot, int count) {
+		final List<Integer> values = new ArrayList<>();
+
+		for (int value = 1; values.size() < count; value++)
+			if ((Hashing.mix(value) & 15) == slot)
+				values.add(value);
+
+		return values;
+	}
+
+	private static void assertContainsExactly(Set<Integer> expected, IntSet set) {
+		assertEquals(expected.size(), set.size());
+
+		for (int value : expected)
+			assertTrue(set.contains(value));
+
+		final int[] array = set.toArray();
+		final Set<Integer> visited = new HashSet<>();
+
+		Arrays.sort(array);
+		set.forEach(visited::add);
+
+		assertArrayEquals(expected.stream().mapToInt(Integer::intValue).sorted().toArray(), array);
+		assertEquals(expected, visited);
+	}
+}
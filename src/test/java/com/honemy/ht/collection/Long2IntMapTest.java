@@ -0,0 +1,112 @@
+package com.honemy.ht.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Long2IntMapTest {
+
+	@Test
+	void matchesHashMap() {
+		final Random random = new Random(48);
+		final Long2IntMap map = new Long2IntMap();
+		final Map<Long, Integer> expected = new HashMap<>();
+
+		map.setDefaultReturnValue(-1);
+
+		for (int i = 0; i < 200_000; i++) {
+			// Few distinct keys around 0, so keys collide, are removed and come back often
+			final long key = random.nextInt(10) == 0 ? random.nextLong() : random.nextInt(1000) - 500;
+
+			switch (random.nextInt(4)) {
+				case 0:
+					assertEquals(orDefault(expected.put(key, i)), map.put(key, i));
+					break;
+
+				case 1:
+					assertEquals(orDefault(expected.remove(key)), map.remove(key));
+					break;
+
+				case 2:
+					final int sum = orDefault(expected.get(key)) + 3;
+
+					expected.put(key, sum);
+					assertEquals(sum, map.addTo(key, 3));
+					break;
+
+				default:
+					assertEquals(orDefault(expected.get(key)), map.get(key));
+			}
+
+			assertEquals(expected.size(), map.size());
+		}
+
+		assertContainsExactly(expected, map);
+	}
+
+	@Test
+	void keepsCollidingKeysReachableAfterRemovals() {
+		final List<Long> keys = new ArrayList<>(Long2ObjectMapTest.collidingKeys(14, 4));
+
+		keys.addAll(Long2ObjectMapTest.collidingKeys(15, 2));
+		keys.addAll(Long2ObjectMapTest.collidingKeys(0, 2));
+
+		for (int removed = 0; removed < keys.size(); removed++) {
+			final Long2IntMap map = new Long2IntMap(keys.size());
+			final Map<Long, Integer> expected = new HashMap<>();
+
+			for (long key : keys) {
+				map.put(key, (int) key);
+				expected.put(key, (int) key);
+			}
+
+			final long key = keys.get(removed);
+
+			assertEquals((int) key, map.remove(key));
+			assertEquals(0, map.remove(key));
+			expected.remove(key);
+			assertContainsExactly(expected, map);
+		}
+	}
+
+	@Test
+	void storesKeyZeroApart() {
+		final Long2IntMap map = new Long2IntMap();
+
+		map.setDefaultReturnValue(-1);
+
+		assertEquals(-1, map.get(0));
+		assertEquals(4, map.addTo(0, 5));
+		assertTrue(map.containsKey(0));
+		assertEquals(1, map.size());
+		assertArrayEquals(new long[] {0}, map.keys());
+		assertEquals(4, map.remove(0));
+		assertEquals(-1, map.remove(0));
+		assertTrue(map.isEmpty());
+	}
+
+	private static int orDefault(Integer value) {
+		return value != null ? value : -1;
+	}
+
+	private static void assertContainsExactly(Map<Long, Integer> expected, Long2IntMap map) {
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected.size(), map.keys().length);
+
+		for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+			assertTrue(map.containsKey(entry.getKey()));
+			assertEquals((int) entry.getValue(), map.get(entry.getKey()));
+		}
+
+		final Map<Long, Integer> visited = new HashMap<>();
+
+		map.forEach(visited::put);
+		assertEquals(expected, visited);
+	}
+}
@@ -0,0 +1,141 @@
+package com.honemy.ht.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Long2ObjectMapTest {
+
+	@Test
+	void matchesHashMap() {
+		final Random random = new Random(48);
+		final Long2ObjectMap<String> map = new Long2ObjectMap<>();
+		final Map<Long, String> expected = new HashMap<>();
+
+		for (int i = 0; i < 200_000; i++) {
+			// Few distinct keys around 0, so keys collide, are removed and come back often
+			final long key = random.nextInt(10) == 0 ? random.nextLong() : random.nextInt(1000) - 500;
+			final String value = String.valueOf(i);
+
+			switch (random.nextInt(4)) {
+				case 0:
+				case 1:
+					assertEquals(expected.put(key, value), map.put(key, value));
+					break;
+
+				case 2:
+					assertEquals(expected.remove(key), map.remove(key));
+					break;
+
+				default:
+					assertEquals(expected.putIfAbsent(key, value), map.putIfAbsent(key, value));
+			}
+
+			assertEquals(expected.size(), map.size());
+		}
+
+		assertContainsExactly(expected, map);
+	}
+
+	@Test
+	void keepsCollidingKeysReachableAfterRemovals() {
+		// Keys sharing the last slots of a 16 slot table, so their run wraps to the start of the table
+		final List<Long> keys = new ArrayList<>(collidingKeys(14, 4));
+
+		keys.addAll(collidingKeys(15, 2));
+		keys.addAll(collidingKeys(0, 2));
+
+		for (int removed = 0; removed < keys.size(); removed++) {
+			final Long2ObjectMap<String> map = new Long2ObjectMap<>(keys.size());
+			final Map<Long, String> expected = new HashMap<>();
+
+			for (long key : keys) {
+				map.put(key, "v" + key);
+				expected.put(key, "v" + key);
+			}
+
+			final long key = keys.get(removed);
+
+			assertEquals("v" + key, map.remove(key));
+			assertNull(map.remove(key));
+			expected.remove(key);
+			assertContainsExactly(expected, map);
+		}
+	}
+
+	@Test
+	void storesKeyZeroApart() {
+		final Long2ObjectMap<String> map = new Long2ObjectMap<>();
+
+		assertNull(map.get(0));
+		assertFalse(map.containsKey(0));
+		assertNull(map.put(0, "zero"));
+		assertEquals("zero", map.get(0));
+		assertEquals(1, map.size());
+		assertArrayEquals(new long[] {0}, map.keys());
+		assertEquals("zero", map.remove(0));
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	void computesMissingValuesOnce() {
+		final Long2ObjectMap<String> map = new Long2ObjectMap<>();
+
+		assertEquals("7", map.computeIfAbsent(7, String::valueOf));
+		assertEquals("7", map.computeIfAbsent(7, key -> "other"));
+		assertNull(map.computeIfAbsent(8, key -> null));
+		assertFalse(map.containsKey(8));
+		assertEquals("default", map.getOrDefault(9, "default"));
+	}
+
+	@Test
+	void growsAndClears() {
+		final Long2ObjectMap<Long> map = new Long2ObjectMap<>(1);
+
+		for (long key = -5000; key < 5000; key++)
+			map.put(key * 31, key);
+
+		assertEquals(10000, map.size());
+
+		for (long key = -5000; key < 5000; key++)
+			assertEquals(Long.valueOf(key), map.get(key * 31));
+
+		map.clear();
+
+		assertTrue(map.isEmpty());
+		assertNull(map.get(31));
+		assertEquals(0, map.keys().length);
+	}
+
+	// Finds keys whose home is the given slot of a 16 slot table
+	static List<Long> collidingKeys(int slot, int count) {
+		final List<Long> keys = new ArrayList<>();
+
+		for (long key = 1; keys.size() < count; key++)
+			if ((Hashing.mix(key) & 15) == slot)
+				keys.add(key);
+
+		return keys;
+	}
+
+	private static void assertContainsExactly(Map<Long, String> expected, Long2ObjectMap<String> map) {
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected.size(), map.keys().length);
+
+		for (Map.Entry<Long, String> entry : expected.entrySet()) {
+			assertTrue(map.containsKey(entry.getKey()));
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+		}
+
+		final Map<Long, String> visited = new HashMap<>();
+
+		map.forEach(visited::put);
+		assertEquals(expected, visited);
+	}
+}
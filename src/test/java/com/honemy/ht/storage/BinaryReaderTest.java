@@ -0,0 +1,110 @@
+package com.honemy.ht.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryReaderTest {
+
+	@Test
+	void readsVarIntsWritten() throws IOException {
+		final int[] values = {0, 1, 127, 128, 300, 16383, 16384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+		final BinaryWriter out = new BinaryWriter();
+
+		for (int value : values)
+			out.writeVarInt(value).writeSignedVarInt(value);
+
+		final BinaryReader in = new BinaryReader(out.toByteArray());
+
+		for (int value : values) {
+			assertEquals(value, in.readVarInt());
+			assertEquals(value, in.readSignedVarInt());
+		}
+
+		assertEquals(0, in.remaining());
+	}
+
+	@Test
+	void readsVarLongsWritten() throws IOException {
+		final long[] values = {0, 1, 127, 128, Integer.MAX_VALUE + 1L, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+		final BinaryWriter out = new BinaryWriter();
+
+		for (long value : values)
+			out.writeVarLong(value).writeSignedVarLong(value);
+
+		final BinaryReader in = new BinaryReader(out.toByteArray());
+
+		for (long value : values) {
+			assertEquals(value, in.readVarLong());
+			assertEquals(value, in.readSignedVarLong());
+		}
+
+		assertEquals(0, in.remaining());
+	}
+
+	@Test
+	void writesVarIntsCompactly() {
+		assertEquals(1, new BinaryWriter().writeVarInt(127).size());
+		assertEquals(2, new BinaryWriter().writeVarInt(128).size());
+		assertEquals(5, new BinaryWriter().writeVarInt(-1).size());
+		assertEquals(1, new BinaryWriter().writeSignedVarInt(-1).size());
+		assertEquals(10, new BinaryWriter().writeVarLong(-1).size());
+		assertEquals(1, new BinaryWriter().writeSignedVarLong(-1).size());
+	}
+
+	@Test
+	void readsValuesWritten() throws IOException {
+		final UUID uuid = UUID.randomUUID();
+		final byte[] bytes = {1, 2, 3};
+		final BinaryWriter out = new BinaryWriter(1)
+				.writeByte(-5)
+				.writeBoolean(true)
+				.writeInt(0xCAFEBABE)
+				.writeLong(Long.MIN_VALUE + 7)
+				.writeDouble(Math.PI)
+				.writeUUID(uuid)
+				.writeString("héllo ✓")
+				.writeString("")
+				.writeBytes(bytes);
+
+		final BinaryReader in = new BinaryReader(out.toByteArray());
+
+		assertEquals(-5, in.readByte());
+		assertTrue(in.readBoolean());
+		assertEquals(0xCAFEBABE, in.readInt());
+		assertEquals(Long.MIN_VALUE + 7, in.readLong());
+		assertEquals(Math.PI, in.readDouble());
+		assertEquals(uuid, in.readUUID());
+		assertEquals("héllo ✓", in.readString());
+		assertEquals("", in.readString());
+		assertArrayEquals(bytes, in.readBytes());
+		assertEquals(0, in.remaining());
+	}
+
+	@Test
+	void readsOnlyItsRange() throws IOException {
+		final byte[] bytes = new BinaryWriter().writeInt(1).writeInt(2).writeInt(3).toByteArray();
+		final BinaryReader in = new BinaryReader(bytes, 4, 4);
+
+		assertEquals(2, in.readInt());
+		assertThrows(EOFException.class, in::readByte);
+	}
+
+	@Test
+	void rejectsTruncatedAndMalformedInput() {
+		final byte[] string = new BinaryWriter().writeString("hello").toByteArray();
+		final byte[] truncated = new byte[string.length - 1];
+
+		System.arraycopy(string, 0, truncated, 0, truncated.length);
+
+		assertThrows(EOFException.class, () -> new BinaryReader(truncated).readString());
+		assertThrows(EOFException.class, () -> new BinaryReader(new byte[3]).readInt());
+		assertThrows(EOFException.class, () -> new BinaryReader(new byte[] {(byte) 0x80}).readVarInt());
+		assertThrows(IOException.class, () -> new BinaryReader(new byte[] {-1, -1, -1, -1, -1, -1}).readVarInt());
+		assertThrows(IOException.class, () -> new BinaryReader(new BinaryWriter().writeVarInt(-1).toByteArray()).readBytes());
+	}
+}
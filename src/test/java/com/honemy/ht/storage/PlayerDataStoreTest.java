@@ -0,0 +1,198 @@
+package com.honemy.ht.storage;
+
+import com.honemy.ht.TestServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayerDataStoreTest {
+
+	private static final RecordCodec<String> CODEC = new RecordCodec<String>() {
+		@Override
+		public void write(BinaryWriter out, String value) {
+			out.writeString(value);
+		}
+
+		@Override
+		public String read(BinaryReader in) throws IOException {
+			return in.readString();
+		}
+	};
+
+	private static final UUID FIRST = new UUID(0, 1);
+	private static final UUID SECOND = new UUID(0, 2);
+	private static final UUID THIRD = new UUID(0, 3);
+
+	private static ScheduledExecutorService scheduler;
+
+	@TempDir
+	Path folder;
+
+	@BeforeAll
+	static void setUp() {
+		TestServer.install();
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+	}
+
+	@AfterAll
+	static void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	void keepsValuesAcrossReopening() throws IOException {
+		final PlayerDataStore<String> store = this.open();
+
+		store.put(FIRST, "first");
+		store.put(SECOND, "second");
+		store.put(FIRST, "first again");
+		store.put(THIRD, "third");
+		store.remove(THIRD);
+		store.close();
+
+		final PlayerDataStore<String> reopened = this.open();
+
+		assertEquals("first again", reopened.get(FIRST));
+		assertEquals("second", reopened.get(SECOND));
+		assertNull(reopened.get(THIRD));
+		assertFalse(reopened.contains(THIRD));
+		reopened.close();
+	}
+
+	@Test
+	void truncatesTornLastRecord() throws IOException {
+		final long size = this.writeThreeValues();
+		final PlayerDataStore<String> store = this.open();
+
+		store.put(new UUID(0, 4), "fourth");
+		store.close();
+
+		// A crash in the middle of the last write
+		final long tornSize = Files.size(this.file()) - 3;
+
+		try (FileChannel channel = FileChannel.open(this.file(), StandardOpenOption.WRITE)) {
+			channel.truncate(tornSize);
+		}
+
+		final PlayerDataStore<String> reopened = this.open();
+
+		this.assertThreeValues(reopened);
+		assertNull(reopened.get(new UUID(0, 4)));
+		assertEquals(size, reopened.getFileSize());
+		assertEquals(tornSize - size, Files.size(this.folder.resolve("test.db.corrupt-" + size)));
+		reopened.close();
+	}
+
+	@Test
+	void truncatesZeroFilledTail() throws IOException {
+		final long size = this.writeThreeValues();
+
+		// A crash after the file grew but before the record was written
+		Files.write(this.file(), new byte[4096], StandardOpenOption.APPEND);
+
+		final PlayerDataStore<String> reopened = this.open();
+
+		this.assertThreeValues(reopened);
+		assertEquals(size, reopened.getFileSize());
+		assertFalse(Files.exists(this.folder.resolve("test.db.corrupt-" + size)));
+		reopened.close();
+	}
+
+	@Test
+	void refusesCorruptedChecksumFollowedByValidRecords() throws IOException {
+		this.writeThreeValues();
+
+		final byte[] bytes = Files.readAllBytes(this.file());
+
+		// Flip a bit in the value of the first record, after its length, marker and UUID
+		bytes[5 + 1 + 17 + 2] ^= 1;
+		Files.write(this.file(), bytes);
+
+		assertThrows(IOException.class, this::open);
+		assertArrayEquals(bytes, Files.readAllBytes(this.file()));
+	}
+
+	@Test
+	void refusesCorruptedLengthFollowedByValidRecords() throws IOException {
+		this.writeThreeValues();
+
+		final byte[] bytes = Files.readAllBytes(this.file());
+
+		// A length running past the end of the file, which also looks like a torn write
+		bytes[5] = 0x7F;
+		Files.write(this.file(), bytes);
+
+		assertThrows(IOException.class, this::open);
+		assertArrayEquals(bytes, Files.readAllBytes(this.file()));
+	}
+
+	@Test
+	void compactsOverwrittenValues() throws IOException {
+		final PlayerDataStore<String> store = this.open();
+		final char[] padding = new char[2000];
+
+		Arrays.fill(padding, 'x');
+
+		for (int round = 0; round < 4; round++) {
+			for (int player = 0; player < 200; player++)
+				store.put(new UUID(1, player), round + new String(padding));
+
+			assertTrue(store.flush());
+		}
+
+		store.remove(new UUID(1, 0));
+		store.close();
+
+		// Four rounds of 400 KB would be 1.6 MB, the third flush compacted the first three
+		assertTrue(store.getFileSize() < 1024 * 1024, "Log was not compacted, size " + store.getFileSize());
+		assertFalse(Files.exists(this.folder.resolve("test.db.compact")));
+
+		final PlayerDataStore<String> reopened = this.open();
+
+		assertNull(reopened.get(new UUID(1, 0)));
+
+		for (int player = 1; player < 200; player++)
+			assertEquals("3" + new String(padding), reopened.get(new UUID(1, player)));
+
+		reopened.close();
+	}
+
+	private long writeThreeValues() throws IOException {
+		final PlayerDataStore<String> store = this.open();
+
+		store.put(FIRST, "first");
+		store.put(SECOND, "second");
+		store.put(THIRD, "third");
+		store.close();
+
+		return Files.size(this.file());
+	}
+
+	private void assertThreeValues(PlayerDataStore<String> store) {
+		assertEquals("first", store.get(FIRST));
+		assertEquals("second", store.get(SECOND));
+		assertEquals("third", store.get(THIRD));
+	}
+
+	private PlayerDataStore<String> open() throws IOException {
+		return new PlayerDataStore<>(this.file(), CODEC, scheduler, Runnable::run, TimeUnit.HOURS.toMillis(1));
+	}
+
+	private Path file() {
+		return this.folder.resolve("test.db");
+	}
+}